@@ -0,0 +1,125 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.contrib.table.components;
+
+import java.io.Serializable;
+import java.util.Iterator;
+
+import org.apache.tapestry.contrib.table.model.ITableColumn;
+import org.apache.tapestry.contrib.table.model.ITableColumnModel;
+import org.apache.tapestry.contrib.table.model.ITableModel;
+import org.apache.tapestry.contrib.table.model.ITableSessionStateManager;
+import org.apache.tapestry.contrib.table.model.ITableSortingState;
+import org.apache.tapestry.contrib.table.model.simple.CompactTableState;
+import org.apache.tapestry.contrib.table.model.simple.SimpleTableState;
+
+/**
+ * Used by the {@link TableView} in place of {@link TableViewSessionStateManager} when its
+ * compactState parameter is set. Rather than a {@link SimpleTableState}, only the current page,
+ * the index of the sort column, the sort order and the hash of the filter parameter are saved,
+ * {@link CompactTableState encoded} as a short string. The table model is regenerated from the
+ * source and columns parameters on each request.
+ * <p>
+ * If the filter has changed since the state was saved, the table returns to its initial page
+ * (keeping the sorting). As with {@link TableViewSessionStateManager}, a model provided via the
+ * tableModel parameter is saved in its entirety.
+ *
+ * @since 4.1.7
+ */
+public class CompactTableSessionStateManager implements ITableSessionStateManager
+{
+    private TableView m_objView;
+
+    public CompactTableSessionStateManager(TableView objView)
+    {
+        m_objView = objView;
+    }
+
+    public Serializable getSessionState(ITableModel objModel)
+    {
+        if (m_objView.getCachedTableModelValue() != null)
+            return (Serializable) objModel;
+
+        ITableSortingState objSortingState = objModel.getSortingState();
+        int nSortColumnIndex = indexOf(objModel.getColumnModel(), objSortingState.getSortColumn());
+
+        CompactTableState objState = new CompactTableState(objModel.getPagingState().getCurrentPage(),
+                nSortColumnIndex, objSortingState.getSortOrder(), m_objView.getFilterHash());
+
+        return objState.encode();
+    }
+
+    public ITableModel recreateTableModel(Serializable objState)
+    {
+        if (objState instanceof ITableModel)
+            return (ITableModel) objState;
+
+        // Anything else (including state saved by another session state manager) is ignored,
+        // and the table starts over from its initial state.
+
+        if (!(objState instanceof String))
+            return null;
+
+        CompactTableState objCompactState = CompactTableState.decode((String) objState);
+        if (objCompactState == null)
+            return null;
+
+        ITableColumnModel objColumnModel = m_objView.getTableColumnModel();
+        if (objColumnModel == null)
+            return null;
+
+        String strSortColumn = nameOf(objColumnModel, objCompactState.getSortColumnIndex());
+        int nCurrentPage = objCompactState.getFilterHash() == m_objView.getFilterHash() ? objCompactState
+                .getCurrentPage() : m_objView.getInitialPage();
+
+        SimpleTableState objSimpleState = new SimpleTableState();
+        objSimpleState.getSortingState().setSortColumn(strSortColumn, objCompactState.getSortOrder());
+        objSimpleState.getPagingState().setCurrentPage(nCurrentPage);
+
+        return m_objView.generateTableModel(objSimpleState);
+    }
+
+    private static int indexOf(ITableColumnModel objColumnModel, String strColumnName)
+    {
+        if (strColumnName == null)
+            return -1;
+
+        int nIndex = 0;
+        for (Iterator it = objColumnModel.getColumns(); it.hasNext(); nIndex++)
+        {
+            ITableColumn objColumn = (ITableColumn) it.next();
+            if (strColumnName.equals(objColumn.getColumnName()))
+                return nIndex;
+        }
+
+        return -1;
+    }
+
+    private static String nameOf(ITableColumnModel objColumnModel, int nColumnIndex)
+    {
+        if (nColumnIndex < 0)
+            return null;
+
+        int nIndex = 0;
+        for (Iterator it = objColumnModel.getColumns(); it.hasNext(); nIndex++)
+        {
+            ITableColumn objColumn = (ITableColumn) it.next();
+            if (nIndex == nColumnIndex)
+                return objColumn.getColumnName();
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,59 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.contrib.table.components;
+
+import org.apache.tapestry.contrib.table.model.ITableColumn;
+import org.apache.tapestry.contrib.table.model.ITableRowLoader;
+
+/**
+ * Application-wide cache of materialized (and sorted) table rows, shared between all users. Rows
+ * are cached under a key supplied by the application (via the cacheKey parameter of the
+ * {@link TableView}), plus the sort column and order. The cache is bounded by the total number of
+ * rows it holds (least recently used entries are discarded first), and entries expire after a
+ * configurable time to live.
+ *
+ * @since 4.1.7
+ */
+public interface TableDataCache
+{
+    /**
+     * Returns the rows cached under the key, sorted by the column (if it is sortable) in the given
+     * order. Missing rows are loaded with the loader. The returned array is shared and must not be
+     * modified.
+     *
+     * @param strCacheKey
+     *            identifies the data
+     * @param objSortColumn
+     *            the column to sort on, or null for the unsorted rows
+     * @param bSortOrder
+     *            the sort order; see
+     *            {@link org.apache.tapestry.contrib.table.model.ITableSortingState}
+     * @param objLoader
+     *            invoked to load the rows if they are not cached
+     */
+    Object[] getRows(String strCacheKey, ITableColumn objSortColumn, boolean bSortOrder,
+            ITableRowLoader objLoader);
+
+    /**
+     * Discards the rows (sorted and unsorted) cached under the key; they will be reloaded when
+     * next requested.
+     */
+    void invalidate(String strCacheKey);
+
+    /**
+     * Discards all cached rows.
+     */
+    void invalidateAll();
+}
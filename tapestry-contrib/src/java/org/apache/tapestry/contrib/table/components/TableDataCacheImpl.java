@@ -0,0 +1,318 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.contrib.table.components;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.tapestry.contrib.table.model.ITableColumn;
+import org.apache.tapestry.contrib.table.model.ITableRowLoader;
+import org.apache.tapestry.contrib.table.model.ITableSortingState;
+import org.apache.tapestry.contrib.table.model.common.ReverseComparator;
+import org.apache.tapestry.event.ReportStatusEvent;
+import org.apache.tapestry.event.ReportStatusListener;
+import org.apache.tapestry.event.ResetEventListener;
+
+/**
+ * Default implementation of {@link TableDataCache}. The unsorted rows are loaded once per key;
+ * each sort column and order is a sorted copy of them. Entries are kept in least recently used
+ * order and discarded once the total number of cached rows exceeds maxRows. Loading and sorting
+ * happen outside of the lock, so two threads missing on the same entry may both load it; rows whose
+ * load started before an invalidation of their key are returned, but not cached.
+ *
+ * @since 4.1.7
+ */
+public class TableDataCacheImpl implements TableDataCache, ResetEventListener,
+        ReportStatusListener
+{
+    private String _serviceId;
+
+    private int _maxRows = 100000;
+
+    private long _timeToLive;
+
+    /** Keyed on {@link Key}, value is {@link Entry}; in access order. */
+    private final Map _entries = new LinkedHashMap(16, 0.75f, true);
+
+    private int _cachedRows;
+
+    /** Incremented by each invalidation. */
+    private long _generation;
+
+    /** The generation of the last {@link #invalidateAll()}. */
+    private long _allInvalidated;
+
+    /**
+     * Keyed on cache key, the generation (as a Long) of its last invalidation; only kept while
+     * loads are in progress.
+     */
+    private final Map _invalidations = new HashMap();
+
+    private int _loading;
+
+    private long _hits;
+
+    private long _misses;
+
+    private long _evictions;
+
+    public Object[] getRows(String strCacheKey, ITableColumn objSortColumn, boolean bSortOrder,
+            ITableRowLoader objLoader)
+    {
+        Comparator comparator = null;
+        String sortColumn = null;
+
+        if (objSortColumn != null && objSortColumn.getSortable())
+            comparator = objSortColumn.getComparator();
+
+        if (comparator != null)
+            sortColumn = objSortColumn.getColumnName();
+        else
+            bSortOrder = false;
+
+        Key key = new Key(strCacheKey, sortColumn, bSortOrder);
+
+        Object[] result = get(key);
+
+        if (result != null)
+            return result;
+
+        long generation = startLoad();
+
+        try
+        {
+            if (sortColumn == null)
+                result = objLoader.loadRows();
+            else
+            {
+                Object[] unsorted = getRows(strCacheKey, null, false, objLoader);
+
+                result = (Object[]) unsorted.clone();
+
+                if (bSortOrder == ITableSortingState.SORT_DESCENDING)
+                    comparator = new ReverseComparator(comparator);
+
+                Arrays.sort(result, comparator);
+            }
+
+            put(key, result, generation);
+        }
+        finally
+        {
+            finishLoad();
+        }
+
+        return result;
+    }
+
+    public synchronized void invalidate(String strCacheKey)
+    {
+        _generation++;
+
+        if (_loading > 0)
+            _invalidations.put(strCacheKey, new Long(_generation));
+
+        Iterator i = _entries.entrySet().iterator();
+
+        while (i.hasNext())
+        {
+            Map.Entry mapEntry = (Map.Entry) i.next();
+            Key key = (Key) mapEntry.getKey();
+
+            if (key._cacheKey.equals(strCacheKey))
+            {
+                _cachedRows -= ((Entry) mapEntry.getValue())._rows.length;
+                i.remove();
+            }
+        }
+    }
+
+    public synchronized void invalidateAll()
+    {
+        _allInvalidated = ++_generation;
+
+        _entries.clear();
+        _cachedRows = 0;
+    }
+
+    public void resetEventDidOccur()
+    {
+        invalidateAll();
+    }
+
+    public synchronized void reportStatus(ReportStatusEvent event)
+    {
+        event.title(_serviceId);
+
+        event.property("cached entries", _entries.size());
+        event.property("cached rows", _cachedRows);
+        event.property("maximum rows", _maxRows);
+        event.property("time to live (ms)", _timeToLive);
+        event.property("hits", _hits);
+        event.property("misses", _misses);
+        event.property("evictions", _evictions);
+    }
+
+    private synchronized Object[] get(Key key)
+    {
+        Entry entry = (Entry) _entries.get(key);
+
+        if (entry != null && _timeToLive > 0 && System.currentTimeMillis() > entry._expires)
+        {
+            _entries.remove(key);
+            _cachedRows -= entry._rows.length;
+            entry = null;
+        }
+
+        if (entry == null)
+        {
+            _misses++;
+            return null;
+        }
+
+        _hits++;
+
+        return entry._rows;
+    }
+
+    /**
+     * Invoked before loading rows; returns the current generation, which is passed to
+     * {@link #put(Key, Object[], long)}.
+     */
+    private synchronized long startLoad()
+    {
+        _loading++;
+
+        return _generation;
+    }
+
+    private synchronized void finishLoad()
+    {
+        if (--_loading == 0)
+            _invalidations.clear();
+    }
+
+    private synchronized void put(Key key, Object[] rows, long generation)
+    {
+        // Too big to cache at all
+
+        if (rows.length > _maxRows)
+            return;
+
+        // The key was invalidated while the rows were loading, so they may be stale.
+
+        if (generation < _allInvalidated)
+            return;
+
+        Long invalidated = (Long) _invalidations.get(key._cacheKey);
+
+        if (invalidated != null && generation < invalidated.longValue())
+            return;
+
+        Entry previous = (Entry) _entries.put(key, new Entry(rows, System.currentTimeMillis()
+                + _timeToLive));
+
+        if (previous != null)
+            _cachedRows -= previous._rows.length;
+
+        _cachedRows += rows.length;
+
+        Iterator i = _entries.values().iterator();
+
+        while (_cachedRows > _maxRows && i.hasNext())
+        {
+            Entry eldest = (Entry) i.next();
+
+            if (eldest._rows == rows)
+                continue;
+
+            _cachedRows -= eldest._rows.length;
+            _evictions++;
+            i.remove();
+        }
+    }
+
+    public void setServiceId(String serviceId)
+    {
+        _serviceId = serviceId;
+    }
+
+    public void setMaxRows(int maxRows)
+    {
+        _maxRows = maxRows;
+    }
+
+    /**
+     * The time, in milliseconds, cached rows remain valid; 0 (the default) for no expiration.
+     */
+    public void setTimeToLive(long timeToLive)
+    {
+        _timeToLive = timeToLive;
+    }
+
+    private static final class Key
+    {
+        private final String _cacheKey;
+
+        private final String _sortColumn;
+
+        private final boolean _sortOrder;
+
+        Key(String cacheKey, String sortColumn, boolean sortOrder)
+        {
+            _cacheKey = cacheKey;
+            _sortColumn = sortColumn;
+            _sortOrder = sortOrder;
+        }
+
+        public int hashCode()
+        {
+            int result = _cacheKey.hashCode();
+
+            if (_sortColumn != null)
+                result = 31 * result + _sortColumn.hashCode();
+
+            return _sortOrder ? ~result : result;
+        }
+
+        public boolean equals(Object other)
+        {
+            if (!(other instanceof Key))
+                return false;
+
+            Key key = (Key) other;
+
+            return _sortOrder == key._sortOrder && _cacheKey.equals(key._cacheKey)
+                    && (_sortColumn == null ? key._sortColumn == null : _sortColumn.equals(key._sortColumn));
+        }
+    }
+
+    private static final class Entry
+    {
+        private final Object[] _rows;
+
+        private final long _expires;
+
+        Entry(Object[] rows, long expires)
+        {
+            _rows = rows;
+            _expires = expires;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.apache.tapestry.IMarkupWriter;
 import org.apache.tapestry.IRequestCycle;
 import org.apache.tapestry.contrib.table.model.*;
 import org.apache.tapestry.contrib.table.model.common.BasicTableModelWrap;
+import org.apache.tapestry.contrib.table.model.common.CachedBasicTableModel;
 import org.apache.tapestry.contrib.table.model.simple.SimpleListTableDataModel;
 import org.apache.tapestry.contrib.table.model.simple.SimpleTableColumnModel;
 import org.apache.tapestry.contrib.table.model.simple.SimpleTableModel;
@@ -120,6 +121,9 @@ public abstract class TableView extends BaseComponent implements
     /** @since 4.0 */
     public abstract IAdvancedTableColumnSource getColumnSource();
 
+    /** @since 4.1.7 */
+    public abstract TableDataCache getTableDataCache();
+
     // enhanced parameter methods
     public abstract ITableModel getTableModelValue();
 
@@ -143,6 +147,15 @@ public abstract class TableView extends BaseComponent implements
 
     public abstract String getPersist();
 
+    /** @since 4.1.7 */
+    public abstract boolean getCompactState();
+
+    /** @since 4.1.7 */
+    public abstract Object getFilter();
+
+    /** @since 4.1.7 */
+    public abstract String getCacheKey();
+
     // enhanced property methods
     public abstract Serializable getSessionState();
 
@@ -252,6 +265,19 @@ public abstract class TableView extends BaseComponent implements
         ITableColumnModel objColumnModel = getTableColumnModel();
         if (objColumnModel == null) return null;
 
+        // if a cache key is provided, serve the rows from the shared cache;
+        // the source is only evaluated when they are not cached
+        String strCacheKey = getCacheKey();
+        if (strCacheKey != null)
+            return new BasicTableModelWrap(new CachedBasicTableModel(
+                    getTableDataCache(), strCacheKey, new ITableRowLoader()
+                    {
+                        public Object[] loadRows()
+                        {
+                            return loadSourceRows();
+                        }
+                    }), objColumnModel, usableObjState);
+
         Object objSourceValue = getSource();
         if (objSourceValue == null) return null;
 
@@ -282,6 +308,33 @@ public abstract class TableView extends BaseComponent implements
         return new SimpleTableModel(objDataModel, objColumnModel, usableObjState);
     }
 
+    /**
+     * Materializes the rows provided by the 'source' parameter, for the
+     * {@link TableDataCache}.
+     * 
+     * @since 4.1.7
+     */
+    protected Object[] loadSourceRows()
+    {
+        Object objSourceValue = getSource();
+        if (objSourceValue == null) return new Object[0];
+
+        if (objSourceValue instanceof Object[])
+            return (Object[]) objSourceValue;
+        if (objSourceValue instanceof Collection)
+            return ((Collection) objSourceValue).toArray();
+        if (objSourceValue instanceof Iterator)
+        {
+            List objRows = new ArrayList();
+            for (Iterator it = (Iterator) objSourceValue; it.hasNext();)
+                objRows.add(it.next());
+            return objRows.toArray();
+        }
+
+        throw new ApplicationRuntimeException(TableMessages.invalidTableSource(
+                this, objSourceValue));
+    }
+
     /**
      * Returns the table column model as specified by the 'columns' binding. If
      * the value of the 'columns' binding is of a type different than
@@ -380,11 +433,33 @@ public abstract class TableView extends BaseComponent implements
     public ITableSessionStateManager getDefaultTableSessionStateManager()
     {
         if (m_objDefaultSessionStateManager == null)
-            m_objDefaultSessionStateManager = new TableViewSessionStateManager(
-                    this);
+        {
+            if (getCompactState())
+                m_objDefaultSessionStateManager = new CompactTableSessionStateManager(
+                        this);
+            else
+                m_objDefaultSessionStateManager = new TableViewSessionStateManager(
+                        this);
+        }
         return m_objDefaultSessionStateManager;
     }
 
+    /**
+     * Returns the hash of the value of the filter parameter, or 0 if it is not
+     * bound. The filter's {@link Object#hashCode()} is used, so the filter must
+     * be a value (such as a String or a number) or implement hashCode() and
+     * equals() based on its contents; a filter that keeps the identity hash
+     * appears to change on every request, and a compact state table then
+     * always returns to its initial page.
+     * 
+     * @since 4.1.7
+     */
+    public int getFilterHash()
+    {
+        Object objFilter = getFilter();
+        return objFilter == null ? 0 : objFilter.hashCode();
+    }
+
     /**
      * Invoked when there is a modification of the table state and it needs to
      * be saved.
@@ -0,0 +1,30 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.contrib.table.model;
+
+/**
+ * Materializes the rows of a table when they are not found in the
+ * {@link org.apache.tapestry.contrib.table.components.TableDataCache}.
+ *
+ * @since 4.1.7
+ */
+public interface ITableRowLoader
+{
+    /**
+     * Returns all of the rows of the table, unsorted. The returned array is retained (and sorted
+     * copies of it are made) by the cache, so it must not be modified afterwards.
+     */
+    Object[] loadRows();
+}
@@ -0,0 +1,59 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.contrib.table.model.common;
+
+import java.util.Iterator;
+
+import org.apache.tapestry.contrib.table.components.TableDataCache;
+import org.apache.tapestry.contrib.table.model.IBasicTableModel;
+import org.apache.tapestry.contrib.table.model.ITableColumn;
+import org.apache.tapestry.contrib.table.model.ITableRowLoader;
+
+/**
+ * An {@link IBasicTableModel} serving its rows from a {@link TableDataCache}. Pages are iterated
+ * directly over the shared, cached arrays; nothing is copied.
+ *
+ * @since 4.1.7
+ */
+public class CachedBasicTableModel implements IBasicTableModel
+{
+    private final TableDataCache m_objCache;
+
+    private final String m_strCacheKey;
+
+    private final ITableRowLoader m_objLoader;
+
+    public CachedBasicTableModel(TableDataCache objCache, String strCacheKey,
+            ITableRowLoader objLoader)
+    {
+        m_objCache = objCache;
+        m_strCacheKey = strCacheKey;
+        m_objLoader = objLoader;
+    }
+
+    public int getRowCount()
+    {
+        return m_objCache.getRows(m_strCacheKey, null, false, m_objLoader).length;
+    }
+
+    public Iterator getCurrentPageRows(int nFirst, int nPageSize, ITableColumn objSortColumn,
+            boolean bSortOrder)
+    {
+        Object[] arrRows = m_objCache.getRows(m_strCacheKey, objSortColumn, bSortOrder,
+                m_objLoader);
+
+        return new ArrayIterator(arrRows, nFirst, nFirst + nPageSize);
+    }
+}
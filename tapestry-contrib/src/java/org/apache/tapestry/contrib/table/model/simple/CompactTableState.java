@@ -0,0 +1,153 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.contrib.table.model.simple;
+
+/**
+ * The state of a table reduced to the current page, the index of the sort column within the
+ * column model, the sort order and a hash of the filter applied to the data. The state is
+ * persisted as a short, versioned string (i.e., <code>1.3.2d.-1x9k</code>) rather than as a
+ * serialized object graph, so it is cheap to keep in the session and to send to the client.
+ *
+ * @since 4.1.7
+ */
+public class CompactTableState
+{
+    /**
+     * The version of the encoding; state encoded by another version is ignored.
+     */
+    public static final int VERSION = 1;
+
+    private static final int RADIX = 36;
+
+    private final int m_nCurrentPage;
+
+    private final int m_nSortColumnIndex;
+
+    private final boolean m_bSortOrder;
+
+    private final int m_nFilterHash;
+
+    /**
+     * @param nCurrentPage
+     *            the current page
+     * @param nSortColumnIndex
+     *            the index of the sort column, or -1 if the table is not sorted
+     * @param bSortOrder
+     *            the sort order, see {@link org.apache.tapestry.contrib.table.model.ITableSortingState}
+     * @param nFilterHash
+     *            the hash of the filter applied to the table data
+     */
+    public CompactTableState(int nCurrentPage, int nSortColumnIndex, boolean bSortOrder, int nFilterHash)
+    {
+        m_nCurrentPage = nCurrentPage;
+        m_nSortColumnIndex = nSortColumnIndex;
+        m_bSortOrder = bSortOrder;
+        m_nFilterHash = nFilterHash;
+    }
+
+    public int getCurrentPage()
+    {
+        return m_nCurrentPage;
+    }
+
+    public int getSortColumnIndex()
+    {
+        return m_nSortColumnIndex;
+    }
+
+    public boolean getSortOrder()
+    {
+        return m_bSortOrder;
+    }
+
+    public int getFilterHash()
+    {
+        return m_nFilterHash;
+    }
+
+    /**
+     * Encodes the state as version, page, sort column index and order (<code>a</code> or
+     * <code>d</code>; both omitted if unsorted) and filter hash, in base 36, separated by periods.
+     */
+    public String encode()
+    {
+        StringBuffer buf = new StringBuffer(24);
+
+        buf.append(Integer.toString(VERSION, RADIX));
+        buf.append('.');
+        buf.append(Integer.toString(m_nCurrentPage, RADIX));
+        buf.append('.');
+
+        if (m_nSortColumnIndex >= 0)
+        {
+            buf.append(Integer.toString(m_nSortColumnIndex, RADIX));
+            buf.append(m_bSortOrder ? 'd' : 'a');
+        }
+
+        buf.append('.');
+        buf.append(Integer.toString(m_nFilterHash, RADIX));
+
+        return buf.toString();
+    }
+
+    /**
+     * Decodes a state previously {@link #encode() encoded}.
+     *
+     * @return the decoded state, or null if the state was encoded by a different version or is
+     *         malformed (for instance, tampered with by the client); the table then starts over
+     *         from its initial state
+     */
+    public static CompactTableState decode(String strState)
+    {
+        if (strState == null)
+            return null;
+
+        String[] arrParts = strState.split("\\.", -1);
+
+        try
+        {
+            if (arrParts.length != 4 || Integer.parseInt(arrParts[0], RADIX) != VERSION)
+                return null;
+
+            int nCurrentPage = Integer.parseInt(arrParts[1], RADIX);
+            int nSortColumnIndex = -1;
+            boolean bSortOrder = false;
+
+            String strSort = arrParts[2];
+
+            if (strSort.length() > 0)
+            {
+                char chOrder = strSort.charAt(strSort.length() - 1);
+
+                if (chOrder != 'a' && chOrder != 'd')
+                    return null;
+
+                nSortColumnIndex = Integer.parseInt(strSort.substring(0, strSort.length() - 1), RADIX);
+                bSortOrder = chOrder == 'd';
+            }
+
+            int nFilterHash = Integer.parseInt(arrParts[3], RADIX);
+
+            if (nCurrentPage < 0 || nSortColumnIndex < -1)
+                return null;
+
+            return new CompactTableState(nCurrentPage, nSortColumnIndex, bSortOrder, nFilterHash);
+        }
+        catch (NumberFormatException ex)
+        {
+            return null;
+        }
+    }
+}
@@ -18,6 +18,7 @@ import org.apache.tapestry.BaseComponent;
 import org.apache.tapestry.IMarkupWriter;
 import org.apache.tapestry.IRequestCycle;
 import org.apache.tapestry.event.PageDetachListener;
+import org.apache.tapestry.contrib.tree.model.ILazyTreeDataModel;
 import org.apache.tapestry.contrib.tree.model.ITreeDataModel;
 import org.apache.tapestry.contrib.tree.model.ITreeModel;
 import org.apache.tapestry.contrib.tree.model.ITreeRowSource;
@@ -35,6 +36,12 @@ public abstract class TreeDataView extends BaseComponent implements
     private TreeRowObject m_objTreeRowObject = null;
 
     private int m_nTreeDeep = -1;
+
+    /** Index of the next row to be walked. */
+    private int m_nRowIndex = 0;
+
+    /** Set once the last row of the render window has been rendered. */
+    private boolean m_bWindowFilled = false;
     
     public abstract TreeView getTreeView();
 
@@ -48,6 +55,8 @@ public abstract class TreeDataView extends BaseComponent implements
     {
         m_objTreeRowObject = null;
         m_nTreeDeep = -1;
+        m_nRowIndex = 0;
+        m_bWindowFilled = false;
     }
 
     public void pageDetached(PageEvent event) {
@@ -66,6 +75,9 @@ public abstract class TreeDataView extends BaseComponent implements
 
         Object objRoot = objTreeDataModel.getRoot();
         Object objRootUID = objTreeDataModel.getUniqueKey(objRoot, null);
+
+        m_nRowIndex = 0;
+        m_bWindowFilled = false;
         
         if (getShowRootNode()) {
 
@@ -75,22 +87,20 @@ public abstract class TreeDataView extends BaseComponent implements
 
             boolean bFirst = true;
 
-            int nChildenCount = objTreeModel.getTreeDataModel().getChildCount(objRoot);
-            int nRowPossiotionType = nChildenCount == 1 ? TreeRowObject.FIRST_LAST_ROW : TreeRowObject.FIRST_ROW;
-
-            for (Iterator iter = objTreeModel.getTreeDataModel().getChildren(objRoot); iter.hasNext();)
+            for (Iterator iter = objTreeDataModel.getChildren(objRoot); iter.hasNext() && !m_bWindowFilled;)
             {
                 Object objChild = iter.next();
-                Object objChildUID = objTreeModel.getTreeDataModel().getUniqueKey(objChild, objRoot);
+                Object objChildUID = objTreeDataModel.getUniqueKey(objChild, objRoot);
 
                 boolean bChildLast = !iter.hasNext();
-                if (!bFirst) {
+                int nRowPossiotionType;
 
-                    if (bChildLast)
-                        nRowPossiotionType = TreeRowObject.LAST_ROW;
-                    else
-                        nRowPossiotionType = TreeRowObject.MIDDLE_ROW;
-                }
+                if (bFirst)
+                    nRowPossiotionType = bChildLast ? TreeRowObject.FIRST_LAST_ROW : TreeRowObject.FIRST_ROW;
+                else if (bChildLast)
+                    nRowPossiotionType = TreeRowObject.LAST_ROW;
+                else
+                    nRowPossiotionType = TreeRowObject.MIDDLE_ROW;
 
                 walkTree(objChild, objChildUID, 0, objTreeModel, writer, cycle,
                          nRowPossiotionType, new int[0], bChildLast);
@@ -108,13 +118,28 @@ public abstract class TreeDataView extends BaseComponent implements
     {
         int rowPositionType = nRowPossiotionType;
         m_nTreeDeep = nDepth;
-        int nNumberOfChildren = objTreeModel.getTreeDataModel().getChildCount(
-                objParent);
-        boolean bLeaf = (nNumberOfChildren == 0) ? true : false;
-        m_objTreeRowObject = new TreeRowObject(objParent, objParentUID, nDepth,
-                                               bLeaf, rowPositionType, arrConnectImages);
+        ITreeDataModel objTreeDataModel = objTreeModel.getTreeDataModel();
+        boolean bLeaf;
+        if (objTreeDataModel instanceof ILazyTreeDataModel)
+            bLeaf = !((ILazyTreeDataModel) objTreeDataModel).hasChildren(objParent);
+        else
+            bLeaf = objTreeDataModel.getChildCount(objParent) == 0;
+
+        int nRowIndex = m_nRowIndex++;
+        int nWindowStart = getWindowStart();
+        int nWindowSize = getWindowSize();
 
-        super.renderComponent(writer, cycle);
+        if (nRowIndex >= nWindowStart) {
+            m_objTreeRowObject = new TreeRowObject(objParent, objParentUID, nDepth,
+                                                   bLeaf, rowPositionType, arrConnectImages);
+
+            super.renderComponent(writer, cycle);
+
+            if (nWindowSize > 0 && nRowIndex + 1 >= nWindowStart + nWindowSize) {
+                m_bWindowFilled = true;
+                return;
+            }
+        }
 
         boolean bContain = objTreeModel.getTreeStateModel()
                 .isUniqueKeyExpanded(objParentUID);
@@ -127,7 +152,7 @@ public abstract class TreeDataView extends BaseComponent implements
             else arrConnectImagesNew[arrConnectImagesNew.length - 1] = TreeRowObject.LINE_CONN_IMG;
 
             for (Iterator iter = objTreeModel.getTreeDataModel().getChildren(
-                    objParent); iter.hasNext();) {
+                    objParent); iter.hasNext() && !m_bWindowFilled;) {
                 Object objChild = iter.next();
                 Object objChildUID = objTreeModel.getTreeDataModel()
                         .getUniqueKey(objChild, objParentUID);
@@ -167,4 +192,24 @@ public abstract class TreeDataView extends BaseComponent implements
 
     public abstract boolean getShowRootNode();
 
+    /**
+     * The index of the first (visible) row to render; rows before it are walked but not rendered.
+     */
+    public abstract int getWindowStart();
+
+    /**
+     * The maximum number of rows to render, or 0 to render every visible row. The walk of the
+     * tree stops once the window is filled.
+     */
+    public abstract int getWindowSize();
+
+    /**
+     * Returns true if the last render stopped because the window was filled, i.e., there may be
+     * further rows after the window.
+     */
+    public boolean isWindowFilled()
+    {
+        return m_bWindowFilled;
+    }
+
 }
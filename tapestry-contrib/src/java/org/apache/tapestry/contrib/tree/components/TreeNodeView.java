@@ -34,6 +34,9 @@ import org.apache.tapestry.event.PageEvent;
 import org.apache.tapestry.spec.ComponentSpecification;
 import org.apache.tapestry.util.ComponentAddress;
 
+import java.util.Collection;
+import java.util.Collections;
+
 /**
  * @author tsveltin?
  */
@@ -103,6 +106,30 @@ public abstract class TreeNodeView extends BaseComponent implements
                 objModelSourceAddress };
     }
 
+    /**
+     * Returns true if the enclosing {@link TreeView} expands and collapses
+     * nodes asynchronously.
+     */
+    public boolean isAsyncUpdate()
+    {
+        ITreeModelSource objModelSource = getTreeModelSource();
+        return objModelSource instanceof TreeView
+                && ((TreeView) objModelSource).isAsync();
+    }
+
+    /**
+     * The components to update when a node is expanded or collapsed
+     * asynchronously: just the enclosing tree, whose newly expanded nodes
+     * have their children loaded as it is re-rendered.
+     */
+    public Collection getUpdateComponents()
+    {
+        if (!isAsyncUpdate()) return null;
+
+        return Collections.singletonList(((TreeView) getTreeModelSource())
+                .getTreeClientId());
+    }
+
     /**
      * Called when a node in the tree is clicked by the user. If the node is
      * expanded, it will be collapsed, and vice-versa, that is, the tree state
@@ -335,6 +335,21 @@ public abstract class TreeView extends BaseComponent implements
         m_objTreeSessionState = treeSessionState;
     }
 
+    /**
+     * If true, nodes are expanded, collapsed and selected via XHR requests
+     * that only re-render the tree itself.
+     */
+    public abstract boolean isAsync();
+
+    /**
+     * Returns the client id of the element enclosing the tree; the element
+     * re-rendered by asynchronous requests.
+     */
+    public String getTreeClientId()
+    {
+        return getComponent("any").getClientId();
+    }
+
     public String getSelectedNodeStyleID()
     {
         return getId() + ":selected";
@@ -0,0 +1,35 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.contrib.tree.model;
+
+/**
+ * Extension of {@link ITreeDataModel} for models whose children are expensive to load (from a
+ * database, a remote service, etc.). The {@link org.apache.tapestry.contrib.tree.components.TreeDataView}
+ * only asks such a model whether a node has children in order to decide how to render it, and
+ * only loads the children ({@link #getChildren(Object)}) of the nodes that are expanded.
+ *
+ * @since 4.1.7
+ */
+public interface ILazyTreeDataModel extends ITreeDataModel
+{
+    /**
+     * Returns true if the node has (or may have) children. Implementations should answer this
+     * without loading the children themselves.
+     *
+     * @param objParent
+     *            the node object
+     */
+    boolean hasChildren(Object objParent);
+}
@@ -0,0 +1,249 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.contrib.tree.simple;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.tapestry.contrib.tree.model.ITreeStateModel;
+
+/**
+ * An {@link ITreeStateModel} that stores expanded numeric keys ({@link Long}s, such as those of a
+ * {@link LazyTreeDataModel}) as a sorted array of id ranges, rather than as a set of objects.
+ * Trees whose nodes are numbered depth-first, or which are expanded a level at a time, collapse
+ * to a handful of ranges, which keeps the state small when it is stored in the session. Other
+ * keys are kept in an ordinary set, as with {@link SimpleTreeStateModel}.
+ *
+ * @since 4.1.7
+ */
+public class CompactTreeStateModel implements ITreeStateModel, Serializable
+{
+    private static final long serialVersionUID = 4315270935619211394L;
+
+    /**
+     * Pairs of (inclusive) start and end ids, sorted, non-overlapping and non-adjacent.
+     */
+    private long[] m_arrRanges;
+
+    private int m_nRangeCount;
+
+    private Set m_setOtherExpanded;
+
+    private Object m_objSelectedNodeUID;
+
+    public CompactTreeStateModel()
+    {
+        initialize();
+    }
+
+    private void initialize()
+    {
+        m_arrRanges = new long[8];
+        m_nRangeCount = 0;
+        m_setOtherExpanded = null;
+        m_objSelectedNodeUID = null;
+    }
+
+    /**
+     * Returns a copy of the expanded keys; numeric keys are expanded from their ranges.
+     */
+    public Set getExpandSelection()
+    {
+        Set result = new HashSet();
+
+        for (int i = 0; i < m_nRangeCount; i++)
+        {
+            for (long id = m_arrRanges[2 * i]; id <= m_arrRanges[2 * i + 1]; id++)
+                result.add(new Long(id));
+        }
+
+        if (m_setOtherExpanded != null)
+            result.addAll(m_setOtherExpanded);
+
+        return result;
+    }
+
+    /**
+     * Returns the number of ranges currently used to store the expanded numeric keys.
+     */
+    public int getRangeCount()
+    {
+        return m_nRangeCount;
+    }
+
+    public Object getSelectedNode()
+    {
+        return m_objSelectedNodeUID;
+    }
+
+    public void setSelectedNode(Object objUniqueKey)
+    {
+        m_objSelectedNodeUID = objUniqueKey;
+    }
+
+    public void expand(Object objUniqueKey)
+    {
+        if (isNumeric(objUniqueKey))
+        {
+            add(((Number) objUniqueKey).longValue());
+            return;
+        }
+
+        if (m_setOtherExpanded == null)
+            m_setOtherExpanded = new HashSet();
+
+        m_setOtherExpanded.add(objUniqueKey);
+    }
+
+    public void expandPath(Object objUniqueKey)
+    {
+        expand(objUniqueKey);
+    }
+
+    public void collapse(Object objUniqueKey)
+    {
+        if (isNumeric(objUniqueKey))
+        {
+            remove(((Number) objUniqueKey).longValue());
+            return;
+        }
+
+        if (m_setOtherExpanded != null)
+            m_setOtherExpanded.remove(objUniqueKey);
+    }
+
+    public void collapsePath(Object objUniqueKey)
+    {
+        collapse(objUniqueKey);
+    }
+
+    public boolean isUniqueKeyExpanded(Object objUniqueKey)
+    {
+        if (isNumeric(objUniqueKey))
+            return find(((Number) objUniqueKey).longValue()) >= 0;
+
+        return m_setOtherExpanded != null && m_setOtherExpanded.contains(objUniqueKey);
+    }
+
+    public void resetState()
+    {
+        initialize();
+    }
+
+    private static boolean isNumeric(Object objUniqueKey)
+    {
+        return objUniqueKey instanceof Long;
+    }
+
+    /**
+     * Returns the index of the range containing the id or, if no range contains it,
+     * <code>-(insertion index) - 1</code>, where the insertion index is the index of the first
+     * range that starts after the id.
+     */
+    private int find(long id)
+    {
+        int low = 0;
+        int high = m_nRangeCount - 1;
+
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if (m_arrRanges[2 * mid + 1] < id)
+                low = mid + 1;
+            else if (m_arrRanges[2 * mid] > id)
+                high = mid - 1;
+            else
+                return mid;
+        }
+
+        return -low - 1;
+    }
+
+    private void add(long id)
+    {
+        int index = find(id);
+
+        if (index >= 0)
+            return;
+
+        index = -index - 1;
+
+        boolean extendsPrevious = index > 0 && m_arrRanges[2 * index - 1] == id - 1;
+        boolean extendsNext = index < m_nRangeCount && m_arrRanges[2 * index] == id + 1;
+
+        if (extendsPrevious && extendsNext)
+        {
+            // Bridges the gap between two ranges: merge them
+
+            m_arrRanges[2 * index - 1] = m_arrRanges[2 * index + 1];
+            removeRange(index);
+        }
+        else if (extendsPrevious)
+            m_arrRanges[2 * index - 1] = id;
+        else if (extendsNext)
+            m_arrRanges[2 * index] = id;
+        else
+            insertRange(index, id, id);
+    }
+
+    private void remove(long id)
+    {
+        int index = find(id);
+
+        if (index < 0)
+            return;
+
+        long start = m_arrRanges[2 * index];
+        long end = m_arrRanges[2 * index + 1];
+
+        if (start == end)
+            removeRange(index);
+        else if (start == id)
+            m_arrRanges[2 * index] = id + 1;
+        else if (end == id)
+            m_arrRanges[2 * index + 1] = id - 1;
+        else
+        {
+            // Split the range in two
+
+            m_arrRanges[2 * index + 1] = id - 1;
+            insertRange(index + 1, id + 1, end);
+        }
+    }
+
+    private void insertRange(int index, long start, long end)
+    {
+        if (2 * (m_nRangeCount + 1) > m_arrRanges.length)
+        {
+            long[] arrNew = new long[m_arrRanges.length * 2];
+            System.arraycopy(m_arrRanges, 0, arrNew, 0, 2 * m_nRangeCount);
+            m_arrRanges = arrNew;
+        }
+
+        System.arraycopy(m_arrRanges, 2 * index, m_arrRanges, 2 * index + 2, 2 * (m_nRangeCount - index));
+
+        m_arrRanges[2 * index] = start;
+        m_arrRanges[2 * index + 1] = end;
+        m_nRangeCount++;
+    }
+
+    private void removeRange(int index)
+    {
+        System.arraycopy(m_arrRanges, 2 * index + 2, m_arrRanges, 2 * index, 2 * (m_nRangeCount - index - 1));
+        m_nRangeCount--;
+    }
+}
@@ -0,0 +1,129 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.contrib.tree.simple;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.tapestry.contrib.tree.model.ILazyTreeDataModel;
+
+/**
+ * Base class for lazily loaded tree data models whose nodes are identified by a numeric id. The
+ * unique key of each node is its id (as a {@link Long}), independent of its position in the tree,
+ * so the keys kept in the session (and in the links rendered for each node) stay small, and the
+ * model itself holds no nodes: they are re-loaded by id as needed. This pairs well with
+ * {@link CompactTreeStateModel}.
+ * <p>
+ * Subclasses load nodes and children on demand; children are only loaded for nodes that are
+ * actually expanded.
+ *
+ * @since 4.1.7
+ */
+public abstract class LazyTreeDataModel implements ILazyTreeDataModel, Serializable
+{
+    /**
+     * Returned by {@link #getParentNodeId(long)} for the root node.
+     */
+    public static final long NO_NODE = -1;
+
+    private static final long serialVersionUID = -3302937216426218530L;
+
+    /**
+     * Returns the id of the root node.
+     */
+    protected abstract long getRootNodeId();
+
+    /**
+     * Loads the node with the given id, or returns null if it no longer exists.
+     */
+    protected abstract Object loadNode(long nodeId);
+
+    /**
+     * Returns the id of a node previously returned by {@link #loadNode(long)} or
+     * {@link #loadChildren(Object)}.
+     */
+    protected abstract long getNodeId(Object objNode);
+
+    /**
+     * Returns the id of the parent of the identified node, or {@link #NO_NODE} for the root.
+     */
+    protected abstract long getParentNodeId(long nodeId);
+
+    /**
+     * Loads the children of a node, in display order.
+     */
+    protected abstract List loadChildren(Object objParent);
+
+    public Object getRoot()
+    {
+        return loadNode(getRootNodeId());
+    }
+
+    public int getChildCount(Object objParent)
+    {
+        return loadChildren(objParent).size();
+    }
+
+    public Iterator getChildren(Object objParent)
+    {
+        return loadChildren(objParent).iterator();
+    }
+
+    public Object getObject(Object objUniqueKey)
+    {
+        if (objUniqueKey == null)
+            return null;
+
+        return loadNode(toNodeId(objUniqueKey));
+    }
+
+    public Object getUniqueKey(Object objTarget, Object objParentUniqueKey)
+    {
+        return new Long(getNodeId(objTarget));
+    }
+
+    public Object getParentUniqueKey(Object objChildUniqueKey)
+    {
+        long parentId = getParentNodeId(toNodeId(objChildUniqueKey));
+
+        return parentId == NO_NODE ? null : new Long(parentId);
+    }
+
+    /**
+     * Walks up the parent ids of the target; as with {@link SimpleTreeDataModel}, a node is
+     * considered to be its own ancestor.
+     */
+    public boolean isAncestorOf(Object objTargetUniqueKey, Object objParentUniqueKey)
+    {
+        long parentId = toNodeId(objParentUniqueKey);
+        long nodeId = toNodeId(objTargetUniqueKey);
+
+        while (nodeId != NO_NODE)
+        {
+            if (nodeId == parentId)
+                return true;
+
+            nodeId = getParentNodeId(nodeId);
+        }
+
+        return false;
+    }
+
+    protected long toNodeId(Object objUniqueKey)
+    {
+        return ((Number) objUniqueKey).longValue();
+    }
+}
@@ -0,0 +1,233 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.contrib.table.components;
+
+import java.util.Iterator;
+
+import org.apache.tapestry.contrib.table.model.ITableColumn;
+import org.apache.tapestry.contrib.table.model.ITableRowLoader;
+import org.apache.tapestry.contrib.table.model.common.CachedBasicTableModel;
+import org.apache.tapestry.contrib.table.model.simple.SimpleTableColumn;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests for {@link TableDataCacheImpl} and
+ * {@link org.apache.tapestry.contrib.table.model.common.CachedBasicTableModel}.
+ */
+@Test
+public class TestTableDataCache
+{
+    private static class CountingLoader implements ITableRowLoader
+    {
+        private final Object[] _rows;
+
+        private int _loads;
+
+        CountingLoader(Object[] rows)
+        {
+            _rows = rows;
+        }
+
+        public Object[] loadRows()
+        {
+            _loads++;
+            return _rows;
+        }
+    }
+
+    private ITableColumn newColumn()
+    {
+        return new SimpleTableColumn("value", true)
+        {
+            public Object getColumnValue(Object row)
+            {
+                return row;
+            }
+        };
+    }
+
+    public void test_Rows_Loaded_Once_And_Sorted_Per_Order()
+    {
+        TableDataCacheImpl cache = new TableDataCacheImpl();
+        CountingLoader loader = new CountingLoader(new Object[] { "b", "c", "a" });
+        ITableColumn column = newColumn();
+
+        Object[] unsorted = cache.getRows("letters", null, false, loader);
+        Object[] ascending = cache.getRows("letters", column, false, loader);
+        Object[] descending = cache.getRows("letters", column, true, loader);
+
+        assertEquals(unsorted, new Object[] { "b", "c", "a" });
+        assertEquals(ascending, new Object[] { "a", "b", "c" });
+        assertEquals(descending, new Object[] { "c", "b", "a" });
+
+        assertSame(cache.getRows("letters", column, false, loader), ascending);
+        assertEquals(loader._loads, 1);
+    }
+
+    public void test_Invalidate()
+    {
+        TableDataCacheImpl cache = new TableDataCacheImpl();
+        CountingLoader loader = new CountingLoader(new Object[] { "x" });
+        ITableColumn column = newColumn();
+
+        cache.getRows("a", column, false, loader);
+        cache.getRows("b", null, false, loader);
+
+        cache.invalidate("a");
+
+        cache.getRows("b", null, false, loader);
+        assertEquals(loader._loads, 2);
+
+        cache.getRows("a", column, false, loader);
+        assertEquals(loader._loads, 3);
+
+        cache.invalidateAll();
+
+        cache.getRows("b", null, false, loader);
+        assertEquals(loader._loads, 4);
+    }
+
+    public void test_Rows_Loaded_Before_Invalidation_Not_Cached()
+    {
+        final TableDataCacheImpl cache = new TableDataCacheImpl();
+        ITableColumn column = newColumn();
+
+        // Invalidates the key while its rows are being loaded, as another thread might.
+
+        CountingLoader loader = new CountingLoader(new Object[] { "x" })
+        {
+            private boolean _invalidated;
+
+            public Object[] loadRows()
+            {
+                Object[] result = super.loadRows();
+
+                if (!_invalidated)
+                {
+                    _invalidated = true;
+                    cache.invalidate("a");
+                }
+
+                return result;
+            }
+        };
+
+        cache.getRows("a", column, false, loader);
+        cache.getRows("a", column, false, loader);
+
+        assertEquals(loader._loads, 2);
+
+        cache.getRows("a", column, false, loader);
+
+        assertEquals(loader._loads, 2);
+    }
+
+    public void test_Rows_Loaded_Before_Invalidate_All_Not_Cached()
+    {
+        final TableDataCacheImpl cache = new TableDataCacheImpl();
+
+        CountingLoader loader = new CountingLoader(new Object[] { "x" })
+        {
+            private boolean _invalidated;
+
+            public Object[] loadRows()
+            {
+                Object[] result = super.loadRows();
+
+                if (!_invalidated)
+                {
+                    _invalidated = true;
+                    cache.invalidateAll();
+                }
+
+                return result;
+            }
+        };
+
+        cache.getRows("a", null, false, loader);
+        cache.getRows("a", null, false, loader);
+        cache.getRows("a", null, false, loader);
+
+        assertEquals(loader._loads, 2);
+    }
+
+    public void test_Bounded_By_Row_Count()
+    {
+        TableDataCacheImpl cache = new TableDataCacheImpl();
+        cache.setMaxRows(5);
+
+        CountingLoader first = new CountingLoader(new Object[] { "1", "2", "3" });
+        CountingLoader second = new CountingLoader(new Object[] { "4", "5", "6" });
+
+        cache.getRows("first", null, false, first);
+        cache.getRows("second", null, false, second);
+
+        // first was evicted to make room for second
+
+        cache.getRows("second", null, false, second);
+        cache.getRows("first", null, false, first);
+
+        assertEquals(first._loads, 2);
+        assertEquals(second._loads, 1);
+    }
+
+    public void test_Expiration()
+    {
+        TableDataCacheImpl cache = new TableDataCacheImpl();
+        cache.setTimeToLive(1);
+
+        CountingLoader loader = new CountingLoader(new Object[] { "x" });
+
+        cache.getRows("a", null, false, loader);
+
+        try
+        {
+            Thread.sleep(10);
+        }
+        catch (InterruptedException ex)
+        {
+            // Ignore
+        }
+
+        cache.getRows("a", null, false, loader);
+
+        assertEquals(loader._loads, 2);
+    }
+
+    public void test_Cached_Basic_Table_Model_Pages()
+    {
+        TableDataCacheImpl cache = new TableDataCacheImpl();
+        CountingLoader loader = new CountingLoader(new Object[] { "d", "a", "c", "b", "e" });
+
+        CachedBasicTableModel model = new CachedBasicTableModel(cache, "letters", loader);
+
+        assertEquals(model.getRowCount(), 5);
+
+        Iterator i = model.getCurrentPageRows(2, 2, newColumn(), false);
+
+        assertEquals(i.next(), "c");
+        assertEquals(i.next(), "d");
+        assertFalse(i.hasNext());
+
+        i = model.getCurrentPageRows(4, 2, null, false);
+
+        assertEquals(i.next(), "e");
+        assertFalse(i.hasNext());
+
+        assertEquals(loader._loads, 1);
+    }
+}
@@ -0,0 +1,69 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.contrib.table.model.simple;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests for {@link CompactTableState}.
+ */
+@Test
+public class TestCompactTableState
+{
+    public void test_Round_Trip()
+    {
+        CompactTableState state = new CompactTableState(37, 2, true, -123456);
+
+        String encoded = state.encode();
+
+        assertEquals(encoded, "1.11.2d.-2n9c");
+
+        CompactTableState decoded = CompactTableState.decode(encoded);
+
+        assertEquals(decoded.getCurrentPage(), 37);
+        assertEquals(decoded.getSortColumnIndex(), 2);
+        assertTrue(decoded.getSortOrder());
+        assertEquals(decoded.getFilterHash(), -123456);
+    }
+
+    public void test_Unsorted()
+    {
+        CompactTableState state = new CompactTableState(0, -1, false, 0);
+
+        assertEquals(state.encode(), "1.0..0");
+
+        CompactTableState decoded = CompactTableState.decode("1.0..0");
+
+        assertEquals(decoded.getSortColumnIndex(), -1);
+        assertFalse(decoded.getSortOrder());
+    }
+
+    public void test_Other_Version_Ignored()
+    {
+        assertNull(CompactTableState.decode("2.0.1a.0.extra"));
+    }
+
+    public void test_Malformed_Ignored()
+    {
+        String[] malformed = { "1.0.0", "1.x!.0a.0", "1.0.3q.0", "1.0.d.0", "1.-1..0", "", "1.0..z!" };
+
+        for (int i = 0; i < malformed.length; i++)
+            assertNull(CompactTableState.decode(malformed[i]), "Decoding '" + malformed[i] + "'");
+
+        assertNull(CompactTableState.decode(null));
+    }
+}
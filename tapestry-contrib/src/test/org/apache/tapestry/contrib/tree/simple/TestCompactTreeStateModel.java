@@ -0,0 +1,156 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.contrib.tree.simple;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests for {@link CompactTreeStateModel} and {@link LazyTreeDataModel}.
+ */
+@Test
+public class TestCompactTreeStateModel
+{
+    public void test_Adjacent_Keys_Merge_Into_One_Range()
+    {
+        CompactTreeStateModel model = new CompactTreeStateModel();
+
+        model.expand(new Long(3));
+        model.expand(new Long(1));
+
+        assertEquals(model.getRangeCount(), 2);
+
+        model.expand(new Long(2));
+
+        assertEquals(model.getRangeCount(), 1);
+        assertTrue(model.isUniqueKeyExpanded(new Long(1)));
+        assertTrue(model.isUniqueKeyExpanded(new Long(2)));
+        assertTrue(model.isUniqueKeyExpanded(new Long(3)));
+        assertFalse(model.isUniqueKeyExpanded(new Long(4)));
+        assertEquals(model.getExpandSelection(), new HashSet(Arrays.asList(new Long[] { new Long(1), new Long(2), new Long(3) })));
+    }
+
+    public void test_Collapse_Splits_Range()
+    {
+        CompactTreeStateModel model = new CompactTreeStateModel();
+
+        for (long id = 10; id < 20; id++)
+            model.expand(new Long(id));
+
+        model.collapse(new Long(15));
+
+        assertEquals(model.getRangeCount(), 2);
+        assertTrue(model.isUniqueKeyExpanded(new Long(14)));
+        assertFalse(model.isUniqueKeyExpanded(new Long(15)));
+        assertTrue(model.isUniqueKeyExpanded(new Long(16)));
+
+        model.collapse(new Long(10));
+        model.collapse(new Long(19));
+        model.collapse(new Long(100));
+
+        assertFalse(model.isUniqueKeyExpanded(new Long(10)));
+        assertFalse(model.isUniqueKeyExpanded(new Long(19)));
+        assertEquals(model.getExpandSelection().size(), 7);
+    }
+
+    public void test_Many_Disjoint_Keys()
+    {
+        CompactTreeStateModel model = new CompactTreeStateModel();
+
+        for (long id = 98; id >= 0; id -= 2)
+            model.expand(new Long(id));
+
+        assertEquals(model.getRangeCount(), 50);
+
+        for (long id = 0; id < 100; id++)
+            assertEquals(model.isUniqueKeyExpanded(new Long(id)), id % 2 == 0);
+
+        for (long id = 1; id < 100; id += 2)
+            model.expand(new Long(id));
+
+        assertEquals(model.getRangeCount(), 1);
+    }
+
+    public void test_Non_Numeric_Keys()
+    {
+        CompactTreeStateModel model = new CompactTreeStateModel();
+
+        model.expand("fred");
+        model.expand(new Long(7));
+
+        assertTrue(model.isUniqueKeyExpanded("fred"));
+        assertFalse(model.isUniqueKeyExpanded("barney"));
+        assertEquals(model.getExpandSelection(), new HashSet(Arrays.asList(new Object[] { "fred", new Long(7) })));
+
+        model.collapse("fred");
+        model.resetState();
+
+        assertFalse(model.isUniqueKeyExpanded(new Long(7)));
+        assertTrue(model.getExpandSelection().isEmpty());
+    }
+
+    public void test_Lazy_Data_Model_Keys()
+    {
+        // Nodes are Longs; the parent of n is n / 10, and 0 is the root
+
+        LazyTreeDataModel model = new LazyTreeDataModel()
+        {
+            protected long getRootNodeId()
+            {
+                return 0;
+            }
+
+            protected Object loadNode(long nodeId)
+            {
+                return new Long(nodeId);
+            }
+
+            protected long getNodeId(Object objNode)
+            {
+                return ((Long) objNode).longValue();
+            }
+
+            protected long getParentNodeId(long nodeId)
+            {
+                return nodeId == 0 ? NO_NODE : nodeId / 10;
+            }
+
+            protected List loadChildren(Object objParent)
+            {
+                throw new IllegalStateException();
+            }
+
+            public boolean hasChildren(Object objParent)
+            {
+                return true;
+            }
+        };
+
+        assertEquals(model.getUniqueKey(model.getRoot(), null), new Long(0));
+        assertEquals(model.getObject(new Long(123)), new Long(123));
+        assertEquals(model.getParentUniqueKey(new Long(123)), new Long(12));
+        assertNull(model.getParentUniqueKey(new Long(0)));
+
+        assertTrue(model.isAncestorOf(new Long(123), new Long(1)));
+        assertTrue(model.isAncestorOf(new Long(123), new Long(0)));
+        assertTrue(model.isAncestorOf(new Long(123), new Long(123)));
+        assertFalse(model.isAncestorOf(new Long(123), new Long(2)));
+    }
+}
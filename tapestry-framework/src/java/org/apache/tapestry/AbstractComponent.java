@@ -16,12 +16,14 @@ package org.apache.tapestry;
 
 import org.apache.hivemind.ApplicationRuntimeException;
 import org.apache.hivemind.Messages;
+import org.apache.hivemind.Resource;
 import org.apache.hivemind.impl.BaseLocatable;
 import org.apache.hivemind.util.Defense;
 import org.apache.tapestry.bean.BeanProvider;
 import org.apache.tapestry.engine.IPageLoader;
 import org.apache.tapestry.event.BrowserEvent;
 import org.apache.tapestry.event.PageEvent;
+import org.apache.tapestry.instrument.RequestTimings;
 import org.apache.tapestry.internal.Component;
 import org.apache.tapestry.internal.event.IComponentEventInvoker;
 import org.apache.tapestry.listener.ListenerMap;
@@ -48,6 +50,14 @@ public abstract class AbstractComponent extends BaseLocatable implements IDirect
      */
 
     private static final Map EMPTY_MAP = Collections.unmodifiableMap(new HashMap(1));
+
+    private static final Class[] RENDER_COMPONENT_PARAMETERS = { IMarkupWriter.class, IRequestCycle.class };
+
+    /**
+     * Keyed on component class, the class that declares the renderComponent() method in effect.
+     */
+
+    private static final Map RENDER_COMPONENT_DECLARERS = Collections.synchronizedMap(new WeakHashMap());
     
     /**
      * The page that contains the component, possibly itself (if the component is in fact, a page).
@@ -535,7 +545,83 @@ public abstract class AbstractComponent extends BaseLocatable implements IDirect
     public void renderBody(IMarkupWriter writer, IRequestCycle cycle)
     {
         for (int i = 0; i < _bodyCount; i++)
+        {
+            if (skipOnRewind(_body[i], cycle))
+                continue;
+
             cycle.getResponseBuilder().render(writer, _body[i], cycle);
+        }
+    }
+
+    /**
+     * Invoked for each element of a body (or template) before it is rendered. Returns true if the
+     * request cycle is rewinding and the element may be skipped because it is
+     * {@link IRewindAware} and doesn't need to render on rewind; a skipped component still
+     * allocates its client id.
+     *
+     * @since 4.1.7
+     */
+
+    protected static boolean skipOnRewind(IRender render, IRequestCycle cycle)
+    {
+        if (!(render instanceof IRewindAware) || !cycle.isRewinding()
+                || ((IRewindAware) render).getRenderOnRewind())
+            return false;
+
+        if (render instanceof AbstractComponent)
+        {
+            ((AbstractComponent) render).generateClientId();
+
+            return true;
+        }
+
+        // Any other component can't have its client id allocated, so must render.
+
+        return !(render instanceof IComponent);
+    }
+
+    /**
+     * Returns true if this component's {@link #renderComponent(IMarkupWriter, IRequestCycle)} is
+     * the one declared by the given class, rather than an override in a subclass. A component that
+     * is {@link IRewindAware} because its own renderComponent() does nothing on rewind uses this
+     * so that a subclass, which may do work on rewind, is still rendered.
+     *
+     * @since 4.1.7
+     */
+
+    protected final boolean isRenderComponentDeclaredBy(Class declaringClass)
+    {
+        Class componentClass = getClass();
+
+        Class declarer = (Class) RENDER_COMPONENT_DECLARERS.get(componentClass);
+
+        if (declarer == null)
+        {
+            declarer = findRenderComponentDeclarer(componentClass);
+
+            RENDER_COMPONENT_DECLARERS.put(componentClass, declarer);
+        }
+
+        return declarer == declaringClass;
+    }
+
+    private static Class findRenderComponentDeclarer(Class componentClass)
+    {
+        for (Class current = componentClass; current != null; current = current.getSuperclass())
+        {
+            try
+            {
+                current.getDeclaredMethod("renderComponent", RENDER_COMPONENT_PARAMETERS);
+
+                return current;
+            }
+            catch (NoSuchMethodException ex)
+            {
+                // Check the superclass.
+            }
+        }
+
+        return AbstractComponent.class;
     }
 
     /**
@@ -711,6 +797,9 @@ public abstract class AbstractComponent extends BaseLocatable implements IDirect
 
     public final void render(IMarkupWriter writer, IRequestCycle cycle)
     {
+        RequestTimings timings = RequestTimings.getCurrent();
+        long start = timings == null ? 0 : timings.start();
+
         try
         {
             _rendering = true;
@@ -730,9 +819,24 @@ public abstract class AbstractComponent extends BaseLocatable implements IDirect
             cleanupAfterRender(cycle);
             
             cycle.renderStackPop();
+
+            if (timings != null && !cycle.isRewinding())
+                timings.record(RequestTimings.RENDER, getComponentType(), start);
         }
     }
 
+    /**
+     * Identifies the type of component for {@link RequestTimings}; the name of the component's
+     * specification (i.e., "Border.jwc"), or the class name if there is no specification.
+     */
+    private String getComponentType()
+    {
+        IComponentSpecification spec = getSpecification();
+        Resource location = spec == null ? null : spec.getSpecificationLocation();
+
+        return location == null ? getClass().getName() : location.getName();
+    }
+
     /**
      * Invoked by {@link #render(IMarkupWriter, IRequestCycle)}to prepare the component to render.
      * This implementation sets JavaBeans properties from matching bound parameters. The default
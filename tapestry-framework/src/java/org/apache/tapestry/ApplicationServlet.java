@@ -27,8 +27,11 @@ import org.apache.hivemind.impl.XmlModuleDescriptorProvider;
 import org.apache.hivemind.util.ContextResource;
 import org.apache.tapestry.services.ApplicationInitializer;
 import org.apache.tapestry.services.ServletRequestServicer;
+import org.apache.tapestry.util.DaemonThreadPool;
 import org.apache.tapestry.util.exception.ExceptionAnalyzer;
 
+import edu.emory.mathcs.backport.java.util.concurrent.RejectedExecutionException;
+
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
@@ -44,6 +47,24 @@ import java.util.Locale;
  * resource path (within the classpath) to the application specification, i.e.,
  * <code>/com/foo/bar/MyApp.application</code>. As of release 4.0, this servlet will also create
  * a HiveMind Registry and manage it.
+ * <p>
+ * As of release 4.1.7, requests may optionally be serviced asynchronously when running in a
+ * Servlet 3.0 container. Setting the init parameter
+ * <code>org.apache.tapestry.async-servicing-threads</code> to a positive number creates an
+ * executor with that many threads; each request is then suspended (via
+ * <code>startAsync()</code>) on the container thread and the complete Tapestry pipeline (request
+ * decoding, listener invocation and rendering) runs on the executor, after which the async
+ * context is completed. The container thread is released as soon as the request has been queued.
+ * Init parameter <code>org.apache.tapestry.async-servicing-queue-size</code> (default 100) bounds
+ * the number of waiting requests; when the queue is full the request is serviced on the container
+ * thread, as it would be without async servicing. Init parameter
+ * <code>org.apache.tapestry.async-servicing-timeout</code> sets the async timeout in
+ * milliseconds; by default there is none (the container's default timeout is disabled), so that a
+ * slow request is not cut short just because it is serviced asynchronously. A request that the
+ * container times out, or that fails while suspended, is completed at that point and its response
+ * is left alone by the executor thread still servicing it. Requests that can't be made
+ * asynchronous (older containers, or a filter not marked as <code>async-supported</code>) are
+ * always serviced synchronously.
  *
  * @author Howard Lewis Ship
  * @see org.apache.tapestry.services.ApplicationInitializer
@@ -66,6 +87,36 @@ public class ApplicationServlet extends HttpServlet
 
     private static final Log LOG = LogFactory.getLog(ApplicationServlet.class);
 
+    /**
+     * Init parameter for the number of threads used to service requests asynchronously; async
+     * servicing is disabled unless this is positive.
+     *
+     * @since 4.1.7
+     */
+
+    public static final String ASYNC_SERVICING_THREADS =
+        "org.apache.tapestry.async-servicing-threads";
+
+    /**
+     * Init parameter for the maximum number of requests waiting for an async servicing thread.
+     *
+     * @since 4.1.7
+     */
+
+    public static final String ASYNC_SERVICING_QUEUE_SIZE =
+        "org.apache.tapestry.async-servicing-queue-size";
+
+    /**
+     * Init parameter for the async timeout, in milliseconds.
+     *
+     * @since 4.1.7
+     */
+
+    public static final String ASYNC_SERVICING_TIMEOUT =
+        "org.apache.tapestry.async-servicing-timeout";
+
+    private static final int DEFAULT_ASYNC_QUEUE_SIZE = 100;
+
     /**
      * @since 2.3
      */
@@ -91,6 +142,26 @@ public class ApplicationServlet extends HttpServlet
      */
     private ServletRequestServicer _requestServicer;
 
+    /**
+     * Null unless async servicing is enabled and supported by the container.
+     *
+     * @since 4.1.7
+     */
+
+    private AsyncServicing _asyncServicing;
+
+    /**
+     * @since 4.1.7
+     */
+
+    private DaemonThreadPool _asyncExecutor;
+
+    /**
+     * @since 4.1.7
+     */
+
+    private long _asyncTimeout;
+
     /**
      * Invokes {@link #doService(HttpServletRequest, HttpServletResponse)}.
      *
@@ -104,7 +175,32 @@ public class ApplicationServlet extends HttpServlet
     }
 
     /**
-     * Handles the GET and POST requests. Performs the following:
+     * Handles the GET and POST requests. When async servicing is enabled and the request can be
+     * made asynchronous, the request is handed off to the async executor, which invokes
+     * {@link #serviceRequest(HttpServletRequest, HttpServletResponse)} and then completes the
+     * request. Otherwise, the request is serviced immediately, on the container's thread.
+     */
+
+    protected void doService(HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException
+    {
+        if (_asyncServicing != null)
+        {
+            AsyncServicing.AsyncRequest asyncRequest = _asyncServicing.start(request,
+                    _asyncTimeout);
+
+            if (asyncRequest != null)
+            {
+                dispatchAsync(asyncRequest, request, response);
+                return;
+            }
+        }
+
+        serviceRequest(request, response);
+    }
+
+    /**
+     * Services a request on the current thread. Performs the following:
      *
      * <ul>
      *  <li>
@@ -113,10 +209,15 @@ public class ApplicationServlet extends HttpServlet
      * <li>
      *  Invokes {@link ServletRequestServicer#service(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)}.
      * </li>
+     * <li>
+     *  Invokes {@link org.apache.hivemind.Registry#cleanupThread()}
+     * </li>
      * </ul>
+     *
+     * @since 4.1.7
      */
 
-    protected void doService(HttpServletRequest request, HttpServletResponse response)
+    protected void serviceRequest(HttpServletRequest request, HttpServletResponse response)
             throws IOException, ServletException
     {
         try
@@ -151,6 +252,96 @@ public class ApplicationServlet extends HttpServlet
         }
     }
 
+    /**
+     * Queues an asynchronous request for servicing by the async executor. If the executor's queue
+     * is full, the request is serviced (and completed) on the current thread instead.
+     *
+     * @since 4.1.7
+     */
+
+    void dispatchAsync(final AsyncServicing.AsyncRequest asyncRequest,
+            final HttpServletRequest request,
+            final HttpServletResponse response)
+    {
+        Runnable task = new Runnable()
+        {
+            public void run()
+            {
+                serviceAsync(asyncRequest, request, response);
+            }
+        };
+
+        try
+        {
+            _asyncExecutor.execute(task);
+        }
+        catch (RejectedExecutionException ex)
+        {
+            task.run();
+        }
+    }
+
+    /**
+     * Services an asynchronous request and completes it. There's no container thread left to
+     * rethrow exceptions to, so failures are reported here, as an error response (if the response
+     * has not yet been committed, and the request has not already been ended by the container).
+     *
+     * @since 4.1.7
+     */
+
+    void serviceAsync(AsyncServicing.AsyncRequest asyncRequest, HttpServletRequest request,
+            HttpServletResponse response)
+    {
+        try
+        {
+            serviceRequest(request, response);
+        }
+        catch (ServletException ex)
+        {
+            sendError(asyncRequest, response);
+        }
+        catch (IOException ex)
+        {
+            sendError(asyncRequest, response);
+        }
+        catch (RuntimeException ex)
+        {
+            log("RuntimeException", ex);
+
+            show(ex);
+
+            sendError(asyncRequest, response);
+        }
+        finally
+        {
+            try
+            {
+                _asyncServicing.complete(asyncRequest);
+            }
+            catch (RuntimeException ex)
+            {
+                LOG.error(TapestryMessages.asyncCompleteFailure(ex), ex);
+            }
+        }
+    }
+
+    private void sendError(AsyncServicing.AsyncRequest asyncRequest, HttpServletResponse response)
+    {
+        // Once the request has timed out or failed, the container may have recycled the response.
+
+        if (asyncRequest.isEnded() || response.isCommitted())
+            return;
+
+        try
+        {
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+        catch (IOException ex)
+        {
+            // Client has most likely gone away; nothing more can be done.
+        }
+    }
+
     protected void show(Exception ex)
     {
         System.err.println("\n\n**********************************************************\n\n");
@@ -201,6 +392,8 @@ public class ApplicationServlet extends HttpServlet
             initializeApplication();
 
             config.getServletContext().setAttribute(_registryKey, _registry);
+
+            initializeAsyncServicing(config);
         }
         catch (Exception ex)
         {
@@ -309,7 +502,71 @@ public class ApplicationServlet extends HttpServlet
     }
 
     /**
-     * Shuts down the registry (if it exists).
+     * Invoked from {@link #init(ServletConfig)} to create the async executor, if async servicing
+     * is enabled (via the {@link #ASYNC_SERVICING_THREADS} init parameter) and the container
+     * supports it.
+     *
+     * @since 4.1.7
+     */
+    protected void initializeAsyncServicing(ServletConfig config)
+    {
+        initializeAsyncServicing(config, AsyncServicing.forContainer());
+    }
+
+    /**
+     * Creates the async executor, using the given async servicing (null if the container doesn't
+     * support it).
+     *
+     * @since 4.1.7
+     */
+    void initializeAsyncServicing(ServletConfig config, AsyncServicing servicing)
+    {
+        String name = config.getServletName();
+
+        int threads = getIntInitParameter(config, ASYNC_SERVICING_THREADS, 0);
+
+        if (threads <= 0)
+            return;
+
+        if (servicing == null)
+        {
+            LOG.warn(TapestryMessages.asyncServicingUnsupported(name));
+            return;
+        }
+
+        int queueSize = getIntInitParameter(config, ASYNC_SERVICING_QUEUE_SIZE,
+                DEFAULT_ASYNC_QUEUE_SIZE);
+
+        _asyncTimeout = getIntInitParameter(config, ASYNC_SERVICING_TIMEOUT, 0);
+
+        _asyncExecutor = new DaemonThreadPool("Tapestry " + name, threads, Math.max(1, queueSize));
+
+        _asyncServicing = servicing;
+
+        LOG.info(TapestryMessages.asyncServicingEnabled(name, threads));
+    }
+
+    private int getIntInitParameter(ServletConfig config, String parameterName, int defaultValue)
+    {
+        String value = config.getInitParameter(parameterName);
+
+        if (value == null || value.trim().length() == 0)
+            return defaultValue;
+
+        try
+        {
+            return Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException ex)
+        {
+            LOG.warn(TapestryMessages.invalidIntInitParameter(parameterName, value));
+
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Shuts down the async executor and the registry (if they exist).
      *
      * @since 4.0
      */
@@ -317,6 +574,15 @@ public class ApplicationServlet extends HttpServlet
     {
         getServletContext().removeAttribute(_registryKey);
 
+        if (_asyncExecutor != null)
+        {
+            _asyncServicing = null;
+
+            _asyncExecutor.shutdown(10000);
+
+            _asyncExecutor = null;
+        }
+
         if (_registry != null)
         {
             _registry.shutdown();
@@ -0,0 +1,301 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import javax.servlet.ServletRequest;
+
+import org.apache.hivemind.ApplicationRuntimeException;
+
+/**
+ * Starts and completes Servlet 3.0 asynchronous requests on behalf of {@link ApplicationServlet}.
+ * Tapestry is compiled against the Servlet 2.4 API, so the <code>isAsyncSupported()</code>,
+ * <code>startAsync()</code> and <code>AsyncContext</code> methods are located reflectively, once,
+ * from the request interface visible at runtime. When the container doesn't provide them,
+ * {@link #forRequestType(Class)} returns null and the servlet services requests synchronously.
+ * <p>
+ * Each started request gets an <code>AsyncListener</code> (a {@link Proxy}), so that a request
+ * the container times out, or that fails (for instance, because the client went away), is
+ * completed once, cleanly, and the servicing thread knows not to touch it again.
+ *
+ * @since 4.1.7
+ */
+final class AsyncServicing
+{
+    private static final Class[] NO_TYPES = new Class[0];
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final Method _isAsyncSupported;
+
+    private final Method _startAsync;
+
+    private final Method _setTimeout;
+
+    private final Method _addListener;
+
+    private final Method _complete;
+
+    private AsyncServicing(Method isAsyncSupported, Method startAsync, Method setTimeout,
+            Method addListener, Method complete)
+    {
+        _isAsyncSupported = isAsyncSupported;
+        _startAsync = startAsync;
+        _setTimeout = setTimeout;
+        _addListener = addListener;
+        _complete = complete;
+    }
+
+    /**
+     * Returns an instance for the container's {@link ServletRequest}, or null if the container
+     * does not implement Servlet 3.0.
+     */
+    static AsyncServicing forContainer()
+    {
+        return forRequestType(ServletRequest.class);
+    }
+
+    /**
+     * Returns an instance that uses the asynchronous methods of the given request type, or null
+     * if the type doesn't have them. The async context type is taken from the return type of
+     * <code>startAsync()</code>, and the listener type from its single argument
+     * <code>addListener()</code> method.
+     */
+    static AsyncServicing forRequestType(Class requestType)
+    {
+        try
+        {
+            Method isAsyncSupported = requestType.getMethod("isAsyncSupported", NO_TYPES);
+            Method startAsync = requestType.getMethod("startAsync", NO_TYPES);
+
+            Class contextType = startAsync.getReturnType();
+
+            Method setTimeout = contextType.getMethod("setTimeout", new Class[] { long.class });
+            Method complete = contextType.getMethod("complete", NO_TYPES);
+            Method addListener = findAddListener(contextType);
+
+            if (addListener == null)
+                return null;
+
+            return new AsyncServicing(isAsyncSupported, startAsync, setTimeout, addListener,
+                    complete);
+        }
+        catch (NoSuchMethodException ex)
+        {
+            return null;
+        }
+        catch (SecurityException ex)
+        {
+            return null;
+        }
+    }
+
+    private static Method findAddListener(Class contextType)
+    {
+        Method[] methods = contextType.getMethods();
+
+        for (int i = 0; i < methods.length; i++)
+        {
+            Method method = methods[i];
+
+            if (method.getName().equals("addListener") && method.getParameterTypes().length == 1
+                    && method.getParameterTypes()[0].isInterface())
+                return method;
+        }
+
+        return null;
+    }
+
+    /**
+     * Puts the request into asynchronous mode, returning it; the request will not be completed
+     * when the servlet returns, but only once {@link #complete(AsyncRequest)} is invoked (or the
+     * container times it out). Returns null (and leaves the request alone) if the request can't be
+     * made asynchronous, for instance because a filter in the chain was not declared as supporting
+     * it.
+     *
+     * @param timeout
+     *            the async timeout in milliseconds, or 0 for no timeout (rather than the
+     *            container's default, so that slow requests behave as they do when serviced
+     *            synchronously)
+     */
+    AsyncRequest start(ServletRequest request, long timeout)
+    {
+        Object context = null;
+
+        try
+        {
+            Boolean supported = (Boolean) _isAsyncSupported.invoke(request, NO_ARGS);
+
+            if (!supported.booleanValue())
+                return null;
+
+            context = _startAsync.invoke(request, NO_ARGS);
+        }
+        catch (InvocationTargetException ex)
+        {
+            // Typically an IllegalStateException: the request can't be put into async mode.
+
+            return null;
+        }
+        catch (IllegalAccessException ex)
+        {
+            return null;
+        }
+
+        // Once started, the request must be completed through the context; failing to register
+        // the listener or set the timeout just leaves the container's behavior in place.
+
+        AsyncRequest result = new AsyncRequest(context);
+
+        invokeQuietly(_addListener, context, new Object[] { newListener(result) });
+
+        invokeQuietly(_setTimeout, context, new Object[] { new Long(Math.max(timeout, 0)) });
+
+        return result;
+    }
+
+    /**
+     * Completes a request started by {@link #start(ServletRequest, long)}, committing the
+     * response. Does nothing if the request has already ended (it was timed out, failed, or was
+     * completed already).
+     */
+    void complete(AsyncRequest request)
+    {
+        if (!request.end())
+            return;
+
+        try
+        {
+            _complete.invoke(request._context, NO_ARGS);
+        }
+        catch (InvocationTargetException ex)
+        {
+            Throwable cause = ex.getTargetException();
+
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+
+            throw new ApplicationRuntimeException(cause.getMessage(), cause);
+        }
+        catch (IllegalAccessException ex)
+        {
+            throw new ApplicationRuntimeException(ex.getMessage(), ex);
+        }
+    }
+
+    private Object newListener(final AsyncRequest request)
+    {
+        Class listenerType = _addListener.getParameterTypes()[0];
+
+        InvocationHandler handler = new InvocationHandler()
+        {
+            public Object invoke(Object proxy, Method method, Object[] args)
+            {
+                String name = method.getName();
+
+                if (method.getDeclaringClass() == Object.class)
+                {
+                    if (name.equals("equals"))
+                        return Boolean.valueOf(proxy == args[0]);
+
+                    if (name.equals("hashCode"))
+                        return new Integer(System.identityHashCode(proxy));
+
+                    return "AsyncListener for " + request._context;
+                }
+
+                // On a timeout or error, the request is completed here (once) rather than left to
+                // the container's error dispatch; the servicing thread will leave it alone.
+
+                if (name.equals("onTimeout") || name.equals("onError"))
+                {
+                    if (request.end())
+                        invokeQuietly(_complete, request._context, NO_ARGS);
+                }
+                else if (name.equals("onComplete"))
+                    request.end();
+
+                return null;
+            }
+        };
+
+        return Proxy.newProxyInstance(listenerType.getClassLoader(), new Class[] { listenerType },
+                handler);
+    }
+
+    private static void invokeQuietly(Method method, Object target, Object[] args)
+    {
+        try
+        {
+            method.invoke(target, args);
+        }
+        catch (InvocationTargetException ex)
+        {
+            // Ignored.
+        }
+        catch (IllegalAccessException ex)
+        {
+            // Ignored.
+        }
+    }
+
+    /**
+     * A request started by {@link AsyncServicing#start(ServletRequest, long)}. A request ends
+     * exactly once: when it is completed by the servicing thread, or when the container reports
+     * that it timed out, failed or completed.
+     */
+    static final class AsyncRequest
+    {
+        private final Object _context;
+
+        private boolean _ended;
+
+        AsyncRequest(Object context)
+        {
+            _context = context;
+        }
+
+        Object getContext()
+        {
+            return _context;
+        }
+
+        /**
+         * Returns true if the request has ended; once it has, its request and response may have
+         * been recycled by the container and must not be used.
+         */
+        synchronized boolean isEnded()
+        {
+            return _ended;
+        }
+
+        /**
+         * Marks the request as ended, returning true if it had not already ended.
+         */
+        synchronized boolean end()
+        {
+            if (_ended)
+                return false;
+
+            _ended = true;
+
+            return true;
+        }
+    }
+}
@@ -104,7 +104,12 @@ public abstract class BaseComponent extends AbstractComponent implements ITempla
             LOG.debug("Begin render " + getExtendedId());
         
         for (int i = 0; i < _outerCount; i++)
+        {
+            if (skipOnRewind(_outer[i], cycle))
+                continue;
+
             cycle.getResponseBuilder().render(writer, _outer[i], cycle);
+        }
         
         if (LOG.isDebugEnabled())
             LOG.debug("End render " + getExtendedId());
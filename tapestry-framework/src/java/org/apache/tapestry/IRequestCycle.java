@@ -212,6 +212,20 @@ public interface IRequestCycle
      * @return An iterator over the current stack.
      */
     Iterator renderStackIterator();
+
+    /**
+     * Returns the current render generation: a counter that changes each time a component
+     * is pushed onto, or popped off of, the render stack, i.e. each time a component begins or
+     * finishes rendering. While the generation is unchanged, component parameter values can't
+     * have been changed by rendering, which allows them to be memoized. Generations are unique
+     * across all request cycles (rather than counted per cycle), so a value memoized by a pooled
+     * component in one request is never mistaken for current in another. Returns zero when the
+     * render stack is empty.
+     *
+     * @return The render generation, or zero if no component is rendering.
+     * @since 4.1.7
+     */
+    int getRenderGeneration();
     
     /**
      * Removes a previously stored attribute, if one with the given name exists.
@@ -0,0 +1,44 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry;
+
+/**
+ * Optionally implemented by renderers (static template text, components) to state whether they
+ * need to be rendered at all while the request cycle is rewinding. Rewinding a form renders the
+ * form's entire body (against a {@link org.apache.tapestry.markup.NullWriter}), only so that the
+ * form components are rewound in the same sequence as they were rendered; elements that produce
+ * nothing but markup can be skipped, rather than rendered only to have their output discarded.
+ * <p>
+ * Renderers that don't implement this interface are always rendered, as are the form components,
+ * and the components (such as For, If and Else) that may enclose them.
+ * <p>
+ * A skipped component is not rendered at all (no {@link AbstractComponent#prepareForRender(IRequestCycle)
+ * parameter preparation} or {@link AbstractComponent#renderComponent(IMarkupWriter, IRequestCycle)
+ * renderComponent()}), but still allocates its client id, exactly as it would when rendered, so
+ * that the ids allocated to the form components that follow are unchanged.
+ *
+ * @since 4.1.7
+ * @see AbstractComponent#renderBody(IMarkupWriter, IRequestCycle)
+ */
+public interface IRewindAware
+{
+    /**
+     * Returns true if the renderer must be rendered when the request cycle is rewinding; false if
+     * it produces nothing but markup, and doesn't render any body (or other components) that
+     * might contain form components.
+     */
+
+    boolean getRenderOnRewind();
+}
@@ -59,6 +59,24 @@ public final class Tapestry
 
     public static final String DIRECT_EVENT_SERVICE = "directevent";
 
+    /**
+     * The name ("suggest") of a service that triggers a {@link org.apache.tapestry.scriptaculous.Suggest}
+     * component and renders just its list of suggestions, without rendering the page.
+     *
+     * @since 4.1.7
+     */
+
+    public static final String SUGGEST_SERVICE = "suggest";
+
+    /**
+     * The name ("listenertask") of a service that reports, as JSON, the status of a
+     * {@link org.apache.tapestry.listener.ListenerTask} returned by a listener method.
+     *
+     * @since 4.1.7
+     */
+
+    public static final String LISTENER_TASK_SERVICE = "listenertask";
+
     /**
      * The name ("external") of a service that a allows {@link IExternalPage} to be selected.
      * Associated with a {@link org.apache.tapestry.link.ExternalLink} component.
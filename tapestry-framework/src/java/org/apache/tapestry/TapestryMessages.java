@@ -81,4 +81,24 @@ final class TapestryMessages
         return _formatter.format("component-wrong-type", component.getExtendedId(), expectedType
                 .getName());
     }
+
+    static String asyncServicingEnabled(String name, int threads)
+    {
+        return _formatter.format("async-servicing-enabled", name, new Integer(threads));
+    }
+
+    static String asyncServicingUnsupported(String name)
+    {
+        return _formatter.format("async-servicing-unsupported", name);
+    }
+
+    static String asyncCompleteFailure(Throwable cause)
+    {
+        return _formatter.format("async-complete-failure", cause);
+    }
+
+    static String invalidIntInitParameter(String name, String value)
+    {
+        return _formatter.format("invalid-int-init-parameter", name, value);
+    }
 }
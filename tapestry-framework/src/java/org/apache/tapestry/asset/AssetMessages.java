@@ -64,4 +64,22 @@ final class AssetMessages
     {
         return _formatter.format("missing-context-resource", path);
     }
+
+    /** @since 4.1.7 */
+    static String unrootedPrecomputePattern(String pattern)
+    {
+        return _formatter.format("unrooted-precompute-pattern", pattern);
+    }
+
+    /** @since 4.1.7 */
+    static String unableToPrecomputeDigest(String path, Throwable cause)
+    {
+        return _formatter.format("unable-to-precompute-digest", path, cause);
+    }
+
+    /** @since 4.1.7 */
+    static String precomputedDigests(int count, long elapsed)
+    {
+        return _formatter.format("precomputed-digests", new Integer(count), new Long(elapsed));
+    }
 }
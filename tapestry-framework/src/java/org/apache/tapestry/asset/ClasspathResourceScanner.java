@@ -0,0 +1,149 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.asset;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Lists the classpath resources (files, not folders) beneath a package folder, whether the folder
+ * is in a directory or in a JAR. Used to find the resources whose digests are precomputed by
+ * {@link ResourceDigestSourceImpl}.
+ *
+ * @since 4.1.7
+ */
+class ClasspathResourceScanner
+{
+    private static final String REGEXP_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    private final ClassLoader _loader;
+
+    ClasspathResourceScanner(ClassLoader loader)
+    {
+        _loader = loader;
+    }
+
+    /**
+     * Returns the package folder that any resource matched by a regular expression must be
+     * beneath: the leading literal part of the pattern, up to the last slash, without the leading
+     * slash (i.e., "org/apache/tapestry/" for "^/org/apache/tapestry/.*\.js"). Returns null if the
+     * pattern isn't anchored to the start of the path, or doesn't start with a package folder.
+     */
+    static String extractFolder(String pattern)
+    {
+        if (!pattern.startsWith("^/"))
+            return null;
+
+        int end = 2;
+
+        while (end < pattern.length() && REGEXP_CHARACTERS.indexOf(pattern.charAt(end)) < 0)
+            end++;
+
+        int slashx = pattern.lastIndexOf('/', end - 1);
+
+        return slashx <= 1 ? null : pattern.substring(2, slashx + 1);
+    }
+
+    /**
+     * Returns the paths (with a leading slash) of all the resources beneath the folder, at any
+     * depth, in every directory and JAR on the classpath that contains the folder.
+     *
+     * @param folder
+     *            the package folder, with a trailing slash and without a leading slash
+     */
+    List findResources(String folder) throws IOException
+    {
+        List result = new ArrayList();
+
+        Enumeration e = _loader.getResources(folder);
+
+        while (e.hasMoreElements())
+        {
+            URL url = (URL) e.nextElement();
+
+            if (url.getProtocol().equals("file"))
+                addFiles(result, new File(URLDecoder.decode(url.getPath(), "UTF-8")), "/" + folder);
+            else
+                addJarEntries(result, url, folder);
+        }
+
+        Collections.sort(result);
+
+        return result;
+    }
+
+    private void addFiles(List result, File directory, String path)
+    {
+        File[] files = directory.listFiles();
+
+        if (files == null)
+            return;
+
+        for (int i = 0; i < files.length; i++)
+        {
+            File file = files[i];
+
+            if (file.isDirectory())
+                addFiles(result, file, path + file.getName() + "/");
+            else
+                result.add(path + file.getName());
+        }
+    }
+
+    private void addJarEntries(List result, URL url, String folder) throws IOException
+    {
+        URLConnection connection = url.openConnection();
+
+        if (!(connection instanceof JarURLConnection))
+            return;
+
+        JarURLConnection jarConnection = (JarURLConnection) connection;
+
+        // Don't share the JarFile with other users of the URL, as it is closed once scanned.
+
+        jarConnection.setUseCaches(false);
+
+        JarFile jar = jarConnection.getJarFile();
+
+        try
+        {
+            Enumeration entries = jar.entries();
+
+            while (entries.hasMoreElements())
+            {
+                JarEntry entry = (JarEntry) entries.nextElement();
+
+                String name = entry.getName();
+
+                if (!entry.isDirectory() && name.startsWith(folder))
+                    result.add("/" + name);
+            }
+        }
+        finally
+        {
+            jar.close();
+        }
+    }
+}
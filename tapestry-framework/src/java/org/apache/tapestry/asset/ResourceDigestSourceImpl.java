@@ -14,26 +14,39 @@
 
 package org.apache.tapestry.asset;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.security.MessageDigest;
-import java.util.HashMap;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
+import edu.emory.mathcs.backport.java.util.concurrent.Callable;
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap;
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentMap;
 import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.logging.Log;
 import org.apache.hivemind.ApplicationRuntimeException;
 import org.apache.hivemind.ClassResolver;
 import org.apache.hivemind.util.IOUtils;
 import org.apache.tapestry.event.ReportStatusEvent;
 import org.apache.tapestry.event.ReportStatusListener;
 import org.apache.tapestry.event.ResetEventListener;
+import org.apache.tapestry.util.ComputeOnce;
+import org.apache.tapestry.util.RegexpMatcher;
 
 /**
  * Implementation of {@link org.apache.tapestry.asset.ResourceDigestSource}&nbsp;that calculates an
  * DIGEST checksum digest and converts it to a string of hex digits.
+ * <p>
+ * Digests are cached; reading a cached digest doesn't involve any locking, and each resource is
+ * only digested once, even when several threads request it at the same time. Optionally, the
+ * digests of the classpath resources matching a list of patterns are computed in the background
+ * as soon as the service is initialized.
  * 
  * @author Howard M. Lewis Ship
  * @since 4.0
@@ -47,38 +60,106 @@ public class ResourceDigestSourceImpl implements ResourceDigestSource, ResetEven
 
     private ClassResolver _classResolver;
 
+    private Log _log;
+
+    /**
+     * Regular expressions (strings) matching the paths of classpath resources whose digests are
+     * computed at startup.
+     */
+
+    private List _precomputedResources = Collections.EMPTY_LIST;
+
     /**
      * Map keyed on resource path of DIGEST checksum (as a string).
      */
 
-    private final Map _cache = new HashMap();
+    private final ConcurrentMap _cache = new ConcurrentHashMap();
 
-    public synchronized String getDigestForResource(String resourcePath)
+    private final ComputeOnce _digests = new ComputeOnce();
+
+    /**
+     * Digests a stream as a string of hex digits. Each resource is only digested once, so a new
+     * instance is used for each; one kept in a thread local would pin the web application's class
+     * loader to the container's threads after an undeploy.
+     */
+
+    private static class Digester
+    {
+        final byte[] _buffer = new byte[BUFFER_SIZE];
+
+        final MessageDigest _digest;
+
+        Digester()
+        {
+            try
+            {
+                _digest = MessageDigest.getInstance("MD5");
+            }
+            catch (NoSuchAlgorithmException ex)
+            {
+                throw new ApplicationRuntimeException(ex);
+            }
+        }
+
+        String digest(InputStream stream) throws IOException
+        {
+            _digest.reset();
+
+            while (true)
+            {
+                int length = stream.read(_buffer);
+
+                if (length < 0)
+                    break;
+
+                _digest.update(_buffer, 0, length);
+            }
+
+            return new String(Hex.encodeHex(_digest.digest()));
+        }
+    }
+
+    public String getDigestForResource(final String resourcePath)
     {
         if (resourcePath == null) return null;
         
         String result = (String) _cache.get(resourcePath);
 
-        if (result == null)
+        if (result != null)
+            return result;
+
+        Callable compute = new Callable()
         {
-            result = computeMD5(resourcePath);
-            _cache.put(resourcePath, result);
-        }
+            public Object call()
+            {
+                String digest = (String) _cache.get(resourcePath);
 
-        return result;
+                if (digest == null)
+                {
+                    digest = computeMD5(resourcePath);
+
+                    _cache.put(resourcePath, digest);
+                }
+
+                return digest;
+            }
+        };
+
+        return (String) _digests.compute(resourcePath, compute);
     }
 
-    public synchronized void resetEventDidOccur()
+    public void resetEventDidOccur()
     {
         _cache.clear();
     }
 
-    public synchronized void reportStatus(ReportStatusEvent event)
+    public void reportStatus(ReportStatusEvent event)
     {
         event.title(_serviceId);
         event.property("resource count", _cache.size());
+        event.property("resources being digested", _digests.getInFlightCount());
 
-        Iterator i = _cache.entrySet().iterator();
+        Iterator i = new TreeMap(_cache).entrySet().iterator();
 
         while (i.hasNext())
         {
@@ -88,6 +169,96 @@ public class ResourceDigestSourceImpl implements ResourceDigestSource, ResetEven
         }
     }
 
+    /**
+     * Starts a background thread that computes the digests of the resources matching the
+     * precomputed resources patterns, if there are any.
+     *
+     * @since 4.1.7
+     */
+
+    public void initializeService()
+    {
+        if (_precomputedResources.isEmpty())
+            return;
+
+        Thread thread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                precomputeDigests();
+            }
+        }, "Tapestry resource digests");
+
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Computes the digests of all classpath resources matching the precomputed resources
+     * patterns. Failures are logged, not thrown.
+     *
+     * @since 4.1.7
+     */
+
+    void precomputeDigests()
+    {
+        long start = System.currentTimeMillis();
+
+        RegexpMatcher matcher = new RegexpMatcher();
+        ClasspathResourceScanner scanner = new ClasspathResourceScanner(_classResolver.getClassLoader());
+
+        int count = 0;
+
+        Iterator i = _precomputedResources.iterator();
+
+        while (i.hasNext())
+        {
+            String pattern = (String) i.next();
+            String folder = ClasspathResourceScanner.extractFolder(pattern);
+
+            if (folder == null)
+            {
+                _log.warn(AssetMessages.unrootedPrecomputePattern(pattern));
+                continue;
+            }
+
+            List paths = Collections.EMPTY_LIST;
+
+            try
+            {
+                paths = scanner.findResources(folder);
+            }
+            catch (IOException ex)
+            {
+                _log.warn(AssetMessages.unableToPrecomputeDigest(folder, ex), ex);
+            }
+
+            Iterator j = paths.iterator();
+
+            while (j.hasNext())
+            {
+                String path = (String) j.next();
+
+                if (!matcher.contains(pattern, path))
+                    continue;
+
+                try
+                {
+                    getDigestForResource(path);
+                    count++;
+                }
+                catch (RuntimeException ex)
+                {
+                    _log.warn(AssetMessages.unableToPrecomputeDigest(path, ex), ex);
+                }
+            }
+        }
+
+        if (_log.isDebugEnabled())
+            _log.debug(AssetMessages.precomputedDigests(count, System.currentTimeMillis() - start));
+    }
+
     private String computeMD5(String resourcePath)
     {
         URL url = _classResolver.getResource(resourcePath);
@@ -99,19 +270,14 @@ public class ResourceDigestSourceImpl implements ResourceDigestSource, ResetEven
 
         try
         {
-            MessageDigest digest = MessageDigest.getInstance("MD5");
-
-            stream = new BufferedInputStream(url.openStream());
+            stream = url.openStream();
 
-            digestStream(digest, stream);
+            String result = new Digester().digest(stream);
 
             stream.close();
             stream = null;
 
-            byte[] bytes = digest.digest();
-            char[] encoded = Hex.encodeHex(bytes);
-
-            return new String(encoded);
+            return result;
         }
         catch (IOException ex)
         {
@@ -119,31 +285,12 @@ public class ResourceDigestSourceImpl implements ResourceDigestSource, ResetEven
                     resourcePath,
                     ex));
         }
-        catch (Exception ex)
-        {
-            throw new ApplicationRuntimeException(ex);
-        }
         finally
         {
             IOUtils.close(stream);
         }
     }
 
-    private void digestStream(MessageDigest digest, InputStream stream) throws IOException
-    {
-        byte[] buffer = new byte[BUFFER_SIZE];
-
-        while (true)
-        {
-            int length = stream.read(buffer);
-
-            if (length < 0)
-                return;
-
-            digest.update(buffer, 0, length);
-        }
-    }
-
     public void setClassResolver(ClassResolver classResolver)
     {
         _classResolver = classResolver;
@@ -153,4 +300,18 @@ public class ResourceDigestSourceImpl implements ResourceDigestSource, ResetEven
     {
         _serviceId = serviceId;
     }
+
+    /** @since 4.1.7 */
+
+    public void setLog(Log log)
+    {
+        _log = log;
+    }
+
+    /** @since 4.1.7 */
+
+    public void setPrecomputedResources(List precomputedResources)
+    {
+        _precomputedResources = precomputedResources;
+    }
 }
@@ -14,24 +14,55 @@
 
 package org.apache.tapestry.binding;
 
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap;
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentMap;
 import org.apache.hivemind.Location;
 import org.apache.tapestry.IBinding;
 import org.apache.tapestry.IComponent;
+import org.apache.tapestry.event.ResetEventListener;
+import org.apache.tapestry.util.MultiKey;
 
 /**
  * Implementation of {@link org.apache.tapestry.binding.BindingFactory}that constructs
  * {@link org.apache.tapestry.binding.LiteralBinding}instances.
+ * <p>
+ * Literal bindings are immutable and do not reference the component they are created for, so a
+ * single instance is shared by every instance of a page (the same description, value and location
+ * always produce the same binding). The shared instances are discarded when the framework caches
+ * are reset.
  * 
  * @author Howard Lewis Ship
  * @since 4.0
  */
-public class LiteralBindingFactory extends AbstractBindingFactory
+public class LiteralBindingFactory extends AbstractBindingFactory implements ResetEventListener
 {
+    /** @since 4.1.7 */
+    private final ConcurrentMap _bindings = new ConcurrentHashMap();
 
     public IBinding createBinding(IComponent root, String description, String expression,
             Location location)
     {
-        return new LiteralBinding(description, getValueConverter(), location, expression);
+        MultiKey key = new MultiKey(new Object[] { description, expression, location }, false);
+
+        IBinding result = (IBinding) _bindings.get(key);
+
+        if (result == null)
+        {
+            IBinding binding = new LiteralBinding(description, getValueConverter(), location, expression);
+
+            result = (IBinding) _bindings.putIfAbsent(key, binding);
+
+            if (result == null)
+                result = binding;
+        }
+
+        return result;
+    }
+
+    /** @since 4.1.7 */
+    public void resetEventDidOccur()
+    {
+        _bindings.clear();
     }
 
 }
@@ -14,12 +14,17 @@
 
 package org.apache.tapestry.coerce;
 
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap;
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentMap;
+import edu.emory.mathcs.backport.java.util.concurrent.atomic.AtomicLong;
 import org.apache.hivemind.ApplicationRuntimeException;
 import org.apache.hivemind.util.ConstructorUtils;
 import org.apache.hivemind.util.Defense;
+import org.apache.tapestry.event.ReportStatusEvent;
+import org.apache.tapestry.event.ReportStatusListener;
+import org.apache.tapestry.event.ResetEventListener;
 
-import java.beans.PropertyEditor;
-import java.beans.PropertyEditorManager;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -28,12 +33,44 @@ import java.util.Map;
 /**
  * Implementation of {@link org.apache.tapestry.coerce.ValueConverter}. Selects an appropriate type
  * converter and delegates to it.
+ * <p>
+ * The choice of conversion depends only on the class of the value and the desired type, so it is
+ * made once per pair of classes and cached. Strings are converted to primitive number types by
+ * parsing them directly, rather than through a {@link java.beans.PropertyEditor}.
+ * <p>
+ * Converters are matched on the desired type. When there is no converter for exactly that type,
+ * the converter for the most specific subtype of it is used (for instance, the converter to
+ * {@link java.util.List} when a {@link java.util.Collection} is desired), as its results are of
+ * the desired type as well; if several converters match and none is more specific than the
+ * others, there is no conversion. Since this only applies where no conversion was previously
+ * possible, it doesn't change which converter runs for any type that has its own converter. Null
+ * values are only ever converted by the converter for the exact type.
  * 
  * @author Howard M. Lewis Ship
  * @since 4.0
  */
-public class ValueConverterImpl implements ValueConverter
+public class ValueConverterImpl implements ValueConverter, ResetEventListener, ReportStatusListener
 {
+    /** The value is already of the desired type. */
+
+    private static final int ASSIGNABLE = 0;
+
+    /** Conversion between two number types. */
+
+    private static final int NUMBER_TO_NUMBER = 1;
+
+    /** Parsing a string into a primitive number (wrapper) type. */
+
+    private static final int PARSE_NUMBER = 2;
+
+    /** Conversion using the type converter for the desired type. */
+
+    private static final int CONVERTER = 3;
+
+    /** No conversion is possible. */
+
+    private static final int NONE = 4;
+
     /** List of {@link org.apache.tapestry.coerce.TypeConverterContribution}. */
 
     public List _contributions;
@@ -44,6 +81,21 @@ public class ValueConverterImpl implements ValueConverter
 
     private Map _wrapperToPrimitive = new HashMap();
 
+    /**
+     * Keyed on desired (wrapper) type, value is a ConcurrentMap keyed on value class, whose value
+     * is a {@link Coercion}.
+     *
+     * @since 4.1.7
+     */
+
+    private final ConcurrentMap _coercions = new ConcurrentHashMap();
+
+    private final AtomicLong _hits = new AtomicLong();
+
+    private final AtomicLong _misses = new AtomicLong();
+
+    private String _serviceId;
+
     {
         store(boolean.class, Boolean.class);
         store(byte.class, Byte.class);
@@ -71,6 +123,27 @@ public class ValueConverterImpl implements ValueConverter
 
             _converterMap.put(c.getSubjectClass(), c.getConverter());
         }
+
+        precompute();
+    }
+
+    /**
+     * Resolves the conversions from String (by far the most common source, as it is the type of
+     * literal bindings and request parameters) to each primitive type and each type with a
+     * converter.
+     */
+
+    private void precompute()
+    {
+        Iterator i = _wrapperToPrimitive.keySet().iterator();
+        while (i.hasNext())
+            findCoercion(String.class, (Class) i.next());
+
+        i = _converterMap.keySet().iterator();
+        while (i.hasNext())
+            findCoercion(String.class, (Class) i.next());
+
+        _misses.set(0);
     }
 
     public Object coerceValue(Object value, Class desiredType)
@@ -79,78 +152,175 @@ public class ValueConverterImpl implements ValueConverter
 
         Class effectiveType = convertType(desiredType);
 
-        // Already the correct type? Go no further!
+        if (value == null)
+        {
+            TypeConverter converter = (TypeConverter) _converterMap.get(effectiveType);
 
-        if (value != null && effectiveType.isAssignableFrom(value.getClass()))
-            return value;
-        
-        Object result = convertNumberToNumber(value, effectiveType);
+            // null value and no converter for the given type? Just return null.
 
-        if (result != null)
-            return result;
+            return converter == null ? null : converter.convertValue(null);
+        }
 
-        result = convertUsingPropertyEditor(value, effectiveType);
+        Coercion coercion = findCoercion(value.getClass(), effectiveType);
+
+        switch (coercion._kind)
+        {
+            case ASSIGNABLE:
+
+                // Already the correct type? Go no further!
+
+                return value;
+
+            case NUMBER_TO_NUMBER:
+
+                return ConstructorUtils.invokeConstructor(effectiveType, new Object[] { value.toString() });
+
+            case PARSE_NUMBER:
+
+                return parseNumber((String) value, effectiveType);
+
+            case CONVERTER:
+
+                return coercion._converter.convertValue(value);
+
+            default:
+
+                throw new ApplicationRuntimeException(CoerceMessages.noConverter(value.getClass(), effectiveType));
+        }
+    }
+
+    private Coercion findCoercion(Class valueType, Class effectiveType)
+    {
+        ConcurrentMap bySource = (ConcurrentMap) _coercions.get(effectiveType);
+
+        if (bySource == null)
+        {
+            ConcurrentMap newMap = new ConcurrentHashMap();
+
+            bySource = (ConcurrentMap) _coercions.putIfAbsent(effectiveType, newMap);
+
+            if (bySource == null)
+                bySource = newMap;
+        }
+
+        Coercion result = (Coercion) bySource.get(valueType);
 
         if (result != null)
+        {
+            _hits.incrementAndGet();
             return result;
+        }
 
-        TypeConverter converter = (TypeConverter) _converterMap.get(effectiveType);
+        _misses.incrementAndGet();
+
+        result = resolveCoercion(valueType, effectiveType);
+
+        bySource.put(valueType, result);
+
+        return result;
+    }
+
+    /**
+     * Determines how values of the given type are converted to the effective (never primitive)
+     * type. The checks are made in the same order in which conversions were attempted prior to
+     * 4.1.7.
+     */
+
+    private Coercion resolveCoercion(Class valueType, Class effectiveType)
+    {
+        if (effectiveType.isAssignableFrom(valueType))
+            return new Coercion(ASSIGNABLE, null);
+
+        boolean numberTarget = Number.class.isAssignableFrom(effectiveType);
 
-        // null value and no converter for the given type? Just return null.
+        if (numberTarget && Number.class.isAssignableFrom(valueType))
+            return new Coercion(NUMBER_TO_NUMBER, null);
 
-        if (value == null && converter == null)
-            return null;
+        if (numberTarget && valueType == String.class && _wrapperToPrimitive.containsKey(effectiveType))
+            return new Coercion(PARSE_NUMBER, null);
+
+        TypeConverter converter = (TypeConverter) _converterMap.get(effectiveType);
 
         if (converter == null)
-            throw new ApplicationRuntimeException(CoerceMessages.noConverter(value.getClass(), effectiveType));
+            converter = findSubtypeConverter(effectiveType);
 
-        return converter.convertValue(value);
+        return converter == null ? new Coercion(NONE, null) : new Coercion(CONVERTER, converter);
     }
 
     /**
-     * Attempts to use {@link java.beans.PropertyEditor}to perform a conversion from a string to a
-     * numeric type. Returns null if no property editor can be found.
-     * 
-     * @param value
-     *            The value to convert
-     * @param targetType
-     *            The type to convert to (must be a wrapper type, not a primitive type)
+     * Returns the converter for the most specific subtype of the desired type, or null if there
+     * is none, or no single most specific one.
+     *
+     * @since 4.1.7
      */
 
-    private Number convertUsingPropertyEditor(Object value, Class targetType)
+    private TypeConverter findSubtypeConverter(Class effectiveType)
     {
-        // Convert from wrapper type back to primitive type, because
-        // PropertyEditorManager expects primitive types not
-        // wrapper types.
-
-        if (value == null || value.getClass() != String.class
-                || !Number.class.isAssignableFrom(targetType))
-            return null;
+        List candidates = new ArrayList();
 
-        Class primitiveType = (Class) _wrapperToPrimitive.get(targetType);
+        Iterator i = _converterMap.keySet().iterator();
+        while (i.hasNext())
+        {
+            Class subjectClass = (Class) i.next();
 
-        // Note a primitive type.
+            if (effectiveType.isAssignableFrom(subjectClass))
+                candidates.add(subjectClass);
+        }
 
-        if (primitiveType == null)
-            return null;
+        i = candidates.iterator();
+        while (i.hasNext())
+        {
+            Class candidate = (Class) i.next();
 
-        // Looks like a conversion from String to Number, let's see.
+            if (isSubtypeOfAll(candidate, candidates))
+                return (TypeConverter) _converterMap.get(candidate);
+        }
 
-        PropertyEditor editor = PropertyEditorManager.findEditor(primitiveType);
+        return null;
+    }
 
-        // This should not happen, since we've filtered down to just the
-        // primitive types that do have property editors.
+    private boolean isSubtypeOfAll(Class type, List types)
+    {
+        Iterator i = types.iterator();
+        while (i.hasNext())
+        {
+            if (!((Class) i.next()).isAssignableFrom(type))
+                return false;
+        }
 
-        if (editor == null)
-            return null;
+        return true;
+    }
 
-        String text = (String) value;
+    /**
+     * Converts a string to a primitive number (wrapper) type, using the same rules as the JDK's
+     * {@link java.beans.PropertyEditor}s for those types.
+     * 
+     * @param text
+     *            The value to convert
+     * @param targetType
+     *            The type to convert to (must be a wrapper type, not a primitive type)
+     */
 
+    private Number parseNumber(String text, Class targetType)
+    {
         try
         {
-            editor.setAsText(text);
+            if (targetType == Integer.class)
+                return Integer.decode(text);
+
+            if (targetType == Long.class)
+                return Long.decode(text);
+
+            if (targetType == Double.class)
+                return Double.valueOf(text);
+
+            if (targetType == Float.class)
+                return Float.valueOf(text);
 
-            return (Number) editor.getValue();
+            if (targetType == Short.class)
+                return Short.decode(text);
+
+            return Byte.decode(text);
         }
         catch (Exception ex)
         {
@@ -159,29 +329,83 @@ public class ValueConverterImpl implements ValueConverter
                     targetType,
                     ex), ex);
         }
+    }
+
+    private Class convertType(Class possiblePrimitiveType)
+    {
+        Class wrapperType = (Class) _primitiveToWrapper.get(possiblePrimitiveType);
 
+        return wrapperType == null ? possiblePrimitiveType : wrapperType;
     }
 
-    private Number convertNumberToNumber(Object value, Class targetType)
+    /**
+     * Discards cached conversions, which may reference classes that are about to be discarded.
+     *
+     * @since 4.1.7
+     */
+
+    public void resetEventDidOccur()
     {
-        if (value == null || !Number.class.isAssignableFrom(value.getClass())
-                || !Number.class.isAssignableFrom(targetType))
-            return null;
+        _coercions.clear();
+    }
 
-        String valueAsString = value.toString();
+    /** @since 4.1.7 */
+
+    public void reportStatus(ReportStatusEvent event)
+    {
+        event.title(_serviceId);
 
-        return (Number) ConstructorUtils.invokeConstructor(targetType, new Object[] { valueAsString });
+        int count = 0;
+
+        Iterator i = _coercions.values().iterator();
+        while (i.hasNext())
+            count += ((Map) i.next()).size();
+
+        event.property("cached conversions", count);
+        event.property("cache hits", _hits.get());
+        event.property("cache misses", _misses.get());
     }
 
-    private Class convertType(Class possiblePrimitiveType)
+    /** @since 4.1.7 */
+
+    public long getCacheHits()
     {
-        Class wrapperType = (Class) _primitiveToWrapper.get(possiblePrimitiveType);
+        return _hits.get();
+    }
 
-        return wrapperType == null ? possiblePrimitiveType : wrapperType;
+    /** @since 4.1.7 */
+
+    public long getCacheMisses()
+    {
+        return _misses.get();
     }
 
     public void setContributions(List contributions)
     {
         _contributions = contributions;
     }
+
+    /** @since 4.1.7 */
+
+    public void setServiceId(String serviceId)
+    {
+        _serviceId = serviceId;
+    }
+
+    /**
+     * The conversion chosen for a particular value class and desired type.
+     */
+
+    private static final class Coercion
+    {
+        final int _kind;
+
+        final TypeConverter _converter;
+
+        Coercion(int kind, TypeConverter converter)
+        {
+            _kind = kind;
+            _converter = converter;
+        }
+    }
 }
@@ -47,4 +47,14 @@ final class ComponentMessages
     {
         return _formatter.format("squeeze-primary-key-error", component.getExtendedId(), value, cause);
     }
+
+    static String invalidStoredRowKeys(IComponent component, String reason)
+    {
+        return _formatter.format("invalid-stored-row-keys", component.getExtendedId(), reason);
+    }
+
+    static String regionTaskFailure(IComponent component, Throwable cause)
+    {
+        return _formatter.format("region-task-failure", component.getExtendedId(), cause);
+    }
 }
@@ -27,11 +27,13 @@ import org.apache.tapestry.IBinding;
 import org.apache.tapestry.IForm;
 import org.apache.tapestry.IMarkupWriter;
 import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.StaleLinkException;
 import org.apache.tapestry.Tapestry;
 import org.apache.tapestry.TapestryUtils;
 import org.apache.tapestry.coerce.ValueConverter;
 import org.apache.tapestry.engine.NullWriter;
 import org.apache.tapestry.form.AbstractFormComponent;
+import org.apache.tapestry.form.FormIdEncoder;
 import org.apache.tapestry.markup.NestedMarkupWriterImpl;
 import org.apache.tapestry.services.ComponentRenderWorker;
 import org.apache.tapestry.services.DataSqueezer;
@@ -101,6 +103,9 @@ public abstract class ForBean extends AbstractFormComponent
     public abstract ComponentRenderWorker getRenderWorker();
     
     public abstract ResponseBuilder getResponseBuilder();
+
+    /** @since 4.1.7 */
+    public abstract FormIdEncoder getFormIdEncoder();
     
     public boolean hasNext()
     {
@@ -345,7 +350,7 @@ public abstract class ForBean extends AbstractFormComponent
      */
     protected Iterator getStoredData(IRequestCycle cycle, String name)
     {
-        String[] stringReps = cycle.getParameters(name);
+        String[] stringReps = decodeStoredData(cycle.getParameters(name));
         if (stringReps == null)
             return null;
 
@@ -354,6 +359,29 @@ public abstract class ForBean extends AbstractFormComponent
         return new ReadSourceDataIterator(stringReps);
     }
 
+    /**
+     * Decodes the values stored by {@link #storeSourceData(IForm, String)}, which may have been
+     * encoded as a single value by the {@link FormIdEncoder}.
+     * 
+     * @since 4.1.7
+     */
+    private String[] decodeStoredData(String[] values)
+    {
+        FormIdEncoder encoder = getFormIdEncoder();
+
+        if (encoder == null)
+            return values;
+
+        try
+        {
+            return encoder.decodeRowKeys(values);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            throw new StaleLinkException(ComponentMessages.invalidStoredRowKeys(this, ex.getMessage()), this);
+        }
+    }
+
     /**
      * Pulls data from successive strings (posted by client-side hidden fields); each string
      * representation may be either a value or a primary key.
@@ -396,7 +424,9 @@ public abstract class ForBean extends AbstractFormComponent
 
     /**
      * Stores the provided data in the form and then returns the data as an iterator. If the primary
-     * key of the value can be determined, then that primary key is saved instead.
+     * key of the value can be determined, then that primary key is saved instead. When the
+     * {@link FormIdEncoder} is compact, all the values are stored in a single hidden field, once
+     * the iteration completes.
      * 
      * @param form
      *            The form where the data will be stored
@@ -422,27 +452,48 @@ public abstract class ForBean extends AbstractFormComponent
 
         private final Iterator _delegate;
 
+        /**
+         * Collects the string reps when they are stored as a single value, null otherwise.
+         */
+        private List _reps;
+
         StoreSourceDataIterator(IForm form, String name, Iterator delegate)
         {
             _form = form;
             _name = name;
             _delegate = delegate;
+
+            FormIdEncoder encoder = getFormIdEncoder();
+
+            if (encoder != null && encoder.isCompact())
+                _reps = new ArrayList();
         }
 
         public boolean hasNext()
         {
-            return _delegate.hasNext();
+            boolean result = _delegate.hasNext();
+
+            if (!result && _reps != null)
+            {
+                if (!_reps.isEmpty())
+                    _form.addHiddenValue(_name, getFormIdEncoder().encodeRowKeys(_reps));
+
+                _reps = null;
+            }
+
+            return result;
         }
 
         public Object next()
         {
             Object value = _delegate.next();
 
-            
-            
             String rep = getStringRepFromValue(value);
 
-            _form.addHiddenValue(_name, rep);
+            if (_reps != null)
+                _reps.add(rep);
+            else
+                _form.addHiddenValue(_name, rep);
 
             return value;
         }
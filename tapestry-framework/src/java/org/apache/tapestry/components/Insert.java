@@ -19,6 +19,7 @@ import org.apache.hivemind.ApplicationRuntimeException;
 import org.apache.tapestry.AbstractComponent;
 import org.apache.tapestry.IMarkupWriter;
 import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.IRewindAware;
 
 import java.io.IOException;
 import java.io.LineNumberReader;
@@ -33,9 +34,22 @@ import java.text.Format;
  * @author Howard Lewis Ship
  */
 
-public abstract class Insert extends AbstractComponent
+public abstract class Insert extends AbstractComponent implements IRewindAware
 {
 
+    /**
+     * Renders nothing when rewinding, so may be skipped; unless a subclass overrides
+     * {@link #renderComponent(IMarkupWriter, IRequestCycle)}, in which case it is rendered on
+     * rewind, as it was prior to 4.1.7.
+     *
+     * @since 4.1.7
+     */
+
+    public boolean getRenderOnRewind()
+    {
+        return !isRenderComponentDeclaredBy(Insert.class);
+    }
+
     /**
      * Prints its value parameter, possibly formatted by its format parameter.
      */
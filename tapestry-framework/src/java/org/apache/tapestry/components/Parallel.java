@@ -0,0 +1,83 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.components;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.tapestry.AbstractComponent;
+import org.apache.tapestry.IMarkupWriter;
+import org.apache.tapestry.IRender;
+import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.services.RegionPreparer;
+
+/**
+ * Marks the {@link Region}s it directly encloses as independent of each other, so that their data
+ * preparation may proceed concurrently. [<a
+ * href="../../../../../components/general/parallel.html">Component Reference</a>]
+ * <p>
+ * Before rendering its body, the component starts the task of each such region using the
+ * {@link RegionPreparer}. The body, regions included, is then rendered as usual, in document order,
+ * on the thread servicing the request; each region waits for (or, if it hasn't started yet,
+ * executes) its own task. Since only the tasks run on other threads, the request cycle, the
+ * {@link org.apache.tapestry.util.IdAllocator} and the
+ * {@link org.apache.tapestry.PageRenderSupport} are never shared between threads; the tasks
+ * themselves must not use them.
+ * <p>
+ * Regions nested inside other components (such as {@link For} or {@link IfBean If}) are not
+ * started early; they execute their task when they render.
+ *
+ * @since 4.1.7
+ */
+public abstract class Parallel extends AbstractComponent
+{
+    public abstract RegionPreparer getRegionPreparer();
+
+    protected void renderComponent(IMarkupWriter writer, IRequestCycle cycle)
+    {
+        List regions = findRegions();
+
+        try
+        {
+            RegionPreparer preparer = getRegionPreparer();
+
+            for (int i = 0; i < regions.size(); i++)
+                ((Region) regions.get(i)).prepare(preparer);
+
+            renderBody(writer, cycle);
+        }
+        finally
+        {
+            for (int i = 0; i < regions.size(); i++)
+                ((Region) regions.get(i)).discardPreparation();
+        }
+    }
+
+    private List findRegions()
+    {
+        List result = new ArrayList();
+
+        IRender[] body = getBody();
+        int count = getBodyCount();
+
+        for (int i = 0; i < count; i++)
+        {
+            if (body[i] instanceof Region)
+                result.add(body[i]);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.components;
+
+import org.apache.hivemind.ApplicationRuntimeException;
+import org.apache.tapestry.AbstractComponent;
+import org.apache.tapestry.IBinding;
+import org.apache.tapestry.IMarkupWriter;
+import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.listener.ListenerTask;
+import org.apache.tapestry.services.PreparedRegion;
+import org.apache.tapestry.services.RegionPreparer;
+
+/**
+ * A region of a page whose data is prepared by a {@link ListenerTask}; the result of the task is
+ * assigned to the value parameter just before the body of the region renders. [<a
+ * href="../../../../../components/general/region.html">Component Reference</a>]
+ * <p>
+ * When the region is directly enclosed by a {@link Parallel} component, its task is started, along
+ * with the tasks of the other regions of the Parallel, before any of them renders; otherwise the
+ * task is simply executed when the region renders.
+ *
+ * @since 4.1.7
+ */
+public abstract class Region extends AbstractComponent
+{
+    private PreparedRegion _prepared;
+
+    public abstract ListenerTask getTask();
+
+    /**
+     * Invoked by the enclosing {@link Parallel} to start the task ahead of rendering.
+     */
+    void prepare(RegionPreparer preparer)
+    {
+        _prepared = preparer.prepare(getTask());
+    }
+
+    /**
+     * Invoked by the enclosing {@link Parallel} once it has rendered, in case this region didn't
+     * render (and so didn't consume the prepared value).
+     */
+    void discardPreparation()
+    {
+        _prepared = null;
+    }
+
+    protected void renderComponent(IMarkupWriter writer, IRequestCycle cycle)
+    {
+        PreparedRegion prepared = _prepared;
+
+        _prepared = null;
+
+        Object value = prepared == null ? executeTask() : prepared.getValue();
+
+        IBinding valueBinding = getBinding("value");
+
+        if (valueBinding != null)
+            valueBinding.setObject(value);
+
+        renderBody(writer, cycle);
+    }
+
+    private Object executeTask()
+    {
+        ListenerTask task = getTask();
+
+        try
+        {
+            return task.execute();
+        }
+        catch (RuntimeException ex)
+        {
+            throw ex;
+        }
+        catch (Exception ex)
+        {
+            throw new ApplicationRuntimeException(ComponentMessages.regionTaskFailure(this, ex),
+                    this, getLocation(), ex);
+        }
+    }
+}
@@ -19,6 +19,7 @@ import org.apache.tapestry.engine.IEngineService;
 import org.apache.tapestry.engine.ILink;
 import org.apache.tapestry.form.ValidatableField;
 import org.apache.tapestry.form.ValidatableFieldSupport;
+import org.apache.tapestry.json.IJSONStreamWriter;
 import org.apache.tapestry.json.IJSONWriter;
 import org.apache.tapestry.json.JSONObject;
 import org.apache.tapestry.services.DataSqueezer;
@@ -147,6 +148,29 @@ public abstract class Autocompleter extends AbstractFormWidget implements Valida
         Object key = null;
         String label = null;
         
+        // Large result sets are written out as they are read from the model,
+        // rather than collected into a JSONObject first.
+
+        if (writer instanceof IJSONStreamWriter)
+        {
+            IJSONStreamWriter stream = (IJSONStreamWriter) writer;
+
+            stream.beginObject();
+
+            for (int i=0; i < filteredValues.size(); i++) {
+                Object value = filteredValues.get(i);
+
+                key = model.getPrimaryKey(value);
+                label = model.getLabelFor(value);
+
+                stream.key(getDataSqueezer().squeeze(key));
+                stream.value(label);
+            }
+
+            stream.endObject();
+            return;
+        }
+
         JSONObject json = writer.object();
         
         for (int i=0; i < filteredValues.size(); i++) {
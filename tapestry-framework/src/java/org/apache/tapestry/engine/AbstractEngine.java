@@ -18,6 +18,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hivemind.ApplicationRuntimeException;
 import org.apache.hivemind.ClassResolver;
+import org.apache.hivemind.service.ThreadLocale;
 import org.apache.hivemind.util.Defense;
 import org.apache.hivemind.util.ToStringBuilder;
 import org.apache.tapestry.*;
@@ -98,7 +99,7 @@ public abstract class AbstractEngine implements IEngine
      *
      * @since 4.0
      */
-    private Infrastructure _infrastructure;
+    private volatile Infrastructure _infrastructure;
 
     private ListenerMap _listeners;
 
@@ -108,6 +109,15 @@ public abstract class AbstractEngine implements IEngine
 
     private Locale _locale;
 
+    /**
+     * Set when the engine is shared between concurrent requests; the locale is then tracked per
+     * request, by the thread's locale, rather than in the engine itself.
+     *
+     * @since 4.1.7
+     */
+
+    private volatile ThreadLocale _threadLocale;
+
     /**
      * @see org.apache.tapestry.error.ExceptionPresenter
      */
@@ -145,9 +155,44 @@ public abstract class AbstractEngine implements IEngine
 
     public Locale getLocale()
     {
+        ThreadLocale threadLocale = _threadLocale;
+
+        if (threadLocale != null && _infrastructure != null)
+            return threadLocale.getLocale();
+
         return _locale;
     }
 
+    /**
+     * Marks this engine as shared between concurrent requests (one engine per locale, rather
+     * than one per request). A shared engine never changes its own locale; instead,
+     * {@link #setLocale(Locale)} and {@link #getLocale()} operate on the locale of the current
+     * request, which is read from the given thread locale. Subclasses that keep per-request state
+     * in instance variables must not be shared.
+     *
+     * @param threadLocale
+     *            the thread's locale (service hivemind.ThreadLocale), also updated by
+     *            {@link Infrastructure#setLocale(Locale)}
+     * @since 4.1.7
+     * @see org.apache.tapestry.services.EngineManager
+     */
+
+    public void setShared(ThreadLocale threadLocale)
+    {
+        Defense.notNull(threadLocale, "threadLocale");
+
+        _threadLocale = threadLocale;
+    }
+
+    /**
+     * @since 4.1.7
+     */
+
+    public boolean isShared()
+    {
+        return _threadLocale != null;
+    }
+
     /**
      * Returns a service with the given name.
      *
@@ -383,7 +428,11 @@ public abstract class AbstractEngine implements IEngine
     {
         Defense.notNull(value, "locale");
 
-        _locale = value;
+        // A shared engine is locked to the locale it was created for; the change
+        // only applies to the current request.
+
+        if (_threadLocale == null || _infrastructure == null)
+            _locale = value;
 
         // The locale may be set before the engine is initialized with the Infrastructure.
 
@@ -141,6 +141,17 @@ public class DirectService implements IEngineService
 
         triggerComponent(cycle, direct, parameters);
 
+        renderResponse(cycle, direct);
+    }
+
+    /**
+     * Invoked after the component has been triggered, to render the response.
+     *
+     * @since 4.1.7
+     */
+
+    protected void renderResponse(IRequestCycle cycle, IDirect direct) throws IOException
+    {
         // Render the response. This will be the active page
         // unless the direct component (or its delegate) changes it.
 
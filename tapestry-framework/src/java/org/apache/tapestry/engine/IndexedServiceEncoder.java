@@ -0,0 +1,43 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.engine;
+
+/**
+ * Optional extension of {@link ServiceEncoder} for encoders that only ever decode requests whose
+ * servlet path is one of a fixed set of paths, or ends with one of a fixed set of extensions.
+ * The {@link org.apache.tapestry.services.RequestCycleFactory} uses this information to index the
+ * encoders once, and only invokes {@link #decode(ServiceEncoding)} on the encoders that could
+ * possibly recognize the incoming request.
+ * <p>
+ * Encoders that do not implement this interface are consulted for every request, as before.
+ *
+ * @since 4.1.7
+ */
+public interface IndexedServiceEncoder extends ServiceEncoder
+{
+    /**
+     * Returns the exact servlet paths (i.e., "/assets") this encoder decodes, or null if it does
+     * not match on servlet path.
+     */
+
+    String[] getDecodedServletPaths();
+
+    /**
+     * Returns the servlet path extensions (without the leading dot, i.e., "html") this encoder
+     * decodes, or null if it does not match on extension.
+     */
+
+    String[] getDecodedExtensions();
+}
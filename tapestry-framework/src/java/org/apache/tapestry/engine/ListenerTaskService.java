@@ -0,0 +1,131 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.engine;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hivemind.util.Defense;
+import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.Tapestry;
+import org.apache.tapestry.json.JSONArray;
+import org.apache.tapestry.json.JSONObject;
+import org.apache.tapestry.listener.ListenerTaskExecutor;
+import org.apache.tapestry.listener.ListenerTaskStatus;
+import org.apache.tapestry.services.LinkFactory;
+import org.apache.tapestry.util.ContentType;
+import org.apache.tapestry.web.WebResponse;
+
+/**
+ * Reports the status of a {@link org.apache.tapestry.listener.ListenerTask}, identified by the
+ * completion token passed as the service parameter, as a JSON object:
+ * <code>{"token":"...","state":"complete","result":...}</code>. The state is one of
+ * <code>pending</code>, <code>running</code>, <code>complete</code>, <code>failed</code> (in
+ * which case an <code>error</code> message is included) or <code>unknown</code>.
+ * <p>
+ * No page is involved, so polling is cheap.
+ *
+ * @since 4.1.7
+ */
+public class ListenerTaskService implements IEngineService
+{
+    /** Query parameter holding the completion token. */
+    public static final String TOKEN = "token";
+
+    public static final String UNKNOWN = "unknown";
+
+    private LinkFactory _linkFactory;
+
+    private WebResponse _response;
+
+    private ListenerTaskExecutor _listenerTaskExecutor;
+
+    public ILink getLink(boolean post, Object parameter)
+    {
+        Defense.isAssignable(parameter, String.class, "parameter");
+
+        Map parameters = new HashMap();
+
+        parameters.put(TOKEN, parameter);
+
+        return _linkFactory.constructLink(this, post, parameters, false);
+    }
+
+    public void service(IRequestCycle cycle) throws IOException
+    {
+        String token = cycle.getParameter(TOKEN);
+
+        ListenerTaskStatus status = token == null ? null : _listenerTaskExecutor.getStatus(token);
+
+        JSONObject json = new JSONObject();
+
+        json.put(TOKEN, token == null ? JSONObject.NULL : (Object) token);
+
+        if (status == null)
+            json.put("state", UNKNOWN);
+        else
+        {
+            json.put("state", status.getState());
+
+            if (ListenerTaskStatus.COMPLETE.equals(status.getState()))
+                json.put("result", toJSONValue(status.getResult()));
+
+            if (ListenerTaskStatus.FAILED.equals(status.getState()))
+                json.put("error", String.valueOf(status.getFailure().getMessage()));
+        }
+
+        ContentType contentType = new ContentType("text/javascript;charset="
+                + cycle.getInfrastructure().getOutputEncoding());
+
+        PrintWriter writer = _response.getPrintWriter(contentType);
+
+        writer.print(json.toString());
+        writer.flush();
+    }
+
+    private Object toJSONValue(Object result)
+    {
+        if (result == null)
+            return JSONObject.NULL;
+
+        if (result instanceof JSONObject || result instanceof JSONArray || result instanceof String
+                || result instanceof Number || result instanceof Boolean)
+            return result;
+
+        return String.valueOf(result);
+    }
+
+    public String getName()
+    {
+        return Tapestry.LISTENER_TASK_SERVICE;
+    }
+
+    public void setLinkFactory(LinkFactory linkFactory)
+    {
+        _linkFactory = linkFactory;
+    }
+
+    public void setResponse(WebResponse response)
+    {
+        _response = response;
+    }
+
+    public void setListenerTaskExecutor(ListenerTaskExecutor listenerTaskExecutor)
+    {
+        _listenerTaskExecutor = listenerTaskExecutor;
+    }
+}
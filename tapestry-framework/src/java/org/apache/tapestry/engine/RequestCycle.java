@@ -14,6 +14,7 @@
 
 package org.apache.tapestry.engine;
 
+import edu.emory.mathcs.backport.java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.fileupload.RequestContext;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -23,6 +24,7 @@ import org.apache.hivemind.impl.ErrorLogImpl;
 import org.apache.hivemind.util.Defense;
 import org.apache.hivemind.util.ToStringBuilder;
 import org.apache.tapestry.*;
+import org.apache.tapestry.instrument.RequestTimings;
 import org.apache.tapestry.record.PageRecorderImpl;
 import org.apache.tapestry.record.PropertyPersistenceStrategySource;
 import org.apache.tapestry.services.AbsoluteURLBuilder;
@@ -118,6 +120,18 @@ public class RequestCycle implements IRequestCycle
 
     private Stack _renderStack = new Stack();
 
+    /**
+     * Source of render generations, shared by all request cycles.
+     *
+     * @since 4.1.7
+     */
+
+    private static final AtomicInteger RENDER_GENERATIONS = new AtomicInteger();
+
+    /** @since 4.1.7 */
+
+    private int _renderGeneration;
+
     private boolean _focusDisabled = false;
 
     /**
@@ -325,6 +339,8 @@ public class RequestCycle implements IRequestCycle
         if (_renderStack.size() == 0)
             return null;
 
+        nextRenderGeneration();
+
         return (IRender)_renderStack.pop();
     }
 
@@ -336,9 +352,31 @@ public class RequestCycle implements IRequestCycle
         if (_renderStack.size() > 0 && _renderStack.peek() == render)
             return render;
 
+        nextRenderGeneration();
+
         return (IRender)_renderStack.push(render);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public int getRenderGeneration()
+    {
+        return _renderStack.isEmpty() ? 0 : _renderGeneration;
+    }
+
+    private void nextRenderGeneration()
+    {
+        // Zero is reserved for "not rendering".
+
+        int generation = RENDER_GENERATIONS.incrementAndGet();
+
+        if (generation == 0)
+            generation = RENDER_GENERATIONS.incrementAndGet();
+
+        _renderGeneration = generation;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -462,6 +500,9 @@ public class RequestCycle implements IRequestCycle
 
         _targetComponent = form;
 
+        RequestTimings timings = RequestTimings.getCurrent();
+        long start = timings == null ? 0 : timings.start();
+
         try
         {
             page.beginPageRender();
@@ -495,6 +536,9 @@ public class RequestCycle implements IRequestCycle
 
             reset();
             _rewinding = false;
+
+            if (timings != null)
+                timings.record(RequestTimings.REWIND, start);
         }
     }
 
@@ -16,7 +16,7 @@ package org.apache.tapestry.engine.encoders;
 
 import org.apache.tapestry.Tapestry;
 import org.apache.tapestry.asset.AssetService;
-import org.apache.tapestry.engine.ServiceEncoder;
+import org.apache.tapestry.engine.IndexedServiceEncoder;
 import org.apache.tapestry.engine.ServiceEncoding;
 import org.apache.tapestry.services.ServiceConstants;
 
@@ -27,7 +27,7 @@ import org.apache.tapestry.services.ServiceConstants;
  * @author Howard M. Lewis Ship
  * @since 4.0
  */
-public class AssetEncoder implements ServiceEncoder
+public class AssetEncoder implements IndexedServiceEncoder
 {
     public static final String DIGEST_STATIC = "static";
     
@@ -86,5 +86,14 @@ public class AssetEncoder implements ServiceEncoder
             encoding.setParameterValue(AssetService.PATH, pathInfo.substring(slashx));
         }
     }
-    
+
+    public String[] getDecodedServletPaths()
+    {
+        return new String[] { _path };
+    }
+
+    public String[] getDecodedExtensions()
+    {
+        return null;
+    }
 }
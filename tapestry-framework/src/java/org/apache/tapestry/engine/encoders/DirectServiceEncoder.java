@@ -16,7 +16,7 @@ package org.apache.tapestry.engine.encoders;
 
 import org.apache.tapestry.INamespace;
 import org.apache.tapestry.Tapestry;
-import org.apache.tapestry.engine.ServiceEncoder;
+import org.apache.tapestry.engine.IndexedServiceEncoder;
 import org.apache.tapestry.engine.ServiceEncoding;
 import org.apache.tapestry.services.ServiceConstants;
 
@@ -29,7 +29,7 @@ import org.apache.tapestry.services.ServiceConstants;
  * @author Howard M. Lewis Ship
  * @since 4.0
  */
-public class DirectServiceEncoder implements ServiceEncoder
+public class DirectServiceEncoder implements IndexedServiceEncoder
 {
 
     private String _statelessExtension;
@@ -103,4 +103,14 @@ public class DirectServiceEncoder implements ServiceEncoder
     {
         _statelessExtension = statelessExtension;
     }
+
+    public String[] getDecodedServletPaths()
+    {
+        return null;
+    }
+
+    public String[] getDecodedExtensions()
+    {
+        return new String[] { _statefulExtension, _statelessExtension };
+    }
 }
@@ -15,7 +15,7 @@
 package org.apache.tapestry.engine.encoders;
 
 import org.apache.tapestry.INamespace;
-import org.apache.tapestry.engine.ServiceEncoder;
+import org.apache.tapestry.engine.IndexedServiceEncoder;
 import org.apache.tapestry.engine.ServiceEncoding;
 import org.apache.tapestry.services.ServiceConstants;
 
@@ -30,7 +30,7 @@ import org.apache.tapestry.services.ServiceConstants;
  * @author Howard M. Lewis Ship
  * @since 4.0
  */
-public class PageServiceEncoder implements ServiceEncoder
+public class PageServiceEncoder implements IndexedServiceEncoder
 {
 
     private String _extension;
@@ -88,4 +88,14 @@ public class PageServiceEncoder implements ServiceEncoder
     {
         _serviceName = serviceName;
     }
+
+    public String[] getDecodedServletPaths()
+    {
+        return null;
+    }
+
+    public String[] getDecodedExtensions()
+    {
+        return new String[] { _extension };
+    }
 }
@@ -1,13 +1,13 @@
 package org.apache.tapestry.engine.encoders;
 
-import org.apache.tapestry.engine.ServiceEncoder;
+import org.apache.tapestry.engine.IndexedServiceEncoder;
 import org.apache.tapestry.engine.ServiceEncoding;
 import org.apache.tapestry.services.ServiceConstants;
 
 /**
  * Encoder for mapping service names as simple paths such as "/service" . 
  */
-public class PathEncoder implements ServiceEncoder {
+public class PathEncoder implements IndexedServiceEncoder {
 
     private String _path;
 
@@ -39,4 +39,14 @@ public class PathEncoder implements ServiceEncoder {
         
         encoding.setParameterValue(ServiceConstants.SERVICE, _service);
     }
+
+    public String[] getDecodedServletPaths()
+    {
+        return new String[] { _path };
+    }
+
+    public String[] getDecodedExtensions()
+    {
+        return null;
+    }
 }
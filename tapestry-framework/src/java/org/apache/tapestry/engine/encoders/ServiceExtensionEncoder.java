@@ -14,7 +14,7 @@
 
 package org.apache.tapestry.engine.encoders;
 
-import org.apache.tapestry.engine.ServiceEncoder;
+import org.apache.tapestry.engine.IndexedServiceEncoder;
 import org.apache.tapestry.engine.ServiceEncoding;
 import org.apache.tapestry.services.ServiceConstants;
 
@@ -27,7 +27,7 @@ import org.apache.tapestry.services.ServiceConstants;
  * @author Howard M. Lewis Ship
  * @since 4.0
  */
-public class ServiceExtensionEncoder implements ServiceEncoder
+public class ServiceExtensionEncoder implements IndexedServiceEncoder
 {
 
     private String _extension;
@@ -65,4 +65,13 @@ public class ServiceExtensionEncoder implements ServiceEncoder
         encoding.setParameterValue(ServiceConstants.SERVICE, service);
     }
 
+    public String[] getDecodedServletPaths()
+    {
+        return null;
+    }
+
+    public String[] getDecodedExtensions()
+    {
+        return new String[] { _extension };
+    }
 }
@@ -24,6 +24,7 @@ import org.apache.hivemind.Location;
 import org.apache.hivemind.impl.MessageFormatter;
 import org.apache.hivemind.service.ClassFabUtils;
 import org.apache.hivemind.service.MethodSignature;
+import org.apache.tapestry.IComponent;
 import org.apache.tapestry.Tapestry;
 import org.apache.tapestry.spec.IComponentSpecification;
 
@@ -219,4 +220,11 @@ final class EnhanceMessages
     {
         return _formatter.format("unable-to-extend-method", ms, className, cause);
     }
+
+    static String memoizedParameterChanged(String parameterName, IComponent component, Object memoized,
+            Object current)
+    {
+        return _formatter.format("memoized-parameter-changed", new Object[]
+        { parameterName, component.getExtendedId(), memoized, current });
+    }
 }
@@ -14,12 +14,16 @@
 
 package org.apache.tapestry.enhance;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.hivemind.ApplicationRuntimeException;
 import org.apache.hivemind.Location;
 import org.apache.hivemind.service.ClassFabUtils;
 import org.apache.hivemind.service.MethodSignature;
 import org.apache.hivemind.util.Defense;
 import org.apache.tapestry.IBinding;
+import org.apache.tapestry.IComponent;
+import org.apache.tapestry.IPage;
 import org.apache.tapestry.IRequestCycle;
 import org.apache.tapestry.engine.IPageLoader;
 import org.apache.tapestry.event.PageEvent;
@@ -37,6 +41,8 @@ import java.util.Map;
  */
 public final class EnhanceUtils
 {
+    private static final Log LOG = LogFactory.getLog(EnhanceUtils.class);
+
     public static final MethodSignature FINISH_LOAD_SIGNATURE = new MethodSignature(void.class,
             "finishLoad", new Class[]
             { IRequestCycle.class, IPageLoader.class, IComponentSpecification.class }, null);
@@ -363,4 +369,42 @@ public final class EnhanceUtils
             return false;
         }
     }
+
+    /**
+     * Returns the render generation (see {@link IRequestCycle#getRenderGeneration()}) of the
+     * request cycle the component's page is attached to, or zero if the page is not attached or
+     * the cycle is rewinding. Used by parameter accessors that memoize values.
+     *
+     * @since 4.1.7
+     */
+    public static int getRenderGeneration(IComponent component)
+    {
+        IPage page = component.getPage();
+
+        if (page == null)
+            return 0;
+
+        IRequestCycle cycle = page.getRequestCycle();
+
+        if (cycle == null || cycle.isRewinding())
+            return 0;
+
+        return cycle.getRenderGeneration();
+    }
+
+    /**
+     * Invoked by parameter accessors (when memoized parameters are verified) to check that a
+     * memoized value matches the value just read from the binding; a mismatch is logged as a
+     * warning.
+     *
+     * @since 4.1.7
+     */
+    public static void verifyMemoizedParameter(IComponent component, String parameterName,
+            Object memoized, Object current)
+    {
+        if (memoized == current || (memoized != null && memoized.equals(current)))
+            return;
+
+        LOG.warn(EnhanceMessages.memoizedParameterChanged(parameterName, component, memoized, current));
+    }
 }
@@ -23,6 +23,7 @@ import org.apache.hivemind.service.MethodSignature;
 import org.apache.hivemind.util.Defense;
 import org.apache.tapestry.IBinding;
 import org.apache.tapestry.IComponent;
+import org.apache.tapestry.event.PageDetachListener;
 import org.apache.tapestry.spec.IComponentSpecification;
 import org.apache.tapestry.spec.IParameterSpecification;
 
@@ -31,6 +32,12 @@ import java.util.Iterator;
 
 /**
  * Responsible for creating properties for connected parameters.
+ * <p>
+ * Optionally (see {@link #setMemoizeParameters(boolean)}), values read from a binding are also
+ * memoized while the component is not caching them (parameters with caching disabled, or reads
+ * made outside the component's own render): the value is reused until the request cycle's
+ * {@link org.apache.tapestry.IRequestCycle#getRenderGeneration() render generation} changes,
+ * i.e. until some component begins or finishes rendering.
  *
  * @author Howard M. Lewis Ship
  * @since 4.0
@@ -40,6 +47,14 @@ public class ParameterPropertyWorker implements EnhancementWorker
 
     private ErrorLog _errorLog;
 
+    /** @since 4.1.7 */
+
+    private boolean _memoizeParameters;
+
+    /** @since 4.1.7 */
+
+    private boolean _verifyMemoizedParameters;
+
     public void performEnhancement(EnhancementOperation op, IComponentSpecification spec)
     {
         Iterator i = spec.getParameterNames().iterator();
@@ -137,6 +152,12 @@ public class ParameterPropertyWorker implements EnhancementWorker
         op.addField(defaultFieldName, propertyType);
         op.addField(cachedFieldName, boolean.class);
 
+        if (_memoizeParameters)
+        {
+            op.addField(fieldName + "$Memo", propertyType);
+            op.addField(fieldName + "$Generation", int.class);
+        }
+
         String bindingFieldName = buildBindingAccessor(op, fieldName, parameterName, location);
 
         buildAccessor(op, propertyName, propertyType, fieldName,
@@ -147,6 +168,28 @@ public class ParameterPropertyWorker implements EnhancementWorker
                      defaultFieldName, cachedFieldName, bindingFieldName, location);
 
         extendCleanupAfterRender(op, bindingFieldName, fieldName, defaultFieldName, cachedFieldName);
+
+        if (_memoizeParameters)
+            extendMemoCleanup(op, fieldName, defaultFieldName);
+    }
+
+    /**
+     * Discards the memoized value after render and when the page is detached, so that a pooled
+     * component never holds onto (or returns) a value read in an earlier request.
+     */
+
+    void extendMemoCleanup(EnhancementOperation op, String fieldName, String defaultFieldName)
+    {
+        BodyBuilder body = new BodyBuilder();
+
+        body.addln("{0}$Generation = 0;", fieldName);
+        body.addln("{0}$Memo = {1};", fieldName, defaultFieldName);
+
+        op.extendMethodImplementation(IComponent.class,
+                                      EnhanceUtils.CLEANUP_AFTER_RENDER_SIGNATURE, body.toString());
+
+        op.extendMethodImplementation(PageDetachListener.class,
+                                      EnhanceUtils.PAGE_DETACHED_SIGNATURE, body.toString());
     }
 
     String buildBindingAccessor(EnhancementOperation op, String fieldName, String parameterName, Location location)
@@ -230,6 +273,9 @@ public class ParameterPropertyWorker implements EnhancementWorker
 
         builder.addln("{0}.setObject(($w) $1);", bindingFieldName);
 
+        if (_memoizeParameters)
+            builder.addln("{0}$Generation = 0;", fieldName);
+
         // While rendering, we store the updated value for fast
         // access again (while the component is still rendering).
         // The property value will be reset to default by cleanupAfterRender().
@@ -262,8 +308,12 @@ public class ParameterPropertyWorker implements EnhancementWorker
         builder.addln("if ({0} == null) return {1};", bindingFieldName, defaultFieldName);
 
         String javaTypeName = ClassFabUtils.getJavaClassName(propertyType);
+        String unwrapExpression = EnhanceUtils.createUnwrapExpression(op, bindingFieldName, propertyType);
 
-        builder.addln("{0} result = {1};", javaTypeName, EnhanceUtils.createUnwrapExpression(op, bindingFieldName, propertyType));
+        if (_memoizeParameters)
+            buildMemoizedRead(builder, propertyName, javaTypeName, fieldName, unwrapExpression);
+
+        builder.addln("{0} result = {1};", javaTypeName, unwrapExpression);
 
         // Values read via the binding are cached during the render of
         // the component (if the parameter defines cache to be true, which
@@ -278,6 +328,15 @@ public class ParameterPropertyWorker implements EnhancementWorker
         builder.addln("{0} = true;", cachedFieldName);
         builder.end();
 
+        if (_memoizeParameters)
+        {
+            builder.addln("else if (generation != 0)");
+            builder.begin();
+            builder.addln("{0}$Memo = result;", fieldName);
+            builder.addln("{0}$Generation = generation;", fieldName);
+            builder.end();
+        }
+
         builder.addln("return result;");
 
         builder.end();
@@ -288,6 +347,45 @@ public class ParameterPropertyWorker implements EnhancementWorker
                                                           accessorMethodName, null, null), builder.toString(), location);
     }
 
+    /**
+     * Adds the code that returns the memoized value, if it was memoized in the current render
+     * generation. When verifying, the binding is read anyway and compared with the memoized value.
+     */
+
+    private void buildMemoizedRead(BodyBuilder builder, String propertyName, String javaTypeName,
+                                   String fieldName, String unwrapExpression)
+    {
+        builder.addln("int generation = {0}.getRenderGeneration(this);", EnhanceUtils.class.getName());
+        builder.addln("if (generation != 0 && generation == {0}$Generation)", fieldName);
+        builder.begin();
+
+        if (_verifyMemoizedParameters)
+        {
+            builder.addln("{0} current = {1};", javaTypeName, unwrapExpression);
+            builder.addln("{0}.verifyMemoizedParameter(this, \"{1}\", ($w) {2}$Memo, ($w) current);",
+                          EnhanceUtils.class.getName(), propertyName, fieldName);
+            builder.addln("return current;");
+        }
+        else
+            builder.addln("return {0}$Memo;", fieldName);
+
+        builder.end();
+    }
+
+    /** @since 4.1.7 */
+
+    public void setMemoizeParameters(boolean memoizeParameters)
+    {
+        _memoizeParameters = memoizeParameters;
+    }
+
+    /** @since 4.1.7 */
+
+    public void setVerifyMemoizedParameters(boolean verifyMemoizedParameters)
+    {
+        _verifyMemoizedParameters = verifyMemoizedParameters;
+    }
+
     public void setErrorLog(ErrorLog errorLog)
     {
         _errorLog = errorLog;
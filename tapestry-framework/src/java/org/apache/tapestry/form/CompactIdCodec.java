@@ -0,0 +1,601 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.form;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, validated encodings for the element ids allocated by a form, and for the row keys
+ * stored by a {@link org.apache.tapestry.components.ForBean For} component. Both encodings start
+ * with {@link #PREFIX}, which can't start a legacy (comma separated) id list or a For row key.
+ * <p>
+ * <strong>Allocated ids</strong> are split into a base id and an optional numeric suffix, the way
+ * {@link org.apache.tapestry.util.IdAllocator} builds them. The distinct base ids are listed once,
+ * then each id is encoded as the index of its base id, followed by <code>:</code> and its
+ * suffix only when the suffix isn't simply the next one for that base id. Repeating sequences
+ * (the rows of a grid of fields) are then run-length encoded. So
+ * <code>name,email,name_0,email_0,name_1,email_1</code> becomes
+ * <code>~name,email|(0,1)*3</code>.
+ * <p>
+ * <strong>Row keys</strong> are encoded as a single comma separated list, where a run of keys
+ * that end in consecutive numbers (squeezed integer primary keys, typically) is encoded as
+ * <code>prefix*start+count</code>. Backslash escapes commas, asterisks and backslashes within
+ * keys.
+ * <p>
+ * Decoding verifies the structure of the encoded value, and that it doesn't expand to more than
+ * a maximum number of values; violations are reported as {@link IllegalArgumentException}s.
+ * 
+ * @since 4.1.7
+ */
+final class CompactIdCodec
+{
+    static final char PREFIX = '~';
+
+    /**
+     * The longest sequence of ids checked for repetition.
+     */
+
+    private static final int MAX_PERIOD = 8;
+
+    /**
+     * Suffixes are limited to nine digits, so that they always fit in an int.
+     */
+
+    private static final int MAX_DIGITS = 9;
+
+    /** Index value for an id without numeric suffix. */
+
+    private static final int NO_SUFFIX = -1;
+
+    /** Marks an atom whose suffix is implied. */
+
+    private static final int IMPLIED = Integer.MIN_VALUE;
+
+    /* defeat instantiation */
+    private CompactIdCodec() { }
+
+    static boolean isCompact(String value)
+    {
+        return value != null && value.length() > 0 && value.charAt(0) == PREFIX;
+    }
+
+    /**
+     * Encodes a list of allocated ids. Returns null if an id contains a character reserved by the
+     * encoding (ids are normally XML name tokens, which never do).
+     */
+
+    static String encodeIds(List ids)
+    {
+        int count = ids.size();
+
+        List bases = new ArrayList();
+        Map baseStates = new HashMap();
+        String[] atoms = new String[count];
+
+        for (int i = 0; i < count; i++)
+        {
+            String id = (String) ids.get(i);
+
+            if (id.indexOf(',') >= 0 || id.indexOf('|') >= 0)
+                return null;
+
+            int sepx = findSuffix(id);
+
+            String base = sepx < 0 ? id : id.substring(0, sepx);
+            int index = sepx < 0 ? NO_SUFFIX : Integer.parseInt(id.substring(sepx + 1));
+
+            // state[0] is the position of the base id, state[1] the last suffix used with it
+
+            int[] state = (int[]) baseStates.get(base);
+
+            if (state == null)
+            {
+                state = new int[] { bases.size(), NO_SUFFIX - 1 };
+
+                bases.add(base);
+                baseStates.put(base, state);
+            }
+
+            atoms[i] = index == state[1] + 1 ? String.valueOf(state[0]) : state[0] + ":" + index;
+
+            state[1] = index;
+        }
+
+        StringBuffer buffer = new StringBuffer(count * 2 + 16);
+
+        buffer.append(PREFIX);
+
+        for (int i = 0; i < bases.size(); i++)
+        {
+            if (i > 0)
+                buffer.append(',');
+
+            buffer.append(bases.get(i));
+        }
+
+        buffer.append('|');
+
+        int cursor = 0;
+
+        while (cursor < count)
+        {
+            int bestPeriod = 1;
+            int bestRepeat = 1;
+
+            for (int period = 1; period <= MAX_PERIOD && cursor + 2 * period <= count; period++)
+            {
+                int repeat = 1;
+
+                while (cursor + (repeat + 1) * period <= count
+                        && matches(atoms, cursor, cursor + repeat * period, period))
+                    repeat++;
+
+                if (repeat > 1 && period * repeat > bestPeriod * bestRepeat)
+                {
+                    bestPeriod = period;
+                    bestRepeat = repeat;
+                }
+            }
+
+            if (cursor > 0)
+                buffer.append(',');
+
+            if (bestPeriod > 1)
+                buffer.append('(');
+
+            for (int i = 0; i < bestPeriod; i++)
+            {
+                if (i > 0)
+                    buffer.append(',');
+
+                buffer.append(atoms[cursor + i]);
+            }
+
+            if (bestPeriod > 1)
+                buffer.append(')');
+
+            if (bestRepeat > 1)
+            {
+                buffer.append('*');
+                buffer.append(bestRepeat);
+            }
+
+            cursor += bestPeriod * bestRepeat;
+        }
+
+        return buffer.toString();
+    }
+
+    /**
+     * Decodes a value produced by {@link #encodeIds(List)} back into a list of ids.
+     * 
+     * @throws IllegalArgumentException
+     *             if the value is malformed, or would expand to more than maxIds ids
+     */
+
+    static List decodeIds(String encoded, int maxIds)
+    {
+        int barx = encoded.indexOf('|');
+
+        if (!isCompact(encoded) || barx < 0)
+            throw malformed(0);
+
+        String[] bases = barx == 1 ? new String[0] : split(encoded.substring(1, barx));
+        int[] lastIndexes = new int[bases.length];
+
+        for (int i = 0; i < bases.length; i++)
+            lastIndexes[i] = NO_SUFFIX - 1;
+
+        List result = new ArrayList();
+        Parser parser = new Parser(encoded, barx + 1);
+        List group = new ArrayList();
+
+        while (!parser.atEnd())
+        {
+            group.clear();
+
+            int repeat = 1;
+
+            if (parser.accept('('))
+            {
+                group.add(parser.parseAtom(bases.length));
+
+                while (parser.accept(','))
+                    group.add(parser.parseAtom(bases.length));
+
+                parser.expect(')');
+                parser.expect('*');
+
+                repeat = parser.parseCount();
+            }
+            else
+            {
+                group.add(parser.parseAtom(bases.length));
+
+                if (parser.accept('*'))
+                    repeat = parser.parseCount();
+            }
+
+            if (result.size() + (long) repeat * group.size() > maxIds)
+                throw new IllegalArgumentException(FormMessages.tooManyEncodedIds(maxIds));
+
+            for (int i = 0; i < repeat; i++)
+            {
+                for (int j = 0; j < group.size(); j++)
+                {
+                    int[] atom = (int[]) group.get(j);
+                    int base = atom[0];
+                    int index = atom[1] == IMPLIED ? lastIndexes[base] + 1 : atom[1];
+
+                    lastIndexes[base] = index;
+
+                    result.add(index == NO_SUFFIX ? bases[base] : bases[base] + "_" + index);
+                }
+            }
+
+            if (!parser.atEnd())
+            {
+                parser.expect(',');
+
+                if (parser.atEnd())
+                    throw malformed(encoded.length());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Encodes a list of For row keys (each a string).
+     */
+
+    static String encodeKeys(List keys)
+    {
+        int count = keys.size();
+        StringBuffer buffer = new StringBuffer(count * 4 + 16);
+
+        buffer.append(PREFIX);
+
+        int cursor = 0;
+
+        while (cursor < count)
+        {
+            String key = (String) keys.get(cursor);
+            int digitx = findTrailingNumber(key);
+
+            int run = 1;
+
+            if (digitx >= 0)
+            {
+                String prefix = key.substring(0, digitx);
+                long start = Long.parseLong(key.substring(digitx));
+
+                while (cursor + run < count
+                        && key(prefix, start + run).equals(keys.get(cursor + run)))
+                    run++;
+            }
+
+            if (cursor > 0)
+                buffer.append(',');
+
+            if (run == 1)
+            {
+                escape(buffer, key);
+            }
+            else
+            {
+                escape(buffer, key.substring(0, digitx));
+                buffer.append('*');
+                buffer.append(key.substring(digitx));
+                buffer.append('+');
+                buffer.append(run);
+            }
+
+            cursor += run;
+        }
+
+        return buffer.toString();
+    }
+
+    /**
+     * Decodes a value produced by {@link #encodeKeys(List)} back into the list of row keys.
+     * 
+     * @throws IllegalArgumentException
+     *             if the value is malformed, or would expand to more than maxKeys keys
+     */
+
+    static List decodeKeys(String encoded, int maxKeys)
+    {
+        if (!isCompact(encoded))
+            throw malformed(0);
+
+        List result = new ArrayList();
+        int length = encoded.length();
+        int cursor = 1;
+        StringBuffer buffer = new StringBuffer();
+
+        while (cursor < length)
+        {
+            buffer.setLength(0);
+
+            while (cursor < length)
+            {
+                char ch = encoded.charAt(cursor);
+
+                if (ch == ',' || ch == '*')
+                    break;
+
+                if (ch == '\\')
+                {
+                    if (++cursor == length)
+                        throw malformed(cursor);
+
+                    ch = encoded.charAt(cursor);
+                }
+
+                buffer.append(ch);
+                cursor++;
+            }
+
+            String prefix = buffer.toString();
+
+            if (cursor == length || encoded.charAt(cursor) != '*')
+            {
+                if (result.size() == maxKeys)
+                    throw new IllegalArgumentException(FormMessages.tooManyEncodedIds(maxKeys));
+
+                result.add(prefix);
+            }
+            else
+            {
+                Parser parser = new Parser(encoded, cursor + 1);
+
+                long start = parser.parseNumber();
+                parser.expect('+');
+                int run = parser.parseCount();
+
+                cursor = parser.getCursor();
+
+                if (result.size() + (long) run > maxKeys)
+                    throw new IllegalArgumentException(FormMessages.tooManyEncodedIds(maxKeys));
+
+                for (int i = 0; i < run; i++)
+                    result.add(key(prefix, start + i));
+            }
+
+            if (cursor < length)
+            {
+                if (encoded.charAt(cursor) != ',' || cursor == length - 1)
+                    throw malformed(cursor);
+
+                cursor++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the position of the underscore that separates a numeric suffix from the base id,
+     * or -1 if the id has no suffix.
+     */
+
+    private static int findSuffix(String id)
+    {
+        int sepx = id.lastIndexOf('_');
+
+        if (sepx <= 0 || !isNumber(id, sepx + 1))
+            return -1;
+
+        return sepx;
+    }
+
+    /**
+     * Returns the position of the trailing number of a key, or -1 if the key doesn't end with a
+     * number (or the number is too long, or has leading zeros).
+     */
+
+    private static int findTrailingNumber(String key)
+    {
+        int digitx = key.length();
+
+        while (digitx > 0 && isDigit(key.charAt(digitx - 1)))
+            digitx--;
+
+        return isNumber(key, digitx) ? digitx : -1;
+    }
+
+    /**
+     * Returns true if the value, from start to its end, is a canonical decimal number (no sign,
+     * no leading zeros) of no more than {@link #MAX_DIGITS} digits.
+     */
+
+    private static boolean isNumber(String value, int start)
+    {
+        int digits = value.length() - start;
+
+        if (digits == 0 || digits > MAX_DIGITS)
+            return false;
+
+        if (digits > 1 && value.charAt(start) == '0')
+            return false;
+
+        for (int i = start; i < value.length(); i++)
+        {
+            if (!isDigit(value.charAt(i)))
+                return false;
+        }
+
+        return true;
+    }
+
+    private static boolean isDigit(char ch)
+    {
+        return ch >= '0' && ch <= '9';
+    }
+
+    private static String key(String prefix, long number)
+    {
+        return prefix + number;
+    }
+
+    private static boolean matches(String[] atoms, int first, int second, int length)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            if (!atoms[first + i].equals(atoms[second + i]))
+                return false;
+        }
+
+        return true;
+    }
+
+    private static void escape(StringBuffer buffer, String value)
+    {
+        for (int i = 0; i < value.length(); i++)
+        {
+            char ch = value.charAt(i);
+
+            if (ch == ',' || ch == '*' || ch == '\\')
+                buffer.append('\\');
+
+            buffer.append(ch);
+        }
+    }
+
+    /**
+     * Splits on commas, keeping empty values.
+     */
+
+    private static String[] split(String value)
+    {
+        List result = new ArrayList();
+        int start = 0;
+
+        while (true)
+        {
+            int commax = value.indexOf(',', start);
+
+            if (commax < 0)
+            {
+                result.add(value.substring(start));
+                break;
+            }
+
+            result.add(value.substring(start, commax));
+            start = commax + 1;
+        }
+
+        return (String[]) result.toArray(new String[result.size()]);
+    }
+
+    private static IllegalArgumentException malformed(int position)
+    {
+        return new IllegalArgumentException(FormMessages.malformedEncodedIds(position));
+    }
+
+    /**
+     * Minimal scanner over the body of an encoded id list.
+     */
+
+    private static class Parser
+    {
+        private final String _input;
+
+        private int _cursor;
+
+        Parser(String input, int cursor)
+        {
+            _input = input;
+            _cursor = cursor;
+        }
+
+        int getCursor()
+        {
+            return _cursor;
+        }
+
+        boolean atEnd()
+        {
+            return _cursor == _input.length();
+        }
+
+        boolean accept(char ch)
+        {
+            if (atEnd() || _input.charAt(_cursor) != ch)
+                return false;
+
+            _cursor++;
+
+            return true;
+        }
+
+        void expect(char ch)
+        {
+            if (!accept(ch))
+                throw malformed(_cursor);
+        }
+
+        /**
+         * Parses an atom: a base index, optionally followed by ':' and an explicit suffix (-1 for
+         * no suffix).
+         */
+
+        int[] parseAtom(int baseCount)
+        {
+            int base = (int) parseNumber();
+
+            if (base >= baseCount)
+                throw malformed(_cursor);
+
+            int index = IMPLIED;
+
+            if (accept(':'))
+                index = accept('-') ? -(int) parseNumber() : (int) parseNumber();
+
+            if (index != IMPLIED && index < NO_SUFFIX)
+                throw malformed(_cursor);
+
+            return new int[] { base, index };
+        }
+
+        int parseCount()
+        {
+            int position = _cursor;
+            long result = parseNumber();
+
+            if (result < 1)
+                throw malformed(position);
+
+            return (int) result;
+        }
+
+        long parseNumber()
+        {
+            int start = _cursor;
+
+            while (!atEnd() && _cursor - start <= MAX_DIGITS && isDigit(_input.charAt(_cursor)))
+                _cursor++;
+
+            if (_cursor == start || _cursor - start > MAX_DIGITS)
+                throw malformed(start);
+
+            return Long.parseLong(_input.substring(start, _cursor));
+        }
+    }
+}
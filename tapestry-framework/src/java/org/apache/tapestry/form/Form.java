@@ -244,7 +244,7 @@ public abstract class Form extends AbstractComponent implements IForm
 
     protected FormSupport newFormSupport(IMarkupWriter writer, IRequestCycle cycle)
     {
-        return new FormSupportImpl(writer, cycle, this, getJavascriptManager());
+        return new FormSupportImpl(writer, cycle, this, getJavascriptManager(), getFormIdEncoder());
     }
 
     /**
@@ -411,4 +411,11 @@ public abstract class Form extends AbstractComponent implements IForm
      * @return The configured {@link JavascriptManager} for this request.
      */
     public abstract JavascriptManager getJavascriptManager();
+
+    /**
+     * Injected {@link FormIdEncoder}, used to encode the ids allocated by the form's elements.
+     *
+     * @since 4.1.7
+     */
+    public abstract FormIdEncoder getFormIdEncoder();
 }
@@ -0,0 +1,72 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.form;
+
+import java.util.List;
+
+/**
+ * Encodes the state a form round-trips through hidden fields in order to rewind: the list of
+ * element ids allocated while rendering the form (the {@link FormSupportImpl#FORM_IDS formids}
+ * field), and the row keys stored by {@link org.apache.tapestry.components.ForBean For}
+ * components. Service tapestry.form.FormIdEncoder.
+ * <p>
+ * By default, the traditional encodings (a comma separated list of ids, and one hidden field per
+ * row) are used. When compact encoding is enabled, both are run-length encoded, which keeps
+ * forms containing large grids of fields small. Either way, decoding accepts both encodings, so
+ * enabling or disabling compact encoding doesn't invalidate forms already sent to clients.
+ * 
+ * @since 4.1.7
+ */
+public interface FormIdEncoder
+{
+    /**
+     * Returns true if row keys should be encoded as a single value, using
+     * {@link #encodeRowKeys(List)}, rather than as one hidden field per row.
+     */
+
+    boolean isCompact();
+
+    /**
+     * Encodes the list of ids (strings) allocated while rendering a form.
+     */
+
+    String encodeAllocatedIds(List ids);
+
+    /**
+     * Decodes the value of the formids parameter (which may be null) back into the list of
+     * allocated ids.
+     * 
+     * @throws IllegalArgumentException
+     *             if the value is not a valid encoding, or describes too many ids
+     */
+
+    List decodeAllocatedIds(String value);
+
+    /**
+     * Encodes the row keys (strings) stored by a For component as a single value.
+     */
+
+    String encodeRowKeys(List keys);
+
+    /**
+     * Decodes the values submitted for a For component (which may be null) back into its row
+     * keys. Values stored one per hidden field are returned unchanged.
+     * 
+     * @throws IllegalArgumentException
+     *             if the value is not a valid encoding, or describes too many keys
+     */
+
+    String[] decodeRowKeys(String[] values);
+}
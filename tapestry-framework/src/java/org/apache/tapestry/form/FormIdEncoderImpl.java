@@ -0,0 +1,226 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.form;
+
+import edu.emory.mathcs.backport.java.util.concurrent.atomic.AtomicLong;
+import org.apache.tapestry.TapestryUtils;
+import org.apache.tapestry.event.ReportStatusEvent;
+import org.apache.tapestry.event.ReportStatusListener;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Implementation of {@link FormIdEncoder}, using {@link CompactIdCodec} when
+ * <code>compact</code> is enabled. Keeps a histogram of the sizes of the encoded values, along
+ * with the size the traditional encoding would have taken, which is reported as part of the
+ * application status.
+ * 
+ * @since 4.1.7
+ */
+public class FormIdEncoderImpl implements FormIdEncoder, ReportStatusListener
+{
+    /**
+     * Upper bounds (exclusive) of the histogram buckets, in characters; the last bucket is
+     * unbounded.
+     */
+
+    private static final int[] BUCKET_BOUNDS = { 256, 1024, 4096, 16384, 65536 };
+
+    private String _serviceId;
+
+    private boolean _compact;
+
+    private int _maxIds;
+
+    private final SizeHistogram _allocatedIds = new SizeHistogram();
+
+    private final SizeHistogram _rowKeys = new SizeHistogram();
+
+    private final AtomicLong _rejected = new AtomicLong();
+
+    public boolean isCompact()
+    {
+        return _compact;
+    }
+
+    public String encodeAllocatedIds(List ids)
+    {
+        String result = ids.isEmpty() || !_compact ? null : CompactIdCodec.encodeIds(ids);
+
+        if (result == null)
+            result = buildIdList(ids);
+
+        _allocatedIds.record(result.length(), legacyLength(ids, 1));
+
+        return result;
+    }
+
+    public List decodeAllocatedIds(String value)
+    {
+        try
+        {
+            if (CompactIdCodec.isCompact(value))
+                return CompactIdCodec.decodeIds(value, _maxIds);
+
+            String[] ids = TapestryUtils.split(value);
+
+            if (ids.length > _maxIds)
+                throw new IllegalArgumentException(FormMessages.tooManyEncodedIds(_maxIds));
+
+            return Arrays.asList(ids);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            _rejected.incrementAndGet();
+
+            throw ex;
+        }
+    }
+
+    public String encodeRowKeys(List keys)
+    {
+        String result = CompactIdCodec.encodeKeys(keys);
+
+        _rowKeys.record(result.length(), legacyLength(keys, 0));
+
+        return result;
+    }
+
+    public String[] decodeRowKeys(String[] values)
+    {
+        if (values == null || values.length != 1 || !CompactIdCodec.isCompact(values[0]))
+            return values;
+
+        try
+        {
+            List keys = CompactIdCodec.decodeKeys(values[0], _maxIds);
+
+            return (String[]) keys.toArray(new String[keys.size()]);
+        }
+        catch (IllegalArgumentException ex)
+        {
+            _rejected.incrementAndGet();
+
+            throw ex;
+        }
+    }
+
+    public void reportStatus(ReportStatusEvent event)
+    {
+        event.title(_serviceId);
+
+        event.property("compact encoding", _compact);
+        event.property("maximum ids", _maxIds);
+        event.property("rejected encodings", _rejected.get());
+
+        _allocatedIds.report(event, "Allocated Form Ids");
+        _rowKeys.report(event, "For Row Keys");
+    }
+
+    /**
+     * Converts the ids into the traditional comma separated list.
+     */
+
+    private static String buildIdList(List ids)
+    {
+        StringBuffer buffer = new StringBuffer();
+        int count = ids.size();
+
+        for (int i = 0; i < count; i++)
+        {
+            if (i > 0)
+                buffer.append(',');
+
+            buffer.append(ids.get(i));
+        }
+
+        return buffer.toString();
+    }
+
+    /**
+     * Returns the number of characters the values occupy in the traditional encoding, with the
+     * given number of separator characters between values.
+     */
+
+    private static long legacyLength(List values, int separatorLength)
+    {
+        long result = 0;
+        int count = values.size();
+
+        for (int i = 0; i < count; i++)
+            result += ((String) values.get(i)).length();
+
+        return count == 0 ? 0 : result + (count - 1) * separatorLength;
+    }
+
+    public void setCompact(boolean compact)
+    {
+        _compact = compact;
+    }
+
+    public void setMaxIds(int maxIds)
+    {
+        _maxIds = maxIds;
+    }
+
+    public void setServiceId(String serviceId)
+    {
+        _serviceId = serviceId;
+    }
+
+    private static class SizeHistogram
+    {
+        private final AtomicLong[] _counts = new AtomicLong[BUCKET_BOUNDS.length + 1];
+
+        private final AtomicLong _encodedTotal = new AtomicLong();
+
+        private final AtomicLong _legacyTotal = new AtomicLong();
+
+        SizeHistogram()
+        {
+            for (int i = 0; i < _counts.length; i++)
+                _counts[i] = new AtomicLong();
+        }
+
+        void record(int encodedLength, long legacyLength)
+        {
+            int bucket = 0;
+
+            while (bucket < BUCKET_BOUNDS.length && encodedLength >= BUCKET_BOUNDS[bucket])
+                bucket++;
+
+            _counts[bucket].incrementAndGet();
+            _encodedTotal.addAndGet(encodedLength);
+            _legacyTotal.addAndGet(legacyLength);
+        }
+
+        void report(ReportStatusEvent event, String title)
+        {
+            event.section(title);
+
+            for (int i = 0; i < _counts.length; i++)
+            {
+                String label = i < BUCKET_BOUNDS.length ? "< " + BUCKET_BOUNDS[i] + " chars"
+                        : ">= " + BUCKET_BOUNDS[i - 1] + " chars";
+
+                event.property(label, _counts[i].get());
+            }
+
+            event.property("total encoded chars", _encodedTotal.get());
+            event.property("total unencoded chars", _legacyTotal.get());
+        }
+    }
+}
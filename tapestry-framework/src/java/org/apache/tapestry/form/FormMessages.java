@@ -72,4 +72,19 @@ final class FormMessages
         return _formatter.format("link-submit-may-not-nest", inner.getExtendedId(), outer
                 .getExtendedId(), HiveMind.getLocationString(outer));
     }
+
+    static String malformedEncodedIds(int position)
+    {
+        return _formatter.format("malformed-encoded-ids", new Integer(position));
+    }
+
+    static String tooManyEncodedIds(int maxIds)
+    {
+        return _formatter.format("too-many-encoded-ids", new Integer(maxIds));
+    }
+
+    static String invalidAllocatedIds(IComponent form, String reason)
+    {
+        return _formatter.format("invalid-allocated-ids", form.getExtendedId(), reason);
+    }
 }
@@ -159,6 +159,8 @@ public class FormSupportImpl implements FormSupport
 
     private JavascriptManager _javascriptManager;
 
+    private final FormIdEncoder _formIdEncoder;
+
     private String _idSeed;
 
     public FormSupportImpl(IMarkupWriter writer, IRequestCycle cycle, IForm form)
@@ -168,6 +170,19 @@ public class FormSupportImpl implements FormSupport
 
     public FormSupportImpl(IMarkupWriter writer, IRequestCycle cycle,
                            IForm form, JavascriptManager javascriptManager)
+    {
+        this(writer, cycle, form, javascriptManager, null);
+    }
+
+    /**
+     * @param formIdEncoder
+     *          Used to encode and decode the list of allocated ids; if null, the ids are
+     *          stored as a comma separated list.
+     * @since 4.1.7
+     */
+
+    public FormSupportImpl(IMarkupWriter writer, IRequestCycle cycle,
+                           IForm form, JavascriptManager javascriptManager, FormIdEncoder formIdEncoder)
     {
         Defense.notNull(writer, "writer");
         Defense.notNull(cycle, "cycle");
@@ -184,6 +199,7 @@ public class FormSupportImpl implements FormSupport
         _pageRenderSupport = TapestryUtils.getOptionalPageRenderSupport(cycle);
         _profile = new JSONObject();
         _javascriptManager = javascriptManager;
+        _formIdEncoder = formIdEncoder;
     }
 
     /**
@@ -201,6 +217,7 @@ public class FormSupportImpl implements FormSupport
         _delegate = null;
         _pageRenderSupport = null;
         _profile = null;
+        _formIdEncoder = null;
     }
 
     /**
@@ -288,13 +305,16 @@ public class FormSupportImpl implements FormSupport
     }
 
     /**
-     * Converts the allocateIds property into a string, a comma-separated list of ids. This is
-     * included as a hidden field in the form and is used to identify discrepencies when the form is
-     * submitted.
+     * Converts the allocateIds property into a string, a comma-separated list of ids (or the
+     * encoding provided by the {@link FormIdEncoder}). This is included as a hidden field in the
+     * form and is used to identify discrepencies when the form is submitted.
      */
 
     private String buildAllocatedIdList()
     {
+        if (_formIdEncoder != null)
+            return _formIdEncoder.encodeAllocatedIds(_allocatedIds);
+
         StringBuffer buffer = new StringBuffer();
         int count = _allocatedIds.size();
 
@@ -457,17 +477,31 @@ public class FormSupportImpl implements FormSupport
 
         String allocatedFormIds = _cycle.getParameter(FORM_IDS);
 
-        String[] ids = TapestryUtils.split(allocatedFormIds);
+        if (_formIdEncoder != null)
+        {
+            try
+            {
+                _allocatedIds.addAll(_formIdEncoder.decodeAllocatedIds(allocatedFormIds));
+            }
+            catch (IllegalArgumentException ex)
+            {
+                throw new StaleLinkException(FormMessages.invalidAllocatedIds(_form, ex.getMessage()), _form);
+            }
+        }
+        else
+        {
+            String[] ids = TapestryUtils.split(allocatedFormIds);
 
-        for (int i = 0; i < ids.length; i++)
-            _allocatedIds.add(ids[i]);
+            for (int i = 0; i < ids.length; i++)
+                _allocatedIds.add(ids[i]);
+        }
 
         // Now, reconstruct the initial state of the
         // id allocator.
 
         String extraReservedIds = _cycle.getParameter(RESERVED_FORM_IDS);
 
-        ids = TapestryUtils.split(extraReservedIds);
+        String[] ids = TapestryUtils.split(extraReservedIds);
 
         for (int i = 0; i < ids.length; i++)
         {
@@ -621,6 +655,9 @@ public class FormSupportImpl implements FormSupport
 
         reinitializeIdAllocatorForRewind();
 
+        // As the cycle is rewinding, static text and other renderers that take no part in the
+        // rewind (see IRewindAware) are skipped.
+
         _form.renderBody(_writer, _cycle);
 
         // New, handles cases where an eventlistener
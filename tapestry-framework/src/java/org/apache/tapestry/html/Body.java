@@ -33,6 +33,14 @@ public abstract class Body extends AbstractComponent
     
     protected void renderComponent(IMarkupWriter writer, IRequestCycle cycle)
     {
+        Shell shell = Shell.get(cycle);
+
+        if (shell != null && shell.isStreaming())
+        {
+            renderStreamed(writer, cycle);
+            return;
+        }
+
         IMarkupWriter nested = writer.getNestedWriter();
 
         renderBody(nested, cycle);
@@ -76,6 +84,35 @@ public abstract class Body extends AbstractComponent
         writer.end(); // <body>
     }
 
+    /**
+     * Used when the {@link Shell} is streaming the page: the body is written directly to the
+     * response, so the page's scripting (including any script includes) can only be written once
+     * the content has rendered, just ahead of the initialization script.
+     *
+     * @since 4.1.7
+     */
+    private void renderStreamed(IMarkupWriter writer, IRequestCycle cycle)
+    {
+        writer.println();
+        writer.begin(getElement());
+
+        renderInformalParameters(writer, cycle);
+
+        renderIdAttribute(writer, cycle);
+
+        writer.println();
+
+        renderBody(writer, cycle);
+
+        getRenderWorker().renderBody(cycle, this);
+        getRenderWorker().renderComponent(cycle, getPage());
+
+        getBuilder().writeBodyScript(writer, cycle);
+        getBuilder().writeInitializationScript(writer);
+
+        writer.end(); // <body>
+    }
+
     /**
      * Parameter.
      */
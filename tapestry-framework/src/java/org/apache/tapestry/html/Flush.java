@@ -0,0 +1,44 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.html;
+
+import org.apache.tapestry.AbstractComponent;
+import org.apache.tapestry.IMarkupWriter;
+import org.apache.tapestry.IRequestCycle;
+
+/**
+ * Renders its body and then, when the {@link Shell} is streaming the page, flushes everything
+ * rendered so far to the client. Used to mark the points in a page where it is worth sending a
+ * chunk to the browser, typically just ahead of a slow section. Has no effect when the page is not
+ * being streamed, or inside a component (such as a Form) that buffers its body. [ <a
+ * href="../../../../../components/general/flush.html">Component Reference </a>]
+ *
+ * @since 4.1.7
+ */
+public abstract class Flush extends AbstractComponent
+{
+    protected void renderComponent(IMarkupWriter writer, IRequestCycle cycle)
+    {
+        renderBody(writer, cycle);
+
+        if (cycle.isRewinding())
+            return;
+
+        Shell shell = Shell.get(cycle);
+
+        if (shell != null && shell.isStreaming())
+            writer.flush();
+    }
+}
@@ -18,6 +18,7 @@ import org.apache.tapestry.AbstractComponent;
 import org.apache.tapestry.IAsset;
 import org.apache.tapestry.IMarkupWriter;
 import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.IRewindAware;
 import org.apache.tapestry.Tapestry;
 
 /**
@@ -28,9 +29,22 @@ import org.apache.tapestry.Tapestry;
  * @author Howard Lewis Ship
  */
 
-public abstract class Image extends AbstractComponent
+public abstract class Image extends AbstractComponent implements IRewindAware
 {
 
+    /**
+     * Renders nothing when rewinding, so may be skipped; unless a subclass overrides
+     * {@link #renderComponent(IMarkupWriter, IRequestCycle)}, in which case it is rendered on
+     * rewind, as it was prior to 4.1.7.
+     *
+     * @since 4.1.7
+     */
+
+    public boolean getRenderOnRewind()
+    {
+        return !isRenderComponentDeclaredBy(Image.class);
+    }
+
     /**
      * Renders the &lt;img&gt; element.
      */
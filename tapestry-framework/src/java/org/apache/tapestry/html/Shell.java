@@ -114,32 +114,39 @@ public abstract class Shell extends AbstractComponent
             }
         }
 
-        // Render the body, the actual page content
+        if (!rewinding && !dynamic && isStream())
+        {
+            renderStreamed(writer, cycle);
+        }
+        else
+        {
+            // Render the body, the actual page content
 
-        IMarkupWriter nested = !dynamic ? writer.getNestedWriter() : writer;
+            IMarkupWriter nested = !dynamic ? writer.getNestedWriter() : writer;
 
-        renderBody(nested, cycle);
+            renderBody(nested, cycle);
 
-        if (!rewinding)
-        {
-            List relations = getRelations();
-            if (relations != null)
-                writeRelations(writer, relations);
+            if (!rewinding)
+            {
+                List relations = getRelations();
+                if (relations != null)
+                    writeRelations(writer, relations, 0);
 
-            IRender ajaxDelegate = getAjaxDelegate();
+                IRender ajaxDelegate = getAjaxDelegate();
 
-            if (ajaxDelegate != null)
-                ajaxDelegate.render(writer, cycle);
+                if (ajaxDelegate != null)
+                    ajaxDelegate.render(writer, cycle);
 
-            StringBuffer additionalContent = getContentBuffer();
-            if (additionalContent != null)
-                writer.printRaw(additionalContent.toString());
+                StringBuffer additionalContent = getContentBuffer();
+                if (additionalContent != null)
+                    writer.printRaw(additionalContent.toString());
 
-            writer.end(); // head
-        }
+                writer.end(); // head
+            }
 
-        if (!dynamic)
-            nested.close();
+            if (!dynamic)
+                nested.close();
+        }
 
         if (!rewinding && !dynamic)
         {
@@ -214,9 +221,54 @@ public abstract class Shell extends AbstractComponent
         writer.println();
     }
 
-    private void writeRelations(IMarkupWriter writer, List relations)
+    /**
+     * Finishes the head and flushes it to the client before the body is rendered; used when the
+     * stream parameter is set. The head can't contain anything contributed while rendering the
+     * body, so any relations or additional content contributed then are written after the body
+     * instead.
+     *
+     * @since 4.1.7
+     */
+    private void renderStreamed(IMarkupWriter writer, IRequestCycle cycle)
+    {
+        List relations = getRelations();
+        int relationCount = relations == null ? 0 : relations.size();
+
+        if (relations != null)
+            writeRelations(writer, relations, 0);
+
+        IRender ajaxDelegate = getAjaxDelegate();
+
+        if (ajaxDelegate != null)
+            ajaxDelegate.render(writer, cycle);
+
+        StringBuffer additionalContent = getContentBuffer();
+        int contentLength = additionalContent == null ? 0 : additionalContent.length();
+
+        if (additionalContent != null)
+            writer.printRaw(additionalContent.toString());
+
+        writer.end(); // head
+        writer.println();
+
+        writer.flush();
+
+        renderBody(writer, cycle);
+
+        relations = getRelations();
+
+        if (relations != null)
+            writeRelations(writer, relations, relationCount);
+
+        additionalContent = getContentBuffer();
+
+        if (additionalContent != null && additionalContent.length() > contentLength)
+            writer.printRaw(additionalContent.substring(contentLength));
+    }
+
+    private void writeRelations(IMarkupWriter writer, List relations, int start)
     {
-        Iterator i = relations.iterator();
+        Iterator i = relations.listIterator(start);
         
         while (i.hasNext())
         {
@@ -268,6 +320,18 @@ public abstract class Shell extends AbstractComponent
         return (Shell) cycle.getAttribute(SHELL_ATTRIBUTE);
     }
 
+    /**
+     * Returns true if the page is being streamed to the client as it renders (see the stream
+     * parameter); components such as {@link Body} and {@link Flush} use this to decide whether to
+     * write their content directly to the response.
+     *
+     * @since 4.1.7
+     */
+    public boolean isStreaming()
+    {
+        return isStream() && !getBuilder().isDynamic() && !getPage().getRequestCycle().isRewinding();
+    }
+
     /**
      * Adds a relation (stylesheets, favicon, e.t.c.) to the page.
      *
@@ -309,6 +373,8 @@ public abstract class Shell extends AbstractComponent
 
     public abstract boolean isDisableCaching();
 
+    public abstract boolean isStream();
+
     public abstract IRender getAjaxDelegate();
 
     public abstract IRender getDelegate();
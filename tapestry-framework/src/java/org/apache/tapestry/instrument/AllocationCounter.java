@@ -0,0 +1,103 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.instrument;
+
+import java.lang.reflect.Method;
+
+/**
+ * Reads the number of bytes allocated by the current thread, when the JVM supports it (through
+ * <code>com.sun.management.ThreadMXBean.getThreadAllocatedBytes(long)</code>). The management
+ * API (and <code>Thread.getId()</code>) are accessed reflectively, so that this class can be
+ * loaded on any JVM; where they aren't available, {@link #getAllocatedBytes()} returns -1.
+ *
+ * @since 4.1.7
+ */
+final class AllocationCounter
+{
+    private static final Object THREAD_BEAN;
+
+    private static final Method GET_ALLOCATED_BYTES;
+
+    private static final Method GET_THREAD_ID;
+
+    static
+    {
+        Object bean = null;
+        Method method = null;
+        Method threadId = null;
+
+        try
+        {
+            Class factoryClass = Class.forName("java.lang.management.ManagementFactory");
+
+            bean = factoryClass.getMethod("getThreadMXBean", null).invoke(null, null);
+
+            Class beanClass = Class.forName("com.sun.management.ThreadMXBean");
+
+            if (beanClass.isInstance(bean))
+            {
+                method = beanClass.getMethod("getThreadAllocatedBytes", new Class[] { long.class });
+                threadId = Thread.class.getMethod("getId", null);
+
+                // Make sure it actually works (it may be disabled).
+
+                Long result = (Long) method.invoke(bean, new Object[] { threadId.invoke(Thread.currentThread(), null) });
+
+                if (result.longValue() < 0)
+                    method = null;
+            }
+        }
+        catch (Throwable t)
+        {
+            method = null;
+        }
+
+        THREAD_BEAN = bean;
+        GET_ALLOCATED_BYTES = method;
+        GET_THREAD_ID = threadId;
+    }
+
+    private AllocationCounter()
+    {
+    }
+
+    static boolean isSupported()
+    {
+        return GET_ALLOCATED_BYTES != null;
+    }
+
+    /**
+     * Returns the total bytes allocated so far by the current thread, or -1 if not supported.
+     */
+    static long getAllocatedBytes()
+    {
+        if (GET_ALLOCATED_BYTES == null)
+            return -1;
+
+        try
+        {
+            Object id = GET_THREAD_ID.invoke(Thread.currentThread(), null);
+
+            Long result = (Long) GET_ALLOCATED_BYTES.invoke(THREAD_BEAN, new Object[] { id });
+
+            return result.longValue();
+        }
+        catch (Exception ex)
+        {
+            return -1;
+        }
+    }
+}
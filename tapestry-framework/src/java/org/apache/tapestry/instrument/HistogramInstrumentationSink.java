@@ -0,0 +1,157 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.instrument;
+
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap;
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentMap;
+import edu.emory.mathcs.backport.java.util.concurrent.atomic.AtomicLong;
+import org.apache.tapestry.event.ReportStatusEvent;
+import org.apache.tapestry.event.ReportStatusListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Default {@link InstrumentationSink}; aggregates the per-request timings into a
+ * {@link TimingHistogram} per stage (and per component type, for rendering) and reports them,
+ * slowest first, through the <code>tapestry.describe.ReportStatusHub</code>.
+ *
+ * @since 4.1.7
+ */
+public class HistogramInstrumentationSink implements InstrumentationSink, ReportStatusListener
+{
+    private static final Comparator BY_TOTAL_TIME = new Comparator()
+    {
+        public int compare(Object o1, Object o2)
+        {
+            long t1 = ((TimingHistogram) o1).getNanos();
+            long t2 = ((TimingHistogram) o2).getNanos();
+
+            return t1 > t2 ? -1 : t1 == t2 ? 0 : 1;
+        }
+    };
+
+    private final ConcurrentMap _histograms = new ConcurrentHashMap();
+
+    private final AtomicLong _requests = new AtomicLong();
+
+    private final AtomicLong _allocatedBytes = new AtomicLong();
+
+    private final AtomicLong _allocationSamples = new AtomicLong();
+
+    private String _serviceId;
+
+    public void requestCompleted(RequestTimings timings)
+    {
+        _requests.incrementAndGet();
+
+        Iterator i = timings.getTimers().iterator();
+        while (i.hasNext())
+        {
+            RequestTimings.Timer timer = (RequestTimings.Timer) i.next();
+
+            findHistogram(timer.getKey()).add(timer.getCount(), timer.getNanos());
+        }
+
+        long allocated = timings.getAllocatedBytes();
+
+        if (allocated >= 0)
+        {
+            _allocatedBytes.addAndGet(allocated);
+            _allocationSamples.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the histogram for the given key (as with {@link RequestTimings#getTimer(String)}),
+     * or null if nothing has been recorded for it.
+     */
+    public TimingHistogram getHistogram(String key)
+    {
+        return (TimingHistogram) _histograms.get(key);
+    }
+
+    private TimingHistogram findHistogram(String key)
+    {
+        TimingHistogram result = (TimingHistogram) _histograms.get(key);
+
+        if (result == null)
+        {
+            TimingHistogram histogram = new TimingHistogram(key);
+
+            result = (TimingHistogram) _histograms.putIfAbsent(key, histogram);
+
+            if (result == null)
+                result = histogram;
+        }
+
+        return result;
+    }
+
+    public long getRequestCount()
+    {
+        return _requests.get();
+    }
+
+    public void reportStatus(ReportStatusEvent event)
+    {
+        event.title(_serviceId);
+
+        long requests = _requests.get();
+
+        event.property("instrumented requests", requests);
+
+        long samples = _allocationSamples.get();
+
+        if (samples > 0)
+            event.property("average bytes allocated per request", _allocatedBytes.get() / samples);
+
+        List histograms = new ArrayList(_histograms.values());
+
+        Collections.sort(histograms, BY_TOTAL_TIME);
+
+        event.section("Request Stages");
+
+        Iterator i = histograms.iterator();
+        while (i.hasNext())
+        {
+            TimingHistogram histogram = (TimingHistogram) i.next();
+
+            if (!histogram.getKey().startsWith(RequestTimings.RENDER + ":"))
+                event.property(histogram.getKey(), histogram.toString());
+        }
+
+        event.section("Render Time By Component Type (inclusive)");
+
+        i = histograms.iterator();
+        while (i.hasNext())
+        {
+            TimingHistogram histogram = (TimingHistogram) i.next();
+            String key = histogram.getKey();
+
+            if (key.startsWith(RequestTimings.RENDER + ":"))
+                event.property(key.substring(RequestTimings.RENDER.length() + 1), histogram.toString());
+        }
+    }
+
+    public void setServiceId(String serviceId)
+    {
+        _serviceId = serviceId;
+    }
+}
@@ -0,0 +1,34 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.instrument;
+
+import org.apache.hivemind.impl.MessageFormatter;
+
+/**
+ * @since 4.1.7
+ */
+final class InstrumentMessages
+{
+    private static final MessageFormatter _formatter = new MessageFormatter(InstrumentMessages.class);
+
+    /* defeat instantiation */
+    private InstrumentMessages() { }
+
+    static String sinkFailure(Throwable cause)
+    {
+        return _formatter.format("sink-failure", cause);
+    }
+}
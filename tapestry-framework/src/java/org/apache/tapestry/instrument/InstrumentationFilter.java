@@ -0,0 +1,84 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.instrument;
+
+import java.io.IOException;
+
+import org.apache.commons.logging.Log;
+import org.apache.tapestry.services.WebRequestServicer;
+import org.apache.tapestry.services.WebRequestServicerFilter;
+import org.apache.tapestry.web.WebRequest;
+import org.apache.tapestry.web.WebResponse;
+
+/**
+ * Binds a new {@link RequestTimings} to the request thread for the duration of the request, and
+ * passes it to the {@link InstrumentationSink} once the request completes. This filter is only
+ * contributed into the tapestry.request.WebRequestServicerPipeline configuration if the
+ * org.apache.tapestry.enable-instrumentation system property is true.
+ *
+ * @since 4.1.7
+ */
+public class InstrumentationFilter implements WebRequestServicerFilter
+{
+    private Log _log;
+
+    private InstrumentationSink _sink;
+
+    private boolean _trackAllocation;
+
+    public void service(WebRequest request, WebResponse response, WebRequestServicer servicer)
+            throws IOException
+    {
+        RequestTimings timings = new RequestTimings(_trackAllocation);
+
+        RequestTimings.bind(timings);
+
+        try
+        {
+            servicer.service(request, response);
+        }
+        finally
+        {
+            RequestTimings.unbind();
+
+            timings.finish();
+
+            try
+            {
+                _sink.requestCompleted(timings);
+            }
+            catch (RuntimeException ex)
+            {
+                _log.warn(InstrumentMessages.sinkFailure(ex), ex);
+            }
+        }
+    }
+
+    public void setLog(Log log)
+    {
+        _log = log;
+    }
+
+    public void setSink(InstrumentationSink sink)
+    {
+        _sink = sink;
+    }
+
+    public void setTrackAllocation(boolean trackAllocation)
+    {
+        _trackAllocation = trackAllocation;
+    }
+}
@@ -0,0 +1,34 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.instrument;
+
+/**
+ * Receives the {@link RequestTimings} collected for each request, once the request has
+ * completed. Invoked from the request thread, so implementations must be thread safe and should
+ * do as little work as possible. The default implementation,
+ * {@link HistogramInstrumentationSink}, aggregates the timings into histograms reported through
+ * the <code>tapestry.describe.ReportStatusHub</code>; an alternate implementation may be supplied
+ * by overriding the <code>instrumentationSink</code> infrastructure property.
+ *
+ * @since 4.1.7
+ */
+public interface InstrumentationSink
+{
+    /**
+     * Invoked at the end of each instrumented request.
+     */
+    void requestCompleted(RequestTimings timings);
+}
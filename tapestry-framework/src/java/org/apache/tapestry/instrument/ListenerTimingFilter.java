@@ -0,0 +1,54 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.instrument;
+
+import org.apache.tapestry.IActionListener;
+import org.apache.tapestry.IComponent;
+import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.listener.ListenerInvoker;
+import org.apache.tapestry.listener.ListenerInvokerFilter;
+
+/**
+ * Records the time spent invoking listeners into the current {@link RequestTimings}. Contributed
+ * to the tapestry.listener.ListenerInvoker pipeline along with the {@link InstrumentationFilter}.
+ *
+ * @since 4.1.7
+ */
+public class ListenerTimingFilter implements ListenerInvokerFilter
+{
+    public void invokeListener(IActionListener listener, IComponent source, IRequestCycle cycle,
+            ListenerInvoker delegate)
+    {
+        RequestTimings timings = RequestTimings.getCurrent();
+
+        if (timings == null)
+        {
+            delegate.invokeListener(listener, source, cycle);
+            return;
+        }
+
+        long start = timings.start();
+
+        try
+        {
+            delegate.invokeListener(listener, source, cycle);
+        }
+        finally
+        {
+            timings.record(RequestTimings.LISTENER, start);
+        }
+    }
+}
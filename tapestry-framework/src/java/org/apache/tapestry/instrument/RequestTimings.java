@@ -0,0 +1,230 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.instrument;
+
+import edu.emory.mathcs.backport.java.util.concurrent.helpers.Utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the time spent in each stage of a single request. An instance is bound to the
+ * request thread by the {@link InstrumentationFilter} for the duration of the request; the
+ * probes in the framework check {@link #getCurrent()} and do nothing when no instance is bound,
+ * so the cost when instrumentation is disabled is a single thread local lookup per probe.
+ * <p>
+ * Instances are only ever used by a single thread and are not synchronized.
+ *
+ * @since 4.1.7
+ */
+public class RequestTimings
+{
+    /** Checking out (or creating) the engine instance. */
+    public static final String ENGINE_CHECKOUT = "engine-checkout";
+
+    /** Obtaining a page instance from the page pool (or loading it). */
+    public static final String PAGE_CHECKOUT = "page-checkout";
+
+    /** Rewinding a form or page. */
+    public static final String REWIND = "rewind";
+
+    /** Invoking a listener method. */
+    public static final String LISTENER = "listener";
+
+    /** Rendering a component; the detail is the component type. Times are inclusive of nested components. */
+    public static final String RENDER = "render";
+
+    /** Flushing and closing the response. */
+    public static final String COMMIT = "commit";
+
+    /** The request as a whole. */
+    public static final String REQUEST = "request";
+
+    private static final ThreadLocal CURRENT = new ThreadLocal();
+
+    private final Map _timers = new HashMap();
+
+    private final boolean _trackAllocation;
+
+    private final long _startNanos;
+
+    private final long _startAllocated;
+
+    private long _allocatedBytes = -1;
+
+    private long _elapsedNanos = -1;
+
+    public RequestTimings(boolean trackAllocation)
+    {
+        _trackAllocation = trackAllocation;
+        _startAllocated = trackAllocation ? AllocationCounter.getAllocatedBytes() : -1;
+        _startNanos = Utils.nanoTime();
+    }
+
+    /**
+     * Returns the timings bound to the current thread, or null if instrumentation is not enabled
+     * for the current request.
+     */
+    public static RequestTimings getCurrent()
+    {
+        return (RequestTimings) CURRENT.get();
+    }
+
+    static void bind(RequestTimings timings)
+    {
+        CURRENT.set(timings);
+    }
+
+    static void unbind()
+    {
+        CURRENT.set(null);
+    }
+
+    /**
+     * Returns a start time, to be later passed to {@link #record(String, long)}.
+     */
+    public long start()
+    {
+        return Utils.nanoTime();
+    }
+
+    /**
+     * Records the time elapsed since <code>startNanos</code> against the given stage.
+     */
+    public void record(String stage, long startNanos)
+    {
+        record(stage, null, startNanos);
+    }
+
+    /**
+     * Records the time elapsed since <code>startNanos</code> against the given stage and detail
+     * (for example, the component type being rendered). The detail may be null.
+     */
+    public void record(String stage, String detail, long startNanos)
+    {
+        long elapsed = Utils.nanoTime() - startNanos;
+
+        String key = detail == null ? stage : stage + ":" + detail;
+
+        Timer timer = (Timer) _timers.get(key);
+
+        if (timer == null)
+        {
+            timer = new Timer(key);
+            _timers.put(key, timer);
+        }
+
+        timer._count++;
+        timer._nanos += elapsed;
+    }
+
+    /**
+     * Marks the end of the request, recording the overall {@link #REQUEST} time and (if enabled)
+     * the bytes allocated by the request thread.
+     */
+    void finish()
+    {
+        _elapsedNanos = Utils.nanoTime() - _startNanos;
+
+        if (_trackAllocation && _startAllocated >= 0)
+        {
+            long allocated = AllocationCounter.getAllocatedBytes();
+
+            if (allocated >= 0)
+                _allocatedBytes = allocated - _startAllocated;
+        }
+
+        record(REQUEST, _startNanos);
+    }
+
+    /**
+     * Returns the overall time taken by the request, or -1 if the request has not finished.
+     */
+    public long getElapsedNanos()
+    {
+        return _elapsedNanos;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the request thread while processing the request,
+     * or -1 if allocation tracking is disabled or not supported by the JVM.
+     */
+    public long getAllocatedBytes()
+    {
+        return _allocatedBytes;
+    }
+
+    /**
+     * Returns the recorded {@link Timer}s, sorted by key.
+     */
+    public List getTimers()
+    {
+        List result = new ArrayList(_timers.values());
+
+        Collections.sort(result);
+
+        return result;
+    }
+
+    /**
+     * Returns the timer for a key (a stage, or a stage and detail separated by a colon), or null if
+     * nothing was recorded for the key.
+     */
+    public Timer getTimer(String key)
+    {
+        return (Timer) _timers.get(key);
+    }
+
+    /**
+     * Accumulated count and time for a single stage (or stage and detail) within a request.
+     */
+    public static class Timer implements Comparable
+    {
+        private final String _key;
+
+        private int _count;
+
+        private long _nanos;
+
+        Timer(String key)
+        {
+            _key = key;
+        }
+
+        public String getKey()
+        {
+            return _key;
+        }
+
+        public int getCount()
+        {
+            return _count;
+        }
+
+        public long getNanos()
+        {
+            return _nanos;
+        }
+
+        public int compareTo(Object o)
+        {
+            return _key.compareTo(((Timer) o)._key);
+        }
+    }
+}
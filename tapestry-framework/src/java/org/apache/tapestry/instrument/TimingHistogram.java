@@ -0,0 +1,151 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.instrument;
+
+import edu.emory.mathcs.backport.java.util.concurrent.atomic.AtomicLong;
+import edu.emory.mathcs.backport.java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of durations. Buckets are powers of two in microseconds (bucket 0 is
+ * anything under 1us, bucket 1 is [1us, 2us), bucket 2 is [2us, 4us) and so forth); the last bucket
+ * collects anything of 2^(BUCKETS - 2) microseconds (about 67 seconds) or longer.
+ *
+ * @since 4.1.7
+ */
+public class TimingHistogram
+{
+    static final int BUCKETS = 28;
+
+    private final String _key;
+
+    private final AtomicLong _count = new AtomicLong();
+
+    private final AtomicLong _nanos = new AtomicLong();
+
+    private final AtomicLong _max = new AtomicLong();
+
+    private final AtomicLongArray _buckets = new AtomicLongArray(BUCKETS);
+
+    public TimingHistogram(String key)
+    {
+        _key = key;
+    }
+
+    public String getKey()
+    {
+        return _key;
+    }
+
+    /**
+     * Records a number of occurrences (i.e., renders of one component type within a request)
+     * with the given total duration.
+     */
+    public void add(long count, long nanos)
+    {
+        _count.addAndGet(count);
+        _nanos.addAndGet(nanos);
+        _buckets.incrementAndGet(bucketFor(nanos));
+
+        while (true)
+        {
+            long max = _max.get();
+
+            if (nanos <= max || _max.compareAndSet(max, nanos))
+                break;
+        }
+    }
+
+    static int bucketFor(long nanos)
+    {
+        long micros = nanos / 1000;
+
+        int bucket = 0;
+
+        while (micros > 0 && bucket < BUCKETS - 1)
+        {
+            micros >>>= 1;
+            bucket++;
+        }
+
+        return bucket;
+    }
+
+    public long getCount()
+    {
+        return _count.get();
+    }
+
+    public long getNanos()
+    {
+        return _nanos.get();
+    }
+
+    public long getMaxNanos()
+    {
+        return _max.get();
+    }
+
+    public long getBucket(int index)
+    {
+        return _buckets.get(index);
+    }
+
+    /**
+     * Returns a short summary, along the lines of
+     * <code>120 calls, 5300 us total, 44 us average, 900 us max; &lt;64us: 100, &lt;1024us: 20</code>.
+     */
+    public String toString()
+    {
+        long count = getCount();
+        long nanos = getNanos();
+
+        StringBuffer buffer = new StringBuffer();
+
+        buffer.append(count);
+        buffer.append(" calls, ");
+        buffer.append(nanos / 1000);
+        buffer.append(" us total");
+
+        if (count > 0)
+        {
+            buffer.append(", ");
+            buffer.append(nanos / count / 1000);
+            buffer.append(" us average, ");
+            buffer.append(getMaxNanos() / 1000);
+            buffer.append(" us max");
+        }
+
+        String sep = "; ";
+
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            long value = _buckets.get(i);
+
+            if (value == 0)
+                continue;
+
+            buffer.append(sep);
+            buffer.append(i == BUCKETS - 1 ? ">=" : "<");
+            buffer.append(i == BUCKETS - 1 ? 1L << (i - 1) : 1L << i);
+            buffer.append("us: ");
+            buffer.append(value);
+
+            sep = ", ";
+        }
+
+        return buffer.toString();
+    }
+}
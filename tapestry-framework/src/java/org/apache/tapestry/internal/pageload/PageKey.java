@@ -31,6 +31,11 @@ public class PageKey implements Serializable {
         return _pageName;
     }
 
+    public Locale getLocale()
+    {
+        return _locale;
+    }
+
     public String toString()
     {
         return "PageKey[" +
@@ -0,0 +1,93 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.json;
+
+/**
+ * An {@link IJSONWriter} that can also generate JSON incrementally, writing each token straight
+ * to the response as it is produced rather than first building a {@link JSONObject} or
+ * {@link JSONArray} tree. Components rendering large data sets should check for this interface
+ * and stream their content:
+ *
+ * <pre>
+ * if (writer instanceof IJSONStreamWriter)
+ * {
+ *     IJSONStreamWriter stream = (IJSONStreamWriter) writer;
+ *
+ *     stream.beginObject();
+ *     stream.key("id");
+ *     stream.value(42);
+ *     stream.endObject();
+ * }
+ * </pre>
+ *
+ * Streaming and the tree based {@link #object()} / {@link #array()} methods can't be mixed
+ * within a single response; whichever is used first determines how the response is produced, and
+ * using the other afterwards results in an {@link IllegalStateException}. Unbalanced blocks are
+ * closed by {@link #close()}.
+ *
+ * @since 4.1.7
+ */
+public interface IJSONStreamWriter extends IJSONWriter
+{
+    /**
+     * Starts a new object (either at the top level, as an array element or as the value of a
+     * {@link #key(String) key}).
+     */
+    void beginObject();
+
+    /**
+     * Ends the object started by the matching {@link #beginObject()}.
+     */
+    void endObject();
+
+    /**
+     * Starts a new array.
+     */
+    void beginArray();
+
+    /**
+     * Ends the array started by the matching {@link #beginArray()}.
+     */
+    void endArray();
+
+    /**
+     * Writes the key of the next property of the current object; must be followed by a value, or
+     * by a nested object or array.
+     */
+    void key(String key);
+
+    /**
+     * Writes a quoted, escaped string value (or <code>null</code>).
+     */
+    void value(String value);
+
+    void value(long value);
+
+    /**
+     * Writes a number; as with {@link JSONObject}, infinite and NaN values are rejected.
+     */
+    void value(double value);
+
+    void value(boolean value);
+
+    /**
+     * Writes an arbitrary value using the same rules as {@link JSONObject#toString()}: numbers
+     * and booleans unquoted, {@link JSONLiteral}s verbatim, {@link JSONObject}s and
+     * {@link JSONArray}s serialized in place, anything else as the quoted result of
+     * <code>toString()</code>.
+     */
+    void value(Object value);
+}
@@ -24,6 +24,9 @@ package org.apache.tapestry.json;
  SOFTWARE.
  */
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -145,7 +148,27 @@ public class JSONArray
     public JSONArray(String string)
         throws ParseException
     {
-        this(new JSONTokener(string));
+        this(new JSONReader(string));
+    }
+
+    /**
+     * Construct a JSONArray from the array at the start of a {@link JSONReader}.
+     * 
+     * @param reader
+     *            A reader that has not yet been advanced.
+     * @exception ParseException
+     *                The source must conform to JSON syntax.
+     * @since 4.1.7
+     */
+    public JSONArray(JSONReader reader)
+        throws ParseException
+    {
+        this();
+
+        if (reader.next() != JSONReader.START_ARRAY)
+            throw reader.syntaxError("A JSONArray must start with '['");
+
+        reader.readArray(this);
     }
 
     /**
@@ -729,7 +752,47 @@ public class JSONArray
      */
     public String toString()
     {
-        return '[' + join(",") + ']';
+        StringWriter writer = new StringWriter();
+
+        write(writer);
+
+        return writer.toString();
+    }
+
+    /**
+     * Writes the JSON external form of this JSONArray (the same text as
+     * {@link #toString()}) directly to a writer, without building
+     * intermediate strings for nested objects and arrays.
+     * 
+     * @param writer
+     *            The writer to append to.
+     * @return The writer.
+     * @since 4.1.7
+     */
+    public Writer write(Writer writer)
+    {
+        try
+        {
+            writer.write('[');
+
+            int len = length();
+
+            for(int i = 0; i < len; i += 1)
+            {
+                if (i > 0)
+                    writer.write(',');
+
+                JSONObject.writeValue(this.myArrayList.get(i), writer);
+            }
+
+            writer.write(']');
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+
+        return writer;
     }
 
     /**
@@ -24,6 +24,9 @@ package org.apache.tapestry.json;
  SOFTWARE.
  */
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.text.ParseException;
 import java.util.*;
 
@@ -247,7 +250,27 @@ public class JSONObject
     public JSONObject(String string)
         throws ParseException
     {
-        this(new JSONTokener(string));
+        this(new JSONReader(string));
+    }
+
+    /**
+     * Construct a JSONObject from the object at the start of a {@link JSONReader}.
+     * 
+     * @param reader
+     *            A reader that has not yet been advanced.
+     * @exception ParseException
+     *                The source must be properly formatted.
+     * @since 4.1.7
+     */
+    public JSONObject(JSONReader reader)
+        throws ParseException
+    {
+        this();
+
+        if (reader.next() != JSONReader.START_OBJECT)
+            throw reader.syntaxError("A JSONObject must begin with '{'");
+
+        reader.readObject(this);
     }
 
     public JSONObject accumulate(String key, Object value)
@@ -574,61 +597,101 @@ public class JSONObject
     {
         if (string == null || string.length() == 0) { return "\"\""; }
 
-        char b;
-        char c = 0;
-        int i;
-        int len = string.length();
-        StringBuffer sb = new StringBuffer(len + 4);
-        String t;
+        StringWriter writer = new StringWriter(string.length() + 4);
+
+        quote(string, writer);
+
+        return writer.toString();
+    }
 
-        sb.append('"');
-        for(i = 0; i < len; i += 1)
+    /**
+     * Writes a string in double quotes with backslash sequences in all the
+     * right places, as with {@link #quote(String)}, directly to a writer.
+     * Runs of characters that need no escaping are written in a single call.
+     * 
+     * @param string
+     *            A String
+     * @param writer
+     *            The writer to append the quoted string to.
+     * @since 4.1.7
+     */
+    public static void quote(String string, Writer writer)
+    {
+        try
         {
-            b = c;
-            c = string.charAt(i);
-            switch(c)
+            writer.write('"');
+
+            if (string == null)
             {
-            case '\\':
-            case '"':
-                sb.append('\\');
-                sb.append(c);
-                break;
-            case '/':
-                if (b == '<')
-                {
-                    sb.append('\\');
-                }
-                sb.append(c);
-                break;
-            case '\b':
-                sb.append("\\b");
-                break;
-            case '\t':
-                sb.append("\\t");
-                break;
-            case '\n':
-                sb.append("\\n");
-                break;
-            case '\f':
-                sb.append("\\f");
-                break;
-            case '\r':
-                sb.append("\\r");
-                break;
-            default:
-                if (c < ' ')
-                {
-                    t = "000" + Integer.toHexString(c);
-                    sb.append("\\u" + t.substring(t.length() - 4));
-                }
-                else
+                writer.write('"');
+                return;
+            }
+
+            int len = string.length();
+            int start = 0;
+            char c = 0;
+
+            for(int i = 0; i < len; i += 1)
+            {
+                char b = c;
+                c = string.charAt(i);
+
+                String escape = null;
+
+                switch(c)
                 {
-                    sb.append(c);
+                case '\\':
+                    escape = "\\\\";
+                    break;
+                case '"':
+                    escape = "\\\"";
+                    break;
+                case '/':
+                    if (b == '<')
+                        escape = "\\/";
+                    break;
+                case '\b':
+                    escape = "\\b";
+                    break;
+                case '\t':
+                    escape = "\\t";
+                    break;
+                case '\n':
+                    escape = "\\n";
+                    break;
+                case '\f':
+                    escape = "\\f";
+                    break;
+                case '\r':
+                    escape = "\\r";
+                    break;
+                default:
+                    if (c < ' ')
+                    {
+                        String t = "000" + Integer.toHexString(c);
+                        escape = "\\u" + t.substring(t.length() - 4);
+                    }
                 }
+
+                if (escape == null)
+                    continue;
+
+                if (i > start)
+                    writer.write(string, start, i - start);
+
+                writer.write(escape);
+                start = i + 1;
             }
+
+            if (len > start)
+                writer.write(string, start, len - start);
+
+            writer.write('"');
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException(ex);
         }
-        sb.append('"');
-        return sb.toString();
     }
 
     public Object remove(String key)
@@ -652,24 +715,56 @@ public class JSONObject
      */
     public String toString()
     {
-        Iterator keys = keys();
-        StringBuffer sb = new StringBuffer("{");
+        StringWriter writer = new StringWriter();
 
-        while(keys.hasNext())
+        write(writer);
+
+        return writer.toString();
+    }
+
+    /**
+     * Writes the JSON external form of this JSONObject (the same text as
+     * {@link #toString()}) directly to a writer, without building
+     * intermediate strings for nested objects and arrays.
+     * 
+     * @param writer
+     *            The writer to append to.
+     * @return The writer.
+     * @since 4.1.7
+     */
+    public Writer write(Writer writer)
+    {
+        try
         {
-            if (sb.length() > 1)
+            writer.write('{');
+
+            boolean first = true;
+            Iterator i = this.myHashMap.entrySet().iterator();
+
+            while(i.hasNext())
             {
-                sb.append(',');
+                Map.Entry entry = (Map.Entry) i.next();
+
+                if (!first)
+                    writer.write(',');
+
+                writeValue(entry.getKey(), writer);
+                writer.write(':');
+                writeValue(entry.getValue(), writer);
+
+                first = false;
             }
-            Object o = keys.next();
-            sb.append(valueToString(o));
-            sb.append(':');
-            sb.append(valueToString(this.myHashMap.get(o)));
+
+            writer.write('}');
         }
-        sb.append('}');
-        return sb.toString();
+        catch (IOException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+
+        return writer;
     }
-    
+
     public String toString(int indentFactor)
     {
         return toString(indentFactor, 0);
@@ -764,6 +859,41 @@ public class JSONObject
         return quote(value.toString());
     }
 
+    /**
+     * Writes the JSON text of a value (as with {@link #valueToString(Object)})
+     * directly to a writer.
+     * 
+     * @param value
+     *            The value to be serialized.
+     * @param writer
+     *            The writer to append to.
+     * @since 4.1.7
+     */
+    public static void writeValue(Object value, Writer writer)
+    {
+        try
+        {
+            if (value == null || value.equals(null))
+                writer.write("null");
+            else if (value instanceof String)
+                quote((String) value, writer);
+            else if (value instanceof Number)
+                writer.write(numberToString((Number) value));
+            else if (value instanceof JSONObject)
+                ((JSONObject) value).write(writer);
+            else if (value instanceof JSONArray)
+                ((JSONArray) value).write(writer);
+            else if (value instanceof Boolean || value instanceof JSONLiteral)
+                writer.write(value.toString());
+            else
+                quote(value.toString(), writer);
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
     /**
      * Make a prettyprinted JSON string of an object value.
      * <p>
@@ -0,0 +1,957 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+
+/**
+ * A pull parser for JSON text, read from a {@link Reader}, a <code>char[]</code> or a
+ * {@link String}. Each call to {@link #next()} advances to the next token and returns its type;
+ * the token's content is then available through the accessor methods until the following call to
+ * {@link #next()}. Nothing is allocated per token unless it is asked for: strings are kept as a
+ * range of the input (or of a reused scratch buffer, when they contain escapes) until
+ * {@link #getString()} is invoked, and numbers can be read as primitives through
+ * {@link #getInt()}, {@link #getLong()} and {@link #getDouble()}.
+ * <p>
+ * The parser accepts the same relaxed syntax as {@link JSONTokener} (comments, single quoted and
+ * unquoted strings, <code>=</code> or <code>=&gt;</code> after keys, <code>;</code> between
+ * values, trailing commas, octal and hex numbers), and {@link #getValue()} produces the same
+ * objects (<code>Integer</code>, <code>Double</code>, <code>Boolean</code>, <code>String</code>,
+ * {@link JSONObject#NULL}, {@link JSONObject} or {@link JSONArray}), so it can be used wherever a
+ * tree is needed:
+ *
+ * <pre>
+ * JSONReader reader = new JSONReader(text);
+ *
+ * while (reader.next() != JSONReader.END)
+ * {
+ *     if (reader.getToken() == JSONReader.KEY &amp;&amp; reader.stringEquals("count"))
+ *     {
+ *         reader.next();
+ *         count = reader.getInt();
+ *     }
+ * }
+ * </pre>
+ *
+ * Instances are not thread safe.
+ *
+ * @since 4.1.7
+ */
+public class JSONReader
+{
+    /** No more tokens; the top level value has been completely read. */
+    public static final int END = 0;
+
+    public static final int START_OBJECT = 1;
+
+    public static final int END_OBJECT = 2;
+
+    public static final int START_ARRAY = 3;
+
+    public static final int END_ARRAY = 4;
+
+    /** The key of an object property; the next token is its value. */
+    public static final int KEY = 5;
+
+    public static final int STRING = 6;
+
+    public static final int NUMBER = 7;
+
+    public static final int BOOLEAN = 8;
+
+    /** A null value, or an empty element of an array (i.e., <code>[1,,2]</code>). */
+    public static final int NULL = 9;
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private static final int INITIAL_DEPTH = 8;
+
+    private static final String DELIMITERS = ",:]}/\\\"[{;=#";
+
+    private static final byte OBJECT = 1;
+
+    private static final byte ARRAY = 2;
+
+    private static final int INT_NUMBER = 1;
+
+    private static final int LONG_NUMBER = 2;
+
+    private static final int DOUBLE_NUMBER = 3;
+
+    private final Reader _reader;
+
+    private char[] _buffer;
+
+    private int _pos;
+
+    private int _limit;
+
+    /** Number of characters that were in the buffer before the current contents. */
+    private int _bufferOffset;
+
+    private final char[] _pushed = new char[2];
+
+    private int _pushedCount;
+
+    private char[] _scratch = new char[64];
+
+    private int _scratchLength;
+
+    private byte[] _contexts = new byte[INITIAL_DEPTH];
+
+    /** For each open context, whether at least one value has been read. */
+    private boolean[] _afterValue = new boolean[INITIAL_DEPTH];
+
+    private int _depth;
+
+    private boolean _afterKey;
+
+    private boolean _started;
+
+    private int _token = -1;
+
+    private char[] _text;
+
+    private int _textStart;
+
+    private int _textLength;
+
+    private String _string;
+
+    private int _numberType;
+
+    private long _long;
+
+    private double _double;
+
+    private boolean _boolean;
+
+    private boolean _elided;
+
+    public JSONReader(Reader reader)
+    {
+        _reader = reader;
+        _buffer = new char[BUFFER_SIZE];
+    }
+
+    public JSONReader(char[] chars, int offset, int length)
+    {
+        _reader = null;
+        _buffer = chars;
+        _pos = offset;
+        _limit = offset + length;
+        _bufferOffset = -offset;
+    }
+
+    public JSONReader(String string)
+    {
+        this(string.toCharArray(), 0, string.length());
+    }
+
+    /**
+     * Advances to the next token.
+     *
+     * @return The type of the token, i.e., {@link #START_OBJECT} or {@link #STRING}.
+     * @throws ParseException
+     *             if the input is not valid JSON.
+     */
+    public int next()
+        throws ParseException
+    {
+        _string = null;
+        _text = null;
+        _elided = false;
+
+        if (_depth == 0)
+        {
+            if (_started)
+                return _token = END;
+
+            _started = true;
+
+            return readValue(nextClean());
+        }
+
+        int top = _depth - 1;
+
+        if (_contexts[top] == OBJECT)
+        {
+            if (_afterKey)
+            {
+                _afterKey = false;
+                _afterValue[top] = true;
+
+                return readValue(nextClean());
+            }
+
+            char c = nextClean();
+
+            if (_afterValue[top])
+            {
+                if (c == '}')
+                    return endContext(END_OBJECT);
+
+                if (c != ',' && c != ';')
+                    throw syntaxError("Expected a ',' or '}'");
+
+                c = nextClean();
+            }
+
+            switch (c)
+            {
+                case 0:
+                    throw syntaxError("A JSONObject must end with '}'");
+                case '}':
+                    return endContext(END_OBJECT);
+                default:
+                    return readKey(c);
+            }
+        }
+
+        char c = nextClean();
+
+        if (_afterValue[top])
+        {
+            if (c == ']')
+                return endContext(END_ARRAY);
+
+            if (c != ',' && c != ';')
+                throw syntaxError("Expected a ',' or ']'");
+
+            c = nextClean();
+        }
+
+        if (c == ']')
+            return endContext(END_ARRAY);
+
+        _afterValue[top] = true;
+
+        if (c == ',')
+        {
+            push(c);
+
+            _elided = true;
+            return _token = NULL;
+        }
+
+        return readValue(c);
+    }
+
+    /**
+     * Returns the type of the current token.
+     */
+    public int getToken()
+    {
+        return _token;
+    }
+
+    /**
+     * Returns the current key or string value, or the text of the current number or boolean;
+     * null for a null value.
+     */
+    public String getString()
+    {
+        if (_string == null && _text != null && _token != NULL)
+            _string = new String(_text, _textStart, _textLength);
+
+        return _string;
+    }
+
+    /**
+     * Compares the current key or string to a value, without creating a string.
+     */
+    public boolean stringEquals(String value)
+    {
+        if (_string != null)
+            return _string.equals(value);
+
+        if (_text == null || _token == NULL || value.length() != _textLength)
+            return false;
+
+        for (int i = 0; i < _textLength; i++)
+        {
+            if (_text[_textStart + i] != value.charAt(i))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns true if the current number is integral (i.e., may be read through
+     * {@link #getLong()} without loss).
+     */
+    public boolean isIntegral()
+    {
+        checkToken(NUMBER);
+
+        return _numberType != DOUBLE_NUMBER;
+    }
+
+    public int getInt()
+    {
+        return (int) getLong();
+    }
+
+    public long getLong()
+    {
+        checkToken(NUMBER);
+
+        return _numberType == DOUBLE_NUMBER ? (long) _double : _long;
+    }
+
+    public double getDouble()
+    {
+        checkToken(NUMBER);
+
+        return _numberType == DOUBLE_NUMBER ? _double : (double) _long;
+    }
+
+    public boolean getBoolean()
+    {
+        checkToken(BOOLEAN);
+
+        return _boolean;
+    }
+
+    /**
+     * Materializes the current value as the objects a {@link JSONTokener} would produce. When
+     * positioned on {@link #START_OBJECT} or {@link #START_ARRAY}, the entire object or array is
+     * read and returned as a {@link JSONObject} or {@link JSONArray}.
+     */
+    public Object getValue()
+        throws ParseException
+    {
+        switch (_token)
+        {
+            case START_OBJECT:
+                JSONObject object = new JSONObject();
+                readObject(object);
+                return object;
+
+            case START_ARRAY:
+                JSONArray array = new JSONArray();
+                readArray(array);
+                return array;
+
+            case STRING:
+                return getString();
+
+            case NUMBER:
+                if (_numberType == INT_NUMBER)
+                    return new Integer((int) _long);
+
+                return new Double(getDouble());
+
+            case BOOLEAN:
+                return _boolean ? Boolean.TRUE : Boolean.FALSE;
+
+            case NULL:
+                return _elided ? null : JSONObject.NULL;
+
+            default:
+                throw new IllegalStateException("Current token is not a value.");
+        }
+    }
+
+    /**
+     * Skips the current value; when positioned on {@link #START_OBJECT} or
+     * {@link #START_ARRAY}, skips to the matching end.
+     */
+    public void skipValue()
+        throws ParseException
+    {
+        if (_token != START_OBJECT && _token != START_ARRAY)
+            return;
+
+        int depth = _depth - 1;
+
+        while (_depth > depth)
+            next();
+    }
+
+    /**
+     * Reads the properties of the current object (the current token must be
+     * {@link #START_OBJECT}) into the target, up to and including the matching
+     * {@link #END_OBJECT}.
+     */
+    void readObject(JSONObject target)
+        throws ParseException
+    {
+        checkToken(START_OBJECT);
+
+        while (next() == KEY)
+        {
+            String key = getString();
+
+            next();
+
+            target.put(key, getValue());
+        }
+    }
+
+    /**
+     * Reads the elements of the current array (the current token must be
+     * {@link #START_ARRAY}) into the target, up to and including the matching
+     * {@link #END_ARRAY}.
+     */
+    void readArray(JSONArray target)
+        throws ParseException
+    {
+        checkToken(START_ARRAY);
+
+        while (next() != END_ARRAY)
+            target.put(getValue());
+    }
+
+    /**
+     * Returns a ParseException describing an error at the current position.
+     */
+    public ParseException syntaxError(String message)
+    {
+        int position = getPosition();
+
+        StringBuffer buffer = new StringBuffer(message);
+
+        buffer.append(" at character ");
+        buffer.append(position);
+
+        // When parsing from a string or char[], show the location the same way the
+        // JSONTokener does.
+
+        if (_reader == null)
+        {
+            int start = -_bufferOffset;
+            int current = start + position;
+
+            buffer.append(" of ");
+            buffer.append(_buffer, start, current - start);
+            buffer.append(">>missing value<<");
+            buffer.append(_buffer, current, _limit - current);
+        }
+
+        return new ParseException(buffer.toString(), position);
+    }
+
+    private int getPosition()
+    {
+        return _bufferOffset + _pos - _pushedCount;
+    }
+
+    private void checkToken(int expected)
+    {
+        if (_token != expected)
+            throw new IllegalStateException("Current token (" + _token + ") is not of type " + expected + ".");
+    }
+
+    private int endContext(int token)
+    {
+        _depth--;
+
+        return _token = token;
+    }
+
+    private int startContext(byte type, int token)
+    {
+        if (_depth == _contexts.length)
+        {
+            byte[] contexts = new byte[_depth * 2];
+            boolean[] afterValue = new boolean[_depth * 2];
+
+            System.arraycopy(_contexts, 0, contexts, 0, _depth);
+            System.arraycopy(_afterValue, 0, afterValue, 0, _depth);
+
+            _contexts = contexts;
+            _afterValue = afterValue;
+        }
+
+        _contexts[_depth] = type;
+        _afterValue[_depth] = false;
+        _depth++;
+
+        return _token = token;
+    }
+
+    private int readKey(char c)
+        throws ParseException
+    {
+        if (c == '"' || c == '\'')
+            readString(c);
+        else if (c == '{' || c == '[')
+            throw syntaxError("Expected a key");
+        else
+            readLiteralText(c);
+
+        // A key referenced in place would be overwritten if reading the separator refills the
+        // buffer.
+
+        if (_text == _buffer && _reader != null)
+        {
+            _scratchLength = 0;
+            append(_buffer, _textStart, _textLength);
+            setText(_scratch, 0, _scratchLength);
+        }
+
+        // The key is followed by ':'. We also tolerate '=' or '=>'.
+
+        char separator = nextClean();
+
+        if (separator == '=')
+        {
+            char n = read();
+
+            if (n != '>')
+                push(n);
+        }
+        else if (separator != ':')
+            throw syntaxError("Expected a ':' after a key");
+
+        _afterKey = true;
+
+        return _token = KEY;
+    }
+
+    private int readValue(char c)
+        throws ParseException
+    {
+        switch (c)
+        {
+            case '"':
+            case '\'':
+                readString(c);
+                return _token = STRING;
+
+            case '{':
+                return startContext(OBJECT, START_OBJECT);
+
+            case '[':
+                return startContext(ARRAY, START_ARRAY);
+
+            default:
+                return readLiteral(c);
+        }
+    }
+
+    /**
+     * Reads a quoted string. Strings without escapes that lie entirely within the buffer are
+     * referenced in place; anything else is decoded into the scratch buffer.
+     */
+    private void readString(char quote)
+        throws ParseException
+    {
+        if (_pushedCount == 0)
+        {
+            int start = _pos;
+
+            while (_pos < _limit)
+            {
+                char c = _buffer[_pos];
+
+                if (c == quote)
+                {
+                    setText(_buffer, start, _pos - start);
+                    _pos++;
+                    return;
+                }
+
+                if (c == '\\' || c == '\n' || c == '\r')
+                    break;
+
+                _pos++;
+            }
+
+            _scratchLength = 0;
+            append(_buffer, start, _pos - start);
+        }
+        else
+            _scratchLength = 0;
+
+        while (true)
+        {
+            char c = read();
+
+            switch (c)
+            {
+                case 0:
+                case '\n':
+                case '\r':
+                    throw syntaxError("Unterminated string");
+
+                case '\\':
+                    append(readEscape());
+                    break;
+
+                default:
+                    if (c == quote)
+                    {
+                        setText(_scratch, 0, _scratchLength);
+                        return;
+                    }
+
+                    append(c);
+            }
+        }
+    }
+
+    private char readEscape()
+        throws ParseException
+    {
+        char c = read();
+
+        switch (c)
+        {
+            case 'b':
+                return '\b';
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'f':
+                return '\f';
+            case 'r':
+                return '\r';
+            case 'u':
+                return readHex(4);
+            case 'x':
+                return readHex(2);
+            default:
+                return c;
+        }
+    }
+
+    private char readHex(int digits)
+        throws ParseException
+    {
+        int result = 0;
+
+        for (int i = 0; i < digits; i++)
+        {
+            int digit = JSONTokener.dehexchar(read());
+
+            if (digit < 0)
+                throw syntaxError("Invalid escape sequence");
+
+            result = (result << 4) + digit;
+        }
+
+        return (char) result;
+    }
+
+    /**
+     * Reads unquoted text into the scratch buffer: everything up to the next delimiter or control
+     * character, with trailing whitespace removed.
+     */
+    private void readLiteralText(char c)
+        throws ParseException
+    {
+        _scratchLength = 0;
+
+        while (c >= ' ' && DELIMITERS.indexOf(c) < 0)
+        {
+            append(c);
+            c = read();
+        }
+
+        if (c != 0)
+            push(c);
+
+        while (_scratchLength > 0 && _scratch[_scratchLength - 1] <= ' ')
+            _scratchLength--;
+
+        if (_scratchLength == 0)
+            throw syntaxError("Missing value.");
+
+        setText(_scratch, 0, _scratchLength);
+    }
+
+    /**
+     * Reads an unquoted value: true, false, null, a number or (as a non-standard extension) a
+     * string.
+     */
+    private int readLiteral(char c)
+        throws ParseException
+    {
+        readLiteralText(c);
+
+        if (textEqualsIgnoreCase("true") || textEqualsIgnoreCase("false"))
+        {
+            _boolean = _textLength == 4;
+            return _token = BOOLEAN;
+        }
+
+        if (textEqualsIgnoreCase("null"))
+            return _token = NULL;
+
+        char b = _text[_textStart];
+
+        if ((b >= '0' && b <= '9') || b == '.' || b == '-' || b == '+')
+        {
+            if (parseDecimalInteger())
+                return _token = NUMBER;
+
+            _string = new String(_text, _textStart, _textLength);
+
+            if (parseNumber(_string))
+                return _token = NUMBER;
+        }
+
+        return _token = STRING;
+    }
+
+    /**
+     * Fast path for plain (optionally negative) decimal integers, without leading zeros, that fit
+     * in a long. Doesn't allocate.
+     */
+    private boolean parseDecimalInteger()
+    {
+        int i = _textStart;
+        int end = _textStart + _textLength;
+        boolean negative = false;
+
+        if (_text[i] == '-')
+        {
+            negative = true;
+            i++;
+        }
+
+        if (i == end || (_text[i] == '0' && end - i > 1))
+            return false;
+
+        long value = 0;
+
+        for (; i < end; i++)
+        {
+            int digit = _text[i] - '0';
+
+            if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10)
+                return false;
+
+            value = value * 10 + digit;
+        }
+
+        _long = negative ? -value : value;
+        _numberType = _long >= Integer.MIN_VALUE && _long <= Integer.MAX_VALUE ? INT_NUMBER : LONG_NUMBER;
+
+        return true;
+    }
+
+    /**
+     * Handles everything else the way {@link JSONTokener#nextValue()} does: hex and octal
+     * integers, then decimal integers, then doubles.
+     */
+    private boolean parseNumber(String s)
+    {
+        if (s.charAt(0) == '0')
+        {
+            try
+            {
+                if (s.length() > 2 && (s.charAt(1) == 'x' || s.charAt(1) == 'X'))
+                    return setInt(Integer.parseInt(s.substring(2), 16));
+
+                return setInt(Integer.parseInt(s, 8));
+            }
+            catch (NumberFormatException ex)
+            {
+                // Try as decimal.
+            }
+        }
+
+        try
+        {
+            return setInt(Integer.parseInt(s));
+        }
+        catch (NumberFormatException ex)
+        {
+            // Try as double.
+        }
+
+        try
+        {
+            _double = Double.parseDouble(s);
+            _numberType = DOUBLE_NUMBER;
+
+            return true;
+        }
+        catch (NumberFormatException ex)
+        {
+            return false;
+        }
+    }
+
+    private boolean setInt(int value)
+    {
+        _long = value;
+        _numberType = INT_NUMBER;
+
+        return true;
+    }
+
+    private boolean textEqualsIgnoreCase(String value)
+    {
+        if (_textLength != value.length())
+            return false;
+
+        for (int i = 0; i < _textLength; i++)
+        {
+            if (Character.toLowerCase(_text[_textStart + i]) != value.charAt(i))
+                return false;
+        }
+
+        return true;
+    }
+
+    private void setText(char[] text, int start, int length)
+    {
+        _text = text;
+        _textStart = start;
+        _textLength = length;
+    }
+
+    private void append(char c)
+    {
+        if (_scratchLength == _scratch.length)
+            growScratch(_scratchLength + 1);
+
+        _scratch[_scratchLength++] = c;
+    }
+
+    private void append(char[] chars, int start, int length)
+    {
+        if (_scratchLength + length > _scratch.length)
+            growScratch(_scratchLength + length);
+
+        System.arraycopy(chars, start, _scratch, _scratchLength, length);
+        _scratchLength += length;
+    }
+
+    private void growScratch(int minimum)
+    {
+        char[] scratch = new char[Math.max(minimum, _scratch.length * 2)];
+
+        System.arraycopy(_scratch, 0, scratch, 0, _scratchLength);
+
+        _scratch = scratch;
+    }
+
+    private void push(char c)
+    {
+        _pushed[_pushedCount++] = c;
+    }
+
+    /**
+     * Returns the next character, or 0 at the end of the input.
+     */
+    private char read()
+        throws ParseException
+    {
+        if (_pushedCount > 0)
+            return _pushed[--_pushedCount];
+
+        if (_pos == _limit && !fill())
+            return 0;
+
+        return _buffer[_pos++];
+    }
+
+    private boolean fill()
+        throws ParseException
+    {
+        if (_reader == null)
+            return false;
+
+        try
+        {
+            int count = _reader.read(_buffer, 0, _buffer.length);
+
+            _bufferOffset += _limit;
+            _pos = 0;
+            _limit = Math.max(count, 0);
+
+            return count > 0;
+        }
+        catch (IOException ex)
+        {
+            throw syntaxError("Unable to read JSON input (" + ex.getMessage() + ")");
+        }
+    }
+
+    /**
+     * Returns the next character, skipping whitespace and comments (slashslash, slashstar, and
+     * hash), or 0 at the end of the input.
+     */
+    private char nextClean()
+        throws ParseException
+    {
+        while (true)
+        {
+            char c = read();
+
+            if (c == '/')
+            {
+                char n = read();
+
+                switch (n)
+                {
+                    case '/':
+                        do
+                        {
+                            c = read();
+                        }
+                        while (c != '\n' && c != '\r' && c != 0);
+                        break;
+
+                    case '*':
+                        while (true)
+                        {
+                            c = read();
+
+                            if (c == 0)
+                                throw syntaxError("Unclosed comment.");
+
+                            if (c == '*')
+                            {
+                                char after = read();
+
+                                if (after == '/')
+                                    break;
+
+                                push(after);
+                            }
+                        }
+                        break;
+
+                    default:
+                        if (n != 0)
+                            push(n);
+
+                        return '/';
+                }
+            }
+            else if (c == '#')
+            {
+                do
+                {
+                    c = read();
+                }
+                while (c != '\n' && c != '\r' && c != 0);
+            }
+            else if (c == 0 || c > ' ')
+                return c;
+        }
+    }
+}
@@ -56,6 +56,15 @@ public class ListenerMapSourceImpl implements ListenerMapSource, ResetEventListe
 
     private final Map _classToInvokerMap = new HashMap();
 
+    /** @since 4.1.7 */
+    private ListenerTaskExecutor _listenerTaskExecutor;
+
+    /** @since 4.1.7 */
+    public void setListenerTaskExecutor(ListenerTaskExecutor listenerTaskExecutor)
+    {
+        _listenerTaskExecutor = listenerTaskExecutor;
+    }
+
     public ListenerMap getListenerMapForObject(Object object)
     {
         Defense.notNull(object, "object");
@@ -125,7 +134,8 @@ public class ListenerMapSourceImpl implements ListenerMapSource, ResetEventListe
             return true;
 
         return IPage.class.isAssignableFrom(returnType)
-                || ILink.class.isAssignableFrom(returnType);
+                || ILink.class.isAssignableFrom(returnType)
+                || ListenerTask.class.isAssignableFrom(returnType);
     }
 
     private Map convertMethodListMapToInvokerMap(Map map)
@@ -159,7 +169,7 @@ public class ListenerMapSourceImpl implements ListenerMapSource, ResetEventListe
     protected ListenerMethodInvoker createListenerMethodInvoker(String name,
             Method[] methods)
     {
-        return new ListenerMethodInvokerImpl(name, methods);
+        return new ListenerMethodInvokerImpl(name, methods, _listenerTaskExecutor);
     }
 
     private Method[] convertMethodListToArray(List methodList)
@@ -55,4 +55,19 @@ final class ListenerMessages
 	{
 		return _formatter.format("no-implicit-listener-method-found", name, target);
 	}
+
+    static String listenerTaskRejected(ListenerTask task, int queueSize)
+    {
+        return _formatter.format("listener-task-rejected", task, new Integer(queueSize));
+    }
+
+    static String listenerTaskFailure(ListenerTask task, Throwable cause)
+    {
+        return _formatter.format("listener-task-failure", task, cause);
+    }
+
+    static String noListenerTaskExecutor(String name, Object target)
+    {
+        return _formatter.format("no-listener-task-executor", name, target);
+    }
 }
@@ -20,6 +20,7 @@ import org.apache.tapestry.IPage;
 import org.apache.tapestry.IRequestCycle;
 import org.apache.tapestry.engine.ILink;
 import org.apache.tapestry.event.BrowserEvent;
+import org.apache.tapestry.services.ResponseBuilder;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -61,13 +62,26 @@ public class ListenerMethodInvokerImpl implements ListenerMethodInvoker
 
     private final String _name;
 
+    /**
+     * Runs {@link ListenerTask}s returned by the listener method; may be null.
+     */
+
+    private final ListenerTaskExecutor _taskExecutor;
+
     public ListenerMethodInvokerImpl(String name, Method[] methods)
+    {
+        this(name, methods, null);
+    }
+
+    /** @since 4.1.7 */
+    public ListenerMethodInvokerImpl(String name, Method[] methods, ListenerTaskExecutor taskExecutor)
     {
         Defense.notNull(name, "name");
         Defense.notNull(methods, "methods");
 
         _name = name;
         _methods = methods;
+        _taskExecutor = taskExecutor;
     }
 
     public void invokeListenerMethod(Object target, IRequestCycle cycle)
@@ -243,7 +257,13 @@ public class ListenerMethodInvokerImpl implements ListenerMethodInvoker
         
         // The method scanner, inside ListenerMapSourceImpl,
         // ensures that only methods that return void, String,
-        // or assignable to ILink or IPage are considered.
+        // or assignable to ILink, IPage or ListenerTask are considered.
+
+        if (methodResult instanceof ListenerTask)
+        {
+            submitTask((ListenerTask) methodResult, target, cycle);
+            return;
+        }
 
         if (methodResult instanceof String)
         {
@@ -264,6 +284,28 @@ public class ListenerMethodInvokerImpl implements ListenerMethodInvoker
         cycle.activate((IPage) methodResult);
     }
     
+    /**
+     * Hands the task off to the executor, and makes its completion token
+     * available as a request cycle attribute and, for dynamic responses,
+     * as a status message.
+     */
+
+    private void submitTask(ListenerTask task, Object target, IRequestCycle cycle)
+    {
+        if (_taskExecutor == null)
+            throw new ApplicationRuntimeException(ListenerMessages.noListenerTaskExecutor(_name, target),
+                    target, null, null);
+
+        String token = _taskExecutor.submit(task);
+
+        cycle.setAttribute(ListenerTaskExecutor.TOKEN_ATTRIBUTE, token);
+
+        ResponseBuilder builder = cycle.getResponseBuilder();
+
+        if (builder != null && builder.isDynamic())
+            builder.addStatusMessage(null, ListenerTaskExecutor.TOKEN_CATEGORY, token);
+    }
+
     /**
      * Provided as a hook so that subclasses can perform any additional work
      * before or after invoking the listener method.
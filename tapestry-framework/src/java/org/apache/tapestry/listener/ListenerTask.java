@@ -0,0 +1,38 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.listener;
+
+/**
+ * May be returned by a listener method in order to have slow work (a report, a call to an
+ * external system, etc.) performed in the background, by the {@link ListenerTaskExecutor},
+ * rather than on the request thread. The listener method itself runs as usual and returns
+ * quickly, so the page goes back to the pool; the client receives a completion token that it may
+ * use to poll the {@link org.apache.tapestry.Tapestry#LISTENER_TASK_SERVICE listener task service}
+ * for the outcome.
+ * <p>
+ * Tasks run outside of any request: they must capture whatever data they need (listener
+ * parameters, property values) when they are created, and must not refer to the page, its
+ * components or the request cycle.
+ *
+ * @since 4.1.7
+ */
+public interface ListenerTask
+{
+    /**
+     * Performs the work. The result (which may be null) is reported to the client polling for it;
+     * see {@link org.apache.tapestry.engine.ListenerTaskService}.
+     */
+    Object execute() throws Exception;
+}
@@ -0,0 +1,52 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.listener;
+
+/**
+ * Runs {@link ListenerTask}s returned by listener methods on a bounded pool of background
+ * threads, and keeps track of their outcome under an unguessable completion token.
+ *
+ * @since 4.1.7
+ */
+public interface ListenerTaskExecutor
+{
+    /**
+     * The {@link org.apache.tapestry.IRequestCycle} attribute under which the completion token of
+     * a task submitted while processing the request is stored.
+     */
+    String TOKEN_ATTRIBUTE = "org.apache.tapestry.listener.ListenerTaskToken";
+
+    /**
+     * The category of the status message (see
+     * {@link org.apache.tapestry.services.ResponseBuilder#addStatusMessage(org.apache.tapestry.IMarkupWriter, String, String)})
+     * carrying the completion token in dynamic responses.
+     */
+    String TOKEN_CATEGORY = "listenerTask";
+
+    /**
+     * Queues the task for execution.
+     *
+     * @return the completion token of the task
+     * @throws org.apache.hivemind.ApplicationRuntimeException
+     *             if the queue of pending tasks is full
+     */
+    String submit(ListenerTask task);
+
+    /**
+     * Returns the status of the task identified by the token, or null if the token is unknown (or
+     * the task completed long enough ago to have been discarded).
+     */
+    ListenerTaskStatus getStatus(String token);
+}
@@ -0,0 +1,224 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.listener;
+
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.hivemind.ApplicationRuntimeException;
+import org.apache.hivemind.events.RegistryShutdownListener;
+import org.apache.tapestry.event.ReportStatusEvent;
+import org.apache.tapestry.event.ReportStatusListener;
+import org.apache.tapestry.util.DaemonThreadPool;
+
+import edu.emory.mathcs.backport.java.util.concurrent.RejectedExecutionException;
+import edu.emory.mathcs.backport.java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Default implementation of {@link ListenerTaskExecutor}. Tasks run on a fixed size pool of
+ * daemon threads (created as needed), with a bounded queue of pending tasks; once the queue is
+ * full, further tasks are rejected. The status of completed tasks is kept for a configurable
+ * retention period, so that clients may poll for it.
+ *
+ * @since 4.1.7
+ */
+public class ListenerTaskExecutorImpl implements ListenerTaskExecutor, ReportStatusListener,
+        RegistryShutdownListener
+{
+    private Log _log;
+
+    private String _serviceId;
+
+    private int _threads = 4;
+
+    private int _queueSize = 100;
+
+    private long _retention = 300000;
+
+    private DaemonThreadPool _executor;
+
+    private final SecureRandom _random = new SecureRandom();
+
+    /** Keyed on token, value is {@link ListenerTaskStatus}. */
+    private final Map _statuses = new HashMap();
+
+    private final AtomicLong _submitted = new AtomicLong();
+
+    private final AtomicLong _rejected = new AtomicLong();
+
+    private final AtomicLong _failed = new AtomicLong();
+
+    public void initializeService()
+    {
+        _executor = new DaemonThreadPool("Tapestry listener task", _threads, _queueSize);
+    }
+
+    public String submit(final ListenerTask task)
+    {
+        final ListenerTaskStatus status = new ListenerTaskStatus(newToken());
+
+        synchronized (_statuses)
+        {
+            purgeExpired();
+
+            _statuses.put(status.getToken(), status);
+        }
+
+        try
+        {
+            _executor.execute(new Runnable()
+            {
+                public void run()
+                {
+                    execute(task, status);
+                }
+            });
+        }
+        catch (RejectedExecutionException ex)
+        {
+            synchronized (_statuses)
+            {
+                _statuses.remove(status.getToken());
+            }
+
+            _rejected.incrementAndGet();
+
+            throw new ApplicationRuntimeException(ListenerMessages.listenerTaskRejected(task,
+                    _queueSize), ex);
+        }
+
+        _submitted.incrementAndGet();
+
+        return status.getToken();
+    }
+
+    public ListenerTaskStatus getStatus(String token)
+    {
+        synchronized (_statuses)
+        {
+            purgeExpired();
+
+            return (ListenerTaskStatus) _statuses.get(token);
+        }
+    }
+
+    private void execute(ListenerTask task, ListenerTaskStatus status)
+    {
+        status.started();
+
+        try
+        {
+            status.completed(task.execute());
+        }
+        catch (Throwable ex)
+        {
+            _failed.incrementAndGet();
+
+            _log.error(ListenerMessages.listenerTaskFailure(task, ex), ex);
+
+            status.failed(ex);
+        }
+    }
+
+    /**
+     * Discards the status of tasks that finished more than retention milliseconds ago. Invoked
+     * with the lock on the statuses held.
+     */
+    private void purgeExpired()
+    {
+        long cutoff = System.currentTimeMillis() - _retention;
+
+        Iterator i = _statuses.values().iterator();
+
+        while (i.hasNext())
+        {
+            ListenerTaskStatus status = (ListenerTaskStatus) i.next();
+
+            if (status.isDone() && status.getFinished() < cutoff)
+                i.remove();
+        }
+    }
+
+    private String newToken()
+    {
+        byte[] bytes = new byte[16];
+
+        synchronized (_random)
+        {
+            _random.nextBytes(bytes);
+        }
+
+        StringBuffer buffer = new StringBuffer(32);
+
+        for (int i = 0; i < bytes.length; i++)
+        {
+            buffer.append(Character.forDigit((bytes[i] >> 4) & 0xf, 16));
+            buffer.append(Character.forDigit(bytes[i] & 0xf, 16));
+        }
+
+        return buffer.toString();
+    }
+
+    public void registryDidShutdown()
+    {
+        _executor.shutdownNow();
+    }
+
+    public void reportStatus(ReportStatusEvent event)
+    {
+        event.title(_serviceId);
+
+        _executor.reportStatus(event);
+        event.property("submitted tasks", _submitted.get());
+        event.property("rejected tasks", _rejected.get());
+        event.property("failed tasks", _failed.get());
+
+        synchronized (_statuses)
+        {
+            event.property("tracked tasks", _statuses.size());
+        }
+    }
+
+    public void setLog(Log log)
+    {
+        _log = log;
+    }
+
+    public void setServiceId(String serviceId)
+    {
+        _serviceId = serviceId;
+    }
+
+    public void setThreads(int threads)
+    {
+        _threads = threads;
+    }
+
+    public void setQueueSize(int queueSize)
+    {
+        _queueSize = queueSize;
+    }
+
+    /**
+     * The time, in milliseconds, the status of a finished task is kept.
+     */
+    public void setRetention(long retention)
+    {
+        _retention = retention;
+    }
+}
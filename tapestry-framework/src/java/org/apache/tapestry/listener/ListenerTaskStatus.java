@@ -0,0 +1,112 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.listener;
+
+/**
+ * The status of a {@link ListenerTask} submitted to the {@link ListenerTaskExecutor}.
+ *
+ * @since 4.1.7
+ */
+public class ListenerTaskStatus
+{
+    public static final String PENDING = "pending";
+
+    public static final String RUNNING = "running";
+
+    public static final String COMPLETE = "complete";
+
+    public static final String FAILED = "failed";
+
+    private final String _token;
+
+    private volatile String _state = PENDING;
+
+    private volatile Object _result;
+
+    private volatile Throwable _failure;
+
+    /**
+     * Time (as per {@link System#currentTimeMillis()}) the task completed or failed, or 0.
+     */
+    private volatile long _finished;
+
+    public ListenerTaskStatus(String token)
+    {
+        _token = token;
+    }
+
+    public String getToken()
+    {
+        return _token;
+    }
+
+    /**
+     * One of {@link #PENDING}, {@link #RUNNING}, {@link #COMPLETE} or {@link #FAILED}.
+     */
+    public String getState()
+    {
+        return _state;
+    }
+
+    public boolean isDone()
+    {
+        return _finished != 0;
+    }
+
+    /**
+     * The value returned by {@link ListenerTask#execute()}, once {@link #COMPLETE}.
+     */
+    public Object getResult()
+    {
+        return _result;
+    }
+
+    /**
+     * The exception thrown by {@link ListenerTask#execute()}, if {@link #FAILED}.
+     */
+    public Throwable getFailure()
+    {
+        return _failure;
+    }
+
+    long getFinished()
+    {
+        return _finished;
+    }
+
+    void started()
+    {
+        _state = RUNNING;
+    }
+
+    void completed(Object result)
+    {
+        _result = result;
+        _state = COMPLETE;
+        _finished = System.currentTimeMillis();
+    }
+
+    void failed(Throwable failure)
+    {
+        _failure = failure;
+        _state = FAILED;
+        _finished = System.currentTimeMillis();
+    }
+
+    public String toString()
+    {
+        return "ListenerTaskStatus[" + _token + " " + _state + "]";
+    }
+}
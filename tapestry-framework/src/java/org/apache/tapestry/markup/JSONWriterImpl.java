@@ -16,17 +16,27 @@ package org.apache.tapestry.markup;
 import java.io.PrintWriter;
 
 import org.apache.hivemind.util.Defense;
+import org.apache.tapestry.json.IJSONStreamWriter;
 import org.apache.tapestry.json.IJSONWriter;
 import org.apache.tapestry.json.JSONArray;
 import org.apache.tapestry.json.JSONObject;
 
 /**
- * Implementation of {@link IJSONWriter}.
+ * Implementation of {@link IJSONWriter}. As of 4.1.7 this also implements
+ * {@link IJSONStreamWriter}, writing streamed tokens directly to the underlying
+ * {@link PrintWriter}; the {@link #object()} and {@link #array()} trees are still
+ * supported, and are serialized directly to the writer when the writer is closed.
  * 
  * @author jkuhnert
  */
-public class JSONWriterImpl implements IJSONWriter
+public class JSONWriterImpl implements IJSONStreamWriter
 {   
+    private static final int INITIAL_DEPTH = 8;
+
+    private static final byte OBJECT = 1;
+
+    private static final byte ARRAY = 2;
+
     /** Outputstream writer. */
     protected PrintWriter _writer;
     
@@ -39,6 +49,35 @@ public class JSONWriterImpl implements IJSONWriter
      * Delegate array object that handles object array json renders.
      */
     private JSONArray _array;
+
+    /**
+     * Set once any token has been streamed; from then on the tree delegates are unavailable.
+     */
+    private boolean _streaming;
+
+    /**
+     * The type ({@link #OBJECT} or {@link #ARRAY}) of each open block.
+     */
+    private byte[] _blocks = new byte[INITIAL_DEPTH];
+
+    /**
+     * Whether anything has been written yet into each open block, to know when a comma
+     * is needed.
+     */
+    private boolean[] _nonEmpty = new boolean[INITIAL_DEPTH];
+
+    private int _depth;
+
+    /**
+     * True when a key has been written and its value is expected next.
+     */
+    private boolean _afterKey;
+
+    /**
+     * True once a complete top-level value has been started; a response holds a single
+     * top-level value.
+     */
+    private boolean _rootWritten;
     
     /**
      * Creates a new instance that will write all content to 
@@ -59,17 +98,24 @@ public class JSONWriterImpl implements IJSONWriter
      */
     public void close()
     {
-        if (_json == null && _array == null)
-            _json = new JSONObject();
-        
-        if (_json != null) {
-            
-            _writer.write(_json.toString());
+        if (_streaming)
+        {
+            if (_afterKey)
+                value((Object) null);
+
+            while (_depth > 0)
+                endBlock(_blocks[_depth - 1]);
         }
-        
-        if (_array != null) {
-            
-            _writer.write(_array.toString());
+        else
+        {
+            if (_json == null && _array == null)
+                _json = new JSONObject();
+
+            if (_json != null)
+                _json.write(_writer);
+
+            if (_array != null)
+                _array.write(_writer);
         }
         
         _writer.flush();
@@ -81,6 +127,8 @@ public class JSONWriterImpl implements IJSONWriter
      */
     public JSONObject object()
     {
+        checkNotStreaming();
+
         if (_json == null)
             _json = new JSONObject();
         
@@ -92,11 +140,170 @@ public class JSONWriterImpl implements IJSONWriter
      */
     public JSONArray array()
     {
+        checkNotStreaming();
+
         if (_array == null)
             _array = new JSONArray();
         
         return _array;
     }
+
+    public void beginObject()
+    {
+        beginBlock(OBJECT, '{');
+    }
+
+    public void endObject()
+    {
+        endBlock(OBJECT);
+    }
+
+    public void beginArray()
+    {
+        beginBlock(ARRAY, '[');
+    }
+
+    public void endArray()
+    {
+        endBlock(ARRAY);
+    }
+
+    public void key(String key)
+    {
+        Defense.notNull(key, "key");
+
+        startStreaming();
+
+        if (_depth == 0 || _blocks[_depth - 1] != OBJECT || _afterKey)
+            throw new IllegalStateException(MarkupMessages.jsonKeyNotAllowed(key));
+
+        if (_nonEmpty[_depth - 1])
+            _writer.write(',');
+
+        _nonEmpty[_depth - 1] = true;
+
+        JSONObject.quote(key, _writer);
+        _writer.write(':');
+
+        _afterKey = true;
+    }
+
+    public void value(String value)
+    {
+        beforeValue();
+
+        if (value == null)
+            _writer.write("null");
+        else
+            JSONObject.quote(value, _writer);
+    }
+
+    public void value(long value)
+    {
+        beforeValue();
+
+        _writer.print(value);
+    }
+
+    public void value(double value)
+    {
+        beforeValue();
+
+        _writer.write(JSONObject.numberToString(new Double(value)));
+    }
+
+    public void value(boolean value)
+    {
+        beforeValue();
+
+        _writer.write(value ? "true" : "false");
+    }
+
+    public void value(Object value)
+    {
+        beforeValue();
+
+        JSONObject.writeValue(value, _writer);
+    }
+
+    private void beginBlock(byte type, char open)
+    {
+        beforeValue();
+
+        if (_depth == _blocks.length)
+        {
+            byte[] blocks = new byte[_depth * 2];
+            boolean[] nonEmpty = new boolean[_depth * 2];
+
+            System.arraycopy(_blocks, 0, blocks, 0, _depth);
+            System.arraycopy(_nonEmpty, 0, nonEmpty, 0, _depth);
+
+            _blocks = blocks;
+            _nonEmpty = nonEmpty;
+        }
+
+        _blocks[_depth] = type;
+        _nonEmpty[_depth] = false;
+        _depth++;
+
+        _writer.write(open);
+    }
+
+    private void endBlock(byte type)
+    {
+        if (_depth == 0 || _blocks[_depth - 1] != type || _afterKey)
+            throw new IllegalStateException(MarkupMessages.jsonUnbalancedBlock(type == OBJECT ? "object" : "array"));
+
+        _depth--;
+
+        _writer.write(type == OBJECT ? '}' : ']');
+    }
+
+    /**
+     * Writes the separator (if any) required before a value, and verifies that a value is
+     * allowed at this point.
+     */
+    private void beforeValue()
+    {
+        startStreaming();
+
+        if (_depth == 0)
+        {
+            if (_rootWritten)
+                throw new IllegalStateException(MarkupMessages.jsonMultipleRootValues());
+
+            _rootWritten = true;
+            return;
+        }
+
+        if (_blocks[_depth - 1] == OBJECT)
+        {
+            if (!_afterKey)
+                throw new IllegalStateException(MarkupMessages.jsonValueWithoutKey());
+
+            _afterKey = false;
+            return;
+        }
+
+        if (_nonEmpty[_depth - 1])
+            _writer.write(',');
+
+        _nonEmpty[_depth - 1] = true;
+    }
+
+    private void startStreaming()
+    {
+        if (_json != null || _array != null)
+            throw new IllegalStateException(MarkupMessages.jsonStreamingAfterTree());
+
+        _streaming = true;
+    }
+
+    private void checkNotStreaming()
+    {
+        if (_streaming)
+            throw new IllegalStateException(MarkupMessages.jsonTreeAfterStreaming());
+    }
     
     public void flush()
     {
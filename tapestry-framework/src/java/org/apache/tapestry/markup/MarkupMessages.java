@@ -67,4 +67,34 @@ final class MarkupMessages
     {
         return _formatter.getMessage("close-once");
     }
+
+    static String jsonKeyNotAllowed(String key)
+    {
+        return _formatter.format("json-key-not-allowed", key);
+    }
+
+    static String jsonValueWithoutKey()
+    {
+        return _formatter.getMessage("json-value-without-key");
+    }
+
+    static String jsonUnbalancedBlock(String type)
+    {
+        return _formatter.format("json-unbalanced-block", type);
+    }
+
+    static String jsonStreamingAfterTree()
+    {
+        return _formatter.getMessage("json-streaming-after-tree");
+    }
+
+    static String jsonTreeAfterStreaming()
+    {
+        return _formatter.getMessage("json-tree-after-streaming");
+    }
+
+    static String jsonMultipleRootValues()
+    {
+        return _formatter.getMessage("json-multiple-root-values");
+    }
 }
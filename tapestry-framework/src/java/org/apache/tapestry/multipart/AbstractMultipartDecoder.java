@@ -38,8 +38,8 @@ public abstract class AbstractMultipartDecoder
     protected String _encoding;
     
     /**
-     * Map of UploadPart (which implements IUploadFile), keyed on parameter
-     * name.
+     * Map of UploadPart or StreamedUploadPart (both implement IUploadFile),
+     * keyed on parameter name.
      */
     protected Map _uploadParts = new HashMap();
 
@@ -59,9 +59,12 @@ public abstract class AbstractMultipartDecoder
 
         while(i.hasNext())
         {
-            UploadPart part = (UploadPart) i.next();
+            Object part = i.next();
 
-            part.cleanup();
+            if (part instanceof StreamedUploadPart)
+                ((StreamedUploadPart) part).cleanup();
+            else
+                ((UploadPart) part).cleanup();
         }
     }
 
@@ -123,6 +126,16 @@ public abstract class AbstractMultipartDecoder
 
         String value = extractFileItemValue(item);
 
+        addValue(name, value);
+    }
+
+    /**
+     * Adds a value for a form field.
+     *
+     * @since 4.1.7
+     */
+    protected void addValue(String name, String value)
+    {
         ValuePart part = (ValuePart) _valueParts.get(name);
 
         if (part == null)
@@ -15,13 +15,26 @@
 package org.apache.tapestry.multipart;
 
 import org.apache.commons.fileupload.FileItemFactory;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
 import org.apache.commons.fileupload.FileUploadException;
 import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.apache.commons.fileupload.util.Streams;
 import org.apache.hivemind.ApplicationRuntimeException;
 
+import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +42,15 @@ import java.util.Map;
  * Implementation of {@link org.apache.tapestry.multipart.MultipartDecoder} that
  * is based on <a href="http://jakarta.apache.org/commons/fileupload/">Jakarta
  * FileUpload </a>.
+ * <p>
+ * In streaming mode (see {@link #setStreaming(boolean)}), the request is decoded with the
+ * FileUpload streaming API instead of being materialized as a list of
+ * {@link org.apache.commons.fileupload.FileItem}s: form fields are decoded as they are read, and
+ * each uploaded file is copied exactly once, into memory if no larger than the threshold size,
+ * otherwise (using NIO channels) into a file in the repository directory.
+ * <p>
+ * In either mode, an {@link UploadLimiter} may limit the total size of the requests being
+ * decoded concurrently.
  * 
  * @author Howard M. Lewis Ship
  * @author Joe Panico
@@ -40,41 +62,268 @@ public class MultipartDecoderImpl extends AbstractMultipartDecoder implements Se
     /* maximum size of file allowed to be uploaded */
     protected long _maxSize = 10000000;
 
+    /** @since 4.1.7 */
+    private boolean _streaming;
+
+    /** @since 4.1.7 */
+    private UploadLimiter _uploadLimiter;
+
+    /**
+     * Number of bytes reserved from the upload limiter by this request.
+     *
+     * @since 4.1.7
+     */
+    private long _reserved;
+
     public HttpServletRequest decode(HttpServletRequest request)
     {
         _encoding = request.getCharacterEncoding();
-        
-        ServletFileUpload upload = createFileUpload();
-        
+
+        HttpServletRequest source = reserve(request);
+
         try
         {
-            List fileItems = upload.parseRequest(request);
-            
-            processFileItems(fileItems);
+            if (_streaming)
+                decodeStream(source);
+            else
+            {
+                ServletFileUpload upload = createFileUpload();
+
+                List fileItems = upload.parseRequest(source);
+
+                processFileItems(fileItems);
+            }
         }
         catch (FileUploadException ex)
         {
             throw new ApplicationRuntimeException(MultipartMessages.unableToDecode(ex), ex);
         }
+        catch (IOException ex)
+        {
+            throw new ApplicationRuntimeException(MultipartMessages.unableToDecode(ex), ex);
+        }
         
         Map parameterMap = buildParameterMap();
         
         return new UploadFormParametersWrapper(request, parameterMap);
     }
 
+    public void cleanup()
+    {
+        super.cleanup();
+
+        if (_reserved > 0)
+        {
+            _uploadLimiter.release(_reserved);
+            _reserved = 0;
+        }
+    }
+
+    /**
+     * Reserves the size of the request from the upload limiter, if any, returning the request to
+     * decode. When the size of the request isn't known (it is sent chunked), the maximum size is
+     * reserved instead; if there is no maximum size either, the request's bytes are reserved as
+     * they are read, through the returned request.
+     */
+    private HttpServletRequest reserve(HttpServletRequest request)
+    {
+        if (_uploadLimiter == null)
+            return request;
+
+        long bytes = request.getContentLength();
+
+        if (bytes < 0)
+        {
+            if (_maxSize < 0)
+                return new ReservingRequest(request);
+
+            bytes = _maxSize;
+        }
+
+        reserve(bytes);
+
+        return request;
+    }
+
+    private void reserve(long bytes)
+    {
+        if (!_uploadLimiter.reserve(bytes))
+            throw new ApplicationRuntimeException(MultipartMessages.uploadLimitExceeded(_reserved + bytes, _uploadLimiter.getMaxBytes()));
+
+        _reserved += bytes;
+    }
+
+    /**
+     * Reserves the bytes of the request from the upload limiter as they are read.
+     *
+     * @since 4.1.7
+     */
+    private class ReservingRequest extends HttpServletRequestWrapper
+    {
+        ReservingRequest(HttpServletRequest request)
+        {
+            super(request);
+        }
+
+        public ServletInputStream getInputStream() throws IOException
+        {
+            final ServletInputStream stream = super.getInputStream();
+
+            return new ServletInputStream()
+            {
+                public int read() throws IOException
+                {
+                    int result = stream.read();
+
+                    if (result >= 0)
+                        reserve(1);
+
+                    return result;
+                }
+
+                public int read(byte[] buffer, int offset, int length) throws IOException
+                {
+                    int result = stream.read(buffer, offset, length);
+
+                    if (result > 0)
+                        reserve(result);
+
+                    return result;
+                }
+            };
+        }
+    }
+
     private ServletFileUpload createFileUpload()
     {
         FileItemFactory factory = new DiskFileItemFactory(_thresholdSize, new File(_repositoryPath));
         ServletFileUpload upload = new ServletFileUpload(factory);
-        
+
+        configure(upload);
+
+        return upload;
+    }
+
+    private void configure(ServletFileUpload upload)
+    {
         // set maximum file upload size
 
         upload.setSizeMax(_maxSize);
         
         if (_encoding != null)
             upload.setHeaderEncoding(_encoding);
+    }
 
-        return upload;
+    private void decodeStream(HttpServletRequest request) throws FileUploadException, IOException
+    {
+        ServletFileUpload upload = new ServletFileUpload();
+
+        configure(upload);
+
+        File repository = new File(_repositoryPath);
+
+        FileItemIterator i = upload.getItemIterator(request);
+
+        while (i.hasNext())
+        {
+            FileItemStream item = i.next();
+
+            if (item.isFormField())
+                addValue(item.getFieldName(), readValue(item));
+            else
+                _uploadParts.put(item.getFieldName(), readUploadPart(item, repository));
+        }
+    }
+
+    private String readValue(FileItemStream item) throws IOException
+    {
+        InputStream stream = item.openStream();
+
+        try
+        {
+            return _encoding == null ? Streams.asString(stream) : Streams.asString(stream, _encoding);
+        }
+        catch (UnsupportedEncodingException ex)
+        {
+            throw new ApplicationRuntimeException(MultipartMessages.unsupportedEncoding(_encoding, ex), ex);
+        }
+    }
+
+    /**
+     * Reads the content of an uploaded file, keeping it in memory if it fits within the
+     * threshold size, and otherwise transferring it to a new file in the repository.
+     */
+    private StreamedUploadPart readUploadPart(FileItemStream item, File repository) throws IOException
+    {
+        InputStream stream = item.openStream();
+
+        byte[] buffer = new byte[_thresholdSize + 1];
+        int length = 0;
+
+        while (length < buffer.length)
+        {
+            int count = stream.read(buffer, length, buffer.length - length);
+
+            if (count < 0)
+                break;
+
+            length += count;
+        }
+
+        if (length <= _thresholdSize)
+        {
+            byte[] content = new byte[length];
+            System.arraycopy(buffer, 0, content, 0, length);
+
+            return new StreamedUploadPart(item.getName(), item.getContentType(), content);
+        }
+
+        File file = File.createTempFile("upload_", ".tmp", repository);
+        boolean success = false;
+
+        try
+        {
+            long size = transfer(buffer, stream, file);
+
+            success = true;
+
+            return new StreamedUploadPart(item.getName(), item.getContentType(), file, size);
+        }
+        finally
+        {
+            if (!success)
+                file.delete();
+        }
+    }
+
+    private long transfer(byte[] buffer, InputStream stream, File file) throws IOException
+    {
+        FileChannel out = new FileOutputStream(file).getChannel();
+
+        try
+        {
+            out.write(ByteBuffer.wrap(buffer));
+
+            long position = buffer.length;
+
+            ReadableByteChannel in = Channels.newChannel(stream);
+
+            while (true)
+            {
+                long count = out.transferFrom(in, position, Long.MAX_VALUE - position);
+
+                if (count <= 0)
+                    break;
+
+                position += count;
+            }
+
+            return position;
+        }
+        finally
+        {
+            out.close();
+        }
     }
 
     /**
@@ -87,4 +336,20 @@ public class MultipartDecoderImpl extends AbstractMultipartDecoder implements Se
     {
         _maxSize = maxSize;
     }
+
+    /**
+     * If true, decodes requests using the streaming mode.
+     *
+     * @since 4.1.7
+     */
+    public void setStreaming(boolean streaming)
+    {
+        _streaming = streaming;
+    }
+
+    /** @since 4.1.7 */
+    public void setUploadLimiter(UploadLimiter uploadLimiter)
+    {
+        _uploadLimiter = uploadLimiter;
+    }
 }
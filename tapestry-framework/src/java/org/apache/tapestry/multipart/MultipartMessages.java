@@ -17,6 +17,7 @@ package org.apache.tapestry.multipart;
 import java.io.File;
 
 import org.apache.hivemind.impl.MessageFormatter;
+import org.apache.tapestry.request.IUploadFile;
 
 /**
  * @author Howard M. Lewis Ship
@@ -39,7 +40,7 @@ public final class MultipartMessages
         return _formatter.format("unsupported-encoding", encoding, cause);
     }
 
-    static String unableToOpenContentFile(UploadPart part, Throwable cause)
+    static String unableToOpenContentFile(IUploadFile part, Throwable cause)
     {
         return _formatter.format("unable-to-open-content-file", part.getFilePath(), cause);
     }
@@ -49,4 +50,9 @@ public final class MultipartMessages
         return _formatter.format("write-failure", file, cause);
     }
 
+    static String uploadLimitExceeded(long requestBytes, long maxBytes)
+    {
+        return _formatter.format("upload-limit-exceeded", String.valueOf(requestBytes), String.valueOf(maxBytes));
+    }
+
 }
@@ -0,0 +1,203 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.multipart;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.hivemind.ApplicationRuntimeException;
+import org.apache.tapestry.request.IUploadFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+
+/**
+ * Portion of a multi-part request representing an uploaded file, as decoded by the streaming mode
+ * of {@link MultipartDecoderImpl}. The content was copied exactly once, as it was read from the
+ * request: small files are kept in memory, larger ones in a file in the upload repository.
+ * The first {@link #write(File)} moves that file into place when possible; otherwise, and for any
+ * later write, it is copied using NIO channels.
+ *
+ * @since 4.1.7
+ */
+public class StreamedUploadPart implements IUploadFile
+{
+    private final String _filePath;
+
+    private final String _contentType;
+
+    private final long _size;
+
+    private final byte[] _content;
+
+    private File _file;
+
+    /**
+     * Set when the content file has been renamed to a file provided by the application.
+     */
+    private boolean _moved;
+
+    /**
+     * Creates a part whose content is in memory.
+     */
+    public StreamedUploadPart(String filePath, String contentType, byte[] content)
+    {
+        _filePath = filePath;
+        _contentType = contentType;
+        _content = content;
+        _size = content.length;
+    }
+
+    /**
+     * Creates a part whose content is stored in a (temporary) file, which is owned by the part.
+     */
+    public StreamedUploadPart(String filePath, String contentType, File file, long size)
+    {
+        _filePath = filePath;
+        _contentType = contentType;
+        _content = null;
+        _file = file;
+        _size = size;
+    }
+
+    public String getContentType()
+    {
+        return _contentType;
+    }
+
+    public String getFileName()
+    {
+        return FilenameUtils.getName(getFilePath());
+    }
+
+    public String getFilePath()
+    {
+        return _filePath;
+    }
+
+    public InputStream getStream()
+    {
+        if (_content != null)
+            return new ByteArrayInputStream(_content);
+
+        try
+        {
+            return new FileInputStream(_file);
+        }
+        catch (FileNotFoundException ex)
+        {
+            throw new ApplicationRuntimeException(MultipartMessages.unableToOpenContentFile(this, ex), ex);
+        }
+    }
+
+    public void write(File file)
+    {
+        try
+        {
+            if (_content != null)
+            {
+                writeContent(file);
+                return;
+            }
+
+            // Only the first write may move the content file; once moved it is the caller's file,
+            // and later writes copy it.
+
+            if (_moved && file.getAbsoluteFile().equals(_file.getAbsoluteFile()))
+                return;
+
+            if (!_moved && _file.renameTo(file))
+            {
+                // The content file is now the caller's; it must not be deleted by cleanup().
+                // Later reads use the new location.
+
+                _file = file;
+                _moved = true;
+                return;
+            }
+
+            copyContent(file);
+        }
+        catch (IOException ex)
+        {
+            throw new ApplicationRuntimeException(MultipartMessages.writeFailure(file, ex), ex);
+        }
+    }
+
+    private void writeContent(File file) throws IOException
+    {
+        FileOutputStream out = new FileOutputStream(file);
+
+        try
+        {
+            out.write(_content);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    private void copyContent(File file) throws IOException
+    {
+        FileChannel in = new FileInputStream(_file).getChannel();
+
+        try
+        {
+            FileChannel out = new FileOutputStream(file).getChannel();
+
+            try
+            {
+                long position = 0;
+
+                while (position < _size)
+                    position += in.transferTo(position, _size - position, out);
+            }
+            finally
+            {
+                out.close();
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    public long getSize()
+    {
+        return _size;
+    }
+
+    public boolean isInMemory()
+    {
+        return _content != null;
+    }
+
+    /**
+     * Deletes the content file, unless it has been {@link #write(File) moved} by the
+     * application.
+     */
+    public void cleanup()
+    {
+        if (_file != null && !_moved)
+            _file.delete();
+    }
+}
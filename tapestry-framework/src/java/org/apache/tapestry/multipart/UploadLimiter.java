@@ -0,0 +1,87 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.multipart;
+
+import edu.emory.mathcs.backport.java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the total number of bytes of multipart requests being decoded at any one time, across
+ * all threads. Each request reserves its content length (or, if not known, the maximum request
+ * size) before it is decoded and releases it once the request has been serviced; a request of
+ * unknown length with no maximum size reserves its bytes as they are read. Service
+ * tapestry.multipart.UploadLimiter.
+ *
+ * @since 4.1.7
+ */
+public class UploadLimiter
+{
+    /**
+     * Maximum number of bytes being uploaded concurrently; zero or less means no limit.
+     */
+    private long _maxBytes;
+
+    private final AtomicLong _bytesInUse = new AtomicLong();
+
+    /**
+     * Reserves the given number of bytes.
+     *
+     * @return true if reserved, false if the reservation would exceed the limit (in which case
+     *         nothing is reserved)
+     */
+    public boolean reserve(long bytes)
+    {
+        if (_maxBytes <= 0)
+        {
+            _bytesInUse.addAndGet(bytes);
+            return true;
+        }
+
+        while (true)
+        {
+            long current = _bytesInUse.get();
+            long updated = current + bytes;
+
+            if (updated > _maxBytes)
+                return false;
+
+            if (_bytesInUse.compareAndSet(current, updated))
+                return true;
+        }
+    }
+
+    /**
+     * Releases bytes previously {@link #reserve(long) reserved}.
+     */
+    public void release(long bytes)
+    {
+        _bytesInUse.addAndGet(-bytes);
+    }
+
+    public long getBytesInUse()
+    {
+        return _bytesInUse.get();
+    }
+
+    public long getMaxBytes()
+    {
+        return _maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes)
+    {
+        _maxBytes = maxBytes;
+    }
+}
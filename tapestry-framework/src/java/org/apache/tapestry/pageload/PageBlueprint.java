@@ -0,0 +1,165 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.pageload;
+
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap;
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentMap;
+import edu.emory.mathcs.backport.java.util.concurrent.atomic.AtomicLong;
+import org.apache.tapestry.INamespace;
+import org.apache.tapestry.services.ComponentConstructor;
+import org.apache.tapestry.spec.IComponentSpecification;
+
+import java.util.Map;
+
+/**
+ * Records the decisions made by the {@link PageLoader} the first time a page is loaded in a
+ * particular locale: for each component (identified by its id path) the resolved specification,
+ * namespace and {@link ComponentConstructor}, and the assets found for it. Later instances of the
+ * same page, created as the page pool grows, replay these decisions rather than going back through
+ * component resolution, class lookup and asset resolution for every component.
+ * <p>
+ * Blueprints are shared between the (pooled) page loaders, so all state is kept in concurrent
+ * structures; recording is idempotent, as every load of a page makes the same decisions.
+ *
+ * @since 4.1.7
+ */
+public class PageBlueprint
+{
+    /**
+     * The id path used for the page itself.
+     */
+    static final String PAGE_PATH = "";
+
+    private final ConcurrentMap _components = new ConcurrentHashMap();
+
+    private final AtomicLong _hits = new AtomicLong();
+
+    private final AtomicLong _misses = new AtomicLong();
+
+    /**
+     * Returns the recorded blueprint for the component with the given id path, if it was recorded
+     * for a component of the given type. Returns null if nothing (or something else) was
+     * recorded.
+     */
+    ComponentBlueprint getComponent(String idPath, String type)
+    {
+        ComponentBlueprint result = (ComponentBlueprint) _components.get(idPath);
+
+        if (result != null && result.getType().equals(type))
+        {
+            _hits.incrementAndGet();
+            return result;
+        }
+
+        _misses.incrementAndGet();
+
+        return null;
+    }
+
+    void addComponent(String idPath, ComponentBlueprint component)
+    {
+        _components.putIfAbsent(idPath, component);
+    }
+
+    /**
+     * Returns the assets recorded for the component with the given id path and specification, or
+     * null if not yet recorded.
+     */
+    Map getAssets(String idPath, IComponentSpecification specification)
+    {
+        ComponentBlueprint component = (ComponentBlueprint) _components.get(idPath);
+
+        return component != null && component.getSpecification() == specification ? component.getAssets() : null;
+    }
+
+    void addAssets(String idPath, IComponentSpecification specification, Map assets)
+    {
+        ComponentBlueprint component = (ComponentBlueprint) _components.get(idPath);
+
+        if (component != null && component.getSpecification() == specification)
+            component.setAssets(assets);
+    }
+
+    public int getComponentCount()
+    {
+        return _components.size();
+    }
+
+    public long getHits()
+    {
+        return _hits.get();
+    }
+
+    public long getMisses()
+    {
+        return _misses.get();
+    }
+
+    /**
+     * The resolved form of a single component (or of the page itself).
+     */
+    static class ComponentBlueprint
+    {
+        private final String _type;
+
+        private final IComponentSpecification _specification;
+
+        private final INamespace _namespace;
+
+        private final ComponentConstructor _constructor;
+
+        private volatile Map _assets;
+
+        ComponentBlueprint(String type, IComponentSpecification specification, INamespace namespace,
+                ComponentConstructor constructor)
+        {
+            _type = type;
+            _specification = specification;
+            _namespace = namespace;
+            _constructor = constructor;
+        }
+
+        String getType()
+        {
+            return _type;
+        }
+
+        IComponentSpecification getSpecification()
+        {
+            return _specification;
+        }
+
+        INamespace getNamespace()
+        {
+            return _namespace;
+        }
+
+        ComponentConstructor getConstructor()
+        {
+            return _constructor;
+        }
+
+        Map getAssets()
+        {
+            return _assets;
+        }
+
+        void setAssets(Map assets)
+        {
+            _assets = assets;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.pageload;
+
+import java.util.Locale;
+
+/**
+ * Stores the {@link PageBlueprint}s shared by all instances of the {@link PageLoader}.
+ * Service tapestry.page.PageBlueprintSource.
+ *
+ * @since 4.1.7
+ */
+public interface PageBlueprintSource
+{
+    /**
+     * Returns the blueprint for the named page (the fully qualified page name) and locale,
+     * creating an empty one as needed.
+     */
+    PageBlueprint getBlueprint(String pageName, Locale locale);
+}
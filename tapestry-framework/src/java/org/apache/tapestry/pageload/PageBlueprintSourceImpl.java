@@ -0,0 +1,88 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.pageload;
+
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap;
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentMap;
+import org.apache.tapestry.event.ReportStatusEvent;
+import org.apache.tapestry.event.ReportStatusListener;
+import org.apache.tapestry.event.ResetEventListener;
+import org.apache.tapestry.internal.pageload.PageKey;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Implementation of {@link PageBlueprintSource}. Blueprints are discarded whenever the
+ * framework caches are reset, since the specifications and templates they were recorded from may
+ * have changed.
+ *
+ * @since 4.1.7
+ */
+public class PageBlueprintSourceImpl implements PageBlueprintSource, ResetEventListener, ReportStatusListener
+{
+    private final ConcurrentMap _blueprints = new ConcurrentHashMap();
+
+    private String _serviceId;
+
+    public PageBlueprint getBlueprint(String pageName, Locale locale)
+    {
+        PageKey key = new PageKey(pageName, locale);
+
+        PageBlueprint result = (PageBlueprint) _blueprints.get(key);
+
+        if (result == null)
+        {
+            PageBlueprint blueprint = new PageBlueprint();
+
+            result = (PageBlueprint) _blueprints.putIfAbsent(key, blueprint);
+
+            if (result == null)
+                result = blueprint;
+        }
+
+        return result;
+    }
+
+    public void resetEventDidOccur()
+    {
+        _blueprints.clear();
+    }
+
+    public void reportStatus(ReportStatusEvent event)
+    {
+        event.title(_serviceId);
+
+        event.property("page blueprints", _blueprints.size());
+
+        Iterator i = _blueprints.entrySet().iterator();
+        while (i.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) i.next();
+            PageKey key = (PageKey) entry.getKey();
+            PageBlueprint blueprint = (PageBlueprint) entry.getValue();
+
+            event.property(key.getPageName() + " (" + key.getLocale() + ")", blueprint.getComponentCount()
+                    + " components, " + blueprint.getHits() + " reused, " + blueprint.getMisses() + " resolved");
+        }
+    }
+
+    public void setServiceId(String serviceId)
+    {
+        _serviceId = serviceId;
+    }
+}
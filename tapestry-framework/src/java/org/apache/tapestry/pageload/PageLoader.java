@@ -24,6 +24,8 @@ import org.apache.tapestry.*;
 import org.apache.tapestry.asset.AssetSource;
 import org.apache.tapestry.binding.BindingSource;
 import org.apache.tapestry.engine.IPageLoader;
+import org.apache.tapestry.internal.pageload.PageKey;
+import org.apache.tapestry.pageload.PageBlueprint.ComponentBlueprint;
 import org.apache.tapestry.resolver.ComponentSpecificationResolver;
 import org.apache.tapestry.services.ComponentConstructor;
 import org.apache.tapestry.services.ComponentConstructorFactory;
@@ -153,6 +155,23 @@ public class PageLoader implements IPageLoader {
      */
     private Stack _componentStack = new Stack();
 
+    /**
+     * Shared blueprints of previously loaded pages; may be null, in which case every component is
+     * resolved from scratch.
+     *
+     * @since 4.1.7
+     */
+
+    private PageBlueprintSource _blueprintSource;
+
+    /**
+     * The blueprint of the page currently being loaded, or null.
+     *
+     * @since 4.1.7
+     */
+
+    private PageBlueprint _blueprint;
+
     public void initializeService()
     {
 
@@ -369,18 +388,15 @@ public class PageLoader implements IPageLoader {
 
                 IContainedComponent contained = containerSpec.getComponent(id);
 
-                String type = contained.getType();
-                Location location = contained.getLocation();
+                ComponentBlueprint blueprint = resolveComponent(cycle, container, namespace, id,
+                                                                contained.getType(), contained.getLocation());
 
-                _componentResolver.resolve(cycle, namespace, type, location);
-
-                IComponentSpecification componentSpecification = _componentResolver.getSpecification();
-                INamespace componentNamespace = _componentResolver.getNamespace();
+                IComponentSpecification componentSpecification = blueprint.getSpecification();
+                INamespace componentNamespace = blueprint.getNamespace();
 
                 // Instantiate the contained component.
 
-                IComponent component = instantiateComponent(page, container,
-                                                            id, componentSpecification, _componentResolver.getType(), componentNamespace, contained);
+                IComponent component = instantiateComponent(page, container, id, blueprint, contained);
 
                 // Add it, by name, to the container.
 
@@ -484,18 +500,17 @@ public class PageLoader implements IPageLoader {
     {
         IPage page = container.getPage();
 
-        _componentResolver.resolve(cycle, container.getNamespace(), componentType, location);
+        ComponentBlueprint blueprint = resolveComponent(cycle, container, container.getNamespace(),
+                                                        componentId, componentType, location);
 
-        INamespace componentNamespace = _componentResolver.getNamespace();
-        IComponentSpecification spec = _componentResolver.getSpecification();
+        INamespace componentNamespace = blueprint.getNamespace();
+        IComponentSpecification spec = blueprint.getSpecification();
 
         IContainedComponent contained = new ContainedComponent();
         contained.setLocation(location);
         contained.setType(componentType);
 
-        IComponent result = instantiateComponent(page, container, componentId,
-                                                 spec, _componentResolver.getType(), componentNamespace,
-                                                 contained);
+        IComponent result = instantiateComponent(page, container, componentId, blueprint, contained);
 
         container.addComponent(result);
 
@@ -507,34 +522,48 @@ public class PageLoader implements IPageLoader {
     }
 
     /**
-     * Instantiates a component from its specification. We instantiate the
-     * component object, then set its specification, page, container and id.
+     * Resolves the specification, namespace and constructor of a component. If the page's
+     * blueprint already has the component (at the same id path, and of the same type), the
+     * recorded result is used; otherwise the component is resolved and the result recorded.
      *
-     * @param page
-     *          The page component is to be attached to.
+     * @param cycle
+     *          The current request cycle.
      * @param container
      *          The containing component.
+     * @param namespace
+     *          The namespace in which the type is resolved.
      * @param id
-     *          The components unique id
-     * @param spec
-     *          The specification for the component
+     *          The component's id within its container.
      * @param type
      *          The type (ie Any / For / DirectLink)
-     * @param namespace
-     *          Which namespace / library
-     * @param containedComponent
-     *          Possible contained component.
+     * @param location
+     *          Location of the reference to the component.
      *
-     * @return The instantiated component instance.
-     *
-     * @see org.apache.tapestry.AbstractComponent
+     * @return The resolved component.
+     * @since 4.1.7
      */
 
-    private IComponent instantiateComponent(IPage page, IComponent container,
-                                            String id, IComponentSpecification spec, String type,
-                                            INamespace namespace, IContainedComponent containedComponent)
+    private ComponentBlueprint resolveComponent(IRequestCycle cycle, IComponent container, INamespace namespace,
+                                                String id, String type, Location location)
     {
-        ComponentClassProviderContext context = new ComponentClassProviderContext(type, spec, namespace);
+        String idPath = null;
+
+        if (_blueprint != null)
+        {
+            idPath = buildIdPath(container, id);
+
+            ComponentBlueprint result = _blueprint.getComponent(idPath, type);
+
+            if (result != null)
+                return result;
+        }
+
+        _componentResolver.resolve(cycle, namespace, type, location);
+
+        IComponentSpecification spec = _componentResolver.getSpecification();
+        INamespace componentNamespace = _componentResolver.getNamespace();
+
+        ComponentClassProviderContext context = new ComponentClassProviderContext(_componentResolver.getType(), spec, componentNamespace);
 
         String className = _componentClassProvider.provideComponentClassName(context);
 
@@ -555,9 +584,47 @@ public class PageLoader implements IPageLoader {
 
         ComponentConstructor cc = _componentConstructorFactory.getComponentConstructor(spec, className);
 
-        IComponent result = (IComponent) cc.newInstance();
+        ComponentBlueprint result = new ComponentBlueprint(type, spec, componentNamespace, cc);
 
-        result.setNamespace(namespace);
+        if (_blueprint != null)
+            _blueprint.addComponent(idPath, result);
+
+        return result;
+    }
+
+    private static String buildIdPath(IComponent container, String id)
+    {
+        String containerPath = container.getIdPath();
+
+        return containerPath == null ? id : containerPath + "." + id;
+    }
+
+    /**
+     * Instantiates a component from its specification. We instantiate the
+     * component object, then set its specification, page, container and id.
+     *
+     * @param page
+     *          The page component is to be attached to.
+     * @param container
+     *          The containing component.
+     * @param id
+     *          The components unique id
+     * @param blueprint
+     *          The resolved specification, namespace and constructor for the component
+     * @param containedComponent
+     *          Possible contained component.
+     *
+     * @return The instantiated component instance.
+     *
+     * @see org.apache.tapestry.AbstractComponent
+     */
+
+    private IComponent instantiateComponent(IPage page, IComponent container, String id,
+                                            ComponentBlueprint blueprint, IContainedComponent containedComponent)
+    {
+        IComponent result = (IComponent) blueprint.getConstructor().newInstance();
+
+        result.setNamespace(blueprint.getNamespace());
         result.setPage(page);
         result.setContainer(container);
         result.setId(id);
@@ -589,20 +656,31 @@ public class PageLoader implements IPageLoader {
     private IPage instantiatePage(String name, INamespace namespace, IComponentSpecification spec)
     {
         Location location = spec.getLocation();
-        ComponentClassProviderContext context = new ComponentClassProviderContext(name, spec, namespace);
+        String pageName = namespace.constructQualifiedName(name);
 
-        String className = _pageClassProvider.provideComponentClassName(context);
+        ComponentBlueprint blueprint = _blueprint == null ? null
+                                       : _blueprint.getComponent(PageBlueprint.PAGE_PATH, pageName);
 
-        Class pageClass = _classResolver.findClass(className);
+        if (blueprint == null || blueprint.getSpecification() != spec)
+        {
+            ComponentClassProviderContext context = new ComponentClassProviderContext(name, spec, namespace);
 
-        if (!IPage.class.isAssignableFrom(pageClass))
-            throw new ApplicationRuntimeException(PageloadMessages.classNotPage(pageClass), location, null);
+            String className = _pageClassProvider.provideComponentClassName(context);
 
-        String pageName = namespace.constructQualifiedName(name);
+            Class pageClass = _classResolver.findClass(className);
 
-        ComponentConstructor cc = _componentConstructorFactory.getComponentConstructor(spec, className);
+            if (!IPage.class.isAssignableFrom(pageClass))
+                throw new ApplicationRuntimeException(PageloadMessages.classNotPage(pageClass), location, null);
+
+            ComponentConstructor cc = _componentConstructorFactory.getComponentConstructor(spec, className);
+
+            blueprint = new ComponentBlueprint(pageName, spec, namespace, cc);
+
+            if (_blueprint != null)
+                _blueprint.addComponent(PageBlueprint.PAGE_PATH, blueprint);
+        }
 
-        IPage result = (IPage) cc.newInstance();
+        IPage result = (IPage) blueprint.getConstructor().newInstance();
 
         result.setNamespace(namespace);
         result.setPageName(pageName);
@@ -625,6 +703,9 @@ public class PageLoader implements IPageLoader {
 
         _locale = _threadLocale.getLocale();
 
+        if (_blueprintSource != null)
+            _blueprint = _blueprintSource.getBlueprint(namespace.constructQualifiedName(name), _locale);
+
         try
         {
             page = instantiatePage(name, namespace, specification);
@@ -657,6 +738,7 @@ public class PageLoader implements IPageLoader {
         finally
         {
             _locale = null;
+            _blueprint = null;
             _inheritedBindingQueue.clear();
         }
 
@@ -693,18 +775,48 @@ public class PageLoader implements IPageLoader {
 
         if (names.isEmpty()) return;
 
-        Iterator i = names.iterator();
+        String idPath = null;
+        Map assets = null;
 
-        while(i.hasNext())
+        if (_blueprint != null)
         {
-            String name = (String) i.next();
+            idPath = component.getIdPath();
+
+            if (idPath == null)
+                idPath = PageBlueprint.PAGE_PATH;
+
+            assets = _blueprint.getAssets(idPath, specification);
+        }
+
+        if (assets == null)
+        {
+            assets = new LinkedHashMap();
+
+            Iterator i = names.iterator();
+
+            while(i.hasNext())
+            {
+                String name = (String) i.next();
 
-            IAssetSpecification assetSpec = specification.getAsset(name);
+                IAssetSpecification assetSpec = specification.getAsset(name);
 
-            IAsset asset = _assetSource.findAsset(assetSpec.getLocation().getResource(), specification,
-                                                  assetSpec.getPath(), _locale, assetSpec.getLocation());
+                IAsset asset = _assetSource.findAsset(assetSpec.getLocation().getResource(), specification,
+                                                      assetSpec.getPath(), _locale, assetSpec.getLocation());
 
-            component.addAsset(name, asset);
+                assets.put(name, asset);
+            }
+
+            if (_blueprint != null)
+                _blueprint.addAssets(idPath, specification, assets);
+        }
+
+        Iterator i = assets.entrySet().iterator();
+
+        while(i.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) i.next();
+
+            component.addAsset((String) entry.getKey(), (IAsset) entry.getValue());
         }
     }
 
@@ -773,6 +885,13 @@ public class PageLoader implements IPageLoader {
         _threadLocale = threadLocale;
     }
 
+    /** @since 4.1.7 */
+
+    public void setBlueprintSource(PageBlueprintSource blueprintSource)
+    {
+        _blueprintSource = blueprintSource;
+    }
+
     public void setComponentPropertySource(ComponentPropertySource componentPropertySource)
     {
         _componentPropertySource = componentPropertySource;
@@ -29,6 +29,7 @@ import org.apache.tapestry.engine.IPropertySource;
 import org.apache.tapestry.event.ReportStatusEvent;
 import org.apache.tapestry.event.ReportStatusListener;
 import org.apache.tapestry.event.ResetEventListener;
+import org.apache.tapestry.instrument.RequestTimings;
 import org.apache.tapestry.internal.pageload.PageKey;
 import org.apache.tapestry.resolver.PageSpecificationResolver;
 
@@ -161,6 +162,8 @@ public class PageSource extends BaseKeyedPoolableObjectFactory implements IPageS
 
     public IPage getPage(IRequestCycle cycle, String pageName)
     {
+        RequestTimings timings = RequestTimings.getCurrent();
+        long start = timings == null ? 0 : timings.start();
 
         IEngine engine = cycle.getEngine();
         Object key = buildKey(engine, pageName);
@@ -191,6 +194,9 @@ public class PageSource extends BaseKeyedPoolableObjectFactory implements IPageS
             result.attach(engine, cycle);
         }
 
+        if (timings != null)
+            timings.record(RequestTimings.PAGE_CHECKOUT, pageName, start);
+
         return result;
     }
 
@@ -56,6 +56,23 @@ public class ComponentTemplate
         _tokens = tokens;
     }
 
+    /**
+     *  Creates a new ComponentTemplate whose tokens do not reference the
+     *  original template data (see {@link TemplateTextPool}).
+     *
+     *  @since 4.1.7
+     **/
+
+    public ComponentTemplate(TemplateToken[] tokens)
+    {
+        this(null, tokens);
+    }
+
+    /**
+     *  Returns the template data, or null if the template was created
+     *  from tokens that do not reference it.
+     **/
+
     public char[] getTemplateData()
     {
         return _templateData;
@@ -191,9 +191,29 @@ public class TemplateParser implements ITemplateParser
 
     private String _componentAttributeName;
     
-    private Pattern _simpleIdPattern;
+    /**
+     * Compiled patterns are immutable and shared by all parser instances; only the matcher is
+     * per instance.
+     */
 
-    private Pattern _implicitIdPattern;
+    private static final Pattern SIMPLE_ID;
+
+    private static final Pattern IMPLICIT_ID;
+
+    static
+    {
+        Perl5Compiler compiler = new Perl5Compiler();
+
+        try
+        {
+            SIMPLE_ID = compiler.compile(SIMPLE_ID_PATTERN);
+            IMPLICIT_ID = compiler.compile(IMPLICIT_ID_PATTERN);
+        }
+        catch (MalformedPatternException ex)
+        {
+            throw new ApplicationRuntimeException(ex);
+        }
+    }
 
     private PatternMatcher _patternMatcher;
 
@@ -319,18 +339,6 @@ public class TemplateParser implements ITemplateParser
 
     public TemplateParser()
     {
-        Perl5Compiler compiler = new Perl5Compiler();
-
-        try
-        {
-            _simpleIdPattern = compiler.compile(SIMPLE_ID_PATTERN);
-            _implicitIdPattern = compiler.compile(IMPLICIT_ID_PATTERN);
-        }
-        catch (MalformedPatternException ex)
-        {
-            throw new ApplicationRuntimeException(ex);
-        }
-
         _patternMatcher = new Perl5Matcher();
     }
 
@@ -338,7 +346,8 @@ public class TemplateParser implements ITemplateParser
      * Parses the template data into an array of {@link TemplateToken}s.
      * <p>
      * The parser is <i>decidedly </i> not threadsafe, so care should be taken that only a single
-     * thread accesses it.
+     * thread accesses it (the tapestry.parse.TemplateParser service uses the threaded service
+     * model). Separate instances may parse concurrently.
      * 
      * @param templateData
      *            the HTML template to parse. Some tokens will hold a reference to this array.
@@ -967,7 +976,7 @@ public class TemplateParser implements ITemplateParser
         String type = null;
         boolean allowBody = false;
 
-        if (_patternMatcher.matches(componentId, _implicitIdPattern))
+        if (_patternMatcher.matches(componentId, IMPLICIT_ID))
         {
             MatchResult match = _patternMatcher.getMatch();
 
@@ -1005,7 +1014,7 @@ public class TemplateParser implements ITemplateParser
         {
             if (!isRemoveId)
             {
-                if (!_patternMatcher.matches(componentId, _simpleIdPattern))
+                if (!_patternMatcher.matches(componentId, SIMPLE_ID))
                     templateParseProblem(
                             ParseMessages.componentIdInvalid(tagName, startLine, componentId),
                             startLocation,
@@ -0,0 +1,145 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.parse;
+
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap;
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentMap;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Shared storage for the static text of parsed templates. As parsed, each {@link TextToken}
+ * references the complete template data, so a cached template retains its entire source (markup
+ * for components included) for as long as it is cached. The pool copies the text of each token
+ * into an exactly sized segment, sharing identical segments between all templates (the same
+ * template in different locales, common blocks of markup and whitespace), after which the
+ * template data itself can be discarded.
+ * <p>
+ * The pool is threadsafe.
+ *
+ * @since 4.1.7
+ */
+public class TemplateTextPool
+{
+    private final ConcurrentMap _segments = new ConcurrentHashMap();
+
+    /**
+     * Returns a template equivalent to the parsed tokens, in which each {@link TextToken}
+     * references a pooled text segment rather than the original template data.
+     */
+    public ComponentTemplate compact(TemplateToken[] tokens)
+    {
+        TemplateToken[] compacted = new TemplateToken[tokens.length];
+
+        for (int i = 0; i < tokens.length; i++)
+        {
+            TemplateToken token = tokens[i];
+
+            compacted[i] = token.getType() == TokenType.TEXT ? intern((TextToken) token) : token;
+        }
+
+        return new ComponentTemplate(compacted);
+    }
+
+    /**
+     * Returns a token, equivalent to the provided token, whose text is a pooled segment.
+     */
+    public TextToken intern(TextToken token)
+    {
+        char[] text = new char[token.getLength()];
+
+        System.arraycopy(token.getTemplateData(), token.getOffset(), text, 0, text.length);
+
+        Segment segment = new Segment(text);
+
+        Segment existing = (Segment) _segments.putIfAbsent(segment, segment);
+
+        if (existing != null)
+            text = existing._text;
+
+        return new TextToken(text, 0, text.length - 1, token.getLocation());
+    }
+
+    /**
+     * Returns the number of distinct text segments in the pool.
+     */
+    public int getSegmentCount()
+    {
+        return _segments.size();
+    }
+
+    /**
+     * Returns the total number of characters stored by the pool.
+     */
+    public long getCharacterCount()
+    {
+        long result = 0;
+
+        Iterator i = _segments.keySet().iterator();
+
+        while (i.hasNext())
+        {
+            Segment segment = (Segment) i.next();
+
+            result += segment._text.length;
+        }
+
+        return result;
+    }
+
+    public void clear()
+    {
+        _segments.clear();
+    }
+
+    private static final class Segment
+    {
+        private final char[] _text;
+
+        private final int _hashCode;
+
+        Segment(char[] text)
+        {
+            _text = text;
+
+            int hashCode = 0;
+
+            for (int i = 0; i < text.length; i++)
+                hashCode = 31 * hashCode + text[i];
+
+            _hashCode = hashCode;
+        }
+
+        public int hashCode()
+        {
+            return _hashCode;
+        }
+
+        public boolean equals(Object other)
+        {
+            if (other == this)
+                return true;
+
+            if (!(other instanceof Segment))
+                return false;
+
+            Segment segment = (Segment) other;
+
+            return _hashCode == segment._hashCode && Arrays.equals(_text, segment._text);
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.apache.hivemind.util.ToStringBuilder;
 import org.apache.tapestry.IMarkupWriter;
 import org.apache.tapestry.IRender;
 import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.IRewindAware;
 
 /**
  * Represents static text in the template that may be passed through to the client unchanged
@@ -30,7 +31,7 @@ import org.apache.tapestry.IRequestCycle;
  * @since 3.0
  */
 
-public class TextToken extends TemplateToken implements IRender
+public class TextToken extends TemplateToken implements IRender, IRewindAware
 {
     private char[] _templateData;
 
@@ -54,6 +55,17 @@ public class TextToken extends TemplateToken implements IRender
         _length = endIndex - startIndex + 1;
     }
 
+    /**
+     * Static text has no part in a rewind.
+     *
+     * @since 4.1.7
+     */
+
+    public boolean getRenderOnRewind()
+    {
+        return false;
+    }
+
     public void render(IMarkupWriter writer, IRequestCycle cycle)
     {
         if (_length == 0)
@@ -89,4 +101,10 @@ public class TextToken extends TemplateToken implements IRender
     {
         return _offset;
     }
+
+    /** @since 4.1.7 */
+    char[] getTemplateData()
+    {
+        return _templateData;
+    }
 }
@@ -16,6 +16,8 @@ package org.apache.tapestry.script;
 
 import org.apache.hivemind.ApplicationRuntimeException;
 import org.apache.hivemind.Location;
+import org.apache.tapestry.coerce.ValueConverter;
+import org.apache.tapestry.services.ExpressionEvaluator;
 
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -73,15 +75,76 @@ abstract class AbstractToken implements IScriptToken
     }
 
     /**
-     * Evaluates the expression against the session's symbols, using
-     * {@link org.apache.tapestry.services.ExpressionEvaluator#read(Object, String)} and returns the result.
+     * Invoked by the {@link ScriptParser} once the entire script has been parsed. Merges adjacent
+     * {@link StaticToken}s into a single token, then compiles this token's expressions (via
+     * {@link #compileExpressions(ExpressionEvaluator, ValueConverter)}) and those of any children.
+     * 
+     * @since 4.1.7
+     */
+
+    void compile(ExpressionEvaluator evaluator, ValueConverter valueConverter)
+    {
+        compileExpressions(evaluator, valueConverter);
+
+        if (_tokens == null)
+            return;
+
+        List compiled = new ArrayList(_tokens.size());
+        StaticToken pending = null;
+
+        Iterator i = _tokens.iterator();
+
+        while (i.hasNext())
+        {
+            IScriptToken token = (IScriptToken) i.next();
+
+            if (token instanceof StaticToken)
+            {
+                pending = pending == null ? (StaticToken) token : pending.merge((StaticToken) token);
+                continue;
+            }
+
+            if (pending != null)
+            {
+                compiled.add(pending);
+                pending = null;
+            }
+
+            if (token instanceof AbstractToken)
+                ((AbstractToken) token).compile(evaluator, valueConverter);
+
+            compiled.add(token);
+        }
+
+        if (pending != null)
+            compiled.add(pending);
+
+        _tokens = compiled;
+    }
+
+    /**
+     * Subclasses that evaluate expressions should override this to
+     * {@link ScriptExpression#compile(ExpressionEvaluator, ValueConverter) compile} them. Does
+     * nothing.
+     * 
+     * @since 4.1.7
+     */
+
+    protected void compileExpressions(ExpressionEvaluator evaluator, ValueConverter valueConverter)
+    {
+    }
+
+    /**
+     * Evaluates the expression against the session's symbols and returns the result.
+     * 
+     * @see ScriptExpression#read(ScriptSession)
      */
-    protected Object evaluate(String expression, ScriptSession session)
+    protected Object evaluate(ScriptExpression expression, ScriptSession session)
     {
 
         try
         {
-            return session.evaluate(expression);
+            return expression.read(session);
         }
         catch (Exception ex)
         {
@@ -95,11 +158,11 @@ abstract class AbstractToken implements IScriptToken
      * @since 4.0
      */
 
-    protected boolean evaluateBoolean(String expression, ScriptSession session)
+    protected boolean evaluateBoolean(ScriptExpression expression, ScriptSession session)
     {
         try
         {
-            Boolean b = (Boolean) session.evaluate(expression, Boolean.class);
+            Boolean b = (Boolean) expression.read(session, Boolean.class);
 
             return b.booleanValue();
         }
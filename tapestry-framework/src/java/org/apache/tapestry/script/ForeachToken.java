@@ -18,6 +18,8 @@ import java.util.Iterator;
 import java.util.Map;
 
 import org.apache.hivemind.Location;
+import org.apache.tapestry.coerce.ValueConverter;
+import org.apache.tapestry.services.ExpressionEvaluator;
 
 /**
  * A looping operator, modeled after the Foreach component. It takes as its
@@ -39,7 +41,7 @@ class ForeachToken extends AbstractToken
 
     private String _index;
 
-    private String _expression;
+    private ScriptExpression _expression;
 
     ForeachToken(String key, String index, String expression, Location location)
     {
@@ -47,12 +49,17 @@ class ForeachToken extends AbstractToken
 
         _key = key;
         _index = index;
-        _expression = expression;
+        _expression = new ScriptExpression(expression);
+    }
+
+    protected void compileExpressions(ExpressionEvaluator evaluator, ValueConverter valueConverter)
+    {
+        _expression.compile(evaluator, valueConverter);
     }
 
     public void write(StringBuffer buffer, ScriptSession session)
     {
-        Iterator i = (Iterator) session.evaluate(_expression, Iterator.class);
+        Iterator i = (Iterator) _expression.read(session, Iterator.class);
 
         if (i == null) return;
 
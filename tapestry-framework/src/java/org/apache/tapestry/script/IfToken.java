@@ -15,6 +15,8 @@
 package org.apache.tapestry.script;
 
 import org.apache.hivemind.Location;
+import org.apache.tapestry.coerce.ValueConverter;
+import org.apache.tapestry.services.ExpressionEvaluator;
 
 /**
  * A conditional portion of the generated script.
@@ -28,14 +30,19 @@ class IfToken extends AbstractToken
 
     private boolean _condition;
 
-    private String _expression;
+    private ScriptExpression _expression;
 
     IfToken(boolean condition, String expression, Location location)
     {
         super(location);
 
         _condition = condition;
-        _expression = expression;
+        _expression = new ScriptExpression(expression);
+    }
+
+    protected void compileExpressions(ExpressionEvaluator evaluator, ValueConverter valueConverter)
+    {
+        _expression.compile(evaluator, valueConverter);
     }
 
     private boolean evaluate(ScriptSession session)
@@ -18,6 +18,8 @@ import java.io.Writer;
 import java.util.Map;
 
 import org.apache.hivemind.Location;
+import org.apache.tapestry.coerce.ValueConverter;
+import org.apache.tapestry.services.ExpressionEvaluator;
 
 /**
  * A token that writes the value of a property using a property path routed in
@@ -29,13 +31,13 @@ import org.apache.hivemind.Location;
 class InsertToken extends AbstractToken
 {
 
-    private String _expression;
+    private ScriptExpression _expression;
 
     InsertToken(String expression, Location location)
     {
         super(location);
 
-        _expression = expression;
+        _expression = new ScriptExpression(expression);
     }
 
     /**
@@ -50,6 +52,11 @@ class InsertToken extends AbstractToken
         if (value != null) buffer.append(value);
     }
 
+    protected void compileExpressions(ExpressionEvaluator evaluator, ValueConverter valueConverter)
+    {
+        _expression.compile(evaluator, valueConverter);
+    }
+
     public void addToken(IScriptToken token)
     {
         // Should never be invoked.
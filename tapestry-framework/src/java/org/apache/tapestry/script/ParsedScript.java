@@ -58,6 +58,17 @@ public class ParsedScript extends AbstractToken implements IScript
         return _scriptResource;
     }
 
+    /**
+     * Merges static text and compiles the expressions of all nested tokens. Invoked once by the
+     * {@link ScriptParser}, after the script has been completely parsed.
+     * 
+     * @since 4.1.7
+     */
+    void compile()
+    {
+        compile(_evaluator, _valueConverter);
+    }
+
     /**
      * Creates the {@link ScriptSessionImpl}and invokes
      * {@link org.apache.tapestry.script.AbstractToken#writeChildren(java.lang.StringBuffer, org.apache.tapestry.script.ScriptSession)}.
@@ -0,0 +1,174 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.script;
+
+import java.util.Map;
+
+import ognl.Node;
+import ognl.Ognl;
+import ognl.OgnlException;
+import ognl.OgnlRuntime;
+import ognl.enhance.ExpressionAccessor;
+
+import org.apache.tapestry.coerce.ValueConverter;
+import org.apache.tapestry.services.ExpressionEvaluator;
+
+/**
+ * An expression embedded in a script template (either as a <code>${...}</code> insert, or as
+ * the expression attribute of an &lt;if&gt; or &lt;foreach&gt;). Once
+ * {@link #compile(ExpressionEvaluator, ValueConverter) compiled} by the {@link ScriptParser},
+ * the expression is parsed once and, on first execution, compiled to an OGNL
+ * {@link ExpressionAccessor} against the symbols map; subsequent executions read through the
+ * accessor directly, without going back through the {@link org.apache.tapestry.services.ExpressionCache}.
+ * <p>
+ * An expression that has not been compiled (or could not be parsed) simply delegates to the
+ * {@link ScriptSession}, which is the behavior prior to 4.1.7.
+ *
+ * @since 4.1.7
+ */
+class ScriptExpression
+{
+    private final String _expression;
+
+    private ExpressionEvaluator _evaluator;
+
+    private ValueConverter _valueConverter;
+
+    private Node _parsed;
+
+    /**
+     * The class of the symbols map the parsed expression was compiled against. Compiled
+     * accessors are specific to the root class.
+     */
+    private volatile Class _rootClass;
+
+    ScriptExpression(String expression)
+    {
+        _expression = expression;
+    }
+
+    public String getExpression()
+    {
+        return _expression;
+    }
+
+    /**
+     * Parses the expression. Invoked once the script has been completely parsed, before it is
+     * shared between threads. Expressions that fail to parse are left alone, so that the error is
+     * reported (with location) when the script is executed, as before.
+     */
+    void compile(ExpressionEvaluator evaluator, ValueConverter valueConverter)
+    {
+        if (evaluator == null || _expression == null)
+            return;
+
+        try
+        {
+            _parsed = (Node) Ognl.parseExpression(_expression);
+        }
+        catch (OgnlException ex)
+        {
+            return;
+        }
+
+        _evaluator = evaluator;
+        _valueConverter = valueConverter;
+    }
+
+    /**
+     * Reads the raw value of the expression against the session's symbols.
+     */
+    public Object read(ScriptSession session)
+    {
+        if (_parsed == null)
+            return session.evaluate(_expression);
+
+        Map symbols = session.getSymbols();
+
+        if (symbols == null)
+            return session.evaluate(_expression);
+
+        ExpressionAccessor accessor = getAccessor(symbols);
+
+        if (accessor == null)
+        {
+            // Either not compilable yet (null somewhere in the path), or the symbols
+            // map is a different class than the one the accessor was compiled against.
+
+            return _rootClass == symbols.getClass() ? _evaluator.readCompiled(symbols, _parsed)
+                    : _evaluator.read(symbols, _expression);
+        }
+
+        return _evaluator.read(symbols, accessor);
+    }
+
+    /**
+     * Reads the value of the expression and coerces it to the desired type.
+     */
+    public Object read(ScriptSession session, Class desiredType)
+    {
+        if (_parsed == null || _valueConverter == null)
+            return session.evaluate(_expression, desiredType);
+
+        return _valueConverter.coerceValue(read(session), desiredType);
+    }
+
+    private ExpressionAccessor getAccessor(Map symbols)
+    {
+        Class rootClass = symbols.getClass();
+
+        if (_rootClass == rootClass)
+        {
+            ExpressionAccessor result = _parsed.getAccessor();
+
+            if (result != null)
+                return result;
+        }
+
+        return compileAccessor(rootClass, symbols);
+    }
+
+    private synchronized ExpressionAccessor compileAccessor(Class rootClass, Map symbols)
+    {
+        if (_rootClass == null)
+            _rootClass = rootClass;
+
+        if (_rootClass != rootClass)
+            return null;
+
+        ExpressionAccessor result = _parsed.getAccessor();
+
+        if (result != null)
+            return result;
+
+        try
+        {
+            OgnlRuntime.compileExpression(_evaluator.createContext(symbols), _parsed, symbols);
+        }
+        catch (Exception ex)
+        {
+            // Fall back to interpreting the parsed expression.
+
+            return null;
+        }
+
+        return _parsed.getAccessor();
+    }
+
+    public String toString()
+    {
+        return _expression;
+    }
+}
@@ -103,12 +103,17 @@ public class ScriptParser
 
     /**
      * Parses the given input stream to produce a parsed script, ready to
-     * execute.
+     * execute. Adjacent static text is merged and expressions are parsed
+     * once, here, rather than on each execution.
      */
 
     public IScript parse(Resource resourceLocation)
     {
-        return (IScript) _parser.parse(resourceLocation);
+        ParsedScript script = (ParsedScript) _parser.parse(resourceLocation);
+
+        script.compile();
+
+        return script;
     }
 
 }
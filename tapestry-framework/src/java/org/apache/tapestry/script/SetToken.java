@@ -15,6 +15,8 @@
 package org.apache.tapestry.script;
 
 import org.apache.hivemind.Location;
+import org.apache.tapestry.coerce.ValueConverter;
+import org.apache.tapestry.services.ExpressionEvaluator;
 
 /**
  * Like {@link org.apache.tapestry.script.LetToken}, but sets the value from an
@@ -28,13 +30,18 @@ class SetToken extends AbstractToken
 {
 
     private String _key;
-    private String _expression;
+    private ScriptExpression _expression;
 
     SetToken(String key, String expression, Location location)
     {
         super(location);
         _key = key;
-        _expression = expression;
+        _expression = new ScriptExpression(expression);
+    }
+
+    protected void compileExpressions(ExpressionEvaluator evaluator, ValueConverter valueConverter)
+    {
+        _expression.compile(evaluator, valueConverter);
     }
 
     /**
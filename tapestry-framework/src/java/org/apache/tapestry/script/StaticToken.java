@@ -43,6 +43,17 @@ class StaticToken extends AbstractToken
         buffer.append(_text);
     }
 
+    /**
+     * Returns a new token containing this token's text followed by the other token's text.
+     * 
+     * @since 4.1.7
+     */
+
+    StaticToken merge(StaticToken other)
+    {
+        return new StaticToken(_text + other._text, getLocation());
+    }
+
     public void addToken(IScriptToken token)
     {
         // Should never be invoked.
@@ -0,0 +1,145 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.scriptaculous;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An immutable, in-memory index of suggestion values, for lists that are static (or cached) and
+ * searched by prefix. The values are sorted once, by the lower-cased string value of each, so
+ * finding the first <em>n</em> values starting with a prefix is a binary search followed by a
+ * scan of <em>n</em> entries, rather than a scan of the whole list.
+ * <p>
+ * Binding the listSource parameter of a {@link Suggest} component to an index lets the component
+ * search it directly with the text entered by the user; no listener is required. Instances are
+ * thread safe and are intended to be shared between requests.
+ * 
+ * @since 4.1.7
+ */
+public class PrefixIndex
+{
+    private final Locale _locale;
+
+    /** The lower-cased keys, sorted. */
+
+    private final String[] _keys;
+
+    /** The values, in the same order as their keys. */
+
+    private final Object[] _values;
+
+    /**
+     * Indexes the values, using {@link Locale#getDefault()} to convert their string values to
+     * lower case.
+     */
+
+    public PrefixIndex(Collection values)
+    {
+        this(values, Locale.getDefault());
+    }
+
+    /**
+     * Indexes the values (null values are ignored), using the provided locale to convert their
+     * string values to lower case. Values with the same key are kept in their original order.
+     */
+
+    public PrefixIndex(Collection values, Locale locale)
+    {
+        _locale = locale;
+
+        List entries = new ArrayList(values.size());
+
+        Iterator i = values.iterator();
+        while (i.hasNext())
+        {
+            Object value = i.next();
+
+            if (value != null)
+                entries.add(new Object[] { toKey(value.toString()), value });
+        }
+
+        // Collections.sort() is stable
+
+        Collections.sort(entries, new Comparator()
+        {
+            public int compare(Object o1, Object o2)
+            {
+                return ((String) ((Object[]) o1)[0]).compareTo((String) ((Object[]) o2)[0]);
+            }
+        });
+
+        int count = entries.size();
+
+        _keys = new String[count];
+        _values = new Object[count];
+
+        for (int j = 0; j < count; j++)
+        {
+            Object[] entry = (Object[]) entries.get(j);
+
+            _keys[j] = (String) entry[0];
+            _values[j] = entry[1];
+        }
+    }
+
+    /**
+     * Returns, in key order, up to maxResults values whose string value starts (ignoring case)
+     * with the prefix. A null or empty prefix matches every value.
+     */
+
+    public List find(String prefix, int maxResults)
+    {
+        String key = prefix == null ? "" : toKey(prefix);
+
+        int index = Arrays.binarySearch(_keys, key);
+
+        // On a miss, binarySearch() returns (-(insertion point) - 1); on a hit, any of the
+        // matching positions, so back up to the first.
+
+        if (index < 0)
+            index = -index - 1;
+
+        while (index > 0 && _keys[index - 1].equals(key))
+            index--;
+
+        List result = new ArrayList(Math.min(Math.max(maxResults, 0), 32));
+
+        while (index < _keys.length && result.size() < maxResults && _keys[index].startsWith(key))
+            result.add(_values[index++]);
+
+        return result;
+    }
+
+    /**
+     * Returns the number of indexed values.
+     */
+
+    public int size()
+    {
+        return _keys.length;
+    }
+
+    private String toKey(String value)
+    {
+        return _locale == null ? value.toLowerCase() : value.toLowerCase(_locale);
+    }
+}
@@ -122,6 +122,14 @@ public abstract class Suggest extends AbstractFormComponent implements Translate
      */
     public abstract IEngineService getEngineService();
 
+    /**
+     * Injected.
+     *
+     * @return The {@link SuggestService}, used when the lightweight parameter is true.
+     * @since 4.1.7
+     */
+    public abstract IEngineService getSuggestService();
+
     ////////////////////////////////////////////////////////
     // Parameters
     ////////////////////////////////////////////////////////
@@ -145,6 +153,9 @@ public abstract class Suggest extends AbstractFormComponent implements Translate
 
     public abstract String getUpdateElementClass();
 
+    /** @since 4.1.7 */
+    public abstract boolean isLightweight();
+
     /**
      * Used internally to track listener invoked searches versus
      * normal rendering requests.
@@ -154,6 +165,15 @@ public abstract class Suggest extends AbstractFormComponent implements Translate
     public abstract boolean isSearchTriggered();
     public abstract void setSearchTriggered(boolean value);
 
+    /**
+     * The text the search was triggered for, used when the listSource is a {@link PrefixIndex}.
+     *
+     * @return The search text, or null if no search was triggered.
+     * @since 4.1.7
+     */
+    public abstract String getSearchText();
+    public abstract void setSearchText(String value);
+
     public boolean isRequired()
     {
         return getValidatableFieldSupport().isRequired(this);
@@ -200,13 +220,26 @@ public abstract class Suggest extends AbstractFormComponent implements Translate
      */
     public void renderList(IMarkupWriter writer, IRequestCycle cycle)
     {
-        Defense.notNull(getListSource(), "listSource for Suggest component.");
+        Object listSource = getListSource();
+
+        Defense.notNull(listSource, "listSource for Suggest component.");
 
-        Iterator values = (Iterator)getValueConverter().coerceValue(getListSource(), Iterator.class);
+        Iterator values = null;
 
-        if (isParameterBound("maxResults"))
+        if (listSource instanceof PrefixIndex)
         {
-            values = new SizeRestrictingIterator(values, getMaxResults());
+            int maxResults = isParameterBound("maxResults") ? getMaxResults() : Integer.MAX_VALUE;
+
+            values = ((PrefixIndex) listSource).find(getSearchText(), maxResults).iterator();
+        }
+        else
+        {
+            values = (Iterator)getValueConverter().coerceValue(listSource, Iterator.class);
+
+            if (isParameterBound("maxResults"))
+            {
+                values = new SizeRestrictingIterator(values, getMaxResults());
+            }
         }
 
         getListItemRenderer().renderList(writer, cycle, values);
@@ -318,7 +351,9 @@ public abstract class Suggest extends AbstractFormComponent implements Translate
 
         listenerParams[0] = getClientId();
 
-        ILink updateLink = getEngineService().getLink(isStateful(), new DirectServiceParameter(this, listenerParams));
+        IEngineService service = isLightweight() ? getSuggestService() : getEngineService();
+
+        ILink updateLink = service.getLink(isStateful(), new DirectServiceParameter(this, listenerParams));
         parms.put("updateUrl", updateLink.getURL());
 
         PageRenderSupport pageRenderSupport = TapestryUtils.getPageRenderSupport(cycle, this);
@@ -348,12 +383,13 @@ public abstract class Suggest extends AbstractFormComponent implements Translate
      * Triggers the listener. The parameters passed are the current text
      * and those specified in the parameters parameter of the component.
      * If the listener parameter is not bound, attempt to locate an implicit
-     * listener named by the capitalized component id, prefixed by "do".
+     * listener named by the capitalized component id, prefixed by "do"; unless
+     * the listSource is a {@link PrefixIndex}, in which case no listener is needed.
      */
     public void trigger(IRequestCycle cycle)
     {
         IActionListener listener = getListener();
-        if (listener == null)
+        if (listener == null && !(getListSource() instanceof PrefixIndex))
             listener = getContainer().getListeners().getImplicitListener(this);
 
         Object[] params = cycle.getListenerParameters();
@@ -365,8 +401,10 @@ public abstract class Suggest extends AbstractFormComponent implements Translate
         cycle.setListenerParameters(params);
 
         setSearchTriggered(true);
+        setSearchText((String) params[0]);
 
-        getListenerInvoker().invokeListener(listener, this, cycle);
+        if (listener != null)
+            getListenerInvoker().invokeListener(listener, this, cycle);
     }
 
     public List getUpdateComponents()
@@ -0,0 +1,86 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.scriptaculous;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import org.apache.tapestry.IDirect;
+import org.apache.tapestry.IMarkupWriter;
+import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.Tapestry;
+import org.apache.tapestry.engine.DirectService;
+import org.apache.tapestry.markup.MarkupWriterSource;
+import org.apache.tapestry.util.ContentType;
+import org.apache.tapestry.web.WebResponse;
+
+/**
+ * The suggest service, used by {@link Suggest} components whose lightweight parameter is true.
+ * Links are built just as with the direct service, and the component is triggered (so that its
+ * listener is invoked) the same way, but the response is just the list of suggestions rendered
+ * by the component, rather than the page (or the dynamic parts of the page) being rendered in
+ * order to reach the component.
+ * <p>
+ * Since the page is never rendered, changes to its persistent properties are committed by the
+ * service itself, before the list is rendered (much as {@link org.apache.tapestry.IPage#renderPage}
+ * would do).
+ * <p>
+ * Requests for any other kind of component are handled just like the direct service.
+ * 
+ * @since 4.1.7
+ */
+public class SuggestService extends DirectService
+{
+    private WebResponse _response;
+
+    private MarkupWriterSource _markupWriterSource;
+
+    protected void renderResponse(IRequestCycle cycle, IDirect direct) throws IOException
+    {
+        if (!(direct instanceof Suggest))
+        {
+            super.renderResponse(cycle, direct);
+            return;
+        }
+
+        cycle.commitPageChanges();
+
+        ContentType contentType = new ContentType("text/html;charset="
+                + cycle.getInfrastructure().getOutputEncoding());
+
+        PrintWriter printWriter = _response.getPrintWriter(contentType);
+
+        IMarkupWriter writer = _markupWriterSource.newMarkupWriter(printWriter, contentType);
+
+        ((Suggest) direct).renderList(writer, cycle);
+
+        writer.close();
+    }
+
+    public String getName()
+    {
+        return Tapestry.SUGGEST_SERVICE;
+    }
+
+    public void setResponse(WebResponse response)
+    {
+        _response = response;
+    }
+
+    public void setMarkupWriterSource(MarkupWriterSource markupWriterSource)
+    {
+        _markupWriterSource = markupWriterSource;
+    }
+}
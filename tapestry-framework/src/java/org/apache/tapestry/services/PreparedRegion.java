@@ -0,0 +1,34 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.services;
+
+/**
+ * The result of a task started by {@link RegionPreparer#prepare(org.apache.tapestry.listener.ListenerTask)},
+ * which may still be executing.
+ *
+ * @since 4.1.7
+ */
+public interface PreparedRegion
+{
+    /**
+     * Returns the result of the task, waiting for it to complete if necessary. A task that hasn't
+     * started yet (because all preparation threads are busy) is executed on the calling thread
+     * instead.
+     *
+     * @throws org.apache.hivemind.ApplicationRuntimeException
+     *             if the task failed, or did not complete within the configured timeout
+     */
+    Object getValue();
+}
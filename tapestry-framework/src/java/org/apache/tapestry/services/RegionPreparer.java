@@ -0,0 +1,34 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.services;
+
+import org.apache.tapestry.listener.ListenerTask;
+
+/**
+ * Runs the data preparation of independent page regions (see
+ * {@link org.apache.tapestry.components.Parallel}) concurrently, on a bounded pool of threads.
+ * Only the tasks run concurrently; the regions themselves are still rendered, in document order,
+ * by the thread servicing the request, so tasks must not use the request cycle, the page or its
+ * components.
+ *
+ * @since 4.1.7
+ */
+public interface RegionPreparer
+{
+    /**
+     * Starts executing the task in the background, returning a handle used to obtain its result.
+     */
+    PreparedRegion prepare(ListenerTask task);
+}
@@ -22,8 +22,8 @@ import org.apache.hivemind.util.Defense;
 
 /**
  * Implementation of {@link org.apache.hivemind.Messages}. This is basically a wrapper around an
- * instance of {@link Properties}. This ensures that the properties are, in fact, read-only (which
- * ensures that they don't have to be synchronized).
+ * instance of {@link Properties}, or of a {@link MessageTable}. This ensures that
+ * the properties are, in fact, read-only (which ensures that they don't have to be synchronized).
  * 
  * @author Howard Lewis Ship
  * @since 2.0.4
@@ -33,6 +33,8 @@ public class ComponentMessages extends AbstractMessages
 {
     private final Properties _properties;
 
+    private final MessageTable _messages;
+
     private final Locale _locale;
 
     public ComponentMessages(Locale locale, Properties properties)
@@ -42,10 +44,28 @@ public class ComponentMessages extends AbstractMessages
 
         _locale = locale;
         _properties = properties;
+        _messages = null;
+    }
+
+    /**
+     * @since 4.1.7
+     */
+
+    public ComponentMessages(Locale locale, MessageTable messages)
+    {
+        Defense.notNull(locale, "locale");
+        Defense.notNull(messages, "messages");
+
+        _locale = locale;
+        _properties = null;
+        _messages = messages;
     }
 
     protected String findMessage(String key)
     {
+        if (_messages != null)
+            return _messages.get(key);
+
         return _properties.getProperty(key);
     }
 
@@ -14,7 +14,9 @@
 
 package org.apache.tapestry.services.impl;
 
+import edu.emory.mathcs.backport.java.util.concurrent.Callable;
 import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap;
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentMap;
 import org.apache.commons.io.IOUtils;
 import org.apache.hivemind.ApplicationRuntimeException;
 import org.apache.hivemind.Messages;
@@ -23,11 +25,15 @@ import org.apache.hivemind.util.Defense;
 import org.apache.hivemind.util.LocalizedNameGenerator;
 import org.apache.tapestry.IComponent;
 import org.apache.tapestry.INamespace;
+import org.apache.tapestry.event.ReportStatusEvent;
+import org.apache.tapestry.event.ReportStatusListener;
 import org.apache.tapestry.event.ResetEventListener;
 import org.apache.tapestry.resolver.IComponentResourceResolver;
 import org.apache.tapestry.services.ClasspathResourceFactory;
 import org.apache.tapestry.services.ComponentMessagesSource;
 import org.apache.tapestry.services.ComponentPropertySource;
+import org.apache.tapestry.util.ComputeOnce;
+import org.apache.tapestry.util.MultiKey;
 import org.apache.tapestry.util.text.LocalizedProperties;
 
 import java.io.BufferedInputStream;
@@ -38,12 +44,19 @@ import java.util.*;
 
 /**
  * Service used to access localized properties for a component.
+ * <p>
+ * Messages are assembled into flattened message tables, one per component specification and
+ * locale, that already contain the messages of the component's namespace (and its parent
+ * namespaces) and of every less specific locale; a message lookup is a single hash probe. Each
+ * table is assembled once (concurrent requests for the same table wait for and share the first
+ * one), and is stored as an immutable {@link MessageTable}, whose keys are interned across all
+ * tables.
  *
  * @author Howard Lewis Ship
  * @since 2.0.4
  */
 
-public class ComponentMessagesSourceImpl implements ComponentMessagesSource, ResetEventListener
+public class ComponentMessagesSourceImpl implements ComponentMessagesSource, ResetEventListener, ReportStatusListener
 {
     /**
      * The name of the component/application/etc property that will be used to
@@ -61,15 +74,37 @@ public class ComponentMessagesSourceImpl implements ComponentMessagesSource, Res
 
     private static final String SUFFIX = ".properties";
 
-    private Properties _emptyProperties = new Properties();
+    /**
+     * Keyed on {@link MultiKey} of component specification location (a {@link Resource}) and
+     * {@link Locale}, value is the flattened {@link MessageTable}.
+     */
+
+    private final ConcurrentMap _componentCache = new ConcurrentHashMap();
 
     /**
-     * Map of Maps. The outer map is keyed on component specification location
-     * (a{@link Resource}).  This inner map is keyed on locale and the value is
-     * a {@link Properties}.
+     * Keyed on {@link MultiKey} of namespace specification location and {@link Locale}, value is
+     * the flattened {@link MessageTable} for the namespace and its parents.
      */
 
-    private Map _componentCache = new ConcurrentHashMap();
+    private final ConcurrentMap _namespaceCache = new ConcurrentHashMap();
+
+    /** @since 4.1.7 */
+
+    private final ComputeOnce _componentAssembly = new ComputeOnce();
+
+    /** @since 4.1.7 */
+
+    private final ComputeOnce _namespaceAssembly = new ComputeOnce();
+
+    /**
+     * Message keys shared by all message tables; each key maps to itself.
+     *
+     * @since 4.1.7
+     */
+
+    private final ConcurrentMap _keyPool = new ConcurrentHashMap();
+
+    private String _serviceId;
 
     private ComponentPropertySource _componentPropertySource;
 
@@ -80,6 +115,15 @@ public class ComponentMessagesSourceImpl implements ComponentMessagesSource, Res
 
     private IComponentResourceResolver _resourceResolver;
 
+    /**
+     * True if a subclass overrides {@link #getLocalizedProperties(IComponent)}, in which case
+     * messages are built from its result rather than from the shared message tables.
+     *
+     * @since 4.1.7
+     */
+
+    private final boolean _localizedPropertiesOverridden = overridesLocalizedProperties(getClass());
+
     /**
      * Returns an instance of {@link Properties} containing the properly
      * localized messages for the component, in the {@link Locale} identified by
@@ -90,173 +134,154 @@ public class ComponentMessagesSourceImpl implements ComponentMessagesSource, Res
      *
      * @return A new {@link Properties} instance representing the localized properties for
      *          the specified component.
+     * @deprecated To be removed in 4.2; messages are now kept in shared message tables, this
+     *          returns a copy. Subclasses that override this method are still honored (their
+     *          result is used by {@link #getMessages(IComponent)}, uncached), but should override
+     *          {@link #getMessageTable(IComponent)} instead.
      */
 
     protected Properties getLocalizedProperties(IComponent component)
     {
-        Defense.notNull(component, "component");
+        Properties result = new Properties();
 
-        Resource specificationLocation = component.getSpecification().getSpecificationLocation();
+        getMessageTable(component).copyInto(result);
 
-        Locale locale = component.getPage().getLocale();
+        return result;
+    }
 
-        Map propertiesMap = findPropertiesMapForResource(specificationLocation);
+    /**
+     * Returns the flattened message table for the component, in the {@link Locale} identified by
+     * the component's containing page.
+     *
+     * @since 4.1.7
+     */
 
-        Properties result = (Properties) propertiesMap.get(locale);
+    protected MessageTable getMessageTable(final IComponent component)
+    {
+        Defense.notNull(component, "component");
 
-        if (result == null)
-        {
-            // Not found, create it now.
+        final Resource specificationLocation = component.getSpecification().getSpecificationLocation();
 
-            result = assembleComponentProperties(component, specificationLocation,
-                                                 propertiesMap, locale);
+        final Locale locale = component.getPage().getLocale();
 
-            propertiesMap.put(locale, result);
-        }
+        final MultiKey key = new MultiKey(new Object[] { specificationLocation, locale }, false);
 
-        return result;
-    }
+        MessageTable result = (MessageTable) _componentCache.get(key);
 
-    private Map findPropertiesMapForResource(Resource resource)
-    {
-        Map result = (Map) _componentCache.get(resource);
+        if (result != null)
+            return result;
 
-        if (result == null)
+        Callable assemble = new Callable()
         {
-            result = new HashMap();
-            
-            _componentCache.put(resource, result);
-        }
+            public Object call()
+            {
+                MessageTable table = (MessageTable) _componentCache.get(key);
 
-        return result;
-    }
+                if (table == null)
+                {
+                    table = assembleComponentMessages(component, specificationLocation, locale);
 
-    private Properties getNamespaceProperties(IComponent component, Locale locale)
-    {
-        INamespace namespace = component.getNamespace();
+                    _componentCache.put(key, table);
+                }
 
-        Resource namespaceLocation = namespace.getSpecificationLocation();
+                return table;
+            }
+        };
 
-        Map propertiesMap = findPropertiesMapForResource(namespaceLocation);
+        return (MessageTable) _componentAssembly.compute(key, assemble);
+    }
 
-        Properties result = (Properties) propertiesMap.get(locale);
+    /**
+     * Returns the flattened message table for the namespace and its parent namespaces (the
+     * innermost namespace's messages take precedence) in the given locale.
+     */
 
-        if (result == null)
-        {
-            result = new Properties();
+    private MessageTable getNamespaceMessages(final INamespace namespace, final Locale locale)
+    {
+        final MultiKey key = new MultiKey(new Object[] { namespace.getSpecificationLocation(), locale }, false);
 
-            // recurse through parent properties
-            
-            List spaceList = new ArrayList();
-            spaceList.add(namespace);
+        MessageTable result = (MessageTable) _namespaceCache.get(key);
 
-            INamespace parent = namespace;
-            while (parent.getParentNamespace() != null)
-            {
-                parent = parent.getParentNamespace();
+        if (result != null)
+            return result;
 
-                spaceList.add(parent);
-            }
+        Callable assemble = new Callable()
+        {
+            public Object call()
+            {
+                MessageTable table = (MessageTable) _namespaceCache.get(key);
 
-            // reverse it so top most namespace comes first
+                if (table == null)
+                {
+                    table = assembleNamespaceMessages(namespace, locale);
 
-            for (int i=spaceList.size() - 1; i > -1; i--)
-            {
-                INamespace space = (INamespace)spaceList.get(i);
+                    _namespaceCache.put(key, table);
+                }
 
-                result.putAll(assembleNamespaceProperties(space, findPropertiesMapForResource(space.getSpecificationLocation()), locale));
+                return table;
             }
+        };
 
-            propertiesMap.put(locale, result);
-        }
-
-        return result;
+        return (MessageTable) _namespaceAssembly.compute(key, assemble);
     }
 
-    private Properties assembleComponentProperties(IComponent component, Resource baseResourceLocation,
-                                                   Map propertiesMap, Locale locale)
+    private MessageTable assembleComponentMessages(IComponent component, Resource baseResourceLocation, Locale locale)
     {
+        Map result = new HashMap();
+
+        getNamespaceMessages(component.getNamespace(), locale).copyInto(result);
+
         List localizations =  findLocalizationsForResource(component, baseResourceLocation, locale,
                                                            component.getSpecification().getProperty(NAMESPACE_PROPERTIES_NAME));
 
-        Properties parent = null;
-        Properties assembledProperties = null;
-
         Iterator i = localizations.iterator();
 
         while(i.hasNext())
         {
             ResourceLocalization rl = (ResourceLocalization) i.next();
-            Locale l = rl.getLocale();
 
-            // Retrieve namespace properties for current locale (and parent
-            // locales)
+            String encoding = getComponentMessagesEncoding(component, rl.getLocale());
 
-            Properties namespaceProperties = getNamespaceProperties(component, l);
-
-            // Use the namespace properties as default for assembled properties
-
-            assembledProperties = new Properties(namespaceProperties);
-
-            // Read localized properties for component
-            
-            Properties properties = readComponentProperties(component, l, rl.getResource(), null);
-
-            // Override parent properties with current locale
-
-            if (parent != null)
-            {
-                if (properties != null)
-                    parent.putAll(properties);
-            }
-            else
-                parent = properties;
-
-            // Add to assembled properties
-            if (parent != null)
-                assembledProperties.putAll(parent);
-
-            // Save result in cache
-            propertiesMap.put(l, assembledProperties);
+            readPropertiesResource(rl.getResource().getResourceURL(), encoding, result);
         }
 
-        if (assembledProperties == null)
-            assembledProperties = new Properties();
-
-        return assembledProperties;
+        return MessageTable.newTable(result, _keyPool);
     }
 
-    private Properties assembleNamespaceProperties(INamespace namespace, Map propertiesMap, Locale locale)
+    private MessageTable assembleNamespaceMessages(INamespace namespace, Locale locale)
     {
+        INamespace parent = namespace.getParentNamespace();
+
+        Map result = new HashMap();
+
+        if (parent != null)
+            getNamespaceMessages(parent, locale).copyInto(result);
+
         List localizations = findLocalizationsForResource(namespace.getSpecificationLocation(), locale,
                                                           namespace.getPropertyValue(NAMESPACE_PROPERTIES_NAME));
-        
-        // Build them back up in reverse order.
 
-        Properties parent = _emptyProperties;
+        // Missing localizations fall back to the same classpath resource; only read it once, so that it
+        // doesn't override the more specific localizations read before it.
+
+        Set read = new HashSet();
 
         Iterator i = localizations.iterator();
 
         while(i.hasNext())
         {
             ResourceLocalization rl = (ResourceLocalization) i.next();
-            
-            Locale l = rl.getLocale();
 
-            Properties properties = (Properties) propertiesMap.get(l);
+            URL url = rl.getResource().getResourceURL();
 
-            if (properties == null)
-            {
-                properties = readNamespaceProperties(namespace, l, rl.getResource(), parent);
+            if (url == null || !read.add(url.toString()))
+                continue;
 
-                propertiesMap.put(l, properties);
-            }
+            String encoding = getNamespaceMessagesEncoding(namespace, rl.getLocale());
 
-            parent = properties;
+            readPropertiesResource(url, encoding, result);
         }
 
-        return parent;
-
+        return MessageTable.newTable(result, _keyPool);
     }
 
     /**
@@ -342,30 +367,17 @@ public class ComponentMessagesSourceImpl implements ComponentMessagesSource, Res
         return dotx > -1 ? fileName.substring(0, dotx) : fileName;
     }
 
-    private Properties readComponentProperties(IComponent component,
-                                               Locale locale, Resource propertiesResource, Properties parent)
-    {
-        String encoding = getComponentMessagesEncoding(component, locale);
-
-        return readPropertiesResource(propertiesResource.getResourceURL(), encoding, parent);
-    }
-
-    private Properties readNamespaceProperties(INamespace namespace,
-                                               Locale locale, Resource propertiesResource, Properties parent)
-    {
-        String encoding = getNamespaceMessagesEncoding(namespace, locale);
-
-        return readPropertiesResource(propertiesResource.getResourceURL(), encoding, parent);
-    }
+    /**
+     * Reads the properties file (if it exists) and adds its messages to the table, overriding any
+     * messages already present.
+     */
 
-    private Properties readPropertiesResource(URL resourceURL, String encoding, Properties parent)
+    private void readPropertiesResource(URL resourceURL, String encoding, Map table)
     {
         if (resourceURL == null)
-            return parent;
-
-        Properties result = new Properties(parent);
+            return;
 
-        LocalizedProperties wrapper = new LocalizedProperties(result);
+        LocalizedProperties wrapper = new LocalizedProperties(table);
 
         InputStream input = null;
 
@@ -388,8 +400,6 @@ public class ComponentMessagesSourceImpl implements ComponentMessagesSource, Res
         {
             IOUtils.closeQuietly(input);
         }
-
-        return result;
     }
 
     /**
@@ -399,12 +409,126 @@ public class ComponentMessagesSourceImpl implements ComponentMessagesSource, Res
     public void resetEventDidOccur()
     {
         _componentCache.clear();
+        _namespaceCache.clear();
+        _keyPool.clear();
+    }
+
+    /**
+     * Reports the number and approximate memory footprint of the message tables.
+     *
+     * @since 4.1.7
+     */
+
+    public void reportStatus(ReportStatusEvent event)
+    {
+        event.title(_serviceId);
+
+        Map messages = new IdentityHashMap();
+
+        long componentBytes = addFootprint(_componentCache, messages);
+        long namespaceBytes = addFootprint(_namespaceCache, messages);
+
+        long keyCharacters = 0;
+
+        Iterator i = _keyPool.keySet().iterator();
+
+        while (i.hasNext())
+            keyCharacters += ((String) i.next()).length();
+
+        long messageCharacters = 0;
+
+        i = messages.keySet().iterator();
+
+        while (i.hasNext())
+            messageCharacters += ((String) i.next()).length();
+
+        event.property("component message tables", _componentCache.size());
+        event.property("namespace message tables", _namespaceCache.size());
+        event.property("table bytes", componentBytes + namespaceBytes);
+        event.property("interned keys", _keyPool.size());
+        event.property("key characters", keyCharacters);
+        event.property("distinct messages", messages.size());
+        event.property("message characters", messageCharacters);
+        event.property("approximate total bytes", componentBytes + namespaceBytes + 2 * (keyCharacters + messageCharacters));
+    }
+
+    private long addFootprint(Map cache, Map messages)
+    {
+        long result = 0;
+
+        Iterator i = cache.values().iterator();
+
+        while (i.hasNext())
+        {
+            MessageTable table = (MessageTable) i.next();
+
+            result += table.getTableFootprint();
+
+            String[] values = table.getValues();
+
+            for (int j = 0; j < values.length; j++)
+            {
+                if (values[j] != null)
+                    messages.put(values[j], Boolean.TRUE);
+            }
+        }
+
+        return result;
     }
 
     public Messages getMessages(IComponent component)
     {
-        return new ComponentMessages(component.getPage().getLocale(),
-                                     getLocalizedProperties(component));
+        MessageTable table = _localizedPropertiesOverridden
+                             ? toMessageTable(getLocalizedProperties(component))
+                             : getMessageTable(component);
+
+        return new ComponentMessages(component.getPage().getLocale(), table);
+    }
+
+    /**
+     * Converts properties (including their defaults) into a message table that is not shared.
+     */
+
+    private static MessageTable toMessageTable(Properties properties)
+    {
+        Map messages = new HashMap();
+
+        Enumeration e = properties.propertyNames();
+
+        while (e.hasMoreElements())
+        {
+            String key = (String) e.nextElement();
+
+            messages.put(key, properties.getProperty(key));
+        }
+
+        return MessageTable.newTable(messages, null);
+    }
+
+    private static boolean overridesLocalizedProperties(Class type)
+    {
+        for (Class c = type; c != ComponentMessagesSourceImpl.class; c = c.getSuperclass())
+        {
+            try
+            {
+                c.getDeclaredMethod("getLocalizedProperties", new Class[] { IComponent.class });
+
+                return true;
+            }
+            catch (NoSuchMethodException ex)
+            {
+                // Keep looking.
+            }
+        }
+
+        return false;
+    }
+
+    /** @since 4.1.7 */
+
+    public void setServiceId(String serviceId)
+    {
+        _serviceId = serviceId;
     }
 
     private String getComponentMessagesEncoding(IComponent component, Locale locale)
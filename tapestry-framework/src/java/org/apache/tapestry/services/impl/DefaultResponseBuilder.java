@@ -18,6 +18,7 @@ import org.apache.hivemind.util.Defense;
 import org.apache.tapestry.*;
 import org.apache.tapestry.asset.AssetFactory;
 import org.apache.tapestry.engine.NullWriter;
+import org.apache.tapestry.instrument.RequestTimings;
 import org.apache.tapestry.markup.MarkupWriterSource;
 import org.apache.tapestry.services.RequestLocaleManager;
 import org.apache.tapestry.services.ResponseBuilder;
@@ -160,10 +161,16 @@ public class DefaultResponseBuilder implements ResponseBuilder
 
         TapestryUtils.removePageRenderSupport(cycle);
 
+        RequestTimings timings = RequestTimings.getCurrent();
+        long start = timings == null ? 0 : timings.start();
+
         flush();
 
         if (_closeWriter)
             _writer.close();
+
+        if (timings != null)
+            timings.record(RequestTimings.COMMIT, start);
     }
 
     public void flush()
@@ -14,9 +14,20 @@
 
 package org.apache.tapestry.services.impl;
 
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap;
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentMap;
+
+import java.util.Iterator;
 import java.util.Locale;
+import java.util.Map;
 
+import org.apache.hivemind.service.ThreadLocale;
 import org.apache.tapestry.IEngine;
+import org.apache.tapestry.engine.AbstractEngine;
+import org.apache.tapestry.event.ReportStatusEvent;
+import org.apache.tapestry.event.ReportStatusListener;
+import org.apache.tapestry.event.ResetEventListener;
+import org.apache.tapestry.instrument.RequestTimings;
 import org.apache.tapestry.services.EngineFactory;
 import org.apache.tapestry.services.EngineManager;
 import org.apache.tapestry.services.ObjectPool;
@@ -25,11 +36,16 @@ import org.apache.tapestry.services.RequestLocaleManager;
 /**
  * Implementation of service {@link org.apache.tapestry.services.EngineManager}.
  * Service point tapestry.request.EngineManager.
+ * <p>
+ * When <code>sharedEngines</code> is enabled, a single engine per locale is shared between all
+ * concurrent requests, and checking out an engine is a lookup in a concurrent map rather than a
+ * trip through the (synchronized) engine pool. Only engines that extend {@link AbstractEngine}
+ * are shared; any other engine implementation is pooled, as before.
  * 
  * @author Howard Lewis Ship
  * @since 4.0
  */
-public class EngineManagerImpl implements EngineManager
+public class EngineManagerImpl implements EngineManager, ResetEventListener, ReportStatusListener
 {
     private ObjectPool _enginePool;
 
@@ -37,11 +53,28 @@ public class EngineManagerImpl implements EngineManager
 
     private RequestLocaleManager _localeManager;
 
+    private String _serviceId;
+
+    private boolean _sharedEngines;
+
+    private ThreadLocale _threadLocale;
+
+    /**
+     * Keyed on Locale, value is the shared {@link AbstractEngine} for that locale.
+     *
+     * @since 4.1.7
+     */
+
+    private final ConcurrentMap _sharedEngineMap = new ConcurrentHashMap();
+
     public IEngine getEngineInstance()
     {
+        RequestTimings timings = RequestTimings.getCurrent();
+        long start = timings == null ? 0 : timings.start();
+
         Locale locale = _localeManager.extractLocaleForCurrentRequest();
 
-        IEngine result = (IEngine) _enginePool.get(locale);
+        IEngine result = _sharedEngines ? getSharedEngine(locale) : (IEngine) _enginePool.get(locale);
 
         // This happens when either the pool is empty, or when a session exists
         // but the engine has not been stored into it (which should never happen, and
@@ -50,14 +83,82 @@ public class EngineManagerImpl implements EngineManager
         if (result == null)
             result = _engineFactory.constructNewEngineInstance(locale);
 
+        if (timings != null)
+            timings.record(RequestTimings.ENGINE_CHECKOUT, start);
+
         return result;
     }
 
+    private IEngine getSharedEngine(Locale locale)
+    {
+        IEngine result = (IEngine) _sharedEngineMap.get(locale);
+
+        if (result != null)
+            return result;
+
+        result = (IEngine) _enginePool.get(locale);
+
+        if (result != null)
+            return result;
+
+        result = _engineFactory.constructNewEngineInstance(locale);
+
+        if (!(result instanceof AbstractEngine))
+            return result;
+
+        ((AbstractEngine) result).setShared(_threadLocale);
+
+        IEngine existing = (IEngine) _sharedEngineMap.putIfAbsent(locale, result);
+
+        return existing == null ? result : existing;
+    }
+
     public void storeEngineInstance(IEngine engine)
     {
+        // Shared engines stay in the map; there's nothing to return.
+
+        if (engine instanceof AbstractEngine && ((AbstractEngine) engine).isShared())
+            return;
+
         _enginePool.store(engine.getLocale(), engine);
     }
 
+    /**
+     * Discards the shared engines; new ones will be created as needed.
+     *
+     * @since 4.1.7
+     */
+
+    public void resetEventDidOccur()
+    {
+        _sharedEngineMap.clear();
+    }
+
+    /**
+     * @since 4.1.7
+     */
+
+    public void reportStatus(ReportStatusEvent event)
+    {
+        event.title(_serviceId);
+
+        event.property("shared engines", _sharedEngines);
+
+        if (!_sharedEngines)
+            return;
+
+        event.section("Shared Engines");
+
+        Iterator i = _sharedEngineMap.entrySet().iterator();
+
+        while (i.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) i.next();
+
+            event.property(entry.getKey().toString(), entry.getValue().toString());
+        }
+    }
+
     public void setEngineFactory(EngineFactory factory)
     {
         _engineFactory = factory;
@@ -72,4 +173,30 @@ public class EngineManagerImpl implements EngineManager
     {
         _localeManager = manager;
     }
+
+    /**
+     * If true, engines are shared between concurrent requests, one per locale, rather than
+     * checked out of and back into the engine pool on each request.
+     *
+     * @since 4.1.7
+     */
+
+    public void setSharedEngines(boolean sharedEngines)
+    {
+        _sharedEngines = sharedEngines;
+    }
+
+    /**
+     * @since 4.1.7
+     */
+
+    public void setThreadLocale(ThreadLocale threadLocale)
+    {
+        _threadLocale = threadLocale;
+    }
+
+    public void setServiceId(String serviceId)
+    {
+        _serviceId = serviceId;
+    }
 }
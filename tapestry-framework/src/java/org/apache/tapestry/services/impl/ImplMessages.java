@@ -292,4 +292,14 @@ final class ImplMessages
     {
         return _formatter.format("template-path-not-found", path);
     }    
+
+    static String regionTaskFailure(Object task, Throwable cause)
+    {
+        return _formatter.format("region-task-failure", task, cause);
+    }
+
+    static String regionTaskTimeout(Object task, long timeout)
+    {
+        return _formatter.format("region-task-timeout", task, new Long(timeout));
+    }
 }
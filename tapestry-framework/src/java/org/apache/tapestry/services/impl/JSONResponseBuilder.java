@@ -19,6 +19,8 @@ import org.apache.tapestry.*;
 import org.apache.tapestry.asset.AssetFactory;
 import org.apache.tapestry.engine.NullWriter;
 import org.apache.tapestry.json.IJSONWriter;
+import org.apache.tapestry.json.JSONArray;
+import org.apache.tapestry.json.JSONObject;
 import org.apache.tapestry.markup.MarkupWriterSource;
 import org.apache.tapestry.services.RequestLocaleManager;
 import org.apache.tapestry.services.ResponseBuilder;
@@ -65,6 +67,8 @@ public class JSONResponseBuilder implements ResponseBuilder
 
     private IRequestCycle _cycle;
 
+    private IJSONWriter _treeWriter;
+
     /**
      * Creates a new response builder with the required services it needs
      * to render the response when {@link #renderResponse(IRequestCycle)} is called.
@@ -191,12 +195,30 @@ public class JSONResponseBuilder implements ResponseBuilder
                 return;
             }
 
-            json.renderComponent(_writer, cycle);
+            json.renderComponent(getComponentWriter(component), cycle);
         }
 
         render.render(_nullWriter, cycle);
     }
 
+    /**
+     * Returns the writer a component renders its JSON into. A response contains a single JSON
+     * value, so only a component that is the one and only update part may stream directly to the
+     * response; otherwise components get a view of the writer limited to the shared
+     * {@link IJSONWriter#object()} and {@link IJSONWriter#array()} trees, into which all of their
+     * content is merged.
+     */
+    IJSONWriter getComponentWriter(IComponent component)
+    {
+        if (_parts.size() == 1 && _parts.contains(component.peekClientId()))
+            return _writer;
+
+        if (_treeWriter == null)
+            _treeWriter = new TreeWriter(_writer);
+
+        return _treeWriter;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -456,4 +478,38 @@ public class JSONResponseBuilder implements ResponseBuilder
     public void addStatusMessage(IMarkupWriter normalWriter, String category, String text)
     {
     }
+
+    /**
+     * Exposes only the tree based methods of the response's {@link IJSONWriter}, even when it is
+     * a {@link org.apache.tapestry.json.IJSONStreamWriter}.
+     */
+    private static final class TreeWriter implements IJSONWriter
+    {
+        private final IJSONWriter _delegate;
+
+        TreeWriter(IJSONWriter delegate)
+        {
+            _delegate = delegate;
+        }
+
+        public JSONObject object()
+        {
+            return _delegate.object();
+        }
+
+        public JSONArray array()
+        {
+            return _delegate.array();
+        }
+
+        public void close()
+        {
+            _delegate.close();
+        }
+
+        public void flush()
+        {
+            _delegate.flush();
+        }
+    }
 }
@@ -22,6 +22,7 @@ import org.apache.tapestry.IComponent;
 import org.apache.tapestry.IMarkupWriter;
 import org.apache.tapestry.IRender;
 import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.IRewindAware;
 import org.apache.tapestry.parse.LocalizationToken;
 import org.apache.tapestry.parse.TextToken;
 
@@ -32,7 +33,7 @@ import org.apache.tapestry.parse.TextToken;
  * @since 3.0
  */
 
-public class LocalizedStringRender implements IRender
+public class LocalizedStringRender implements IRender, IRewindAware
 {
     private IComponent _component;
 
@@ -55,6 +56,17 @@ public class LocalizedStringRender implements IRender
         _attributes = token.getAttributes();
     }
 
+    /**
+     * Localized text has no part in a rewind.
+     *
+     * @since 4.1.7
+     */
+
+    public boolean getRenderOnRewind()
+    {
+        return false;
+    }
+
     public void render(IMarkupWriter writer, IRequestCycle cycle)
     {
         if (cycle.isRewinding())
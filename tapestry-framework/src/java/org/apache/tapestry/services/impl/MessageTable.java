@@ -0,0 +1,184 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.services.impl;
+
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentMap;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * An immutable table of message keys to messages, used in place of {@link java.util.Properties}
+ * (a synchronized Hashtable, with an entry object per message) once a message catalog has been
+ * loaded. Keys and messages are stored in two parallel, open-addressed arrays (linear probing),
+ * so a lookup is an unsynchronized probe of an array.
+ * <p>
+ * Keys may be interned through a shared pool as the table is built, so that the same key loaded
+ * in many locales (or from many catalogs) is stored only once.
+ *
+ * @since 4.1.7
+ */
+public final class MessageTable
+{
+    /**
+     * Object header plus length, in bytes, used in estimating the footprint.
+     */
+    private static final int ARRAY_OVERHEAD = 16;
+
+    private static final int OBJECT_OVERHEAD = 24;
+
+    private static final int REFERENCE_SIZE = 4;
+
+    public static final MessageTable EMPTY = new MessageTable(new String[1], new String[1], 0);
+
+    private final String[] _keys;
+
+    private final String[] _values;
+
+    private final int _size;
+
+    private MessageTable(String[] keys, String[] values, int size)
+    {
+        _keys = keys;
+        _values = values;
+        _size = size;
+    }
+
+    /**
+     * Builds a table from a map of keys to messages; entries whose key or value is not a string
+     * are ignored.
+     *
+     * @param messages
+     *            the messages to store
+     * @param keyPool
+     *            if not null, used to intern the keys (each key maps to itself)
+     */
+    public static MessageTable newTable(Map messages, ConcurrentMap keyPool)
+    {
+        int capacity = 2;
+
+        // Keep the table at most half full, so probe sequences stay short.
+
+        while (capacity < messages.size() * 2)
+            capacity <<= 1;
+
+        String[] keys = new String[capacity];
+        String[] values = new String[capacity];
+        int size = 0;
+
+        Iterator i = messages.entrySet().iterator();
+
+        while (i.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) i.next();
+
+            if (!(entry.getKey() instanceof String) || !(entry.getValue() instanceof String))
+                continue;
+
+            String key = intern((String) entry.getKey(), keyPool);
+
+            int index = indexOf(keys, key);
+
+            if (keys[index] == null)
+                size++;
+
+            keys[index] = key;
+            values[index] = (String) entry.getValue();
+        }
+
+        return new MessageTable(keys, values, size);
+    }
+
+    private static String intern(String key, ConcurrentMap keyPool)
+    {
+        if (keyPool == null)
+            return key;
+
+        String existing = (String) keyPool.putIfAbsent(key, key);
+
+        return existing == null ? key : existing;
+    }
+
+    /**
+     * Returns the slot containing the key, or the empty slot where it would be stored.
+     */
+    private static int indexOf(String[] keys, String key)
+    {
+        int mask = keys.length - 1;
+        int hash = key.hashCode();
+        int index = (hash ^ (hash >>> 16)) & mask;
+
+        while (true)
+        {
+            String current = keys[index];
+
+            if (current == null || current == key || current.equals(key))
+                return index;
+
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Returns the message for the key, or null if the table doesn't contain the key.
+     */
+    public String get(String key)
+    {
+        if (key == null)
+            return null;
+
+        return _values[indexOf(_keys, key)];
+    }
+
+    public int size()
+    {
+        return _size;
+    }
+
+    /**
+     * Copies the table's messages into the map (replacing any messages with the same keys).
+     */
+    public void copyInto(Map map)
+    {
+        for (int i = 0; i < _keys.length; i++)
+        {
+            if (_keys[i] != null)
+                map.put(_keys[i], _values[i]);
+        }
+    }
+
+    /**
+     * Returns the approximate size, in bytes, of the table itself (its arrays), not including
+     * the keys and messages, which may be shared with other tables.
+     */
+    public long getTableFootprint()
+    {
+        return OBJECT_OVERHEAD + 2 * (ARRAY_OVERHEAD + (long) REFERENCE_SIZE * _keys.length);
+    }
+
+    /**
+     * Returns the (sparse) array of messages, used when estimating the footprint of the
+     * messages shared between tables.
+     */
+    String[] getValues()
+    {
+        return _values;
+    }
+
+    public String toString()
+    {
+        return "MessageTable[" + _size + " messages]";
+    }
+}
@@ -0,0 +1,230 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.services.impl;
+
+import org.apache.hivemind.ApplicationRuntimeException;
+import org.apache.hivemind.events.RegistryShutdownListener;
+import org.apache.tapestry.event.ReportStatusEvent;
+import org.apache.tapestry.event.ReportStatusListener;
+import org.apache.tapestry.listener.ListenerTask;
+import org.apache.tapestry.services.PreparedRegion;
+import org.apache.tapestry.services.RegionPreparer;
+import org.apache.tapestry.util.DaemonThreadPool;
+
+import edu.emory.mathcs.backport.java.util.concurrent.RejectedExecutionException;
+import edu.emory.mathcs.backport.java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Default implementation of {@link RegionPreparer}. Tasks run on a fixed size pool of daemon
+ * threads with a bounded queue. A task is executed exactly once: whichever of the pool thread and
+ * the thread requesting the value gets to it first runs it, so a task that is still queued when
+ * its region renders (or that was rejected because the queue was full) simply runs inline.
+ *
+ * @since 4.1.7
+ */
+public class RegionPreparerImpl implements RegionPreparer, ReportStatusListener,
+        RegistryShutdownListener
+{
+    private String _serviceId;
+
+    private int _threads = 8;
+
+    private int _queueSize = 100;
+
+    private long _timeout = 30000;
+
+    private DaemonThreadPool _executor;
+
+    private final AtomicLong _prepared = new AtomicLong();
+
+    private final AtomicLong _inline = new AtomicLong();
+
+    private final AtomicLong _rejected = new AtomicLong();
+
+    private final AtomicLong _failed = new AtomicLong();
+
+    public void initializeService()
+    {
+        _executor = new DaemonThreadPool("Tapestry region preparer", _threads, _queueSize);
+    }
+
+    public PreparedRegion prepare(ListenerTask task)
+    {
+        Preparation result = new Preparation(task);
+
+        _prepared.incrementAndGet();
+
+        try
+        {
+            _executor.execute(result);
+        }
+        catch (RejectedExecutionException ex)
+        {
+            // Will be executed by the render thread, when it needs the value.
+
+            _rejected.incrementAndGet();
+        }
+
+        return result;
+    }
+
+    public void registryDidShutdown()
+    {
+        _executor.shutdownNow();
+    }
+
+    public void reportStatus(ReportStatusEvent event)
+    {
+        event.title(_serviceId);
+
+        _executor.reportStatus(event);
+
+        event.property("timeout", _timeout);
+        event.property("prepared", _prepared.get());
+        event.property("executed inline", _inline.get());
+        event.property("rejected", _rejected.get());
+        event.property("failed", _failed.get());
+    }
+
+    public void setServiceId(String serviceId)
+    {
+        _serviceId = serviceId;
+    }
+
+    public void setThreads(int threads)
+    {
+        _threads = threads;
+    }
+
+    public void setQueueSize(int queueSize)
+    {
+        _queueSize = queueSize;
+    }
+
+    public void setTimeout(long timeout)
+    {
+        _timeout = timeout;
+    }
+
+    private class Preparation implements PreparedRegion, Runnable
+    {
+        private final ListenerTask _task;
+
+        private boolean _started;
+
+        private boolean _done;
+
+        private Object _value;
+
+        private Throwable _failure;
+
+        Preparation(ListenerTask task)
+        {
+            _task = task;
+        }
+
+        public void run()
+        {
+            if (claim())
+                execute();
+        }
+
+        public Object getValue()
+        {
+            if (claim())
+            {
+                _inline.incrementAndGet();
+
+                execute();
+            }
+
+            synchronized (this)
+            {
+                waitForCompletion();
+
+                if (_failure != null)
+                    throw new ApplicationRuntimeException(ImplMessages.regionTaskFailure(_task,
+                            _failure), _failure);
+
+                return _value;
+            }
+        }
+
+        private synchronized boolean claim()
+        {
+            if (_started)
+                return false;
+
+            _started = true;
+
+            return true;
+        }
+
+        private void execute()
+        {
+            Object value = null;
+            Throwable failure = null;
+
+            try
+            {
+                value = _task.execute();
+            }
+            catch (Throwable ex)
+            {
+                _failed.incrementAndGet();
+
+                failure = ex;
+            }
+
+            synchronized (this)
+            {
+                _value = value;
+                _failure = failure;
+                _done = true;
+
+                notifyAll();
+            }
+        }
+
+        /**
+         * Invoked with the lock held.
+         */
+        private void waitForCompletion()
+        {
+            long deadline = System.currentTimeMillis() + _timeout;
+
+            while (!_done)
+            {
+                long remaining = deadline - System.currentTimeMillis();
+
+                if (remaining <= 0)
+                    throw new ApplicationRuntimeException(ImplMessages.regionTaskTimeout(_task,
+                            _timeout));
+
+                try
+                {
+                    wait(remaining);
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+
+                    throw new ApplicationRuntimeException(ImplMessages.regionTaskTimeout(_task,
+                            _timeout), ex);
+                }
+            }
+        }
+    }
+}
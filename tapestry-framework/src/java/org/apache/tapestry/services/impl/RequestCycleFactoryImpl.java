@@ -23,6 +23,8 @@ import org.apache.tapestry.engine.RequestCycle;
 import org.apache.tapestry.engine.RequestCycleEnvironment;
 import org.apache.tapestry.engine.ServiceEncoder;
 import org.apache.tapestry.engine.ServiceEncodingImpl;
+import org.apache.tapestry.event.ReportStatusEvent;
+import org.apache.tapestry.event.ReportStatusListener;
 import org.apache.tapestry.record.PropertyPersistenceStrategySource;
 import org.apache.tapestry.services.*;
 import org.apache.tapestry.util.QueryParameterMap;
@@ -38,10 +40,15 @@ import java.util.Iterator;
  * @author Howard M. Lewis Ship
  * @since 4.0
  */
-public class RequestCycleFactoryImpl implements RequestCycleFactory
+public class RequestCycleFactoryImpl implements RequestCycleFactory, ReportStatusListener
 {
+    private String _serviceId;
+
     private ServiceEncoder[] _encoders;
 
+    /** @since 4.1.7 */
+    private ServiceEncoderIndex _encoderIndex;
+
     private PropertyPersistenceStrategySource _strategySource;
 
     private ErrorHandler _errorHandler;
@@ -60,6 +67,15 @@ public class RequestCycleFactoryImpl implements RequestCycleFactory
     {
         _environment = new RequestCycleEnvironment(_errorHandler, _infrastructure, _strategySource,
                                                    _absoluteURLBuilder);
+
+        _encoderIndex = new ServiceEncoderIndex(_encoders);
+    }
+
+    public void reportStatus(ReportStatusEvent event)
+    {
+        event.title(_serviceId);
+
+        _encoderIndex.reportStatus(event);
     }
 
     public IRequestCycle newRequestCycle(IEngine engine)
@@ -127,13 +143,7 @@ public class RequestCycleFactoryImpl implements RequestCycleFactory
     {
         ServiceEncodingImpl se = new ServiceEncodingImpl(servletPath, pathInfo, map);
 
-        for (int i = 0; i < _encoders.length; i++)
-        {
-            _encoders[i].decode(se);
-
-            if (se.isModified())
-                return;
-        }
+        _encoderIndex.decode(se);
     }
 
     public void setEncoders(ServiceEncoder[] encoders)
@@ -141,6 +151,11 @@ public class RequestCycleFactoryImpl implements RequestCycleFactory
         _encoders = encoders;
     }
 
+    public void setServiceId(String serviceId)
+    {
+        _serviceId = serviceId;
+    }
+
     public void setStrategySource(PropertyPersistenceStrategySource strategySource)
     {
         _strategySource = strategySource;
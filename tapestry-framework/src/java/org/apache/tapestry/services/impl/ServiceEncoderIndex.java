@@ -0,0 +1,281 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.services.impl;
+
+import edu.emory.mathcs.backport.java.util.concurrent.atomic.AtomicLong;
+import edu.emory.mathcs.backport.java.util.concurrent.helpers.Utils;
+import org.apache.tapestry.engine.IndexedServiceEncoder;
+import org.apache.tapestry.engine.ServiceEncoder;
+import org.apache.tapestry.engine.ServiceEncoding;
+import org.apache.tapestry.engine.ServiceEncodingImpl;
+import org.apache.tapestry.event.ReportStatusEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes an ordered array of {@link ServiceEncoder}s by the servlet paths and extensions they
+ * declare (via {@link IndexedServiceEncoder}), so that decoding a request only consults the
+ * encoders that could match its servlet path. Encoders that don't declare anything are consulted
+ * for every request. In all cases the original order of the encoders is preserved, and decoding
+ * stops with the first encoder that modifies the encoding.
+ * <p>
+ * The index is immutable once constructed (apart from the decode statistics, which are kept in
+ * atomic counters) and may be shared between threads.
+ *
+ * @since 4.1.7
+ */
+public class ServiceEncoderIndex
+{
+    private final ServiceEncoder[] _encoders;
+
+    /**
+     * Keyed on exact servlet path, value is int[] of encoder indexes.
+     */
+    private final Map _byPath = new HashMap();
+
+    /**
+     * Keyed on extension, value is int[] of encoder indexes.
+     */
+    private final Map _byExtension = new HashMap();
+
+    /**
+     * Indexes of the encoders that must be consulted for any request.
+     */
+    private final int[] _unindexed;
+
+    private final AtomicLong[] _decodeCounts;
+
+    private final AtomicLong[] _decodeNanos;
+
+    private final AtomicLong[] _matchCounts;
+
+    public ServiceEncoderIndex(ServiceEncoder[] encoders)
+    {
+        _encoders = encoders;
+
+        Set unindexed = new HashSet();
+        Map pathEncoders = new HashMap();
+        Map extensionEncoders = new HashMap();
+
+        for (int i = 0; i < encoders.length; i++)
+        {
+            Integer index = new Integer(i);
+
+            if (!(encoders[i] instanceof IndexedServiceEncoder))
+            {
+                unindexed.add(index);
+                continue;
+            }
+
+            IndexedServiceEncoder encoder = (IndexedServiceEncoder) encoders[i];
+
+            boolean paths = addAll(pathEncoders, encoder.getDecodedServletPaths(), index);
+            boolean extensions = addAll(extensionEncoders, encoder.getDecodedExtensions(), index);
+
+            if (!paths && !extensions)
+                unindexed.add(index);
+        }
+
+        _unindexed = toSortedArray(unindexed);
+
+        Iterator i = extensionEncoders.entrySet().iterator();
+        while (i.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) i.next();
+
+            Set indexes = new HashSet(unindexed);
+            indexes.addAll((Set) entry.getValue());
+
+            _byExtension.put(entry.getKey(), toSortedArray(indexes));
+        }
+
+        // An exact path may also carry an extension matched by other encoders.
+
+        i = pathEncoders.entrySet().iterator();
+        while (i.hasNext())
+        {
+            Map.Entry entry = (Map.Entry) i.next();
+            String path = (String) entry.getKey();
+
+            Set indexes = new HashSet(unindexed);
+            indexes.addAll((Set) entry.getValue());
+
+            Set byExtension = (Set) extensionEncoders.get(extractExtension(path));
+
+            if (byExtension != null)
+                indexes.addAll(byExtension);
+
+            _byPath.put(path, toSortedArray(indexes));
+        }
+
+        _decodeCounts = newCounters(encoders.length);
+        _decodeNanos = newCounters(encoders.length);
+        _matchCounts = newCounters(encoders.length);
+    }
+
+    /**
+     * Invokes {@link ServiceEncoder#decode(ServiceEncoding)} on each encoder that may match the
+     * encoding's servlet path, in order, until one of them modifies the encoding.
+     */
+    public void decode(ServiceEncodingImpl encoding)
+    {
+        int[] candidates = findCandidates(encoding.getServletPath());
+
+        for (int i = 0; i < candidates.length; i++)
+        {
+            int index = candidates[i];
+
+            long start = Utils.nanoTime();
+
+            _encoders[index].decode(encoding);
+
+            _decodeNanos[index].addAndGet(Utils.nanoTime() - start);
+            _decodeCounts[index].incrementAndGet();
+
+            if (encoding.isModified())
+            {
+                _matchCounts[index].incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the encoders that may decode the given servlet path, in their original order.
+     */
+    public ServiceEncoder[] getCandidates(String servletPath)
+    {
+        int[] indexes = findCandidates(servletPath);
+
+        ServiceEncoder[] result = new ServiceEncoder[indexes.length];
+
+        for (int i = 0; i < indexes.length; i++)
+            result[i] = _encoders[indexes[i]];
+
+        return result;
+    }
+
+    public void reportStatus(ReportStatusEvent event)
+    {
+        event.section("Service Encoders");
+
+        event.property("indexed servlet paths", _byPath.size());
+        event.property("indexed extensions", _byExtension.size());
+        event.property("unindexed encoders", _unindexed.length);
+
+        for (int i = 0; i < _encoders.length; i++)
+        {
+            long count = _decodeCounts[i].get();
+            long nanos = _decodeNanos[i].get();
+
+            StringBuffer buffer = new StringBuffer();
+
+            buffer.append(count);
+            buffer.append(" decodes, ");
+            buffer.append(_matchCounts[i].get());
+            buffer.append(" matches, ");
+            buffer.append(nanos / 1000);
+            buffer.append(" us total");
+
+            if (count > 0)
+            {
+                buffer.append(", ");
+                buffer.append(nanos / count);
+                buffer.append(" ns average");
+            }
+
+            event.property("[" + i + "] " + _encoders[i].getClass().getName(), buffer.toString());
+        }
+    }
+
+    private int[] findCandidates(String servletPath)
+    {
+        if (servletPath == null)
+            return _unindexed;
+
+        int[] result = (int[]) _byPath.get(servletPath);
+
+        if (result != null)
+            return result;
+
+        result = (int[]) _byExtension.get(extractExtension(servletPath));
+
+        return result == null ? _unindexed : result;
+    }
+
+    private static String extractExtension(String servletPath)
+    {
+        int dotx = servletPath.lastIndexOf('.');
+
+        return dotx < 0 ? null : servletPath.substring(dotx + 1);
+    }
+
+    private static boolean addAll(Map map, String[] keys, Integer index)
+    {
+        if (keys == null)
+            return false;
+
+        boolean result = false;
+
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (keys[i] == null)
+                continue;
+
+            Set indexes = (Set) map.get(keys[i]);
+
+            if (indexes == null)
+            {
+                indexes = new HashSet();
+                map.put(keys[i], indexes);
+            }
+
+            indexes.add(index);
+            result = true;
+        }
+
+        return result;
+    }
+
+    private static int[] toSortedArray(Set indexes)
+    {
+        List list = new ArrayList(indexes);
+        int[] result = new int[list.size()];
+
+        for (int i = 0; i < result.length; i++)
+            result[i] = ((Integer) list.get(i)).intValue();
+
+        Arrays.sort(result);
+
+        return result;
+    }
+
+    private static AtomicLong[] newCounters(int count)
+    {
+        AtomicLong[] result = new AtomicLong[count];
+
+        for (int i = 0; i < count; i++)
+            result[i] = new AtomicLong();
+
+        return result;
+    }
+}
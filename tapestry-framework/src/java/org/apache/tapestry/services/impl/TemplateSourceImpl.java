@@ -14,6 +14,7 @@
 
 package org.apache.tapestry.services.impl;
 
+import edu.emory.mathcs.backport.java.util.concurrent.Callable;
 import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.logging.Log;
 import org.apache.hivemind.ApplicationRuntimeException;
@@ -30,6 +31,7 @@ import org.apache.tapestry.resolver.IComponentResourceResolver;
 import org.apache.tapestry.services.ComponentPropertySource;
 import org.apache.tapestry.services.TemplateSource;
 import org.apache.tapestry.spec.IComponentSpecification;
+import org.apache.tapestry.util.ComputeOnce;
 import org.apache.tapestry.util.MultiKey;
 
 import java.io.BufferedInputStream;
@@ -44,6 +46,9 @@ import java.util.Map;
 /**
  * Implementation of {@link org.apache.tapestry.services.TemplateSource}. Templates, once parsed,
  * stay in memory until explicitly cleared.
+ * <p>
+ * Templates are parsed concurrently (the parser service uses the threaded service model); when
+ * several threads need the same, not yet parsed, template, only one of them parses it.
  * 
  * @author Howard Lewis Ship
  */
@@ -75,6 +80,14 @@ public class TemplateSourceImpl implements TemplateSource, ResetEventListener, R
 
     private ITemplateParser _parser;
 
+    /** @since 4.1.7 */
+
+    private final ComputeOnce _parses = new ComputeOnce();
+
+    /** @since 4.1.7 */
+
+    private final TemplateTextPool _textPool = new TemplateTextPool();
+
     /** @since 2.2 */
 
     private Resource _contextRoot;
@@ -107,6 +120,7 @@ public class TemplateSourceImpl implements TemplateSource, ResetEventListener, R
     {
         _cache.clear();
         _templates.clear();
+        _textPool.clear();
     }
 
     public void reportStatus(ReportStatusEvent event)
@@ -125,26 +139,16 @@ public class TemplateSourceImpl implements TemplateSource, ResetEventListener, R
 
             templateCount++;
 
-            int count = template.getTokenCount();
-
-            tokenCount += count;
-
-            for (int j = 0; j < count; j++)
-            {
-                TemplateToken token = template.getToken(j);
-
-                if (token.getType() == TokenType.TEXT)
-                {
-                    TextToken tt = (TextToken) token;
-
-                    characterCount += tt.getLength();
-                }
-            }
+            tokenCount += template.getTokenCount();
+            characterCount += getTextLength(template);
         }
 
         event.property("parsed templates", templateCount);
         event.property("total template tokens", tokenCount);
         event.property("total template characters", characterCount);
+        event.property("templates being parsed", _parses.getInFlightCount());
+        event.property("shared text segments", _textPool.getSegmentCount());
+        event.property("shared text characters", _textPool.getCharacterCount());
 
         event.section("Parsed template token counts");
 
@@ -158,8 +162,24 @@ public class TemplateSourceImpl implements TemplateSource, ResetEventListener, R
 
             ComponentTemplate template = (ComponentTemplate) entry.getValue();
 
-            event.property(key, template.getTokenCount());
+            event.property(key, template.getTokenCount() + " tokens, " + getTextLength(template) + " characters of text");
+        }
+    }
+
+    private static int getTextLength(ComponentTemplate template)
+    {
+        int result = 0;
+        int count = template.getTokenCount();
+
+        for (int i = 0; i < count; i++)
+        {
+            TemplateToken token = template.getToken(i);
+
+            if (token.getType() == TokenType.TEXT)
+                result += ((TextToken) token).getLength();
         }
+
+        return result;
     }
 
     /**
@@ -348,28 +368,40 @@ public class TemplateSourceImpl implements TemplateSource, ResetEventListener, R
      * the templates Map, then returned.
      */
 
-    private ComponentTemplate getOrParseTemplate(IRequestCycle cycle, Resource resource,
-            IComponent component)
+    private ComponentTemplate getOrParseTemplate(final IRequestCycle cycle, final Resource resource,
+            final IComponent component)
     {
 
         ComponentTemplate result = (ComponentTemplate) _templates.get(resource);
         if (result != null)
             return result;
 
-        // Ok, see if it exists.
+        // Ok, see if it exists. Other threads needing the same template wait for this
+        // parse rather than parsing it again.
+
+        Callable parse = new Callable()
+        {
+            public Object call()
+            {
+                ComponentTemplate template = (ComponentTemplate) _templates.get(resource);
+
+                if (template == null)
+                {
+                    template = parseTemplate(cycle, resource, component);
 
-        result = parseTemplate(cycle, resource, component);
+                    if (template != null)
+                        _templates.put(resource, template);
+                }
 
-        if (result != null)
-            _templates.put(resource, result);
+                return template;
+            }
+        };
 
-        return result;
+        return (ComponentTemplate) _parses.compute(resource, parse);
     }
 
     /**
-     * Reads the template for the given resource; returns null if the resource doesn't exist. Note
-     * that this method is only invoked from a synchronized block, so there shouldn't be threading
-     * issues here.
+     * Reads the template for the given resource; returns null if the resource doesn't exist.
      */
 
     private ComponentTemplate parseTemplate(IRequestCycle cycle, Resource resource,
@@ -385,12 +417,12 @@ public class TemplateSourceImpl implements TemplateSource, ResetEventListener, R
     }
 
     /**
-     * This method is currently synchronized, because {@link org.apache.tapestry.parse.TemplateParser} is not threadsafe.
-     * Another good candidate for a pooling mechanism, especially because parsing a template may
-     * take a while.
+     * Parses the template data. The {@link org.apache.tapestry.parse.TemplateParser} is not
+     * threadsafe, but the parser service uses the threaded service model, so each thread parses
+     * with its own instance and no further synchronization is needed here.
      */
 
-    private synchronized ComponentTemplate constructTemplateInstance(IRequestCycle cycle,
+    private ComponentTemplate constructTemplateInstance(IRequestCycle cycle,
             char[] templateData, Resource resource, IComponent component)
     {
         String componentAttributeName = _componentPropertySource.getComponentProperty(
@@ -414,7 +446,10 @@ public class TemplateSourceImpl implements TemplateSource, ResetEventListener, R
         if (_log.isDebugEnabled())
             _log.debug("Parsed " + tokens.length + " tokens from template");
 
-        return new ComponentTemplate(templateData, tokens);
+        // Copy the static text into shared segments, so that the template data
+        // (which the parsed tokens all reference) isn't retained.
+
+        return _textPool.compact(tokens);
     }
 
     /**
@@ -0,0 +1,106 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.util;
+
+import edu.emory.mathcs.backport.java.util.concurrent.Callable;
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap;
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentMap;
+import edu.emory.mathcs.backport.java.util.concurrent.ExecutionException;
+import edu.emory.mathcs.backport.java.util.concurrent.FutureTask;
+import org.apache.hivemind.ApplicationRuntimeException;
+
+/**
+ * Deduplicates expensive computations (parsing a template, reading a file) that are performed on
+ * demand by several threads at once. The first thread to request a computation for a given key
+ * performs it; any other thread requesting the same key while it is in progress waits for, and
+ * shares, the result. Computations for different keys run concurrently.
+ * <p>
+ * Nothing is retained once a computation completes; callers are expected to store the result in
+ * their own cache (typically from within the computation itself) and check that cache before
+ * invoking {@link #compute(Object, Callable)}.
+ *
+ * @since 4.1.7
+ */
+public class ComputeOnce
+{
+    private final ConcurrentMap _inFlight = new ConcurrentHashMap();
+
+    /**
+     * Performs the computation for the key, or waits for the in-progress computation for the
+     * same key started by another thread.
+     *
+     * @param key
+     *            identifies the computation
+     * @param computation
+     *            performs the computation if no other thread is already doing so
+     * @return the result of the computation (which may be null)
+     * @throws RuntimeException
+     *             if the computation fails with a runtime exception, it is rethrown (in every
+     *             waiting thread); checked exceptions are wrapped as
+     *             {@link ApplicationRuntimeException}
+     */
+    public Object compute(Object key, Callable computation)
+    {
+        FutureTask task = new FutureTask(computation);
+
+        FutureTask existing = (FutureTask) _inFlight.putIfAbsent(key, task);
+
+        if (existing == null)
+        {
+            try
+            {
+                task.run();
+            }
+            finally
+            {
+                _inFlight.remove(key, task);
+            }
+        }
+        else
+            task = existing;
+
+        try
+        {
+            return task.get();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new ApplicationRuntimeException(ex);
+        }
+        catch (ExecutionException ex)
+        {
+            Throwable cause = ex.getCause();
+
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+
+            if (cause instanceof Error)
+                throw (Error) cause;
+
+            throw new ApplicationRuntimeException(cause);
+        }
+    }
+
+    /**
+     * Returns the number of computations currently in progress.
+     */
+    public int getInFlightCount()
+    {
+        return _inFlight.size();
+    }
+}
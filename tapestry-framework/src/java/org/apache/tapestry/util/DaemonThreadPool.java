@@ -0,0 +1,116 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.util;
+
+import org.apache.tapestry.event.ReportStatusEvent;
+
+import edu.emory.mathcs.backport.java.util.concurrent.LinkedBlockingQueue;
+import edu.emory.mathcs.backport.java.util.concurrent.RejectedExecutionException;
+import edu.emory.mathcs.backport.java.util.concurrent.ThreadFactory;
+import edu.emory.mathcs.backport.java.util.concurrent.ThreadPoolExecutor;
+import edu.emory.mathcs.backport.java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed size pool of daemon threads (created as needed) with a bounded queue of pending tasks;
+ * once the queue is full, further tasks are rejected and it is up to the caller to run them inline
+ * or report a failure. Threads are named after the pool, followed by a sequence number.
+ *
+ * @since 4.1.7
+ */
+public class DaemonThreadPool
+{
+    private final int _threads;
+
+    private final int _queueSize;
+
+    private final ThreadPoolExecutor _executor;
+
+    /**
+     * @param name
+     *            prefix for the names of the pool's threads
+     * @param threads
+     *            the number of threads
+     * @param queueSize
+     *            the maximum number of tasks waiting for a thread
+     */
+    public DaemonThreadPool(final String name, int threads, int queueSize)
+    {
+        _threads = threads;
+        _queueSize = queueSize;
+
+        _executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue(queueSize), new ThreadFactory()
+                {
+                    private int _count;
+
+                    public synchronized Thread newThread(Runnable runnable)
+                    {
+                        Thread result = new Thread(runnable, name + " " + _count++);
+                        result.setDaemon(true);
+
+                        return result;
+                    }
+                });
+    }
+
+    /**
+     * Queues the task for execution by one of the pool's threads.
+     *
+     * @throws RejectedExecutionException
+     *             if the queue is full, or the pool has been shut down
+     */
+    public void execute(Runnable task)
+    {
+        _executor.execute(task);
+    }
+
+    /**
+     * Stops accepting tasks and waits, up to the given time, for the queued and running tasks to
+     * finish.
+     */
+    public void shutdown(long timeout)
+    {
+        _executor.shutdown();
+
+        try
+        {
+            _executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops accepting tasks, discards the queued tasks and interrupts the running ones.
+     */
+    public void shutdownNow()
+    {
+        _executor.shutdownNow();
+    }
+
+    /**
+     * Adds the size and current load of the pool to a status report.
+     */
+    public void reportStatus(ReportStatusEvent event)
+    {
+        event.property("threads", _threads);
+        event.property("active threads", _executor.getActiveCount());
+        event.property("queue size", _queueSize);
+        event.property("queued tasks", _executor.getQueue().size());
+    }
+}
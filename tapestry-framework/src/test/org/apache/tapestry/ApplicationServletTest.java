@@ -0,0 +1,221 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry;
+
+import static org.easymock.EasyMock.expect;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.tapestry.AsyncServicingTest.RecordingContext;
+import org.apache.tapestry.AsyncServicingTest.Servlet3Request;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the asynchronous servicing paths of {@link ApplicationServlet}.
+ */
+@Test
+public class ApplicationServletTest extends BaseComponentTestCase
+{
+    /**
+     * Records the thread each request is serviced on; the first request blocks until released.
+     */
+    private static class RecordingServlet extends ApplicationServlet
+    {
+        private static final long serialVersionUID = 1L;
+
+        final CountDownLatch _firstStarted = new CountDownLatch(1);
+
+        final CountDownLatch _releaseFirst = new CountDownLatch(1);
+
+        final List _threads = Collections.synchronizedList(new ArrayList());
+
+        protected void serviceRequest(HttpServletRequest request, HttpServletResponse response)
+                throws IOException, ServletException
+        {
+            _threads.add(Thread.currentThread());
+
+            if (_threads.size() > 1)
+                return;
+
+            _firstStarted.countDown();
+
+            try
+            {
+                _releaseFirst.await(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException ex)
+            {
+                throw new ServletException(ex);
+            }
+        }
+    }
+
+    private static class FailingServlet extends ApplicationServlet
+    {
+        private static final long serialVersionUID = 1L;
+
+        boolean _timeOutFirst;
+
+        protected void serviceRequest(HttpServletRequest request, HttpServletResponse response)
+                throws IOException, ServletException
+        {
+            if (_timeOutFirst)
+            {
+                RecordingContext context = (RecordingContext) ((Servlet3Request) request)
+                        .startAsync();
+
+                context.getListener().onTimeout(null);
+            }
+
+            throw new ServletException("Failure servicing request.");
+        }
+    }
+
+    private ServletConfig newConfig(String threads, String queueSize)
+    {
+        ServletConfig config = newMock(ServletConfig.class);
+
+        expect(config.getServletName()).andReturn("app");
+        expect(config.getInitParameter(ApplicationServlet.ASYNC_SERVICING_THREADS)).andReturn(
+                threads);
+        expect(config.getInitParameter(ApplicationServlet.ASYNC_SERVICING_QUEUE_SIZE)).andReturn(
+                queueSize);
+        expect(config.getInitParameter(ApplicationServlet.ASYNC_SERVICING_TIMEOUT)).andReturn(null);
+
+        return config;
+    }
+
+    private Servlet3Request newAsyncRequest(RecordingContext context)
+    {
+        Servlet3Request request = newMock(Servlet3Request.class);
+
+        expect(request.isAsyncSupported()).andReturn(true);
+        expect(request.startAsync()).andReturn(context).anyTimes();
+
+        return request;
+    }
+
+    private AsyncServicing newServicing()
+    {
+        return AsyncServicing.forRequestType(Servlet3Request.class);
+    }
+
+    public void test_Queue_Full_Services_Inline() throws Exception
+    {
+        RecordingServlet servlet = new RecordingServlet();
+        ServletConfig config = newConfig("1", "1");
+        HttpServletResponse response = newMock(HttpServletResponse.class);
+
+        RecordingContext first = new RecordingContext();
+        RecordingContext second = new RecordingContext();
+        RecordingContext third = new RecordingContext();
+
+        Servlet3Request firstRequest = newAsyncRequest(first);
+        Servlet3Request secondRequest = newAsyncRequest(second);
+        Servlet3Request thirdRequest = newAsyncRequest(third);
+
+        replay();
+
+        servlet.initializeAsyncServicing(config, newServicing());
+
+        // The first request occupies the only thread, the second fills the queue ...
+
+        servlet.doService(firstRequest, response);
+
+        assertTrue(servlet._firstStarted.await(10, TimeUnit.SECONDS));
+
+        servlet.doService(secondRequest, response);
+
+        // ... so the third is serviced, and completed, on the calling thread.
+
+        servlet.doService(thirdRequest, response);
+
+        assertEquals(servlet._threads.size(), 2);
+        assertSame(servlet._threads.get(1), Thread.currentThread());
+        assertEquals(third.getCompletions(), 1);
+        assertEquals(third.getTimeout(), 0);
+
+        servlet._releaseFirst.countDown();
+
+        first.waitForCompletion();
+        second.waitForCompletion();
+
+        assertEquals(first.getCompletions(), 1);
+        assertEquals(second.getCompletions(), 1);
+        assertNotSame(servlet._threads.get(0), Thread.currentThread());
+
+        verify();
+    }
+
+    public void test_Error_Sent_And_Request_Completed() throws Exception
+    {
+        FailingServlet servlet = new FailingServlet();
+        ServletConfig config = newConfig("1", null);
+        HttpServletResponse response = newMock(HttpServletResponse.class);
+        RecordingContext context = new RecordingContext();
+        Servlet3Request request = newAsyncRequest(context);
+
+        expect(response.isCommitted()).andReturn(false);
+        response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+
+        replay();
+
+        servlet.initializeAsyncServicing(config, newServicing());
+
+        servlet.doService(request, response);
+
+        context.waitForCompletion();
+
+        assertEquals(context.getCompletions(), 1);
+
+        verify();
+    }
+
+    public void test_Timed_Out_Request_Left_Alone()
+    {
+        FailingServlet servlet = new FailingServlet();
+        ServletConfig config = newConfig("1", null);
+        HttpServletResponse response = newMock(HttpServletResponse.class);
+        RecordingContext context = new RecordingContext();
+        Servlet3Request request = newAsyncRequest(context);
+
+        replay();
+
+        servlet._timeOutFirst = true;
+        servlet.initializeAsyncServicing(config, newServicing());
+
+        AsyncServicing.AsyncRequest asyncRequest = newServicing().start(request, 0);
+
+        // The container timed the request out (and completed it) while it was being serviced;
+        // the response must not be used afterwards, and the request not completed again.
+
+        servlet.serviceAsync(asyncRequest, request, response);
+
+        assertEquals(context.getCompletions(), 1);
+
+        verify();
+    }
+}
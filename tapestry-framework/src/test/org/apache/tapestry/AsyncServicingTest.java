@@ -0,0 +1,297 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.isA;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.http.HttpServletRequest;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link AsyncServicing}.
+ */
+@Test
+public class AsyncServicingTest extends BaseComponentTestCase
+{
+    public static interface Listener
+    {
+        void onComplete(Object event);
+
+        void onTimeout(Object event);
+
+        void onError(Object event);
+
+        void onStartAsync(Object event);
+    }
+
+    public static interface Context
+    {
+        void addListener(Listener listener);
+
+        void setTimeout(long timeout);
+
+        void complete();
+    }
+
+    public static interface Servlet3Request extends HttpServletRequest
+    {
+        boolean isAsyncSupported();
+
+        Context startAsync();
+    }
+
+    /**
+     * A context that records how it was used, and that can be shared between threads.
+     */
+    public static class RecordingContext implements Context
+    {
+        private Listener _listener;
+
+        private long _timeout = -1;
+
+        private int _completions;
+
+        public synchronized void addListener(Listener listener)
+        {
+            _listener = listener;
+        }
+
+        public synchronized void setTimeout(long timeout)
+        {
+            _timeout = timeout;
+        }
+
+        public synchronized void complete()
+        {
+            _completions++;
+
+            notifyAll();
+        }
+
+        public synchronized Listener getListener()
+        {
+            return _listener;
+        }
+
+        public synchronized long getTimeout()
+        {
+            return _timeout;
+        }
+
+        public synchronized int getCompletions()
+        {
+            return _completions;
+        }
+
+        public synchronized void waitForCompletion() throws InterruptedException
+        {
+            long end = System.currentTimeMillis() + 10000;
+
+            while (_completions == 0 && System.currentTimeMillis() < end)
+                wait(100);
+        }
+    }
+
+    public void test_Servlet_24_Request_Not_Supported()
+    {
+        assertNull(AsyncServicing.forRequestType(ServletRequest.class));
+    }
+
+    public void test_Start_And_Complete()
+    {
+        Servlet3Request request = newMock(Servlet3Request.class);
+        Context context = newMock(Context.class);
+
+        expect(request.isAsyncSupported()).andReturn(true);
+        expect(request.startAsync()).andReturn(context);
+
+        context.addListener(isA(Listener.class));
+        context.setTimeout(5000);
+        context.complete();
+
+        replay();
+
+        AsyncServicing servicing = AsyncServicing.forRequestType(Servlet3Request.class);
+
+        AsyncServicing.AsyncRequest started = servicing.start(request, 5000);
+
+        assertSame(started.getContext(), context);
+
+        servicing.complete(started);
+
+        assertTrue(started.isEnded());
+
+        // A second completion is ignored.
+
+        servicing.complete(started);
+
+        verify();
+    }
+
+    public void test_No_Timeout_Disables_Container_Default()
+    {
+        Servlet3Request request = newMock(Servlet3Request.class);
+        RecordingContext context = new RecordingContext();
+
+        expect(request.isAsyncSupported()).andReturn(true);
+        expect(request.startAsync()).andReturn(context);
+
+        replay();
+
+        AsyncServicing.forRequestType(Servlet3Request.class).start(request, 0);
+
+        assertEquals(context.getTimeout(), 0);
+
+        verify();
+    }
+
+    public void test_Timeout_Ends_Request()
+    {
+        Servlet3Request request = newMock(Servlet3Request.class);
+        RecordingContext context = new RecordingContext();
+
+        expect(request.isAsyncSupported()).andReturn(true);
+        expect(request.startAsync()).andReturn(context);
+
+        replay();
+
+        AsyncServicing servicing = AsyncServicing.forRequestType(Servlet3Request.class);
+
+        AsyncServicing.AsyncRequest started = servicing.start(request, 5000);
+
+        Listener listener = context.getListener();
+
+        listener.onStartAsync(null);
+
+        assertFalse(started.isEnded());
+
+        listener.onTimeout(null);
+
+        assertTrue(started.isEnded());
+        assertEquals(context.getCompletions(), 1);
+
+        // The servicing thread finishing later must not complete the request again.
+
+        servicing.complete(started);
+        listener.onComplete(null);
+
+        assertEquals(context.getCompletions(), 1);
+
+        verify();
+    }
+
+    public void test_Error_Ends_Request()
+    {
+        Servlet3Request request = newMock(Servlet3Request.class);
+        RecordingContext context = new RecordingContext();
+
+        expect(request.isAsyncSupported()).andReturn(true);
+        expect(request.startAsync()).andReturn(context);
+
+        replay();
+
+        AsyncServicing servicing = AsyncServicing.forRequestType(Servlet3Request.class);
+
+        AsyncServicing.AsyncRequest started = servicing.start(request, 0);
+
+        context.getListener().onError(null);
+
+        assertTrue(started.isEnded());
+
+        servicing.complete(started);
+
+        assertEquals(context.getCompletions(), 1);
+
+        verify();
+    }
+
+    public void test_Async_Not_Supported_By_Request()
+    {
+        Servlet3Request request = newMock(Servlet3Request.class);
+
+        expect(request.isAsyncSupported()).andReturn(false);
+
+        replay();
+
+        assertNull(AsyncServicing.forRequestType(Servlet3Request.class).start(request, 0));
+
+        verify();
+    }
+
+    public void test_Start_Async_Fails()
+    {
+        Servlet3Request request = newMock(Servlet3Request.class);
+
+        expect(request.isAsyncSupported()).andReturn(true);
+        expect(request.startAsync()).andThrow(new IllegalStateException("Committed."));
+
+        replay();
+
+        assertNull(AsyncServicing.forRequestType(Servlet3Request.class).start(request, 0));
+
+        verify();
+    }
+
+    public void test_Set_Timeout_Fails()
+    {
+        Servlet3Request request = newMock(Servlet3Request.class);
+        Context context = newMock(Context.class);
+
+        expect(request.isAsyncSupported()).andReturn(true);
+        expect(request.startAsync()).andReturn(context);
+
+        context.addListener(isA(Listener.class));
+        context.setTimeout(5000);
+        expectLastCall().andThrow(new IllegalStateException("Timeout not supported."));
+
+        replay();
+
+        // The request is already asynchronous, so it must still be returned.
+
+        AsyncServicing.AsyncRequest started = AsyncServicing.forRequestType(Servlet3Request.class)
+                .start(request, 5000);
+
+        assertSame(started.getContext(), context);
+
+        verify();
+    }
+
+    public void test_Complete_Failure_Rethrown()
+    {
+        Context context = newMock(Context.class);
+
+        context.complete();
+        expectLastCall().andThrow(new IllegalStateException("Already complete."));
+
+        replay();
+
+        try
+        {
+            AsyncServicing.forRequestType(Servlet3Request.class).complete(
+                    new AsyncServicing.AsyncRequest(context));
+            unreachable();
+        }
+        catch (IllegalStateException ex)
+        {
+            assertEquals(ex.getMessage(), "Already complete.");
+        }
+
+        verify();
+    }
+}
@@ -14,7 +14,10 @@
 
 package org.apache.tapestry;
 
+import static org.easymock.EasyMock.expect;
+
 import org.apache.hivemind.ApplicationRuntimeException;
+import org.apache.tapestry.services.ResponseBuilder;
 import org.apache.tapestry.spec.IContainedComponent;
 import org.apache.tapestry.test.Creator;
 import org.testng.annotations.Test;
@@ -46,6 +49,75 @@ public class TestAbstractComponent extends BaseComponentTestCase
         }
     }
     
+    private interface RewindAwareRender extends IRender, IRewindAware
+    {
+    }
+
+    private static class MarkupOnlyComponent extends ConcreteComponent implements IRewindAware
+    {
+        private String _clientId;
+
+        public boolean getRenderOnRewind()
+        {
+            return false;
+        }
+
+        public void setClientId(String id)
+        {
+            _clientId = id;
+        }
+
+        public String getClientId()
+        {
+            return _clientId;
+        }
+    }
+
+    public void test_Render_Body_Skips_Markup_On_Rewind()
+    {
+        IMarkupWriter writer = newWriter();
+        IRequestCycle cycle = newCycle();
+        ResponseBuilder builder = newMock(ResponseBuilder.class);
+        IPage page = newPage();
+
+        RewindAwareRender text = newMock(RewindAwareRender.class);
+        RewindAwareRender required = newMock(RewindAwareRender.class);
+        IRender other = newMock(IRender.class);
+
+        MarkupOnlyComponent markupOnly = new MarkupOnlyComponent();
+        markupOnly.setId("fred");
+        markupOnly.setPage(page);
+
+        expect(cycle.isRewinding()).andReturn(true).times(3);
+
+        expect(text.getRenderOnRewind()).andReturn(false);
+        expect(required.getRenderOnRewind()).andReturn(true);
+
+        // The skipped component still allocates its client id.
+
+        expect(page.getRequestCycle()).andReturn(cycle).anyTimes();
+        trainGetUniqueId(cycle, "fred", "fred_0");
+
+        expect(cycle.getResponseBuilder()).andReturn(builder).times(2);
+        builder.render(writer, required, cycle);
+        builder.render(writer, other, cycle);
+
+        replay();
+
+        IComponent component = new ConcreteComponent();
+
+        component.addBody(text);
+        component.addBody(required);
+        component.addBody(markupOnly);
+        component.addBody(other);
+
+        component.renderBody(writer, cycle);
+
+        verify();
+
+        assertEquals(markupOnly.getClientId(), "fred_0");
+    }
+
     public void testUnimplementedMethods()
     {
         IComponent component = new ConcreteComponent();
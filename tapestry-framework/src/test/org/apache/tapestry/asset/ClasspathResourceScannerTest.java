@@ -0,0 +1,58 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.asset;
+
+import java.util.List;
+
+import org.apache.tapestry.BaseComponentTestCase;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link ClasspathResourceScanner}.
+ */
+@Test
+public class ClasspathResourceScannerTest extends BaseComponentTestCase
+{
+    public void test_Extract_Folder()
+    {
+        assertEquals(ClasspathResourceScanner.extractFolder("^/org/apache/tapestry/.*.css"), "org/apache/tapestry/");
+        assertEquals(ClasspathResourceScanner.extractFolder("^/org/apache/tapestry/form/Form.js"), "org/apache/tapestry/form/");
+        assertEquals(ClasspathResourceScanner.extractFolder("^/org/(apache|example)/.*"), "org/");
+        assertNull(ClasspathResourceScanner.extractFolder("^/tapestry.*/"));
+        assertNull(ClasspathResourceScanner.extractFolder("/org/apache/tapestry/.*"));
+    }
+
+    public void test_Resources_In_Directory()
+        throws Exception
+    {
+        ClasspathResourceScanner scanner = new ClasspathResourceScanner(getClass().getClassLoader());
+
+        List resources = scanner.findResources("org/apache/tapestry/asset/");
+
+        assertTrue(resources.contains("/org/apache/tapestry/asset/tapestry-in-action.png"));
+        assertFalse(resources.contains("/org/apache/tapestry/asset"));
+    }
+
+    public void test_Resources_In_Jar()
+        throws Exception
+    {
+        ClasspathResourceScanner scanner = new ClasspathResourceScanner(getClass().getClassLoader());
+
+        List resources = scanner.findResources("org/apache/hivemind/impl/");
+
+        assertTrue(resources.contains("/org/apache/hivemind/impl/RegistryBuilder.class"));
+        assertFalse(resources.contains("/org/apache/hivemind/impl/"));
+    }
+}
@@ -17,6 +17,9 @@ package org.apache.tapestry.asset;
 import static org.easymock.EasyMock.expect;
 
 import java.net.URL;
+import java.util.Arrays;
+
+import org.apache.commons.logging.Log;
 
 import org.apache.hivemind.ApplicationRuntimeException;
 import org.apache.hivemind.ClassResolver;
@@ -113,4 +116,36 @@ public class TestResourceDigestSource extends BaseComponentTestCase
         verify();
 
     }
-}
\ No newline at end of file
+
+    public void test_Precompute_Digests()
+    {
+        Log log = newMock(Log.class);
+
+        log.warn("Digests will not be precomputed for pattern '.*\\.png', as it does not start with '^/' followed by a package folder.");
+
+        expect(log.isDebugEnabled()).andReturn(false);
+
+        replay();
+
+        ResourceDigestSourceImpl s = new ResourceDigestSourceImpl();
+        s.setClassResolver(new DefaultClassResolver());
+        s.setLog(log);
+        s.setPrecomputedResources(Arrays.asList(new String[] { ".*\\.png", "^/org/apache/tapestry/asset/tapestry-in-action\\.png" }));
+
+        s.precomputeDigests();
+
+        verify();
+
+        ClassResolver resolver = newMock(ClassResolver.class);
+
+        replay();
+
+        // The digest is now cached, the resolver isn't consulted.
+
+        s.setClassResolver(resolver);
+
+        assertEquals(s.getDigestForResource("/org/apache/tapestry/asset/tapestry-in-action.png"), "a5f4663532ea3efe22084df086482290");
+
+        verify();
+    }
+}
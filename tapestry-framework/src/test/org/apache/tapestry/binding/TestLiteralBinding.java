@@ -16,6 +16,7 @@ package org.apache.tapestry.binding;
 
 import org.apache.hivemind.Location;
 import org.apache.tapestry.BindingException;
+import org.apache.tapestry.IBinding;
 import org.apache.tapestry.coerce.ValueConverter;
 import static org.easymock.EasyMock.expect;
 import org.testng.annotations.Test;
@@ -135,4 +136,27 @@ public class TestLiteralBinding extends BindingTestCase
         }
 
     }
-}
\ No newline at end of file
+
+    public void test_Factory_Shares_Bindings()
+    {
+        Location l = fabricateLocation(22);
+        ValueConverter vc = newValueConverter();
+
+        replay();
+
+        LiteralBindingFactory factory = new LiteralBindingFactory();
+        factory.setValueConverter(vc);
+
+        IBinding b = factory.createBinding(null, "parameter foo", "literal-value", l);
+
+        assertSame(factory.createBinding(null, "parameter foo", "literal-value", l), b);
+        assertNotSame(factory.createBinding(null, "parameter bar", "literal-value", l), b);
+        assertNotSame(factory.createBinding(null, "parameter foo", "other-value", l), b);
+
+        factory.resetEventDidOccur();
+
+        assertNotSame(factory.createBinding(null, "parameter foo", "literal-value", l), b);
+
+        verify();
+    }
+}
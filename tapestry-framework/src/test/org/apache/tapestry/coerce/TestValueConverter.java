@@ -16,8 +16,11 @@ package org.apache.tapestry.coerce;
 
 import static org.easymock.EasyMock.expect;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 import org.apache.hivemind.ApplicationRuntimeException;
 import org.apache.tapestry.BaseComponentTestCase;
@@ -222,4 +225,149 @@ public class TestValueConverter extends BaseComponentTestCase
 
         assertEquals(new Long(123), result);
     }
-}
\ No newline at end of file
+
+    public void testStringToPrimitive()
+    {
+        ValueConverterImpl v = new ValueConverterImpl();
+
+        assertEquals(v.coerceValue("0x10", int.class), new Integer(16));
+        assertEquals(v.coerceValue("-5", Long.class), new Long(-5));
+        assertEquals(v.coerceValue("2.5", double.class), new Double(2.5));
+        assertEquals(v.coerceValue("7", byte.class), new Byte((byte) 7));
+    }
+
+    public void testStringToPrimitiveFailure()
+    {
+        ValueConverterImpl v = new ValueConverterImpl();
+
+        try
+        {
+            v.coerceValue("fred", int.class);
+            unreachable();
+        }
+        catch (ApplicationRuntimeException ex)
+        {
+            assertTrue(ex.getMessage().startsWith("Unable to convert 'fred' to an instance of java.lang.Integer"));
+            assertTrue(ex.getRootCause() instanceof NumberFormatException);
+        }
+    }
+
+    public void testConversionsCached()
+    {
+        ValueConverterImpl v = new ValueConverterImpl();
+
+        v.coerceValue("1", int.class);
+        v.coerceValue("2", Integer.class);
+        v.coerceValue(new Integer(3), long.class);
+
+        assertEquals(v.getCacheMisses(), 2);
+        assertEquals(v.getCacheHits(), 1);
+
+        v.resetEventDidOccur();
+
+        v.coerceValue("4", int.class);
+
+        assertEquals(v.getCacheMisses(), 3);
+    }
+
+    private TypeConverterContribution newContribution(Class subjectClass, TypeConverter converter)
+    {
+        TypeConverterContribution result = new TypeConverterContribution();
+
+        result.setSubjectClass(subjectClass);
+        result.setConverter(converter);
+
+        return result;
+    }
+
+    public void test_Converter_For_Subtype_Used()
+    {
+        TypeConverter listConverter = newMock(TypeConverter.class);
+        TypeConverter stringConverter = newMock(TypeConverter.class);
+
+        Object input = new Integer(7);
+        Object output = Collections.singletonList(input);
+
+        expect(listConverter.convertValue(input)).andReturn(output);
+
+        replay();
+
+        ValueConverterImpl v = new ValueConverterImpl();
+
+        List contributions = new ArrayList();
+        contributions.add(newContribution(String.class, stringConverter));
+        contributions.add(newContribution(List.class, listConverter));
+
+        v.setContributions(contributions);
+        v.initializeService();
+
+        long misses = v.getCacheMisses();
+
+        assertSame(v.coerceValue(input, Collection.class), output);
+
+        // The choice is cached like any other.
+
+        assertEquals(v.getCacheMisses(), misses + 1);
+
+        // Null values are only converted by a converter for the exact type.
+
+        assertNull(v.coerceValue(null, Collection.class));
+
+        verify();
+    }
+
+    public void test_Most_Specific_Subtype_Converter_Used()
+    {
+        TypeConverter collectionConverter = newMock(TypeConverter.class);
+        TypeConverter listConverter = newMock(TypeConverter.class);
+
+        Object input = "FRED";
+        Object output = Collections.singletonList(input);
+
+        expect(listConverter.convertValue(input)).andReturn(output);
+
+        replay();
+
+        ValueConverterImpl v = new ValueConverterImpl();
+
+        List contributions = new ArrayList();
+        contributions.add(newContribution(List.class, listConverter));
+        contributions.add(newContribution(Collection.class, collectionConverter));
+
+        v.setContributions(contributions);
+        v.initializeService();
+
+        assertSame(v.coerceValue(input, Iterable.class), output);
+
+        verify();
+    }
+
+    public void test_Ambiguous_Subtype_Converters()
+    {
+        TypeConverter booleanConverter = newMock(TypeConverter.class);
+        TypeConverter stringConverter = newMock(TypeConverter.class);
+
+        replay();
+
+        ValueConverterImpl v = new ValueConverterImpl();
+
+        List contributions = new ArrayList();
+        contributions.add(newContribution(Boolean.class, booleanConverter));
+        contributions.add(newContribution(String.class, stringConverter));
+
+        v.setContributions(contributions);
+        v.initializeService();
+
+        try
+        {
+            v.coerceValue(new Object(), Comparable.class);
+            unreachable();
+        }
+        catch (ApplicationRuntimeException ex)
+        {
+            assertEquals(ex.getMessage(), CoerceMessages.noConverter(Object.class, Comparable.class));
+        }
+
+        verify();
+    }
+}
@@ -40,6 +40,14 @@ import org.testng.annotations.Test;
 @Test
 public class TestInsert extends BaseComponentTestCase
 {
+    public static abstract class CustomInsert extends Insert
+    {
+        protected void renderComponent(IMarkupWriter writer, IRequestCycle cycle)
+        {
+            super.renderComponent(writer, cycle);
+        }
+    }
+
     /**
      * Returns a new page instance (not a mock page).
      */
@@ -70,6 +78,19 @@ public class TestInsert extends BaseComponentTestCase
         verify();
     }
 
+    public void test_Render_On_Rewind()
+    {
+        Insert insert = (Insert) newInstance(Insert.class);
+
+        assertFalse(insert.getRenderOnRewind());
+
+        // A subclass may do work in renderComponent() even when rewinding.
+
+        Insert subclass = (Insert) newInstance(CustomInsert.class);
+
+        assertTrue(subclass.getRenderOnRewind());
+    }
+
     public void test_Null_Value()
     {
         IRequestCycle cycle = newCycle(false);
@@ -0,0 +1,126 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.components;
+
+import static org.easymock.EasyMock.checkOrder;
+import static org.easymock.EasyMock.expect;
+
+import org.apache.tapestry.BaseComponentTestCase;
+import org.apache.tapestry.IBinding;
+import org.apache.tapestry.IMarkupWriter;
+import org.apache.tapestry.IRender;
+import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.listener.ListenerTask;
+import org.apache.tapestry.services.PreparedRegion;
+import org.apache.tapestry.services.RegionPreparer;
+import org.apache.tapestry.services.impl.DefaultResponseBuilder;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the {@link Parallel} component.
+ */
+@Test
+public class TestParallel extends BaseComponentTestCase
+{
+    private IRequestCycle newRenderCycle()
+    {
+        IRequestCycle cycle = newMock(IRequestCycle.class);
+
+        checkOrder(cycle, false);
+
+        expect(cycle.getResponseBuilder()).andReturn(new DefaultResponseBuilder(null)).anyTimes();
+
+        return cycle;
+    }
+
+    private ListenerTask newTask()
+    {
+        return newMock(ListenerTask.class);
+    }
+
+    public void test_Regions_Prepared_Before_Render()
+    {
+        IMarkupWriter writer = newWriter();
+        IRequestCycle cycle = newRenderCycle();
+        RegionPreparer preparer = newMock(RegionPreparer.class);
+        PreparedRegion prepared1 = newMock(PreparedRegion.class);
+        PreparedRegion prepared2 = newMock(PreparedRegion.class);
+        IBinding binding1 = newBinding();
+        IBinding binding2 = newBinding();
+        IRender text = newRender();
+        ListenerTask task1 = newTask();
+        ListenerTask task2 = newTask();
+
+        Region region1 = newInstance(Region.class, "task", task1);
+        Region region2 = newInstance(Region.class, "task", task2);
+
+        Parallel parallel = newInstance(Parallel.class, "regionPreparer", preparer);
+
+        expect(cycle.renderStackPush(parallel)).andReturn(parallel);
+
+        expect(preparer.prepare(task1)).andReturn(prepared1);
+        expect(preparer.prepare(task2)).andReturn(prepared2);
+
+        expect(cycle.renderStackPush(region1)).andReturn(region1);
+        expect(prepared1.getValue()).andReturn("first");
+        binding1.setObject("first");
+        expect(cycle.renderStackPop()).andReturn(region1);
+
+        text.render(writer, cycle);
+
+        expect(cycle.renderStackPush(region2)).andReturn(region2);
+        expect(prepared2.getValue()).andReturn("second");
+        binding2.setObject("second");
+        expect(cycle.renderStackPop()).andReturn(region2);
+
+        expect(cycle.renderStackPop()).andReturn(parallel);
+
+        replay();
+
+        region1.setBinding("value", binding1);
+        region2.setBinding("value", binding2);
+
+        parallel.addBody(region1);
+        parallel.addBody(text);
+        parallel.addBody(region2);
+
+        parallel.render(writer, cycle);
+
+        verify();
+    }
+
+    public void test_No_Regions()
+    {
+        IMarkupWriter writer = newWriter();
+        IRequestCycle cycle = newRenderCycle();
+        RegionPreparer preparer = newMock(RegionPreparer.class);
+        IRender text = newRender();
+
+        Parallel parallel = newInstance(Parallel.class, "regionPreparer", preparer);
+
+        expect(cycle.renderStackPush(parallel)).andReturn(parallel);
+
+        text.render(writer, cycle);
+
+        expect(cycle.renderStackPop()).andReturn(parallel);
+
+        replay();
+
+        parallel.addBody(text);
+        parallel.render(writer, cycle);
+
+        verify();
+    }
+}
@@ -0,0 +1,177 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.components;
+
+import static org.easymock.EasyMock.checkOrder;
+import static org.easymock.EasyMock.expect;
+
+import org.apache.hivemind.ApplicationRuntimeException;
+import org.apache.tapestry.BaseComponentTestCase;
+import org.apache.tapestry.IBinding;
+import org.apache.tapestry.IMarkupWriter;
+import org.apache.tapestry.IRender;
+import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.listener.ListenerTask;
+import org.apache.tapestry.services.PreparedRegion;
+import org.apache.tapestry.services.RegionPreparer;
+import org.apache.tapestry.services.impl.DefaultResponseBuilder;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the {@link Region} component.
+ */
+@Test
+public class TestRegion extends BaseComponentTestCase
+{
+    private IRequestCycle newRenderCycle()
+    {
+        IRequestCycle cycle = newMock(IRequestCycle.class);
+
+        checkOrder(cycle, false);
+
+        expect(cycle.getResponseBuilder()).andReturn(new DefaultResponseBuilder(null)).anyTimes();
+
+        return cycle;
+    }
+
+    private ListenerTask newTask(final Object result)
+    {
+        return new ListenerTask()
+        {
+            public Object execute()
+            {
+                return result;
+            }
+        };
+    }
+
+    public void test_Task_Executed_On_Render()
+    {
+        IMarkupWriter writer = newWriter();
+        IRequestCycle cycle = newRenderCycle();
+        IBinding valueBinding = newBinding();
+        IRender body = newRender();
+
+        Region region = newInstance(Region.class, "task", newTask("data"));
+
+        expect(cycle.renderStackPush(region)).andReturn(region);
+
+        valueBinding.setObject("data");
+
+        body.render(writer, cycle);
+
+        expect(cycle.renderStackPop()).andReturn(region);
+
+        replay();
+
+        region.setBinding("value", valueBinding);
+        region.addBody(body);
+        region.render(writer, cycle);
+
+        verify();
+    }
+
+    public void test_Prepared_Value_Used()
+    {
+        IMarkupWriter writer = newWriter();
+        IRequestCycle cycle = newRenderCycle();
+        IBinding valueBinding = newBinding();
+        RegionPreparer preparer = newMock(RegionPreparer.class);
+        PreparedRegion prepared = newMock(PreparedRegion.class);
+        ListenerTask task = newTask("data");
+
+        Region region = newInstance(Region.class, "task", task);
+
+        expect(preparer.prepare(task)).andReturn(prepared);
+
+        expect(cycle.renderStackPush(region)).andReturn(region);
+
+        expect(prepared.getValue()).andReturn("prepared");
+
+        valueBinding.setObject("prepared");
+
+        expect(cycle.renderStackPop()).andReturn(region);
+
+        replay();
+
+        region.setBinding("value", valueBinding);
+        region.prepare(preparer);
+        region.render(writer, cycle);
+
+        verify();
+    }
+
+    public void test_Discarded_Preparation_Not_Used()
+    {
+        IMarkupWriter writer = newWriter();
+        IRequestCycle cycle = newRenderCycle();
+        IBinding valueBinding = newBinding();
+        RegionPreparer preparer = newMock(RegionPreparer.class);
+        PreparedRegion prepared = newMock(PreparedRegion.class);
+        ListenerTask task = newTask("data");
+
+        Region region = newInstance(Region.class, "task", task);
+
+        expect(preparer.prepare(task)).andReturn(prepared);
+
+        expect(cycle.renderStackPush(region)).andReturn(region);
+
+        valueBinding.setObject("data");
+
+        expect(cycle.renderStackPop()).andReturn(region);
+
+        replay();
+
+        region.setBinding("value", valueBinding);
+        region.prepare(preparer);
+        region.discardPreparation();
+        region.render(writer, cycle);
+
+        verify();
+    }
+
+    public void test_Task_Failure()
+    {
+        IMarkupWriter writer = newWriter();
+        IRequestCycle cycle = newRenderCycle();
+
+        Region region = newInstance(Region.class, "task", new ListenerTask()
+        {
+            public Object execute()
+                throws Exception
+            {
+                throw new Exception("Database is down.");
+            }
+        });
+
+        expect(cycle.renderStackPush(region)).andReturn(region);
+        expect(cycle.renderStackPop()).andReturn(region);
+
+        replay();
+
+        try
+        {
+            region.render(writer, cycle);
+            unreachable();
+        }
+        catch (ApplicationRuntimeException ex)
+        {
+            assertEquals(ex.getCause().getMessage(), "Database is down.");
+            assertSame(ex.getComponent(), region);
+        }
+
+        verify();
+    }
+}
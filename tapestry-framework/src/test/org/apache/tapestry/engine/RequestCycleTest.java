@@ -20,6 +20,7 @@ import static org.easymock.EasyMock.expect;
 import org.apache.hivemind.ErrorHandler;
 import org.apache.tapestry.BaseComponentTestCase;
 import org.apache.tapestry.IEngine;
+import org.apache.tapestry.IRender;
 import org.apache.tapestry.IRequestCycle;
 import org.apache.tapestry.RedirectException;
 import org.apache.tapestry.pageload.PageSource;
@@ -146,4 +147,72 @@ public class RequestCycleTest extends BaseComponentTestCase
             assertEquals("http://foo/bar", ex.getRedirectLocation());
         }
     }
-}
\ No newline at end of file
+
+    public void test_Render_Generation()
+    {
+        Infrastructure infrastructure = newMock(Infrastructure.class);
+
+        expect(infrastructure.getPageSource()).andReturn(new PageSource());
+
+        RequestCycleEnvironment env = new RequestCycleEnvironment(newErrorHandler(),
+                infrastructure, newStrategySource(), newBuilder());
+
+        IRender outer = newMock(IRender.class);
+        IRender inner = newMock(IRender.class);
+        IEngine engine = newEngine();
+
+        replay();
+
+        IRequestCycle cycle = new RequestCycle(engine, new QueryParameterMap(), null, env);
+
+        assertEquals(cycle.getRenderGeneration(), 0);
+
+        cycle.renderStackPush(outer);
+
+        int first = cycle.getRenderGeneration();
+
+        assertTrue(first != 0);
+
+        // Pushing the same render again doesn't change anything
+
+        cycle.renderStackPush(outer);
+
+        assertEquals(cycle.getRenderGeneration(), first);
+
+        cycle.renderStackPush(inner);
+
+        int second = cycle.getRenderGeneration();
+
+        assertTrue(second != first);
+
+        cycle.renderStackPop();
+
+        assertTrue(cycle.getRenderGeneration() != second);
+        assertTrue(cycle.getRenderGeneration() != first);
+
+        cycle.renderStackPop();
+
+        assertEquals(cycle.getRenderGeneration(), 0);
+
+        verify();
+    }
+
+    public void test_Render_Generations_Unique_Across_Cycles()
+    {
+        IRender render = newMock(IRender.class);
+
+        replay();
+
+        IRequestCycle first = new RequestCycle();
+        IRequestCycle second = new RequestCycle();
+
+        first.renderStackPush(render);
+        second.renderStackPush(render);
+
+        // The same render sequence in two requests must not produce the same generation.
+
+        assertTrue(first.getRenderGeneration() != second.getRenderGeneration());
+
+        verify();
+    }
+}
@@ -0,0 +1,41 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.enhance;
+
+import org.apache.tapestry.AbstractComponent;
+import org.apache.tapestry.IMarkupWriter;
+import org.apache.tapestry.IRequestCycle;
+
+/**
+ * Base class for a component with a memoized parameter, used by
+ * {@link TestParameterPropertyWorker}.
+ */
+public abstract class MemoizedParameterFixture extends AbstractComponent
+{
+    public abstract String getFred();
+
+    protected void renderComponent(IMarkupWriter writer, IRequestCycle cycle)
+    {
+    }
+
+    public String getClientId()
+    {
+        return null;
+    }
+
+    public void setClientId(String id)
+    {
+    }
+}
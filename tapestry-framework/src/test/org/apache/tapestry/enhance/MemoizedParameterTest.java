@@ -0,0 +1,112 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.enhance;
+
+import static org.easymock.EasyMock.expect;
+
+import java.util.Collections;
+
+import org.apache.hivemind.ErrorLog;
+import org.apache.hivemind.Location;
+import org.apache.hivemind.impl.DefaultClassResolver;
+import org.apache.hivemind.service.impl.ClassFactoryImpl;
+import org.apache.tapestry.BaseComponentTestCase;
+import org.apache.tapestry.IBinding;
+import org.apache.tapestry.IPage;
+import org.apache.tapestry.IRender;
+import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.engine.RequestCycle;
+import org.apache.tapestry.spec.IComponentSpecification;
+import org.apache.tapestry.spec.ParameterSpecification;
+import org.testng.annotations.Test;
+
+/**
+ * Renders components enhanced by {@link ParameterPropertyWorker} with memoized parameters.
+ */
+@Test
+public class MemoizedParameterTest extends BaseComponentTestCase
+{
+    /**
+     * The same (pooled) component instance, rendered in two request cycles that push and pop the
+     * render stack identically, must not see the value memoized in the first.
+     */
+
+    public void test_Memoized_Parameter_Not_Shared_Between_Requests() throws Exception
+    {
+        Location l = newLocation();
+
+        ParameterSpecification ps = new ParameterSpecification();
+        ps.setParameterName("fred");
+        ps.setPropertyName("fred");
+        ps.setLocation(l);
+        ps.setCache(false);
+
+        IComponentSpecification spec = newSpec();
+
+        expect(spec.getParameterNames()).andReturn(Collections.singletonList("fred"));
+        expect(spec.getParameter("fred")).andReturn(ps);
+        expect(spec.getLocation()).andReturn(l).anyTimes();
+
+        ErrorLog log = newMock(ErrorLog.class);
+
+        IBinding binding = newMock(IBinding.class);
+        IPage page = newMock(IPage.class);
+        IRender render = newMock(IRender.class);
+
+        IRequestCycle first = new RequestCycle();
+        IRequestCycle second = new RequestCycle();
+
+        expect(binding.isInvariant()).andReturn(false).anyTimes();
+
+        // The second read in the first request is memoized.
+
+        expect(page.getRequestCycle()).andReturn(first).times(2);
+        expect(binding.getObject(String.class)).andReturn("first");
+
+        expect(page.getRequestCycle()).andReturn(second);
+        expect(binding.getObject(String.class)).andReturn("second");
+
+        replay();
+
+        EnhancementOperationImpl op = new EnhancementOperationImpl(new DefaultClassResolver(),
+                spec, MemoizedParameterFixture.class, new ClassFactoryImpl(), null);
+
+        ParameterPropertyWorker worker = new ParameterPropertyWorker();
+        worker.setMemoizeParameters(true);
+        worker.setErrorLog(log);
+
+        worker.performEnhancement(op, spec);
+
+        MemoizedParameterFixture component = (MemoizedParameterFixture) op.getConstructor().newInstance();
+
+        component.setPage(page);
+        component.setBinding("fred", binding);
+
+        first.renderStackPush(render);
+
+        assertEquals(component.getFred(), "first");
+        assertEquals(component.getFred(), "first");
+
+        first.renderStackPop();
+
+        second.renderStackPush(render);
+
+        assertEquals(component.getFred(), "second");
+
+        second.renderStackPop();
+
+        verify();
+    }
+}
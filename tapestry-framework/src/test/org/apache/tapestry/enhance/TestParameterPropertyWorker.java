@@ -429,4 +429,61 @@ public class TestParameterPropertyWorker extends BaseComponentTestCase
 
         verify();
     }
-}
\ No newline at end of file
+
+    public void test_Memoized_Parameter()
+    {
+        Location l = newLocation();
+
+        EnhancementOperation op = newMock(EnhancementOperation.class);
+
+        BodyBuilder builder = new BodyBuilder();
+        builder.begin();
+        builder.addln("if (_$fred$Cached) return _$fred;");
+        builder.addln("if (get_$fred$Binding() == null) return _$fred$Default;");
+        builder.addln("int generation = " + EnhanceUtils.class.getName() + ".getRenderGeneration(this);");
+        builder.addln("if (generation != 0 && generation == _$fred$Generation)");
+        builder.begin();
+        builder.addln("return _$fred$Memo;");
+        builder.end();
+        builder.add("boolean result = ");
+        builder.addln(EnhanceUtils.class.getName() + ".toBoolean(get_$fred$Binding());");
+        builder.addln("if (get_$fred$Binding().isInvariant())");
+        builder.begin();
+        builder.addln("_$fred = result;");
+        builder.addln("_$fred$Cached = true;");
+        builder.end();
+        builder.addln("else if (generation != 0)");
+        builder.begin();
+        builder.addln("_$fred$Memo = result;");
+        builder.addln("_$fred$Generation = generation;");
+        builder.end();
+        builder.addln("return result;");
+        builder.end();
+
+        expect(op.getAccessorMethodName("fred")).andReturn("isFred");
+
+        op.addMethod(
+          Modifier.PUBLIC,
+          new MethodSignature(boolean.class, "isFred", null, null),
+          builder.toString(),
+          l);
+
+        replay();
+
+        ParameterPropertyWorker worker = new ParameterPropertyWorker();
+        worker.setMemoizeParameters(true);
+
+        worker.buildAccessor(
+          op,
+          "fred",
+          boolean.class,
+          "_$fred",
+          "_$fred$Default",
+          "_$fred$Cached",
+          "get_$fred$Binding()",
+          false,
+          l);
+
+        verify();
+    }
+}
@@ -0,0 +1,158 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.form;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.tapestry.BaseComponentTestCase;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link CompactIdCodec}.
+ */
+@Test
+public class CompactIdCodecTest extends BaseComponentTestCase
+{
+    private List grid(int rows)
+    {
+        List result = new ArrayList();
+
+        for (int i = 0; i < rows; i++)
+        {
+            String suffix = i == 0 ? "" : "_" + (i - 1);
+
+            result.add("name" + suffix);
+            result.add("email" + suffix);
+            result.add("If" + suffix);
+        }
+
+        return result;
+    }
+
+    public void test_Encode_Grid()
+    {
+        List ids = grid(3);
+
+        String encoded = CompactIdCodec.encodeIds(ids);
+
+        assertEquals(encoded, "~name,email,If|(0,1,2)*3");
+        assertEquals(CompactIdCodec.decodeIds(encoded, 100), ids);
+    }
+
+    public void test_Large_Grid_Round_Trip()
+    {
+        List ids = grid(5000);
+
+        String encoded = CompactIdCodec.encodeIds(ids);
+
+        assertTrue(encoded.length() < 50, encoded);
+        assertEquals(CompactIdCodec.decodeIds(encoded, 15000), ids);
+    }
+
+    public void test_Explicit_Suffixes()
+    {
+        List ids = Arrays.asList(new String[] { "name_3", "name_4", "zip", "zip", "name", "a_01", "a_b_7", "a_b_8" });
+
+        String encoded = CompactIdCodec.encodeIds(ids);
+
+        assertEquals(encoded, "~name,zip,a_01,a_b|0:3,0,1,1:-1,0:-1,2,3:7,3");
+        assertEquals(CompactIdCodec.decodeIds(encoded, 100), ids);
+    }
+
+    public void test_Reserved_Characters_Not_Encoded()
+    {
+        assertNull(CompactIdCodec.encodeIds(Arrays.asList(new String[] { "a|b" })));
+    }
+
+    public void test_Empty_Bases()
+    {
+        assertEquals(CompactIdCodec.decodeIds("~|", 10), new ArrayList());
+    }
+
+    public void test_Malformed_Ids()
+    {
+        String[] inputs = { "name", "~name", "~name|1", "~name|0*", "~name|0*0", "~name|(0,0", "~name|(0)",
+                "~name|0,", "~name|0:-2", "~name|x", "~name|0*1234567890" };
+
+        for (int i = 0; i < inputs.length; i++)
+        {
+            try
+            {
+                CompactIdCodec.decodeIds(inputs[i], 100);
+                unreachable();
+            }
+            catch (IllegalArgumentException ex)
+            {
+                assertTrue(ex.getMessage().startsWith("Encoded id list is malformed"), inputs[i]);
+            }
+        }
+    }
+
+    public void test_Too_Many_Ids()
+    {
+        try
+        {
+            CompactIdCodec.decodeIds("~name|(0,0)*999999999", 100);
+            unreachable();
+        }
+        catch (IllegalArgumentException ex)
+        {
+            assertEquals(ex.getMessage(), "Encoded id list expands to more than 100 values.");
+        }
+    }
+
+    public void test_Encode_Keys()
+    {
+        List keys = Arrays.asList(new String[] { "P1", "P2", "P3", "P5", "Va,b*c\\", "Pl7", "Pl8", "P007" });
+
+        String encoded = CompactIdCodec.encodeKeys(keys);
+
+        assertEquals(encoded, "~P*1+3,P5,Va\\,b\\*c\\\\,Pl*7+2,P007");
+        assertEquals(CompactIdCodec.decodeKeys(encoded, 100), keys);
+    }
+
+    public void test_Malformed_Keys()
+    {
+        String[] inputs = { "P1", "~P*", "~P*1", "~P*1+0", "~P*1+2x", "~P1,", "~P\\" };
+
+        for (int i = 0; i < inputs.length; i++)
+        {
+            try
+            {
+                CompactIdCodec.decodeKeys(inputs[i], 100);
+                unreachable();
+            }
+            catch (IllegalArgumentException ex)
+            {
+                assertTrue(ex.getMessage().startsWith("Encoded id list is malformed"), inputs[i]);
+            }
+        }
+    }
+
+    public void test_Too_Many_Keys()
+    {
+        try
+        {
+            CompactIdCodec.decodeKeys("~P1,P*1+100", 100);
+            unreachable();
+        }
+        catch (IllegalArgumentException ex)
+        {
+            assertEquals(ex.getMessage(), "Encoded id list expands to more than 100 values.");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.form;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.tapestry.BaseComponentTestCase;
+import org.apache.tapestry.describe.DescriptionReceiver;
+import org.apache.tapestry.event.ReportStatusEvent;
+import org.testng.annotations.Test;
+
+import static org.easymock.EasyMock.*;
+
+/**
+ * Tests for {@link FormIdEncoderImpl}.
+ */
+@Test
+public class FormIdEncoderTest extends BaseComponentTestCase
+{
+    private static final List IDS = Arrays.asList(new String[] { "name", "name_0", "name_1" });
+
+    private FormIdEncoderImpl newEncoder(boolean compact)
+    {
+        FormIdEncoderImpl result = new FormIdEncoderImpl();
+
+        result.setCompact(compact);
+        result.setMaxIds(10);
+
+        return result;
+    }
+
+    public void test_Traditional_Encoding()
+    {
+        FormIdEncoder encoder = newEncoder(false);
+
+        assertEquals(encoder.encodeAllocatedIds(IDS), "name,name_0,name_1");
+        assertEquals(encoder.decodeAllocatedIds("name,name_0,name_1"), IDS);
+        assertEquals(encoder.decodeAllocatedIds(null).size(), 0);
+    }
+
+    public void test_Compact_Encoding()
+    {
+        FormIdEncoder encoder = newEncoder(true);
+
+        assertEquals(encoder.encodeAllocatedIds(IDS), "~name|0*3");
+        assertEquals(encoder.encodeAllocatedIds(Arrays.asList(new String[0])), "");
+
+        // Either encoding is always accepted.
+
+        assertEquals(encoder.decodeAllocatedIds("~name|0*3"), IDS);
+        assertEquals(encoder.decodeAllocatedIds("name,name_0,name_1"), IDS);
+        assertEquals(newEncoder(false).decodeAllocatedIds("~name|0*3"), IDS);
+    }
+
+    public void test_Traditional_Encoding_Limited()
+    {
+        try
+        {
+            newEncoder(false).decodeAllocatedIds("a,b,c,d,e,f,g,h,i,j,k");
+            unreachable();
+        }
+        catch (IllegalArgumentException ex)
+        {
+            assertEquals(ex.getMessage(), "Encoded id list expands to more than 10 values.");
+        }
+    }
+
+    public void test_Row_Keys()
+    {
+        FormIdEncoder encoder = newEncoder(true);
+
+        String[] single = { "P1" };
+        String[] legacy = { "P1", "P2" };
+
+        assertSame(encoder.decodeRowKeys(null), null);
+        assertSame(encoder.decodeRowKeys(single), single);
+        assertSame(encoder.decodeRowKeys(legacy), legacy);
+
+        String encoded = encoder.encodeRowKeys(Arrays.asList(legacy));
+
+        assertEquals(encoded, "~P*1+2");
+        assertEquals(encoder.decodeRowKeys(new String[] { encoded }), legacy);
+    }
+
+    public void test_Report_Status()
+    {
+        FormIdEncoderImpl encoder = newEncoder(true);
+        encoder.setServiceId("tapestry.form.FormIdEncoder");
+
+        encoder.encodeAllocatedIds(IDS);
+
+        try
+        {
+            encoder.decodeAllocatedIds("~name|9");
+            unreachable();
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // expected
+        }
+
+        DescriptionReceiver event = newMock(DescriptionReceiver.class);
+
+        event.title("tapestry.form.FormIdEncoder");
+        event.property("compact encoding", true);
+        event.property("maximum ids", 10);
+        event.property("rejected encodings", 1L);
+
+        event.section("Allocated Form Ids");
+        event.property("< 256 chars", 1L);
+        event.property(isA(String.class), eq(0L));
+        expectLastCall().times(5);
+        event.property("total encoded chars", 9L);
+        event.property("total unencoded chars", 18L);
+
+        event.section("For Row Keys");
+        event.property(isA(String.class), eq(0L));
+        expectLastCall().times(8);
+
+        replay();
+
+        encoder.reportStatus(new ReportStatusEvent(this, event));
+
+        verify();
+    }
+}
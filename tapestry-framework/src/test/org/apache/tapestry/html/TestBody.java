@@ -0,0 +1,99 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.html;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+
+import org.apache.tapestry.BaseComponentTestCase;
+import org.apache.tapestry.IMarkupWriter;
+import org.apache.tapestry.IPage;
+import org.apache.tapestry.IRender;
+import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.services.ResponseBuilder;
+import org.easymock.IAnswer;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the {@link Body} component.
+ */
+@Test
+public class TestBody extends BaseComponentTestCase
+{
+    private IAnswer newPrintAnswer(final IMarkupWriter writer, final String text)
+    {
+        return new IAnswer()
+        {
+            public Object answer()
+            {
+                writer.printRaw(text);
+
+                return null;
+            }
+        };
+    }
+
+    public void test_Render_Streamed()
+    {
+        final IMarkupWriter writer = newBufferWriter();
+        IRequestCycle cycle = newMock(IRequestCycle.class);
+        ResponseBuilder builder = newMock(ResponseBuilder.class);
+        IPage page = newMock(IPage.class);
+
+        Shell shell = newInstance(Shell.class, "stream", true, "builder", builder, "page", page);
+        Body body = newInstance(Body.class, "element", "body", "builder", builder, "page", page);
+
+        IRender content = new IRender()
+        {
+            public void render(IMarkupWriter bodyWriter, IRequestCycle bodyCycle)
+            {
+                // The content is written directly, not to a nested writer.
+
+                assertSame(bodyWriter, writer);
+
+                bodyWriter.print("content");
+            }
+        };
+
+        expect(cycle.renderStackPush(body)).andReturn(body);
+        expect(cycle.getAttribute(Shell.SHELL_ATTRIBUTE)).andReturn(shell);
+        expect(builder.isDynamic()).andReturn(false);
+        expect(page.getRequestCycle()).andReturn(cycle);
+        expect(cycle.isRewinding()).andReturn(false);
+
+        trainResponseBuilder(cycle, writer);
+
+        builder.writeBodyScript(writer, cycle);
+        expectLastCall().andAnswer(newPrintAnswer(writer, "<script>body</script>"));
+
+        builder.writeInitializationScript(writer);
+        expectLastCall().andAnswer(newPrintAnswer(writer, "<script>init</script>"));
+
+        expect(cycle.renderStackPop()).andReturn(body);
+
+        replay();
+
+        body.addBody(content);
+        body.render(writer, cycle);
+
+        verify();
+
+        // The page's scripting and the initialization script come after the content, at the
+        // end of the body.
+
+        assertBuffer("\n<body>\ncontent<script>body</script><script>init</script></body>");
+    }
+}
@@ -0,0 +1,109 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.html;
+
+import static org.easymock.EasyMock.expect;
+
+import org.apache.tapestry.BaseComponentTestCase;
+import org.apache.tapestry.IMarkupWriter;
+import org.apache.tapestry.IPage;
+import org.apache.tapestry.IRender;
+import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.services.ResponseBuilder;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for the {@link Flush} component.
+ */
+@Test
+public class TestFlush extends BaseComponentTestCase
+{
+    public void test_Flush_When_Streaming()
+    {
+        IMarkupWriter writer = newWriter();
+        IRequestCycle cycle = newCycle(false, writer);
+        ResponseBuilder builder = newMock(ResponseBuilder.class);
+        IPage page = newMock(IPage.class);
+        IRender body = newRender();
+
+        Shell shell = newInstance(Shell.class, "stream", true, "builder", builder, "page", page);
+        Flush flush = newInstance(Flush.class, null);
+
+        expect(cycle.renderStackPush(flush)).andReturn(flush);
+
+        body.render(writer, cycle);
+
+        expect(cycle.getAttribute(Shell.SHELL_ATTRIBUTE)).andReturn(shell);
+
+        expect(builder.isDynamic()).andReturn(false);
+        expect(page.getRequestCycle()).andReturn(cycle);
+        expect(cycle.isRewinding()).andReturn(false);
+
+        writer.flush();
+
+        expect(cycle.renderStackPop()).andReturn(flush);
+
+        replay();
+
+        flush.addBody(body);
+        flush.render(writer, cycle);
+
+        verify();
+    }
+
+    public void test_No_Flush_When_Not_Streaming()
+    {
+        IMarkupWriter writer = newWriter();
+        IRequestCycle cycle = newCycle(false, writer);
+        IRender body = newRender();
+
+        Shell shell = newInstance(Shell.class, "stream", false);
+        Flush flush = newInstance(Flush.class, null);
+
+        expect(cycle.renderStackPush(flush)).andReturn(flush);
+
+        body.render(writer, cycle);
+
+        expect(cycle.getAttribute(Shell.SHELL_ATTRIBUTE)).andReturn(shell);
+
+        expect(cycle.renderStackPop()).andReturn(flush);
+
+        replay();
+
+        flush.addBody(body);
+        flush.render(writer, cycle);
+
+        verify();
+    }
+
+    public void test_No_Shell()
+    {
+        IMarkupWriter writer = newWriter();
+        IRequestCycle cycle = newMock(IRequestCycle.class);
+
+        Flush flush = newInstance(Flush.class, null);
+
+        expect(cycle.renderStackPush(flush)).andReturn(flush);
+        expect(cycle.isRewinding()).andReturn(false);
+        expect(cycle.getAttribute(Shell.SHELL_ATTRIBUTE)).andReturn(null);
+        expect(cycle.renderStackPop()).andReturn(flush);
+
+        replay();
+
+        flush.render(writer, cycle);
+
+        verify();
+    }
+}
@@ -14,11 +14,19 @@
 
 package org.apache.tapestry.html;
 
+import org.apache.tapestry.coerce.ValueConverter;
 import org.apache.tapestry.*;
+import org.apache.tapestry.markup.AsciiMarkupFilter;
+import org.apache.tapestry.markup.MarkupWriterImpl;
 import org.apache.tapestry.services.ResponseBuilder;
 import static org.easymock.EasyMock.expect;
 import org.testng.annotations.Test;
 
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -95,6 +103,117 @@ public class TestShell extends BaseComponentTestCase
         assertEquals(sb.toString(), "data");
     }    
 
+    public void test_Streaming()
+    {
+        ResponseBuilder builder = newMock(ResponseBuilder.class);
+        IRequestCycle cycle = newMock(IRequestCycle.class);
+        IPage page = newMock(IPage.class);
+
+        Shell shell = newInstance(Shell.class, "stream", true, "builder", builder, "page", page);
+
+        expect(builder.isDynamic()).andReturn(false);
+        expect(page.getRequestCycle()).andReturn(cycle);
+        expect(cycle.isRewinding()).andReturn(false);
+
+        replay();
+
+        assertTrue(shell.isStreaming());
+
+        verify();
+    }
+
+    public void test_Not_Streaming_Dynamic_Response()
+    {
+        ResponseBuilder builder = newMock(ResponseBuilder.class);
+
+        Shell shell = newInstance(Shell.class, "stream", true, "builder", builder);
+
+        expect(builder.isDynamic()).andReturn(true);
+
+        replay();
+
+        assertFalse(shell.isStreaming());
+
+        verify();
+    }
+
+    public void test_Not_Streaming_By_Default()
+    {
+        Shell shell = newInstance(Shell.class, null);
+
+        assertFalse(shell.isStreaming());
+    }
+
+    public void test_Render_Streamed()
+    {
+        final CharArrayWriter output = new CharArrayWriter();
+        final IMarkupWriter writer = new MarkupWriterImpl("text/html", new PrintWriter(
+                new BufferedWriter(output)), new AsciiMarkupFilter());
+        IRequestCycle cycle = newMock(IRequestCycle.class);
+        ResponseBuilder builder = newMock(ResponseBuilder.class);
+        ValueConverter converter = newMock(ValueConverter.class);
+
+        final Shell shell = newInstance(Shell.class, "stream", true, "builder", builder,
+                "valueConverter", converter, "disableTapestryMeta", true, "title", "Streamed");
+
+        final String[] flushedAtBody = new String[1];
+
+        IRender body = new IRender()
+        {
+            public void render(IMarkupWriter bodyWriter, IRequestCycle bodyCycle)
+            {
+                flushedAtBody[0] = output.toString();
+
+                bodyWriter.print("content");
+
+                shell.addRelation(newRelation("late.css"));
+                shell.includeAdditionalContent("<script>late</script>");
+            }
+        };
+
+        expect(cycle.renderStackPush(shell)).andReturn(shell);
+        trainStoreShellInCycle(cycle, shell);
+        expect(cycle.isRewinding()).andReturn(false);
+        expect(builder.isDynamic()).andReturn(false);
+        expect(converter.coerceValue(null, Iterator.class)).andReturn(Collections.EMPTY_LIST.iterator());
+        trainResponseBuilder(cycle, writer);
+        trainRemoveShellFromCycle(cycle);
+        expect(cycle.renderStackPop()).andReturn(shell);
+
+        replay();
+
+        shell.addRelation(newRelation("early.css"));
+        shell.includeAdditionalContent("<script>early</script>");
+        shell.addBody(body);
+
+        shell.render(writer, cycle);
+
+        writer.flush();
+
+        verify();
+
+        String head = "<html>\n<head>\n<title>Streamed</title>\n"
+                      + "<link rel=\"stylesheet\" href=\"early.css\" />\n"
+                      + "<script>early</script></head>\n";
+
+        // The head is complete, and flushed, before the body renders; anything contributed to the
+        // head while the body renders comes after the body.
+
+        assertEquals(flushedAtBody[0], head);
+        assertEquals(output.toString(), head + "content"
+                     + "<link rel=\"stylesheet\" href=\"late.css\" />\n"
+                     + "<script>late</script></html>\n");
+    }
+
+    private RelationBean newRelation(String href)
+    {
+        RelationBean result = new RelationBean();
+        result.setRel("stylesheet");
+        result.setHref(href);
+
+        return result;
+    }
+
     protected void trainStoreShellInCycle(IRequestCycle cycle, Shell shell)
     {
         expect(cycle.getAttribute(Shell.SHELL_ATTRIBUTE)).andReturn(null);
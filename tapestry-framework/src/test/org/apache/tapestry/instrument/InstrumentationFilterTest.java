@@ -0,0 +1,127 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.instrument;
+
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.isA;
+
+import java.io.IOException;
+
+import org.apache.commons.logging.Log;
+import org.apache.tapestry.BaseComponentTestCase;
+import org.apache.tapestry.services.WebRequestServicer;
+import org.apache.tapestry.web.WebRequest;
+import org.apache.tapestry.web.WebResponse;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link InstrumentationFilter}, {@link RequestTimings} and
+ * {@link HistogramInstrumentationSink}.
+ */
+@Test
+public class InstrumentationFilterTest extends BaseComponentTestCase
+{
+    public void test_Timings_Not_Bound_Outside_Request()
+    {
+        assertNull(RequestTimings.getCurrent());
+    }
+
+    public void test_Timings_Collected_And_Sent_To_Sink() throws Exception
+    {
+        WebRequest request = newMock(WebRequest.class);
+        WebResponse response = newMock(WebResponse.class);
+
+        WebRequestServicer servicer = new WebRequestServicer()
+        {
+            public void service(WebRequest request, WebResponse response) throws IOException
+            {
+                RequestTimings timings = RequestTimings.getCurrent();
+
+                assertNotNull(timings);
+
+                timings.record(RequestTimings.PAGE_CHECKOUT, "Home", timings.start());
+                timings.record(RequestTimings.RENDER, "Border.jwc", timings.start());
+                timings.record(RequestTimings.RENDER, "Border.jwc", timings.start());
+            }
+        };
+
+        HistogramInstrumentationSink sink = new HistogramInstrumentationSink();
+
+        replay();
+
+        InstrumentationFilter filter = new InstrumentationFilter();
+        filter.setSink(sink);
+
+        filter.service(request, response, servicer);
+
+        verify();
+
+        assertNull(RequestTimings.getCurrent());
+
+        assertEquals(sink.getRequestCount(), 1);
+        assertEquals(sink.getHistogram(RequestTimings.REQUEST).getCount(), 1);
+        assertEquals(sink.getHistogram("page-checkout:Home").getCount(), 1);
+        assertEquals(sink.getHistogram("render:Border.jwc").getCount(), 2);
+        assertNull(sink.getHistogram(RequestTimings.LISTENER));
+    }
+
+    public void test_Sink_Failure_Logged() throws Exception
+    {
+        WebRequest request = newMock(WebRequest.class);
+        WebResponse response = newMock(WebResponse.class);
+        WebRequestServicer servicer = newMock(WebRequestServicer.class);
+        InstrumentationSink sink = newMock(InstrumentationSink.class);
+        Log log = newMock(Log.class);
+
+        RuntimeException failure = new RuntimeException("Sink failure.");
+
+        servicer.service(request, response);
+        sink.requestCompleted(isA(RequestTimings.class));
+        expectLastCall().andThrow(failure);
+
+        log.warn("Unable to record request timings: Sink failure.", failure);
+
+        replay();
+
+        InstrumentationFilter filter = new InstrumentationFilter();
+        filter.setSink(sink);
+        filter.setLog(log);
+
+        filter.service(request, response, servicer);
+
+        verify();
+    }
+
+    public void test_Histogram_Buckets()
+    {
+        assertEquals(TimingHistogram.bucketFor(500), 0);
+        assertEquals(TimingHistogram.bucketFor(1000), 1);
+        assertEquals(TimingHistogram.bucketFor(3000), 2);
+        assertEquals(TimingHistogram.bucketFor(Long.MAX_VALUE), TimingHistogram.BUCKETS - 1);
+
+        TimingHistogram histogram = new TimingHistogram("render:Foo.jwc");
+
+        histogram.add(1, 3000);
+        histogram.add(2, 500);
+
+        assertEquals(histogram.getCount(), 3);
+        assertEquals(histogram.getNanos(), 3500);
+        assertEquals(histogram.getMaxNanos(), 3000);
+        assertEquals(histogram.getBucket(0), 1);
+        assertEquals(histogram.getBucket(2), 1);
+        assertEquals(histogram.toString(), "3 calls, 3 us total, 1 us average, 3 us max; <1us: 1, <4us: 1");
+    }
+}
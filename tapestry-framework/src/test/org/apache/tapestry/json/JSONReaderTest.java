@@ -0,0 +1,189 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.json;
+
+import java.io.StringReader;
+import java.text.ParseException;
+
+import org.apache.tapestry.BaseComponentTestCase;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link JSONReader}.
+ */
+@Test
+public class JSONReaderTest extends BaseComponentTestCase
+{
+    public void test_Pull_Tokens() throws Exception
+    {
+        JSONReader reader = new JSONReader("{\"id\": 42, \"tags\": [\"a\", true, null], \"ratio\": 0.25}");
+
+        assertEquals(reader.next(), JSONReader.START_OBJECT);
+
+        assertEquals(reader.next(), JSONReader.KEY);
+        assertTrue(reader.stringEquals("id"));
+        assertEquals(reader.next(), JSONReader.NUMBER);
+        assertTrue(reader.isIntegral());
+        assertEquals(reader.getInt(), 42);
+
+        assertEquals(reader.next(), JSONReader.KEY);
+        assertEquals(reader.getString(), "tags");
+        assertEquals(reader.next(), JSONReader.START_ARRAY);
+        assertEquals(reader.next(), JSONReader.STRING);
+        assertEquals(reader.getString(), "a");
+        assertEquals(reader.next(), JSONReader.BOOLEAN);
+        assertTrue(reader.getBoolean());
+        assertEquals(reader.next(), JSONReader.NULL);
+        assertEquals(reader.next(), JSONReader.END_ARRAY);
+
+        assertEquals(reader.next(), JSONReader.KEY);
+        assertEquals(reader.next(), JSONReader.NUMBER);
+        assertFalse(reader.isIntegral());
+        assertEquals(reader.getDouble(), 0.25d);
+
+        assertEquals(reader.next(), JSONReader.END_OBJECT);
+        assertEquals(reader.next(), JSONReader.END);
+    }
+
+    public void test_Skip_Value() throws Exception
+    {
+        JSONReader reader = new JSONReader("[{\"a\":[1,2,{\"b\":3}]},\"after\"]");
+
+        assertEquals(reader.next(), JSONReader.START_ARRAY);
+        assertEquals(reader.next(), JSONReader.START_OBJECT);
+
+        reader.skipValue();
+
+        assertEquals(reader.next(), JSONReader.STRING);
+        assertEquals(reader.getString(), "after");
+        assertEquals(reader.next(), JSONReader.END_ARRAY);
+    }
+
+    public void test_Long_Without_Loss() throws Exception
+    {
+        JSONReader reader = new JSONReader("[9007199254740993]");
+
+        reader.next();
+        reader.next();
+
+        assertTrue(reader.isIntegral());
+        assertEquals(reader.getLong(), 9007199254740993L);
+    }
+
+    public void test_Escapes_Across_Reader_Buffer() throws Exception
+    {
+        StringBuffer buffer = new StringBuffer("[\"");
+
+        for (int i = 0; i < 1500; i++)
+            buffer.append('x');
+
+        buffer.append("\\n\\u0041\"]");
+
+        JSONReader reader = new JSONReader(new StringReader(buffer.toString()));
+
+        reader.next();
+
+        assertEquals(reader.next(), JSONReader.STRING);
+
+        String value = reader.getString();
+
+        assertEquals(value.length(), 1502);
+        assertTrue(value.endsWith("x\nA"));
+    }
+
+    public void test_Key_Across_Reader_Buffer() throws Exception
+    {
+        // Moves the key over the end of the first buffer, including the case where the
+        // separator is only read after the buffer is refilled.
+
+        for (int padding = 990; padding < 1030; padding++)
+        {
+            StringBuffer buffer = new StringBuffer("{\"p\":\"");
+
+            for (int i = 0; i < padding; i++)
+                buffer.append('y');
+
+            buffer.append("\",\"keyname\"  :  1, \"q\": \"");
+
+            // Enough trailing content that the refill overwrites the whole buffer.
+
+            for (int i = 0; i < 1100; i++)
+                buffer.append('z');
+
+            buffer.append("\"}");
+
+            JSONObject object = new JSONObject(new JSONReader(new StringReader(buffer.toString())));
+
+            assertEquals(object.getInt("keyname"), 1, "padding " + padding);
+        }
+    }
+
+    @DataProvider(name = "lenientSources")
+    public Object[][] lenientSources()
+    {
+        return new Object[][] {
+            { "{a:1, 'b' : \"two\", c => [1,,0x1F, 010, 1.50, -3], d = true; e: null, f: tapestry.error,}" },
+            { "{/* comment */ \"x\": {\"y\": [ ]}, # line comment\n \"z\": \"<\\/script>\"}" },
+            { "{\"big\": 12345678901, \"neg\": -0.5e3, \"word\": -foo}" }
+        };
+    }
+
+    @Test(dataProvider = "lenientSources")
+    public void test_Same_Result_As_Tokener(String source) throws Exception
+    {
+        JSONObject expected = new JSONObject(new JSONTokener(source));
+        JSONObject actual = new JSONObject(new JSONReader(source));
+
+        assertEquals(actual.toString(), expected.toString());
+    }
+
+    public void test_Array_Compatibility() throws Exception
+    {
+        JSONArray array = new JSONArray("[1, \"two\", {\"three\": 3}]");
+
+        assertEquals(array.length(), 3);
+        assertEquals(array.get(0), new Integer(1));
+        assertEquals(array.getJSONObject(2).getInt("three"), 3);
+    }
+
+    public void test_Syntax_Error()
+    {
+        try
+        {
+            new JSONObject("{\"a\" 1}");
+            unreachable();
+        }
+        catch (ParseException ex)
+        {
+            assertEquals(ex.getMessage(), "Expected a ':' after a key at character 6 of {\"a\" 1>>missing value<<}");
+            assertEquals(ex.getErrorOffset(), 6);
+        }
+    }
+
+    public void test_Unterminated_String()
+    {
+        try
+        {
+            new JSONArray(new JSONReader(new StringReader("[\"abc")));
+            unreachable();
+        }
+        catch (ParseException ex)
+        {
+            assertTrue(ex.getMessage().startsWith("Unterminated string"));
+        }
+    }
+}
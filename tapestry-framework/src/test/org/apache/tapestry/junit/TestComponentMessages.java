@@ -406,4 +406,19 @@ public class TestComponentMessages extends TapestryTestCase
 
         check(messages, "library-overrides-application", "LIBRARY.override");
     }
+
+    public void test_Localized_Namespace_Falls_Back_To_Base()
+    {
+        Messages messages = createMessages(MOCK1, new Locale("fr"));
+
+        check(messages, "only-in-namespace", "LIBRARY_BASE.only-in-namespace");
+    }
+
+    public void test_Namespace_Messages_Without_Component_Properties()
+    {
+        Messages messages = createFullMessages("/org/apache/tapestry/junit/NoMessages.page", new Locale("fr"));
+
+        check(messages, "localized-in-namespace", "LIBRARY_FR.localized-in-namespace");
+        check(messages, "inherited.app.name", "Mock Wonder");
+    }
 }
@@ -0,0 +1,83 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.junit.parse;
+
+import org.apache.hivemind.Location;
+import org.apache.tapestry.BaseComponentTestCase;
+import org.apache.tapestry.parse.ComponentTemplate;
+import org.apache.tapestry.parse.OpenToken;
+import org.apache.tapestry.parse.TemplateTextPool;
+import org.apache.tapestry.parse.TemplateToken;
+import org.apache.tapestry.parse.TextToken;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link TemplateTextPool}.
+ */
+@Test
+public class TemplateTextPoolTest extends BaseComponentTestCase
+{
+    public void test_Text_Copied_Out_Of_Template()
+    {
+        Location l = fabricateLocation(1);
+        char[] data = "<p>Hello</p>".toCharArray();
+
+        TextToken token = new TextToken(data, 3, 7, l);
+
+        TextToken interned = new TemplateTextPool().intern(token);
+
+        assertEquals(interned.getTemplateDataAsString(), "Hello");
+        assertEquals(interned.getOffset(), 0);
+        assertEquals(interned.getLength(), 5);
+        assertSame(interned.getLocation(), l);
+    }
+
+    public void test_Identical_Text_Shared()
+    {
+        Location l = fabricateLocation(1);
+        TemplateTextPool pool = new TemplateTextPool();
+
+        TextToken first = pool.intern(new TextToken("<b>Hello</b>".toCharArray(), 3, 7, l));
+        TextToken second = pool.intern(new TextToken("Hello, world".toCharArray(), 0, 4, l));
+        TextToken other = pool.intern(new TextToken("world".toCharArray(), 0, 4, l));
+
+        assertEquals(pool.getSegmentCount(), 2);
+        assertEquals(pool.getCharacterCount(), 10);
+        assertEquals(second.getTemplateDataAsString(), first.getTemplateDataAsString());
+        assertEquals(other.getTemplateDataAsString(), "world");
+
+        pool.clear();
+
+        assertEquals(pool.getSegmentCount(), 0);
+    }
+
+    public void test_Compact_Template()
+    {
+        Location l = fabricateLocation(1);
+        char[] data = "abc<span jwcid='foo'>def</span>".toCharArray();
+
+        TemplateToken open = new OpenToken("span", "foo", null, l);
+        TemplateToken[] tokens = { new TextToken(data, 0, 2, l), open, new TextToken(data, 21, 23, l) };
+
+        ComponentTemplate template = new TemplateTextPool().compact(tokens);
+
+        assertNull(template.getTemplateData());
+        assertEquals(template.getTokenCount(), 3);
+        assertEquals(((TextToken) template.getToken(0)).getTemplateDataAsString(), "abc");
+        assertSame(template.getToken(1), open);
+        assertEquals(((TextToken) template.getToken(2)).getTemplateDataAsString(), "def");
+    }
+}
@@ -240,6 +240,39 @@ public class TestScript extends TapestryTestCase
         assertSymbol(symbols, "OGNL", "This is a brace: }.");
     }
 
+    /**
+     * Expressions are compiled on first execution; later executions of the same parsed script
+     * must still read the current symbols.
+     * 
+     * @since 4.1.7
+     */
+    public void testReexecuteCompiledScript() throws Exception
+    {
+        Map form = new HashMap();
+        form.put("name", "gallahad");
+
+        Map component = new HashMap();
+        component.put("form", form);
+        component.put("name", "lancelot");
+
+        Map symbols = new HashMap();
+        symbols.put("component", component);
+
+        IScript script = execute("ant-syntax.script", symbols);
+
+        assertSymbol(symbols, "functionName", "gallahad_lancelot");
+
+        component.put("name", "arthur");
+
+        symbols = new HashMap();
+        symbols.put("component", component);
+
+        script.execute(null, _processor, symbols);
+
+        assertSymbol(symbols, "functionName", "gallahad_arthur");
+        assertSymbol(symbols, "nopath", "This ${} ends up as literal.");
+    }
+
     public void testSet() throws Exception
     {
         Map symbols = new HashMap();
@@ -38,6 +38,8 @@ public class ListenerMethodHolder
 
     private ILink _link;
 
+    private ListenerTask _task;
+
     int _stringArgCount;
 
     public ListenerMethodHolder()
@@ -59,6 +61,11 @@ public class ListenerMethodHolder
         _page = page;
     }
 
+    public ListenerMethodHolder(ListenerTask task)
+    {
+        _task = task;
+    }
+
     public void stringArg(String value)
     {
         _stringArgCount++;
@@ -127,6 +134,11 @@ public class ListenerMethodHolder
         return 0;
     }
 
+    public ListenerTask returnsTask()
+    {
+        return _task;
+    }
+
     /**
      * Tapestry 3.0 and earlier style.
      */
@@ -15,7 +15,9 @@ package org.apache.tapestry.listener;
 
 import org.apache.tapestry.BaseComponentTestCase;
 import org.apache.tapestry.IRequestCycle;
+import org.apache.hivemind.ApplicationRuntimeException;
 import org.apache.tapestry.event.BrowserEvent;
+import org.apache.tapestry.services.ResponseBuilder;
 import static org.easymock.EasyMock.expect;
 import org.testng.annotations.Test;
 
@@ -113,6 +115,59 @@ public class ListenerMethodInvokerTest extends BaseComponentTestCase
         assertEquals(target._stringArgCount, 1);
     }
 
+    public void test_Returns_Task()
+    {
+        IRequestCycle cycle = newCycle();
+        ListenerTask task = newMock(ListenerTask.class);
+        ListenerTaskExecutor executor = newMock(ListenerTaskExecutor.class);
+        ResponseBuilder builder = newMock(ResponseBuilder.class);
+
+        ListenerMethodHolder target = new ListenerMethodHolder(task);
+
+        ListenerMethodInvoker invoker =
+            new ListenerMethodInvokerImpl("returnsTask", target.getClass().getDeclaredMethods(), executor);
+
+        expect(cycle.getListenerParameters()).andReturn(new Object[0]);
+        expect(executor.submit(task)).andReturn("token");
+        cycle.setAttribute(ListenerTaskExecutor.TOKEN_ATTRIBUTE, "token");
+        expect(cycle.getResponseBuilder()).andReturn(builder);
+        expect(builder.isDynamic()).andReturn(true);
+        builder.addStatusMessage(null, ListenerTaskExecutor.TOKEN_CATEGORY, "token");
+
+        replay();
+
+        invoker.invokeListenerMethod(target, cycle);
+
+        verify();
+    }
+
+    public void test_Returns_Task_Without_Executor()
+    {
+        IRequestCycle cycle = newCycle();
+        ListenerTask task = newMock(ListenerTask.class);
+
+        ListenerMethodHolder target = new ListenerMethodHolder(task);
+
+        ListenerMethodInvoker invoker =
+            new ListenerMethodInvokerImpl("returnsTask", target.getClass().getDeclaredMethods());
+
+        expect(cycle.getListenerParameters()).andReturn(new Object[0]);
+
+        replay();
+
+        try
+        {
+            invoker.invokeListenerMethod(target, cycle);
+            unreachable();
+        }
+        catch (ApplicationRuntimeException ex)
+        {
+            assertTrue(ex.getMessage().startsWith("Listener method 'returnsTask' of "));
+        }
+
+        verify();
+    }
+
     public void test_To_String()
     {
         ListenerMethodInvoker invoker =
@@ -0,0 +1,176 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.listener;
+
+import org.apache.commons.logging.impl.NoOpLog;
+import org.apache.hivemind.ApplicationRuntimeException;
+import org.apache.tapestry.BaseComponentTestCase;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link ListenerTaskExecutorImpl}.
+ */
+@Test
+public class ListenerTaskExecutorTest extends BaseComponentTestCase
+{
+    /**
+     * A task that blocks until released.
+     */
+    private static class BlockingTask implements ListenerTask
+    {
+        private boolean _released;
+
+        public synchronized Object execute() throws Exception
+        {
+            while (!_released)
+                wait();
+
+            return "done";
+        }
+
+        synchronized void release()
+        {
+            _released = true;
+            notifyAll();
+        }
+    }
+
+    private ListenerTaskExecutorImpl newExecutor(int threads, int queueSize)
+    {
+        ListenerTaskExecutorImpl executor = new ListenerTaskExecutorImpl();
+
+        executor.setLog(new NoOpLog());
+        executor.setThreads(threads);
+        executor.setQueueSize(queueSize);
+        executor.initializeService();
+
+        return executor;
+    }
+
+    private ListenerTaskStatus waitForCompletion(ListenerTaskExecutor executor, String token)
+        throws InterruptedException
+    {
+        for (int i = 0; i < 500; i++)
+        {
+            ListenerTaskStatus status = executor.getStatus(token);
+
+            if (status.isDone())
+                return status;
+
+            Thread.sleep(10);
+        }
+
+        throw new AssertionError("Task " + token + " did not complete.");
+    }
+
+    public void test_Task_Completes() throws Exception
+    {
+        ListenerTaskExecutorImpl executor = newExecutor(2, 10);
+
+        String token = executor.submit(new ListenerTask()
+        {
+            public Object execute()
+            {
+                return new Integer(42);
+            }
+        });
+
+        assertEquals(token.length(), 32);
+
+        ListenerTaskStatus status = waitForCompletion(executor, token);
+
+        assertEquals(status.getState(), ListenerTaskStatus.COMPLETE);
+        assertEquals(status.getResult(), new Integer(42));
+        assertNull(executor.getStatus("unknown"));
+
+        executor.registryDidShutdown();
+    }
+
+    public void test_Task_Fails() throws Exception
+    {
+        ListenerTaskExecutorImpl executor = newExecutor(1, 10);
+
+        final RuntimeException failure = new RuntimeException("Report unavailable.");
+
+        String token = executor.submit(new ListenerTask()
+        {
+            public Object execute()
+            {
+                throw failure;
+            }
+        });
+
+        ListenerTaskStatus status = waitForCompletion(executor, token);
+
+        assertEquals(status.getState(), ListenerTaskStatus.FAILED);
+        assertSame(status.getFailure(), failure);
+
+        executor.registryDidShutdown();
+    }
+
+    public void test_Queue_Full() throws Exception
+    {
+        ListenerTaskExecutorImpl executor = newExecutor(1, 1);
+
+        BlockingTask running = new BlockingTask();
+        BlockingTask queued = new BlockingTask();
+
+        String runningToken = executor.submit(running);
+        String queuedToken = executor.submit(queued);
+
+        try
+        {
+            executor.submit(new BlockingTask());
+            unreachable();
+        }
+        catch (ApplicationRuntimeException ex)
+        {
+            assertTrue(ex.getMessage().endsWith("there are already 1 tasks waiting to run."));
+        }
+
+        assertEquals(executor.getStatus(queuedToken).getState(), ListenerTaskStatus.PENDING);
+
+        running.release();
+        queued.release();
+
+        assertEquals(waitForCompletion(executor, runningToken).getResult(), "done");
+        assertEquals(waitForCompletion(executor, queuedToken).getResult(), "done");
+
+        executor.registryDidShutdown();
+    }
+
+    public void test_Finished_Tasks_Discarded_After_Retention() throws Exception
+    {
+        ListenerTaskExecutorImpl executor = newExecutor(1, 10);
+        executor.setRetention(-1);
+
+        String token = executor.submit(new ListenerTask()
+        {
+            public Object execute()
+            {
+                return null;
+            }
+        });
+
+        // Until done, the status is retained
+
+        for (int i = 0; i < 500 && executor.getStatus(token) != null; i++)
+            Thread.sleep(10);
+
+        assertNull(executor.getStatus(token));
+
+        executor.registryDidShutdown();
+    }
+}
@@ -76,6 +76,7 @@ public class TestListenerMapSource extends BaseComponentTestCase
         attemptReturnType(false, clazz, "returnsObject");
         attemptReturnType(false, clazz, "returnsInt");
         attemptReturnType(true, clazz, "returnsLink");
+        attemptReturnType(true, clazz, "returnsTask");
     }
 
     public void testFoundWithParameters()
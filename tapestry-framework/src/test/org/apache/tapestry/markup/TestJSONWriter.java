@@ -18,6 +18,8 @@ import java.io.PrintWriter;
 
 import org.apache.tapestry.BaseComponentTestCase;
 import org.apache.tapestry.json.IJSONWriter;
+import org.apache.tapestry.json.JSONArray;
+import org.apache.tapestry.json.JSONLiteral;
 import org.apache.tapestry.json.JSONObject;
 import org.testng.annotations.Test;
 
@@ -49,6 +51,137 @@ public class TestJSONWriter extends BaseComponentTestCase
         assertEquals(json.get("orange"), "orange");
     }
     
+    public void test_Tree_Written_On_Close()
+    {
+        JSONWriterImpl writer = newJSONWriter();
+
+        writer.object().put("red", "ball");
+        writer.object().put("count", 3);
+
+        writer.close();
+
+        assertEquals(outputBuffer.toString(), "{\"red\":\"ball\",\"count\":3}");
+    }
+
+    public void test_Stream_Nested_Blocks()
+    {
+        JSONWriterImpl writer = newJSONWriter();
+
+        writer.beginObject();
+        writer.key("name");
+        writer.value("fred");
+        writer.key("scores");
+        writer.beginArray();
+        writer.value(1);
+        writer.value(2.50d);
+        writer.value(true);
+        writer.value((Object) null);
+        writer.endArray();
+        writer.key("literal");
+        writer.value(new JSONLiteral("tapestry.error"));
+        writer.endObject();
+
+        writer.close();
+
+        assertEquals(outputBuffer.toString(),
+                     "{\"name\":\"fred\",\"scores\":[1,2.5,true,null],\"literal\":tapestry.error}");
+    }
+
+    public void test_Stream_Escaping()
+    {
+        JSONWriterImpl writer = newJSONWriter();
+
+        writer.beginArray();
+        writer.value("say \"hi\"\n</script>\\\u0001");
+        writer.endArray();
+
+        writer.close();
+
+        assertEquals(outputBuffer.toString(), "[\"say \\\"hi\\\"\\n<\\/script>\\\\\\u0001\"]");
+    }
+
+    public void test_Stream_Matches_Tree_Serialization()
+    {
+        JSONObject json = new JSONObject();
+        json.put("a", "x\ty");
+        json.put("b", new JSONArray().put(1).put("<b>"));
+
+        JSONWriterImpl writer = newJSONWriter();
+
+        writer.value(json);
+        writer.close();
+
+        assertEquals(outputBuffer.toString(), json.toString());
+    }
+
+    public void test_Close_Ends_Open_Blocks()
+    {
+        JSONWriterImpl writer = newJSONWriter();
+
+        writer.beginObject();
+        writer.key("list");
+        writer.beginArray();
+        writer.value("a");
+
+        writer.close();
+
+        assertEquals(outputBuffer.toString(), "{\"list\":[\"a\"]}");
+    }
+
+    public void test_Value_Without_Key()
+    {
+        JSONWriterImpl writer = newJSONWriter();
+
+        writer.beginObject();
+
+        try
+        {
+            writer.value("orphan");
+            unreachable();
+        }
+        catch (IllegalStateException ex)
+        {
+            assertEquals(ex.getMessage(), "A value written inside a JSON object must be preceded by a key.");
+        }
+    }
+
+    public void test_Tree_After_Streaming()
+    {
+        JSONWriterImpl writer = newJSONWriter();
+
+        writer.beginArray();
+
+        try
+        {
+            writer.object();
+            unreachable();
+        }
+        catch (IllegalStateException ex)
+        {
+            assertEquals(ex.getMessage(),
+                         "Can not use object() or array() once JSON content has been streamed for this response.");
+        }
+    }
+
+    public void test_Second_Root_Value()
+    {
+        JSONWriterImpl writer = newJSONWriter();
+
+        writer.beginObject();
+        writer.endObject();
+
+        try
+        {
+            writer.beginObject();
+            unreachable();
+        }
+        catch (IllegalStateException ex)
+        {
+            assertEquals(ex.getMessage(),
+                         "Can not stream a second top-level JSON value; a response contains a single JSON object or array.");
+        }
+    }
+
     /* All writer content is written to this buffer */
     protected ByteArrayOutputStream outputBuffer;
     
@@ -0,0 +1,275 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.multipart;
+
+import org.apache.hivemind.ApplicationRuntimeException;
+import org.apache.tapestry.TestBase;
+import org.apache.tapestry.request.IUploadFile;
+import org.testng.annotations.Test;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+
+import static org.easymock.EasyMock.checkOrder;
+import static org.easymock.EasyMock.expect;
+
+/**
+ * Tests for the streaming mode of {@link MultipartDecoderImpl}.
+ */
+@Test
+public class MultipartDecoderImplTest extends TestBase
+{
+    private static final String BOUNDARY = "----boundary";
+
+    private byte[] newBody(String fileContent)
+    {
+        String body = "--" + BOUNDARY + "\r\n"
+                      + "Content-Disposition: form-data; name=\"name\"\r\n\r\n"
+                      + "fred\r\n"
+                      + "--" + BOUNDARY + "\r\n"
+                      + "Content-Disposition: form-data; name=\"upload\"; filename=\"C:\\docs\\data.txt\"\r\n"
+                      + "Content-Type: text/plain\r\n\r\n"
+                      + fileContent + "\r\n"
+                      + "--" + BOUNDARY + "\r\n"
+                      + "Content-Disposition: form-data; name=\"name\"\r\n\r\n"
+                      + "barney\r\n"
+                      + "--" + BOUNDARY + "--\r\n";
+
+        return body.getBytes();
+    }
+
+    private HttpServletRequest newRequest(byte[] body) throws IOException
+    {
+        return newRequest(body, body.length);
+    }
+
+    private HttpServletRequest newRequest(byte[] body, int contentLength) throws IOException
+    {
+        final InputStream stream = new ByteArrayInputStream(body);
+
+        HttpServletRequest request = newMock(HttpServletRequest.class);
+        checkOrder(request, false);
+
+        expect(request.getCharacterEncoding()).andReturn(null).anyTimes();
+        expect(request.getContentType()).andReturn("multipart/form-data; boundary=" + BOUNDARY).anyTimes();
+        expect(request.getContentLength()).andReturn(contentLength).anyTimes();
+        expect(request.getParameterMap()).andReturn(new HashMap()).anyTimes();
+        expect(request.getInputStream()).andReturn(new ServletInputStream()
+        {
+            public int read() throws IOException
+            {
+                return stream.read();
+            }
+
+            public int read(byte[] b, int off, int len) throws IOException
+            {
+                return stream.read(b, off, len);
+            }
+        }).anyTimes();
+
+        return request;
+    }
+
+    private String read(IUploadFile file) throws IOException
+    {
+        InputStream stream = file.getStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        int b;
+        while ((b = stream.read()) >= 0)
+            out.write(b);
+
+        stream.close();
+
+        return out.toString();
+    }
+
+    public void test_Small_File_In_Memory() throws Exception
+    {
+        HttpServletRequest request = newRequest(newBody("small"));
+
+        replay();
+
+        MultipartDecoderImpl decoder = new MultipartDecoderImpl();
+        decoder.setStreaming(true);
+
+        HttpServletRequest decoded = decoder.decode(request);
+
+        assertEquals(decoded.getParameterValues("name"), new String[] { "fred", "barney" });
+
+        IUploadFile file = decoder.getFileUpload("upload");
+
+        assertEquals(file.getFileName(), "data.txt");
+        assertEquals(file.getContentType(), "text/plain");
+        assertEquals(file.getSize(), 5);
+        assertTrue(file.isInMemory());
+        assertEquals(read(file), "small");
+
+        decoder.cleanup();
+
+        verify();
+    }
+
+    public void test_Large_File_In_Repository() throws Exception
+    {
+        StringBuffer content = new StringBuffer();
+
+        for (int i = 0; i < 1000; i++)
+            content.append("line ").append(i).append('\n');
+
+        HttpServletRequest request = newRequest(newBody(content.toString()));
+
+        replay();
+
+        MultipartDecoderImpl decoder = new MultipartDecoderImpl();
+        decoder.setStreaming(true);
+
+        decoder.decode(request);
+
+        IUploadFile file = decoder.getFileUpload("upload");
+
+        assertFalse(file.isInMemory());
+        assertEquals(file.getSize(), content.length());
+        assertEquals(read(file), content.toString());
+
+        File target = File.createTempFile("target", ".txt");
+        target.delete();
+
+        file.write(target);
+
+        decoder.cleanup();
+
+        assertTrue(target.exists());
+        assertEquals(target.length(), content.length());
+
+        target.delete();
+
+        verify();
+    }
+
+    public void test_Concurrent_Limit_Exceeded() throws Exception
+    {
+        byte[] body = newBody("small");
+
+        HttpServletRequest request = newRequest(body);
+        HttpServletRequest second = newRequest(body);
+
+        replay();
+
+        UploadLimiter limiter = new UploadLimiter();
+        limiter.setMaxBytes(body.length + 10);
+        limiter.reserve(20);
+
+        MultipartDecoderImpl decoder = new MultipartDecoderImpl();
+        decoder.setStreaming(true);
+        decoder.setUploadLimiter(limiter);
+
+        try
+        {
+            decoder.decode(request);
+            unreachable();
+        }
+        catch (ApplicationRuntimeException ex)
+        {
+            assertEquals(ex.getMessage(), MultipartMessages.uploadLimitExceeded(body.length, body.length + 10));
+        }
+
+        decoder.cleanup();
+
+        assertEquals(limiter.getBytesInUse(), 20);
+
+        limiter.release(20);
+
+        decoder = new MultipartDecoderImpl();
+        decoder.setUploadLimiter(limiter);
+        decoder.setStreaming(true);
+
+        decoder.decode(second);
+
+        assertEquals(limiter.getBytesInUse(), body.length);
+
+        decoder.cleanup();
+
+        assertEquals(limiter.getBytesInUse(), 0);
+
+        verify();
+    }
+
+    public void test_Chunked_Request_Reserved_As_Read() throws Exception
+    {
+        byte[] body = newBody("small");
+
+        HttpServletRequest request = newRequest(body, -1);
+
+        replay();
+
+        UploadLimiter limiter = new UploadLimiter();
+        limiter.setMaxBytes(body.length);
+
+        MultipartDecoderImpl decoder = new MultipartDecoderImpl();
+        decoder.setMaxSize(-1);
+        decoder.setStreaming(true);
+        decoder.setUploadLimiter(limiter);
+
+        decoder.decode(request);
+
+        assertEquals(limiter.getBytesInUse(), body.length);
+
+        decoder.cleanup();
+
+        assertEquals(limiter.getBytesInUse(), 0);
+
+        verify();
+    }
+
+    public void test_Chunked_Request_Limit_Exceeded() throws Exception
+    {
+        byte[] body = newBody("small");
+
+        HttpServletRequest request = newRequest(body, -1);
+
+        replay();
+
+        UploadLimiter limiter = new UploadLimiter();
+        limiter.setMaxBytes(body.length - 1);
+
+        MultipartDecoderImpl decoder = new MultipartDecoderImpl();
+        decoder.setMaxSize(-1);
+        decoder.setUploadLimiter(limiter);
+
+        try
+        {
+            decoder.decode(request);
+            unreachable();
+        }
+        catch (ApplicationRuntimeException ex)
+        {
+            assertTrue(ex.getMessage().endsWith("the limit of " + (body.length - 1) + " bytes."));
+        }
+
+        decoder.cleanup();
+
+        assertEquals(limiter.getBytesInUse(), 0);
+
+        verify();
+    }
+}
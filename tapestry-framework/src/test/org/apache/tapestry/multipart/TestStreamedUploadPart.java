@@ -0,0 +1,94 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.multipart;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.tapestry.TestBase;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link StreamedUploadPart}.
+ */
+@Test
+public class TestStreamedUploadPart extends TestBase
+{
+    private File newFile(String content) throws IOException
+    {
+        File file = File.createTempFile("upload", ".txt");
+        file.deleteOnExit();
+
+        FileOutputStream out = new FileOutputStream(file);
+
+        try
+        {
+            out.write(content.getBytes("UTF-8"));
+        }
+        finally
+        {
+            out.close();
+        }
+
+        return file;
+    }
+
+    private String read(File file) throws IOException
+    {
+        FileInputStream in = new FileInputStream(file);
+
+        try
+        {
+            return IOUtils.toString(in, "UTF-8");
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    public void test_Second_Write_Copies() throws Exception
+    {
+        File content = newFile("streamed");
+
+        StreamedUploadPart part = new StreamedUploadPart("streamed.txt", "text/plain", content, 8);
+
+        File first = File.createTempFile("first", ".txt");
+        File second = File.createTempFile("second", ".txt");
+
+        first.deleteOnExit();
+        second.deleteOnExit();
+
+        part.write(first);
+        part.write(second);
+
+        // The first write moved the content file, the second must leave it in place.
+
+        assertEquals(read(first), "streamed");
+        assertEquals(read(second), "streamed");
+
+        part.write(first);
+
+        assertEquals(read(first), "streamed");
+
+        part.cleanup();
+
+        assertTrue(first.exists());
+        assertTrue(second.exists());
+    }
+}
@@ -0,0 +1,100 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.pageload;
+
+import org.apache.tapestry.BaseComponentTestCase;
+import org.apache.tapestry.INamespace;
+import org.apache.tapestry.pageload.PageBlueprint.ComponentBlueprint;
+import org.apache.tapestry.services.ComponentConstructor;
+import org.apache.tapestry.spec.IComponentSpecification;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tests for {@link PageBlueprintSourceImpl} and {@link PageBlueprint}.
+ */
+@Test
+public class PageBlueprintSourceTest extends BaseComponentTestCase
+{
+    public void test_Blueprint_Per_Page_And_Locale()
+    {
+        PageBlueprintSourceImpl source = new PageBlueprintSourceImpl();
+
+        PageBlueprint home = source.getBlueprint("Home", Locale.ENGLISH);
+
+        assertSame(source.getBlueprint("Home", Locale.ENGLISH), home);
+        assertNotSame(source.getBlueprint("Home", Locale.FRENCH), home);
+        assertNotSame(source.getBlueprint("Border", Locale.ENGLISH), home);
+
+        source.resetEventDidOccur();
+
+        assertNotSame(source.getBlueprint("Home", Locale.ENGLISH), home);
+    }
+
+    public void test_Component_Matched_On_Type()
+    {
+        IComponentSpecification spec = newMock(IComponentSpecification.class);
+        INamespace namespace = newMock(INamespace.class);
+        ComponentConstructor constructor = newMock(ComponentConstructor.class);
+
+        replay();
+
+        PageBlueprint blueprint = new PageBlueprint();
+        ComponentBlueprint component = new ComponentBlueprint("Insert", spec, namespace, constructor);
+
+        assertNull(blueprint.getComponent("border.insert", "Insert"));
+
+        blueprint.addComponent("border.insert", component);
+
+        assertSame(blueprint.getComponent("border.insert", "Insert"), component);
+        assertNull(blueprint.getComponent("border.insert", "Any"));
+        assertNull(blueprint.getComponent("border.other", "Insert"));
+
+        assertEquals(blueprint.getComponentCount(), 1);
+        assertEquals(blueprint.getHits(), 1);
+        assertEquals(blueprint.getMisses(), 3);
+
+        verify();
+    }
+
+    public void test_Assets_Matched_On_Specification()
+    {
+        IComponentSpecification spec = newMock(IComponentSpecification.class);
+        IComponentSpecification otherSpec = newMock(IComponentSpecification.class);
+        INamespace namespace = newMock(INamespace.class);
+        ComponentConstructor constructor = newMock(ComponentConstructor.class);
+
+        replay();
+
+        PageBlueprint blueprint = new PageBlueprint();
+        Map assets = new HashMap();
+
+        blueprint.addAssets(PageBlueprint.PAGE_PATH, spec, assets);
+
+        assertNull(blueprint.getAssets(PageBlueprint.PAGE_PATH, spec));
+
+        blueprint.addComponent(PageBlueprint.PAGE_PATH, new ComponentBlueprint("Home", spec, namespace, constructor));
+        blueprint.addAssets(PageBlueprint.PAGE_PATH, spec, assets);
+
+        assertSame(blueprint.getAssets(PageBlueprint.PAGE_PATH, spec), assets);
+        assertNull(blueprint.getAssets(PageBlueprint.PAGE_PATH, otherSpec));
+
+        verify();
+    }
+}
@@ -0,0 +1,55 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.scriptaculous;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.apache.tapestry.BaseComponentTestCase;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link PrefixIndex}.
+ */
+@Test
+public class PrefixIndexTest extends BaseComponentTestCase
+{
+    private PrefixIndex newIndex()
+    {
+        return new PrefixIndex(Arrays.asList(new Object[] { "Stimpy", "Ren", "stapler", null, "Cat", "Staple",
+                "Stapler", "Sta" }), Locale.ENGLISH);
+    }
+
+    public void test_Find()
+    {
+        PrefixIndex index = newIndex();
+
+        assertEquals(index.size(), 7);
+
+        assertEquals(index.find("sta", 10), Arrays.asList(new Object[] { "Sta", "Staple", "stapler", "Stapler" }));
+        assertEquals(index.find("STAPLER", 10), Arrays.asList(new Object[] { "stapler", "Stapler" }));
+        assertEquals(index.find("st", 2), Arrays.asList(new Object[] { "Sta", "Staple" }));
+        assertEquals(index.find("x", 10).size(), 0);
+        assertEquals(index.find("zz", 10).size(), 0);
+    }
+
+    public void test_Find_All()
+    {
+        PrefixIndex index = newIndex();
+
+        assertEquals(index.find(null, 3), Arrays.asList(new Object[] { "Cat", "Ren", "Sta" }));
+        assertEquals(index.find("", 0).size(), 0);
+    }
+}
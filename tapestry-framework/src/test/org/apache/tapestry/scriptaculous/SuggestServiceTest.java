@@ -0,0 +1,80 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.scriptaculous;
+
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isA;
+
+import java.io.CharArrayWriter;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.apache.tapestry.BaseComponentTestCase;
+import org.apache.tapestry.IMarkupWriter;
+import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.markup.MarkupWriterSource;
+import org.apache.tapestry.services.Infrastructure;
+import org.apache.tapestry.util.ContentType;
+import org.apache.tapestry.web.WebResponse;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link SuggestService}.
+ */
+@Test
+public class SuggestServiceTest extends BaseComponentTestCase
+{
+    public void test_Commits_Page_Changes_Before_Rendering_List() throws Exception
+    {
+        IRequestCycle cycle = newMock(IRequestCycle.class);
+        Infrastructure infrastructure = newMock(Infrastructure.class);
+        WebResponse response = newMock(WebResponse.class);
+        MarkupWriterSource source = newMock(MarkupWriterSource.class);
+        ListItemRenderer renderer = newMock(ListItemRenderer.class);
+        IMarkupWriter writer = newWriter();
+
+        PrintWriter printWriter = new PrintWriter(new CharArrayWriter());
+
+        cycle.commitPageChanges();
+
+        expect(cycle.getInfrastructure()).andReturn(infrastructure);
+        expect(infrastructure.getOutputEncoding()).andReturn("utf-8");
+
+        ContentType contentType = new ContentType("text/html;charset=utf-8");
+
+        expect(response.getPrintWriter(contentType)).andReturn(printWriter);
+        expect(source.newMarkupWriter(printWriter, contentType)).andReturn(writer);
+
+        renderer.renderList(eq(writer), eq(cycle), isA(Iterator.class));
+        writer.close();
+
+        replay();
+
+        Suggest suggest = newInstance(Suggest.class,
+                                      "searchText", "st",
+                                      "listSource", new PrefixIndex(Arrays.asList(new String[] { "Stimpy" })),
+                                      "listItemRenderer", renderer);
+
+        SuggestService service = new SuggestService();
+        service.setResponse(response);
+        service.setMarkupWriterSource(source);
+
+        service.renderResponse(cycle, suggest);
+
+        verify();
+    }
+}
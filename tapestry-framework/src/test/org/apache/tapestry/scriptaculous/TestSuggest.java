@@ -20,6 +20,7 @@ import static org.easymock.EasyMock.*;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -286,4 +287,48 @@ public class TestSuggest extends BaseComponentTestCase {
 
         assertBuffer("<ul><li>Foo</li><li>Stimpy</li><li>Cat</li></ul>");
     }
+
+    public void test_Render_List_From_Prefix_Index()
+    {
+        IRequestCycle cycle = newMock(IRequestCycle.class);
+        IMarkupWriter writer = newBufferWriter();
+
+        PrefixIndex index = new PrefixIndex(Arrays.asList(new String[] { "Foo", "Stimpy", "Stapler", "Cat" }));
+
+        Suggest comp = newInstance(Suggest.class,
+                                   "searchText", "st",
+                                   "listSource", index,
+                                   "listItemRenderer", DefaultListItemRenderer.SHARED_INSTANCE);
+
+        expect(cycle.isRewinding()).andReturn(false);
+
+        replay();
+
+        comp.renderList(writer, cycle);
+
+        verify();
+
+        assertBuffer("<ul><li>Stapler</li><li>Stimpy</li></ul>");
+    }
+
+    public void test_Trigger_Prefix_Index_Without_Listener()
+    {
+        IRequestCycle cycle = newMock(IRequestCycle.class);
+
+        Suggest comp = newInstance(Suggest.class,
+                                   "listSource", new PrefixIndex(new ArrayList()));
+
+        expect(cycle.getListenerParameters()).andReturn(new Object[] { "suggest" });
+        expect(cycle.getParameter("suggest")).andReturn("st");
+        cycle.setListenerParameters(aryEq(new Object[] { "st" }));
+
+        replay();
+
+        comp.trigger(cycle);
+
+        verify();
+
+        assertTrue(comp.isSearchTriggered());
+        assertEquals(comp.getSearchText(), "st");
+    }
 }
@@ -0,0 +1,94 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.services.impl;
+
+import static org.easymock.EasyMock.expect;
+
+import java.util.Locale;
+import java.util.Properties;
+
+import org.apache.hivemind.Messages;
+import org.apache.tapestry.BaseComponentTestCase;
+import org.apache.tapestry.IComponent;
+import org.apache.tapestry.IPage;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link ComponentMessagesSourceImpl}; most are in
+ * {@link org.apache.tapestry.junit.TestComponentMessages}.
+ */
+@Test
+public class ComponentMessagesSourceImplTest extends BaseComponentTestCase
+{
+    /**
+     * Overrides the deprecated extension point, the way pre-4.1.7 subclasses do.
+     */
+    public static class OverridingMessagesSource extends ComponentMessagesSourceImpl
+    {
+        protected Properties getLocalizedProperties(IComponent component)
+        {
+            Properties defaults = new Properties();
+            defaults.setProperty("inherited", "from defaults");
+
+            Properties result = new Properties(defaults);
+            result.setProperty("greeting", "Hello from " + component.getPage().getLocale());
+
+            return result;
+        }
+    }
+
+    public static class SubclassedMessagesSource extends OverridingMessagesSource
+    {
+    }
+
+    private IComponent newComponent(Locale locale)
+    {
+        IComponent component = newMock(IComponent.class);
+        IPage page = newMock(IPage.class);
+
+        expect(component.getPage()).andReturn(page).anyTimes();
+        expect(page.getLocale()).andReturn(locale).anyTimes();
+
+        return component;
+    }
+
+    public void test_Overridden_Localized_Properties_Used()
+    {
+        IComponent component = newComponent(Locale.FRENCH);
+
+        replay();
+
+        Messages messages = new OverridingMessagesSource().getMessages(component);
+
+        assertEquals(messages.getMessage("greeting"), "Hello from fr");
+        assertEquals(messages.getMessage("inherited"), "from defaults");
+
+        verify();
+    }
+
+    public void test_Override_In_Superclass_Used()
+    {
+        IComponent component = newComponent(Locale.GERMAN);
+
+        replay();
+
+        Messages messages = new SubclassedMessagesSource().getMessages(component);
+
+        assertEquals(messages.getMessage("greeting"), "Hello from de");
+
+        verify();
+    }
+}
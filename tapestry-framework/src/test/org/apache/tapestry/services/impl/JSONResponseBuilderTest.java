@@ -0,0 +1,146 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.services.impl;
+
+import static org.easymock.EasyMock.checkOrder;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.isA;
+
+import java.io.CharArrayWriter;
+import java.io.PrintWriter;
+
+import org.apache.tapestry.BaseComponentTestCase;
+import org.apache.tapestry.IComponent;
+import org.apache.tapestry.IJSONRender;
+import org.apache.tapestry.IMarkupWriter;
+import org.apache.tapestry.IRequestCycle;
+import org.apache.tapestry.asset.AssetFactory;
+import org.apache.tapestry.json.IJSONStreamWriter;
+import org.apache.tapestry.json.IJSONWriter;
+import org.apache.tapestry.json.JSONObject;
+import org.apache.tapestry.markup.JSONWriterImpl;
+import org.easymock.IAnswer;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link JSONResponseBuilder}.
+ */
+@Test
+public class JSONResponseBuilderTest extends BaseComponentTestCase
+{
+    public static interface JSONComponent extends IComponent, IJSONRender
+    {
+    }
+
+    /**
+     * A part that renders like Autocompleter: streamed when it can be, into the tree otherwise.
+     */
+    private JSONComponent newPart(String clientId, final String key, final String value)
+    {
+        JSONComponent part = newMock(JSONComponent.class);
+
+        checkOrder(part, false);
+
+        expect(part.peekClientId()).andReturn(clientId).anyTimes();
+
+        part.renderComponent(isA(IJSONWriter.class), isA(IRequestCycle.class));
+        expectLastCall().andAnswer(new IAnswer()
+        {
+            public Object answer()
+            {
+                IJSONWriter writer = (IJSONWriter) getCurrentArguments()[0];
+
+                if (writer instanceof IJSONStreamWriter)
+                {
+                    IJSONStreamWriter stream = (IJSONStreamWriter) writer;
+
+                    stream.beginObject();
+                    stream.key(key);
+                    stream.value(value);
+                    stream.endObject();
+                }
+                else
+                    writer.object().put(key, value);
+
+                return null;
+            }
+        });
+
+        part.render(isA(IMarkupWriter.class), isA(IRequestCycle.class));
+
+        return part;
+    }
+
+    private JSONResponseBuilder newBuilder(IRequestCycle cycle, CharArrayWriter output)
+    {
+        JSONResponseBuilder builder = new JSONResponseBuilder(cycle, null, null, null, null,
+                newMock(AssetFactory.class), "");
+
+        builder._writer = new JSONWriterImpl(new PrintWriter(output));
+
+        return builder;
+    }
+
+    public void test_Single_Part_Streams()
+    {
+        IRequestCycle cycle = newMock(IRequestCycle.class);
+        CharArrayWriter output = new CharArrayWriter();
+
+        JSONResponseBuilder builder = newBuilder(cycle, output);
+        builder.updateComponent("first");
+
+        JSONComponent part = newPart("first", "red", "ball");
+
+        replay();
+
+        assertSame(builder.getComponentWriter(part), builder._writer);
+
+        builder.render(null, part, cycle);
+        builder._writer.close();
+
+        verify();
+
+        assertEquals(output.toString(), "{\"red\":\"ball\"}");
+    }
+
+    public void test_Two_Parts_Merged() throws Exception
+    {
+        IRequestCycle cycle = newMock(IRequestCycle.class);
+        CharArrayWriter output = new CharArrayWriter();
+
+        JSONResponseBuilder builder = newBuilder(cycle, output);
+        builder.updateComponent("first");
+        builder.updateComponent("second");
+
+        JSONComponent first = newPart("first", "red", "ball");
+        JSONComponent second = newPart("second", "black", "cat");
+
+        replay();
+
+        builder.render(null, first, cycle);
+        builder.render(null, second, cycle);
+        builder._writer.close();
+
+        verify();
+
+        JSONObject json = new JSONObject(output.toString());
+
+        assertEquals(json.length(), 2);
+        assertEquals(json.getString("red"), "ball");
+        assertEquals(json.getString("black"), "cat");
+    }
+}
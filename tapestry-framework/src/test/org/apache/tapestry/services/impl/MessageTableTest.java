@@ -0,0 +1,96 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.services.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap;
+import edu.emory.mathcs.backport.java.util.concurrent.ConcurrentMap;
+import org.apache.tapestry.BaseComponentTestCase;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link MessageTable}.
+ */
+@Test
+public class MessageTableTest extends BaseComponentTestCase
+{
+    public void test_Lookup()
+    {
+        Map messages = new HashMap();
+
+        for (int i = 0; i < 100; i++)
+            messages.put("key" + i, "value" + i);
+
+        messages.put("not-a-string", new Integer(5));
+
+        MessageTable table = MessageTable.newTable(messages, null);
+
+        assertEquals(table.size(), 100);
+
+        for (int i = 0; i < 100; i++)
+            assertEquals(table.get("key" + i), "value" + i);
+
+        assertNull(table.get("key100"));
+        assertNull(table.get("not-a-string"));
+        assertNull(table.get(null));
+    }
+
+    public void test_Colliding_Keys()
+    {
+        // "Aa" and "BB" have the same hash code.
+
+        Map messages = new HashMap();
+        messages.put("Aa", "first");
+        messages.put("BB", "second");
+
+        MessageTable table = MessageTable.newTable(messages, null);
+
+        assertEquals(table.get("Aa"), "first");
+        assertEquals(table.get("BB"), "second");
+        assertNull(table.get("AaBB"));
+    }
+
+    public void test_Empty()
+    {
+        assertNull(MessageTable.EMPTY.get("any"));
+        assertEquals(MessageTable.newTable(new HashMap(), null).size(), 0);
+    }
+
+    public void test_Keys_Are_Interned()
+    {
+        ConcurrentMap pool = new ConcurrentHashMap();
+
+        Map english = new HashMap();
+        english.put(new String("greeting"), "Hello");
+
+        Map french = new HashMap();
+        french.put(new String("greeting"), "Bonjour");
+
+        MessageTable.newTable(english, pool);
+        MessageTable table = MessageTable.newTable(french, pool);
+
+        assertEquals(pool.size(), 1);
+
+        Map copy = new HashMap();
+        table.copyInto(copy);
+
+        String key = (String) copy.keySet().iterator().next();
+
+        assertSame(key, pool.get("greeting"));
+        assertEquals(copy.get("greeting"), "Bonjour");
+    }
+}
@@ -0,0 +1,196 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.services.impl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hivemind.ApplicationRuntimeException;
+import org.apache.tapestry.BaseComponentTestCase;
+import org.apache.tapestry.listener.ListenerTask;
+import org.apache.tapestry.services.PreparedRegion;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link RegionPreparerImpl}.
+ */
+@Test
+public class RegionPreparerImplTest extends BaseComponentTestCase
+{
+    private RegionPreparerImpl newPreparer(int threads, int queueSize, long timeout)
+    {
+        RegionPreparerImpl preparer = new RegionPreparerImpl();
+
+        preparer.setServiceId("tapestry.render.RegionPreparer");
+        preparer.setThreads(threads);
+        preparer.setQueueSize(queueSize);
+        preparer.setTimeout(timeout);
+        preparer.initializeService();
+
+        return preparer;
+    }
+
+    /**
+     * Each task waits until both are running, so they can only complete if they run concurrently.
+     */
+    private ListenerTask newRendezvousTask(final CountDownLatch latch, final Object result)
+    {
+        return new ListenerTask()
+        {
+            public Object execute()
+                throws Exception
+            {
+                latch.countDown();
+
+                if (!latch.await(5, TimeUnit.SECONDS))
+                    throw new IllegalStateException("Tasks did not run concurrently.");
+
+                return result;
+            }
+        };
+    }
+
+    private ListenerTask newBlockingTask(final CountDownLatch release)
+    {
+        return new ListenerTask()
+        {
+            public Object execute()
+                throws Exception
+            {
+                release.await(5, TimeUnit.SECONDS);
+
+                return "blocked";
+            }
+        };
+    }
+
+    public void test_Tasks_Run_Concurrently()
+    {
+        RegionPreparerImpl preparer = newPreparer(2, 10, 10000);
+
+        CountDownLatch latch = new CountDownLatch(2);
+
+        PreparedRegion first = preparer.prepare(newRendezvousTask(latch, "first"));
+        PreparedRegion second = preparer.prepare(newRendezvousTask(latch, "second"));
+
+        assertEquals(first.getValue(), "first");
+        assertEquals(second.getValue(), "second");
+
+        preparer.registryDidShutdown();
+    }
+
+    public void test_Rejected_Task_Runs_Inline()
+    {
+        RegionPreparerImpl preparer = newPreparer(1, 1, 10000);
+
+        CountDownLatch release = new CountDownLatch(1);
+
+        PreparedRegion blocked = preparer.prepare(newBlockingTask(release));
+        PreparedRegion queued = preparer.prepare(newBlockingTask(release));
+
+        final Thread caller = Thread.currentThread();
+
+        PreparedRegion rejected = preparer.prepare(new ListenerTask()
+        {
+            public Object execute()
+            {
+                return Boolean.valueOf(Thread.currentThread() == caller);
+            }
+        });
+
+        assertEquals(rejected.getValue(), Boolean.TRUE);
+
+        release.countDown();
+
+        assertEquals(blocked.getValue(), "blocked");
+        assertEquals(queued.getValue(), "blocked");
+
+        preparer.registryDidShutdown();
+    }
+
+    public void test_Task_Failure()
+    {
+        RegionPreparerImpl preparer = newPreparer(1, 10, 10000);
+
+        final Exception failure = new Exception("Database is down.");
+
+        PreparedRegion prepared = preparer.prepare(new ListenerTask()
+        {
+            public Object execute()
+                throws Exception
+            {
+                throw failure;
+            }
+
+            public String toString()
+            {
+                return "<Task>";
+            }
+        });
+
+        try
+        {
+            prepared.getValue();
+            unreachable();
+        }
+        catch (ApplicationRuntimeException ex)
+        {
+            assertSame(ex.getCause(), failure);
+            assertTrue(ex.getMessage().startsWith("Region preparation task <Task> failed:"));
+        }
+
+        preparer.registryDidShutdown();
+    }
+
+    public void test_Timeout()
+        throws Exception
+    {
+        RegionPreparerImpl preparer = newPreparer(1, 10, 50);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        PreparedRegion prepared = preparer.prepare(new ListenerTask()
+        {
+            public Object execute()
+                throws Exception
+            {
+                started.countDown();
+
+                return newBlockingTask(release).execute();
+            }
+        });
+
+        // Make sure the pool thread, not this one, is executing the task.
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        try
+        {
+            prepared.getValue();
+            unreachable();
+        }
+        catch (ApplicationRuntimeException ex)
+        {
+            assertTrue(ex.getMessage().endsWith("did not complete within 50 milliseconds."));
+        }
+        finally
+        {
+            release.countDown();
+        }
+
+        preparer.registryDidShutdown();
+    }
+}
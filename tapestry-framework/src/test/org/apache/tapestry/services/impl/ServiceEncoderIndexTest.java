@@ -0,0 +1,116 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.apache.tapestry.services.impl;
+
+import java.util.Arrays;
+
+import org.apache.tapestry.BaseComponentTestCase;
+import org.apache.tapestry.engine.ServiceEncoder;
+import org.apache.tapestry.engine.ServiceEncodingImpl;
+import org.apache.tapestry.engine.encoders.AssetEncoder;
+import org.apache.tapestry.engine.encoders.DirectServiceEncoder;
+import org.apache.tapestry.engine.encoders.PageServiceEncoder;
+import org.apache.tapestry.engine.encoders.ServiceExtensionEncoder;
+import org.apache.tapestry.services.ServiceConstants;
+import org.apache.tapestry.util.QueryParameterMap;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link ServiceEncoderIndex}.
+ */
+@Test
+public class ServiceEncoderIndexTest extends BaseComponentTestCase
+{
+    private PageServiceEncoder _page;
+
+    private DirectServiceEncoder _direct;
+
+    private AssetEncoder _asset;
+
+    private ServiceExtensionEncoder _extension;
+
+    private ServiceEncoder[] newEncoders(ServiceEncoder custom)
+    {
+        _page = new PageServiceEncoder();
+        _page.setServiceName("page");
+        _page.setExtension("html");
+
+        _direct = new DirectServiceEncoder();
+        _direct.setStatefulExtension("sdirect");
+        _direct.setStatelessExtension("direct");
+
+        _asset = new AssetEncoder();
+        _asset.setPath("/assets");
+
+        _extension = new ServiceExtensionEncoder();
+        _extension.setExtension("svc");
+
+        return custom == null ? new ServiceEncoder[] { _page, _direct, _asset, _extension }
+                : new ServiceEncoder[] { _page, custom, _direct, _asset, _extension };
+    }
+
+    public void test_Candidates_By_Extension()
+    {
+        ServiceEncoderIndex index = new ServiceEncoderIndex(newEncoders(null));
+
+        assertEquals(Arrays.asList(index.getCandidates("/Home.html")), Arrays.asList(new ServiceEncoder[] { _page }));
+        assertEquals(Arrays.asList(index.getCandidates("/Home,link.sdirect")), Arrays.asList(new ServiceEncoder[] { _direct }));
+        assertEquals(Arrays.asList(index.getCandidates("/restart.svc")), Arrays.asList(new ServiceEncoder[] { _extension }));
+    }
+
+    public void test_Candidates_By_Path()
+    {
+        ServiceEncoderIndex index = new ServiceEncoderIndex(newEncoders(null));
+
+        assertEquals(Arrays.asList(index.getCandidates("/assets")), Arrays.asList(new ServiceEncoder[] { _asset }));
+        assertEquals(index.getCandidates("/app").length, 0);
+    }
+
+    public void test_Unindexed_Encoders_Always_Consulted_In_Order()
+    {
+        ServiceEncoder custom = newMock(ServiceEncoder.class);
+
+        ServiceEncoderIndex index = new ServiceEncoderIndex(newEncoders(custom));
+
+        assertEquals(Arrays.asList(index.getCandidates("/Home.html")), Arrays.asList(new ServiceEncoder[] { _page, custom }));
+        assertEquals(Arrays.asList(index.getCandidates("/assets")), Arrays.asList(new ServiceEncoder[] { custom, _asset }));
+        assertEquals(Arrays.asList(index.getCandidates("/app")), Arrays.asList(new ServiceEncoder[] { custom }));
+    }
+
+    public void test_Decode()
+    {
+        ServiceEncoderIndex index = new ServiceEncoderIndex(newEncoders(null));
+
+        QueryParameterMap parameters = new QueryParameterMap();
+        ServiceEncodingImpl encoding = new ServiceEncodingImpl("/Home.html", null, parameters);
+
+        index.decode(encoding);
+
+        assertTrue(encoding.isModified());
+        assertEquals(parameters.getParameterValue(ServiceConstants.SERVICE), "page");
+        assertEquals(parameters.getParameterValue(ServiceConstants.PAGE), "Home");
+    }
+
+    public void test_Decode_No_Match()
+    {
+        ServiceEncoderIndex index = new ServiceEncoderIndex(newEncoders(null));
+
+        ServiceEncodingImpl encoding = new ServiceEncodingImpl("/app", null, new QueryParameterMap());
+
+        index.decode(encoding);
+
+        assertFalse(encoding.isModified());
+    }
+}
@@ -18,8 +18,10 @@ import static org.easymock.EasyMock.expect;
 
 import java.util.Locale;
 
+import org.apache.hivemind.service.impl.ThreadLocaleImpl;
 import org.apache.tapestry.BaseComponentTestCase;
 import org.apache.tapestry.IEngine;
+import org.apache.tapestry.engine.BaseEngine;
 import org.apache.tapestry.services.EngineFactory;
 import org.apache.tapestry.services.ObjectPool;
 import org.apache.tapestry.services.RequestLocaleManager;
@@ -119,4 +121,104 @@ public class TestEngineManager extends BaseComponentTestCase
         verify();
     }
 
-}
\ No newline at end of file
+    public void test_Shared_Engine()
+    {
+        RequestLocaleManager extractor = newMock(RequestLocaleManager.class);
+        ObjectPool pool = newMock(ObjectPool.class);
+        EngineFactory factory = newMock(EngineFactory.class);
+
+        BaseEngine engine = new BaseEngine();
+        engine.setLocale(Locale.CHINESE);
+
+        expect(extractor.extractLocaleForCurrentRequest()).andReturn(Locale.CHINESE).times(2);
+
+        // Consulted once, when the shared engine doesn't exist yet.
+
+        expect(pool.get(Locale.CHINESE)).andReturn(null);
+        expect(factory.constructNewEngineInstance(Locale.CHINESE)).andReturn(engine);
+
+        replay();
+
+        EngineManagerImpl m = new EngineManagerImpl();
+
+        m.setEnginePool(pool);
+        m.setLocaleManager(extractor);
+        m.setEngineFactory(factory);
+        m.setSharedEngines(true);
+        m.setThreadLocale(new ThreadLocaleImpl(Locale.CHINESE));
+
+        assertSame(m.getEngineInstance(), engine);
+        assertTrue(engine.isShared());
+
+        // Storing a shared engine doesn't involve the pool.
+
+        m.storeEngineInstance(engine);
+
+        assertSame(m.getEngineInstance(), engine);
+
+        verify();
+    }
+
+    public void test_Shared_Engines_Discarded_On_Reset()
+    {
+        RequestLocaleManager extractor = newMock(RequestLocaleManager.class);
+        ObjectPool pool = newMock(ObjectPool.class);
+        EngineFactory factory = newMock(EngineFactory.class);
+
+        BaseEngine first = new BaseEngine();
+        BaseEngine second = new BaseEngine();
+
+        expect(extractor.extractLocaleForCurrentRequest()).andReturn(Locale.KOREAN).times(2);
+        expect(pool.get(Locale.KOREAN)).andReturn(null).times(2);
+        expect(factory.constructNewEngineInstance(Locale.KOREAN)).andReturn(first);
+        expect(factory.constructNewEngineInstance(Locale.KOREAN)).andReturn(second);
+
+        replay();
+
+        EngineManagerImpl m = new EngineManagerImpl();
+
+        m.setEnginePool(pool);
+        m.setLocaleManager(extractor);
+        m.setEngineFactory(factory);
+        m.setSharedEngines(true);
+        m.setThreadLocale(new ThreadLocaleImpl(Locale.KOREAN));
+
+        assertSame(m.getEngineInstance(), first);
+
+        m.resetEventDidOccur();
+
+        assertSame(m.getEngineInstance(), second);
+
+        verify();
+    }
+
+    public void test_Shared_Mode_Pools_Other_Engines()
+    {
+        RequestLocaleManager extractor = newMock(RequestLocaleManager.class);
+        ObjectPool pool = newMock(ObjectPool.class);
+        EngineFactory factory = newMock(EngineFactory.class);
+        IEngine engine = newMock(IEngine.class);
+
+        expect(extractor.extractLocaleForCurrentRequest()).andReturn(Locale.CHINESE);
+        expect(pool.get(Locale.CHINESE)).andReturn(null);
+        expect(factory.constructNewEngineInstance(Locale.CHINESE)).andReturn(engine);
+
+        expect(engine.getLocale()).andReturn(Locale.CHINESE);
+        pool.store(Locale.CHINESE, engine);
+
+        replay();
+
+        EngineManagerImpl m = new EngineManagerImpl();
+
+        m.setEnginePool(pool);
+        m.setLocaleManager(extractor);
+        m.setEngineFactory(factory);
+        m.setSharedEngines(true);
+
+        assertSame(m.getEngineInstance(), engine);
+
+        m.storeEngineInstance(engine);
+
+        verify();
+    }
+}
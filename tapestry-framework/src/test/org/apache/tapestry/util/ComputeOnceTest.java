@@ -0,0 +1,154 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.util;
+
+import edu.emory.mathcs.backport.java.util.concurrent.Callable;
+import edu.emory.mathcs.backport.java.util.concurrent.CountDownLatch;
+import edu.emory.mathcs.backport.java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hivemind.ApplicationRuntimeException;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests for {@link ComputeOnce}.
+ */
+@Test(timeOut = 10000)
+public class ComputeOnceTest
+{
+    public void test_Result_Returned()
+    {
+        ComputeOnce computeOnce = new ComputeOnce();
+
+        Object result = computeOnce.compute("key", new Callable()
+        {
+            public Object call()
+            {
+                return "value";
+            }
+        });
+
+        assertEquals(result, "value");
+        assertEquals(computeOnce.getInFlightCount(), 0);
+    }
+
+    public void test_Runtime_Exception_Rethrown()
+    {
+        ComputeOnce computeOnce = new ComputeOnce();
+        final RuntimeException failure = new IllegalStateException("failed");
+
+        try
+        {
+            computeOnce.compute("key", new Callable()
+            {
+                public Object call()
+                {
+                    throw failure;
+                }
+            });
+
+            fail("Expected exception.");
+        }
+        catch (IllegalStateException ex)
+        {
+            assertSame(ex, failure);
+        }
+
+        assertEquals(computeOnce.getInFlightCount(), 0);
+    }
+
+    public void test_Checked_Exception_Wrapped()
+    {
+        ComputeOnce computeOnce = new ComputeOnce();
+
+        try
+        {
+            computeOnce.compute("key", new Callable()
+            {
+                public Object call() throws Exception
+                {
+                    throw new Exception("failed");
+                }
+            });
+
+            fail("Expected exception.");
+        }
+        catch (ApplicationRuntimeException ex)
+        {
+            assertEquals(ex.getRootCause().getMessage(), "failed");
+        }
+    }
+
+    public void test_Concurrent_Requests_Share_Computation() throws Exception
+    {
+        final ComputeOnce computeOnce = new ComputeOnce();
+        final AtomicInteger computations = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final Callable slow = new Callable()
+        {
+            public Object call() throws Exception
+            {
+                computations.incrementAndGet();
+                started.countDown();
+                release.await();
+
+                return "value";
+            }
+        };
+
+        final Object[] results = new Object[2];
+
+        Thread first = new Thread()
+        {
+            public void run()
+            {
+                results[0] = computeOnce.compute("key", slow);
+            }
+        };
+
+        first.start();
+        started.await();
+
+        Thread second = new Thread()
+        {
+            public void run()
+            {
+                results[1] = computeOnce.compute("key", slow);
+            }
+        };
+
+        second.start();
+
+        // Wait for the second thread to block on the in-flight computation.
+
+        while (second.getState() != Thread.State.WAITING)
+            Thread.sleep(5);
+
+        assertEquals(computeOnce.getInFlightCount(), 1);
+
+        release.countDown();
+
+        first.join();
+        second.join();
+
+        assertEquals(computations.get(), 1);
+        assertEquals(results[0], "value");
+        assertEquals(results[1], "value");
+        assertEquals(computeOnce.getInFlightCount(), 0);
+    }
+}
@@ -0,0 +1,97 @@
+// Copyright 2008 The Apache Software Foundation
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package org.apache.tapestry.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tapestry.BaseComponentTestCase;
+import org.apache.tapestry.describe.DescriptionReceiver;
+import org.apache.tapestry.event.ReportStatusEvent;
+import org.testng.annotations.Test;
+
+import edu.emory.mathcs.backport.java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Tests for {@link DaemonThreadPool}.
+ */
+@Test
+public class DaemonThreadPoolTest extends BaseComponentTestCase
+{
+    public void test_Full_Queue_Rejects() throws Exception
+    {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread[] thread = new Thread[1];
+
+        Runnable blocker = new Runnable()
+        {
+            public void run()
+            {
+                thread[0] = Thread.currentThread();
+
+                started.countDown();
+
+                try
+                {
+                    release.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException ex)
+                {
+                    // Done.
+                }
+            }
+        };
+
+        DaemonThreadPool pool = new DaemonThreadPool("Test pool", 1, 1);
+
+        pool.execute(blocker);
+
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        assertEquals(thread[0].getName(), "Test pool 0");
+        assertTrue(thread[0].isDaemon());
+
+        DescriptionReceiver receiver = newMock(DescriptionReceiver.class);
+
+        receiver.property("threads", 1);
+        receiver.property("active threads", 1);
+        receiver.property("queue size", 1);
+        receiver.property("queued tasks", 1);
+
+        replay();
+
+        pool.execute(blocker);
+
+        pool.reportStatus(new ReportStatusEvent(this, receiver));
+
+        try
+        {
+            pool.execute(blocker);
+            unreachable();
+        }
+        catch (RejectedExecutionException ex)
+        {
+            // Expected.
+        }
+
+        release.countDown();
+
+        pool.shutdown(10000);
+
+        verify();
+    }
+}